@@ -0,0 +1,94 @@
+package com.example.Inventario.benchmark;
+
+import com.example.Inventario.client.ProductoCache;
+import com.example.Inventario.dto.InventarioResponseDto;
+import com.example.Inventario.dto.ProductoDto;
+import com.example.Inventario.model.Inventario;
+import com.example.Inventario.repository.InventarioRepository;
+import com.example.Inventario.service.InventarioService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mide la latencia de {@link InventarioService#getInventarioByProductoId} con retardo en la base de datos y en el
+ * servicio de productos a la vez, frente a la misma consulta hecha en secuencia.
+ * <p>
+ * {@code solapada} es el camino del servicio, que lee el inventario mientras la consulta del producto avanza en
+ * segundo plano, así que debería tardar algo más que el mayor de los dos retardos. {@code secuencial} reproduce
+ * la versión anterior, que esperaba al inventario y después al producto, y debería tardar su suma. La caché de
+ * productos está vacía ({@code productos.cache.tamano-maximo=0}) para que cada consulta pague la latencia remota.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(1)
+public class ConsultaSolapadaBenchmark {
+
+    private static final int PRODUCTOS = 1_000;
+
+    @Param({"5", "20"})
+    public int latenciaBaseDatosMs;
+
+    @Param({"5", "20"})
+    public int latenciaProductosMs;
+
+    private ConfigurableApplicationContext contexto;
+    private InventarioService inventarioService;
+    private InventarioRepository inventarioRepository;
+    private ProductoCache productoCache;
+
+    @Setup(Level.Trial)
+    public void arrancar() {
+        contexto = ServicioInventario.arrancar(Map.of(
+                "productos.cache.tamano-maximo", "0",
+                "benchmark.productos.latencia-ms", String.valueOf(latenciaProductosMs),
+                "benchmark.inventario.latencia-ms", String.valueOf(latenciaBaseDatosMs)));
+        ServicioInventario.cargarStock(contexto, PRODUCTOS, 100);
+        inventarioService = contexto.getBean(InventarioService.class);
+        inventarioRepository = contexto.getBean(InventarioRepository.class);
+        productoCache = contexto.getBean(ProductoCache.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void detener() {
+        contexto.close();
+    }
+
+    @Benchmark
+    public InventarioResponseDto solapada() {
+        return inventarioService.getInventarioByProductoId(productoAleatorio());
+    }
+
+    @Benchmark
+    public InventarioResponseDto secuencial() {
+        long productoId = productoAleatorio();
+        Inventario inventario = inventarioRepository.findById(productoId).orElseThrow();
+        ProductoDto producto = productoCache.getProductoById(productoId).orElseThrow();
+        return new InventarioResponseDto(inventario.getProductoId(), producto.getNombre(), producto.getDescripcion(),
+                producto.getPrecio(), inventario.cantidadDisponible(), producto.isDesactualizado());
+    }
+
+    private static long productoAleatorio() {
+        return ThreadLocalRandom.current().nextLong(1, PRODUCTOS + 1);
+    }
+}
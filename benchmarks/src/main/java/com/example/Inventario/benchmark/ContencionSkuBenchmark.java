@@ -0,0 +1,119 @@
+package com.example.Inventario.benchmark;
+
+import com.example.Inventario.dto.CompraRequest;
+import com.example.Inventario.exception.StockNotAvailableException;
+import com.example.Inventario.repository.InventarioRepository;
+import com.example.Inventario.service.InventarioService;
+import com.example.Inventario.service.StockService;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Mide compras concurrentes de un único producto: todos los hilos compiten por la misma fila de inventario.
+ * <p>
+ * El stock se repone al empezar cada iteración y, al terminarla, se comprueba que no se ha vendido más de lo que
+ * había y que la cantidad restante cuadra con las compras confirmadas; si no, el benchmark falla. Con
+ * {@code skuCaliente=true} las compras pasan por el secuenciador del modo SKU caliente. El número de hilos se
+ * cambia con la opción {@code -t} de JMH. Las compras confirmadas y las rechazadas por falta de stock se publican
+ * como métricas secundarias del resultado.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class ContencionSkuBenchmark {
+
+    private static final long PRODUCTO = 1L;
+
+    @Param({"false", "true"})
+    public boolean skuCaliente;
+
+    @Param({"100", "1000000"})
+    public int stockInicial;
+
+    private ConfigurableApplicationContext contexto;
+    private InventarioService inventarioService;
+    private InventarioRepository inventarioRepository;
+    private StockService stockService;
+    private final LongAdder vendidas = new LongAdder();
+
+    /**
+     * Contadores por hilo que JMH suma y publica junto al rendimiento.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Resultados {
+        public long compras;
+        public long sinStock;
+
+        @Setup(Level.Iteration)
+        public void reiniciar() {
+            compras = 0;
+            sinStock = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void arrancar() {
+        contexto = ServicioInventario.arrancar(Map.of(
+                "inventario.compras.sku-caliente.habilitado", String.valueOf(skuCaliente),
+                "inventario.compras.sku-caliente.productos", String.valueOf(PRODUCTO)));
+        inventarioService = contexto.getBean(InventarioService.class);
+        inventarioRepository = contexto.getBean(InventarioRepository.class);
+        stockService = contexto.getBean(StockService.class);
+    }
+
+    @Setup(Level.Iteration)
+    public void reponerStock() {
+        stockService.establecerCantidades(new TreeMap<>(Map.of(PRODUCTO, stockInicial)));
+        vendidas.reset();
+    }
+
+    @TearDown(Level.Iteration)
+    public void comprobarSobreventa() {
+        int restante = inventarioRepository.findCantidadByProductoId(PRODUCTO).orElseThrow();
+        long vendidasIteracion = vendidas.sum();
+        if (restante < 0 || vendidasIteracion > stockInicial || restante != stockInicial - vendidasIteracion) {
+            throw new IllegalStateException("Sobreventa detectada: stock inicial " + stockInicial
+                    + ", compras confirmadas " + vendidasIteracion + ", stock restante " + restante);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void detener() {
+        contexto.close();
+    }
+
+    @Benchmark
+    public void comprarMismoProducto(Resultados resultados) {
+        try {
+            inventarioService.realizarCompra(new CompraRequest(PRODUCTO, 1));
+            vendidas.increment();
+            resultados.compras++;
+        } catch (StockNotAvailableException e) {
+            resultados.sinStock++;
+        }
+    }
+}
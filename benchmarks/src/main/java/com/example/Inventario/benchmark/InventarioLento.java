@@ -0,0 +1,45 @@
+package com.example.Inventario.benchmark;
+
+import com.example.Inventario.repository.InventarioRepository;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.Environment;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * InventarioLento añade una latencia fija a la lectura de un inventario por ID, como la de una base de datos remota.
+ * <p>
+ * Envuelve {@link InventarioRepository} para que {@code findById} espere {@code benchmark.inventario.latencia-ms}
+ * antes de consultar H2; el resto de métodos no se retrasan. Con latencia 0 el repositorio no se envuelve. Igual
+ * que {@link ProductosSimulados}, se registra explícitamente al arrancar el contexto.
+ */
+public class InventarioLento {
+
+    @Bean
+    public static BeanPostProcessor inventarioRepositoryLento(Environment entorno) {
+        long latenciaNanos = TimeUnit.MILLISECONDS.toNanos(
+                entorno.getProperty("benchmark.inventario.latencia-ms", Long.class, 0L));
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String nombre) {
+                if (latenciaNanos == 0 || !(bean instanceof InventarioRepository)) {
+                    return bean;
+                }
+                ProxyFactory proxy = new ProxyFactory();
+                proxy.setTarget(bean);
+                proxy.addInterface(InventarioRepository.class);
+                proxy.addAdvice((MethodInterceptor) invocacion -> {
+                    if (invocacion.getMethod().getName().equals("findById")) {
+                        LockSupport.parkNanos(latenciaNanos);
+                    }
+                    return invocacion.proceed();
+                });
+                return proxy.getProxy();
+            }
+        };
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.Inventario.benchmark;
+
+import com.example.Inventario.dto.CompraRequest;
+import com.example.Inventario.dto.CompraResponse;
+import com.example.Inventario.dto.InventarioResponseDto;
+import com.example.Inventario.service.InventarioService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mide los caminos principales de {@link InventarioService} con productos repartidos por todo el catálogo, sin
+ * contención sobre una misma fila.
+ * <p>
+ * {@code tamanoCache} controla qué parte del catálogo cabe en la caché de productos: con una caché menor que el
+ * catálogo, parte de las peticiones paga la latencia del servicio de productos simulado.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class InventarioServiceBenchmark {
+
+    private static final int PRODUCTOS = 10_000;
+
+    @Param({"10000", "1000"})
+    public int tamanoCache;
+
+    @Param({"0", "2"})
+    public int latenciaProductosMs;
+
+    private ConfigurableApplicationContext contexto;
+    private InventarioService inventarioService;
+
+    @Setup(Level.Trial)
+    public void arrancar() {
+        contexto = ServicioInventario.arrancar(Map.of(
+                "productos.cache.tamano-maximo", String.valueOf(tamanoCache),
+                "benchmark.productos.latencia-ms", String.valueOf(latenciaProductosMs)));
+        ServicioInventario.cargarStock(contexto, PRODUCTOS, Integer.MAX_VALUE / 2);
+        inventarioService = contexto.getBean(InventarioService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void detener() {
+        contexto.close();
+    }
+
+    @Benchmark
+    public InventarioResponseDto getInventarioByProductoId() {
+        return inventarioService.getInventarioByProductoId(productoAleatorio());
+    }
+
+    @Benchmark
+    public CompraResponse realizarCompra() {
+        return inventarioService.realizarCompra(new CompraRequest(productoAleatorio(), 1));
+    }
+
+    private static long productoAleatorio() {
+        return ThreadLocalRandom.current().nextLong(1, PRODUCTOS + 1);
+    }
+}
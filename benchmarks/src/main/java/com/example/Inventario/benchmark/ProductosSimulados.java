@@ -0,0 +1,72 @@
+package com.example.Inventario.benchmark;
+
+import com.example.Inventario.client.ProductoFeignClient;
+import com.example.Inventario.dto.ProductoDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * ProductosSimulados sustituye al cliente Feign por un servicio de productos en memoria con latencia configurable.
+ * <p>
+ * Existen los productos {@code 1..benchmark.productos.catalogo}, todos con precio 10. Cada llamada espera
+ * {@code benchmark.productos.latencia-ms} antes de responder, igual que una llamada remota. No lleva
+ * {@code @Configuration} para que el escaneo de componentes del servicio no la recoja: se registra
+ * explícitamente al arrancar el contexto.
+ */
+public class ProductosSimulados {
+
+    /**
+     * Los clientes Feign se registran como primarios; se retira esa marca al real para que se inyecte el simulado.
+     */
+    @Bean
+    public static BeanFactoryPostProcessor clienteFeignNoPrimario() {
+        return beanFactory -> {
+            String nombre = ProductoFeignClient.class.getName();
+            if (beanFactory.containsBeanDefinition(nombre)) {
+                beanFactory.getBeanDefinition(nombre).setPrimary(false);
+            }
+        };
+    }
+
+    @Bean
+    @Primary
+    public ProductoFeignClient productoFeignClientSimulado(@Value("${benchmark.productos.catalogo}") long catalogo,
+                                                           @Value("${benchmark.productos.latencia-ms}") long latenciaMs) {
+        long latenciaNanos = TimeUnit.MILLISECONDS.toNanos(latenciaMs);
+        return new ProductoFeignClient() {
+            @Override
+            public Optional<ProductoDto> getProductoById(Long id) {
+                esperar(latenciaNanos);
+                return existe(id) ? Optional.of(producto(id)) : Optional.empty();
+            }
+
+            @Override
+            public List<ProductoDto> getProductosByIds(Collection<Long> ids) {
+                esperar(latenciaNanos);
+                return ids.stream().filter(this::existe).map(ProductosSimulados::producto).toList();
+            }
+
+            private boolean existe(Long id) {
+                return id != null && id >= 1 && id <= catalogo;
+            }
+        };
+    }
+
+    private static ProductoDto producto(Long id) {
+        return new ProductoDto(id, "Producto " + id, "Producto simulado para benchmarks", 10.0);
+    }
+
+    private static void esperar(long nanos) {
+        if (nanos > 0) {
+            LockSupport.parkNanos(nanos);
+        }
+    }
+}
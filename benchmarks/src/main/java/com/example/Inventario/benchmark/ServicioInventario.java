@@ -0,0 +1,62 @@
+package com.example.Inventario.benchmark;
+
+import com.example.Inventario.InventarioApplication;
+import com.example.Inventario.service.StockService;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * ServicioInventario arranca el servicio de inventario completo para un benchmark, sobre H2 en memoria y con
+ * {@link ProductosSimulados} en lugar del servicio de productos remoto. {@link InventarioLento} permite añadir
+ * latencia a la lectura de inventarios.
+ */
+final class ServicioInventario {
+
+    private ServicioInventario() {
+    }
+
+    /**
+     * Arranca el servicio.
+     *
+     * @param propiedades propiedades adicionales; tienen prioridad sobre {@code application.properties}
+     * @return el contexto arrancado; debe cerrarse al terminar el benchmark
+     */
+    static ConfigurableApplicationContext arrancar(Map<String, String> propiedades) {
+        Map<String, String> configuracion = new LinkedHashMap<>();
+        configuracion.put("spring.datasource.url", "jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+        configuracion.put("spring.datasource.username", "sa");
+        configuracion.put("spring.datasource.password", "");
+        configuracion.put("spring.datasource.driver-class-name", "org.h2.Driver");
+        configuracion.put("spring.jpa.hibernate.ddl-auto", "create-drop");
+        configuracion.put("spring.jpa.properties.hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+        configuracion.put("server.port", "0");
+        configuracion.put("logging.level.root", "WARN");
+        configuracion.put("benchmark.productos.catalogo", "10000");
+        configuracion.put("benchmark.productos.latencia-ms", "0");
+        configuracion.put("benchmark.inventario.latencia-ms", "0");
+        // Un mismo argumento repetido se uniría con comas, así que las propiedades propias sustituyen a las comunes.
+        configuracion.putAll(propiedades);
+        String[] argumentos = configuracion.entrySet().stream()
+                .map(propiedad -> "--" + propiedad.getKey() + "=" + propiedad.getValue())
+                .toArray(String[]::new);
+        return new SpringApplicationBuilder(InventarioApplication.class, ProductosSimulados.class, InventarioLento.class)
+                .run(argumentos);
+    }
+
+    /**
+     * Establece la misma cantidad para los productos {@code 1..productos}.
+     */
+    static void cargarStock(ConfigurableApplicationContext contexto, long productos, int cantidad) {
+        SortedMap<Long, Integer> cantidades = new TreeMap<>();
+        for (long productoId = 1; productoId <= productos; productoId++) {
+            cantidades.put(productoId, cantidad);
+        }
+        contexto.getBean(StockService.class).establecerCantidades(cantidades);
+    }
+}
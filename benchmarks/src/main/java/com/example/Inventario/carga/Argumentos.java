@@ -0,0 +1,38 @@
+package com.example.Inventario.carga;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Argumentos de línea de comandos con la forma {@code --clave=valor}.
+ */
+final class Argumentos {
+
+    private final Map<String, String> valores = new HashMap<>();
+
+    Argumentos(String[] args) {
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Argumento no válido, se esperaba --clave=valor: " + arg);
+            }
+            int separador = arg.indexOf('=');
+            valores.put(arg.substring(2, separador), arg.substring(separador + 1));
+        }
+    }
+
+    String texto(String clave, String porDefecto) {
+        return valores.getOrDefault(clave, porDefecto);
+    }
+
+    int entero(String clave, int porDefecto) {
+        return valores.containsKey(clave) ? Integer.parseInt(valores.get(clave)) : porDefecto;
+    }
+
+    double decimal(String clave, double porDefecto) {
+        return valores.containsKey(clave) ? Double.parseDouble(valores.get(clave)) : porDefecto;
+    }
+
+    boolean logico(String clave, boolean porDefecto) {
+        return valores.containsKey(clave) ? Boolean.parseBoolean(valores.get(clave)) : porDefecto;
+    }
+}
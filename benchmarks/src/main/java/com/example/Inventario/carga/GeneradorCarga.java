@@ -0,0 +1,247 @@
+package com.example.Inventario.carga;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GeneradorCarga lanza una mezcla de consultas y compras contra el servicio de inventario en ejecución y mide el
+ * rendimiento y los percentiles de latencia de cada tipo de operación.
+ * <p>
+ * Cada hilo trabaja en bucle cerrado: envía una petición, espera la respuesta y envía la siguiente. Las
+ * operaciones se eligen al azar según las proporciones configuradas y los productos siguen una distribución
+ * sesgada: una fracción del tráfico se concentra en unos pocos productos calientes, como en una venta real. Las
+ * peticiones del calentamiento no se miden.
+ * <ul>
+ *     <li>{@code --url}, {@code --api-key}: servicio de inventario.</li>
+ *     <li>{@code --concurrencia}, {@code --duracion-s}, {@code --calentamiento-s}: hilos y tiempos.</li>
+ *     <li>{@code --productos}, {@code --stock}, {@code --inicializar}: catálogo y stock; con
+ *     {@code --inicializar=true} el stock se carga antes de empezar mediante {@code POST /importar}.</li>
+ *     <li>{@code --proporcion-compras}, {@code --proporcion-consultas-lote}: fracción de compras y de consultas
+ *     de 20 productos; el resto son consultas de un producto.</li>
+ *     <li>{@code --productos-calientes}, {@code --trafico-caliente}: fracción del catálogo que es caliente y
+ *     fracción del tráfico que recibe.</li>
+ * </ul>
+ * Se ejecuta con {@code mvn -f benchmarks/pom.xml compile exec:exec@carga -Dcarga.args="--concurrencia=32"}.
+ */
+public class GeneradorCarga {
+
+    private static final int IDS_POR_CONSULTA_LOTE = 20;
+
+    enum Operacion {
+        CONSULTA, CONSULTA_LOTE, COMPRA
+    }
+
+    private final HttpClient cliente = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private final String url;
+    private final String apiKey;
+    private final int productos;
+    private final double proporcionCompras;
+    private final double proporcionConsultasLote;
+    private final int productosCalientes;
+    private final double traficoCaliente;
+
+    GeneradorCarga(Argumentos argumentos) {
+        this.url = argumentos.texto("url", "http://localhost:8081");
+        this.apiKey = argumentos.texto("api-key", "inventario_secreta_54321");
+        this.productos = argumentos.entero("productos", 10_000);
+        this.proporcionCompras = argumentos.decimal("proporcion-compras", 0.2);
+        this.proporcionConsultasLote = argumentos.decimal("proporcion-consultas-lote", 0.05);
+        this.productosCalientes = Math.max(1, (int) (productos * argumentos.decimal("productos-calientes", 0.01)));
+        this.traficoCaliente = argumentos.decimal("trafico-caliente", 0.5);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Argumentos argumentos = new Argumentos(args);
+        GeneradorCarga generador = new GeneradorCarga(argumentos);
+        if (argumentos.logico("inicializar", true)) {
+            generador.inicializarStock(argumentos.entero("stock", 1_000_000));
+        }
+        Map<Operacion, Medicion> mediciones = generador.ejecutar(
+                argumentos.entero("concurrencia", 16),
+                argumentos.entero("calentamiento-s", 5),
+                argumentos.entero("duracion-s", 30));
+        imprimir(mediciones, argumentos.entero("duracion-s", 30));
+    }
+
+    /**
+     * Carga el mismo stock para todo el catálogo con una única importación CSV.
+     */
+    void inicializarStock(int stock) throws IOException, InterruptedException {
+        StringBuilder csv = new StringBuilder("productoId,cantidad\n");
+        for (int productoId = 1; productoId <= productos; productoId++) {
+            csv.append(productoId).append(',').append(stock).append('\n');
+        }
+        HttpResponse<String> respuesta = cliente.send(peticion("/api/inventario/importar?validarProductos=false")
+                .header("Content-Type", "text/csv")
+                .POST(HttpRequest.BodyPublishers.ofString(csv.toString()))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        if (respuesta.statusCode() != 200) {
+            throw new IllegalStateException("No se pudo inicializar el stock: " + respuesta.statusCode() + " " + respuesta.body());
+        }
+        System.out.println("Stock inicializado: " + respuesta.body());
+    }
+
+    /**
+     * Ejecuta la carga y devuelve las mediciones de cada tipo de operación, ya combinadas entre hilos.
+     */
+    Map<Operacion, Medicion> ejecutar(int concurrencia, int calentamientoS, int duracionS) throws InterruptedException {
+        long inicioMedicion = System.nanoTime() + TimeUnit.SECONDS.toNanos(calentamientoS);
+        long fin = inicioMedicion + TimeUnit.SECONDS.toNanos(duracionS);
+        List<Map<Operacion, Medicion>> porHilo = new ArrayList<>();
+        List<Thread> hilos = new ArrayList<>();
+        for (int i = 0; i < concurrencia; i++) {
+            Map<Operacion, Medicion> mediciones = new EnumMap<>(Operacion.class);
+            for (Operacion operacion : Operacion.values()) {
+                mediciones.put(operacion, new Medicion());
+            }
+            porHilo.add(mediciones);
+            Thread hilo = new Thread(() -> trabajar(mediciones, inicioMedicion, fin), "generador-carga-" + i);
+            hilos.add(hilo);
+            hilo.start();
+        }
+        for (Thread hilo : hilos) {
+            hilo.join();
+        }
+
+        Map<Operacion, Medicion> total = new EnumMap<>(Operacion.class);
+        for (Operacion operacion : Operacion.values()) {
+            Medicion combinada = new Medicion();
+            porHilo.forEach(mediciones -> combinada.sumar(mediciones.get(operacion)));
+            total.put(operacion, combinada);
+        }
+        return total;
+    }
+
+    private void trabajar(Map<Operacion, Medicion> mediciones, long inicioMedicion, long fin) {
+        ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+        long ahora;
+        while ((ahora = System.nanoTime()) < fin) {
+            double tirada = aleatorio.nextDouble();
+            Operacion operacion = tirada < proporcionCompras ? Operacion.COMPRA
+                    : tirada < proporcionCompras + proporcionConsultasLote ? Operacion.CONSULTA_LOTE
+                    : Operacion.CONSULTA;
+            int estado;
+            try {
+                estado = cliente.send(crear(operacion, aleatorio), HttpResponse.BodyHandlers.discarding()).statusCode();
+            } catch (IOException e) {
+                estado = -1;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            long terminada = System.nanoTime();
+            if (ahora >= inicioMedicion) {
+                mediciones.get(operacion).registrar(estado, terminada - ahora);
+            }
+        }
+    }
+
+    private HttpRequest crear(Operacion operacion, ThreadLocalRandom aleatorio) {
+        switch (operacion) {
+            case COMPRA:
+                return peticion("/api/inventario/comprar")
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(
+                                "{\"productoId\":" + producto(aleatorio) + ",\"cantidad\":1}"))
+                        .build();
+            case CONSULTA_LOTE:
+                StringJoiner ids = new StringJoiner(",");
+                for (int i = 0; i < IDS_POR_CONSULTA_LOTE; i++) {
+                    ids.add(String.valueOf(producto(aleatorio)));
+                }
+                return peticion("/api/inventario?ids=" + ids).GET().build();
+            default:
+                return peticion("/api/inventario/" + producto(aleatorio)).GET().build();
+        }
+    }
+
+    private long producto(ThreadLocalRandom aleatorio) {
+        if (aleatorio.nextDouble() < traficoCaliente) {
+            return 1 + aleatorio.nextInt(productosCalientes);
+        }
+        return 1 + aleatorio.nextInt(productos);
+    }
+
+    private HttpRequest.Builder peticion(String ruta) {
+        return HttpRequest.newBuilder(URI.create(url + ruta))
+                .timeout(Duration.ofSeconds(30))
+                .header("X-API-KEY", apiKey);
+    }
+
+    private static void imprimir(Map<Operacion, Medicion> mediciones, int duracionS) {
+        System.out.printf("%-14s %10s %10s %9s %9s %9s %9s %9s  %s%n",
+                "operacion", "peticiones", "ops/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms", "estados");
+        Medicion total = new Medicion();
+        for (Map.Entry<Operacion, Medicion> entrada : mediciones.entrySet()) {
+            imprimirFila(entrada.getKey().name().toLowerCase(), entrada.getValue(), duracionS);
+            total.sumar(entrada.getValue());
+        }
+        imprimirFila("total", total, duracionS);
+    }
+
+    private static void imprimirFila(String nombre, Medicion medicion, int duracionS) {
+        long[] latencias = medicion.ordenadas();
+        System.out.printf("%-14s %10d %10.1f %9.2f %9.2f %9.2f %9.2f %9.2f  %s%n",
+                nombre, latencias.length, (double) latencias.length / duracionS,
+                percentil(latencias, 0.50), percentil(latencias, 0.90), percentil(latencias, 0.99),
+                percentil(latencias, 0.999), percentil(latencias, 1.0), medicion.estados);
+    }
+
+    private static double percentil(long[] ordenadas, double percentil) {
+        if (ordenadas.length == 0) {
+            return 0;
+        }
+        int posicion = (int) Math.ceil(percentil * ordenadas.length) - 1;
+        return ordenadas[Math.max(0, posicion)] / 1e6;
+    }
+
+    /**
+     * Latencias y códigos de estado de un tipo de operación. Cada hilo tiene la suya, así que no se sincroniza.
+     * El código -1 indica un error de conexión.
+     */
+    static final class Medicion {
+
+        private long[] latenciasNanos = new long[1024];
+        private int total;
+        private final Map<Integer, Long> estados = new TreeMap<>();
+
+        void registrar(int estado, long latenciaNanos) {
+            if (total == latenciasNanos.length) {
+                latenciasNanos = Arrays.copyOf(latenciasNanos, total * 2);
+            }
+            latenciasNanos[total++] = latenciaNanos;
+            estados.merge(estado, 1L, Long::sum);
+        }
+
+        void sumar(Medicion otra) {
+            for (int i = 0; i < otra.total; i++) {
+                if (total == latenciasNanos.length) {
+                    latenciasNanos = Arrays.copyOf(latenciasNanos, Math.max(total * 2, total + otra.total));
+                }
+                latenciasNanos[total++] = otra.latenciasNanos[i];
+            }
+            otra.estados.forEach((estado, cantidad) -> estados.merge(estado, cantidad, Long::sum));
+        }
+
+        long[] ordenadas() {
+            long[] copia = Arrays.copyOf(latenciasNanos, total);
+            Arrays.sort(copia);
+            return copia;
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.example.Inventario.carga;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.StringJoiner;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ServidorProductosSimulado sustituye al servicio de productos en pruebas de carga locales.
+ * <p>
+ * Atiende {@code GET /api/productos/{id}} y {@code GET /api/productos?ids=1,2,3} con las mismas respuestas que el
+ * servicio real, y permite programar:
+ * <ul>
+ *     <li>{@code --latencia-ms} y {@code --variacion-ms}: latencia de cada respuesta, uniforme entre
+ *     {@code latencia} y {@code latencia + variacion}.</li>
+ *     <li>{@code --tasa-errores}: fracción de peticiones que responden 500.</li>
+ *     <li>{@code --tasa-no-encontrados}: fracción del catálogo que no existe. Se decide por ID, así que un
+ *     producto inexistente lo es en todas las peticiones.</li>
+ *     <li>{@code --catalogo}: número de productos ({@code 1..catalogo}).</li>
+ * </ul>
+ * Se ejecuta con {@code mvn -f benchmarks/pom.xml compile exec:exec@productos-simulado -Dcarga.args="--puerto=8090"}.
+ */
+public class ServidorProductosSimulado {
+
+    private final HttpServer servidor;
+    private final ExecutorService hilos;
+    private final long catalogo;
+    private final int latenciaMs;
+    private final int variacionMs;
+    private final double tasaErrores;
+    private final double tasaNoEncontrados;
+
+    public ServidorProductosSimulado(int puerto, int hilos, long catalogo, int latenciaMs, int variacionMs,
+                                     double tasaErrores, double tasaNoEncontrados) throws IOException {
+        this.catalogo = catalogo;
+        this.latenciaMs = latenciaMs;
+        this.variacionMs = variacionMs;
+        this.tasaErrores = tasaErrores;
+        this.tasaNoEncontrados = tasaNoEncontrados;
+        // La latencia se simula durmiendo, así que cada petición en curso ocupa un hilo.
+        this.hilos = Executors.newFixedThreadPool(hilos);
+        this.servidor = HttpServer.create(new InetSocketAddress(puerto), 1024);
+        this.servidor.setExecutor(this.hilos);
+        this.servidor.createContext("/api/productos", this::atender);
+    }
+
+    public static void main(String[] args) throws IOException {
+        Argumentos argumentos = new Argumentos(args);
+        ServidorProductosSimulado servidor = new ServidorProductosSimulado(
+                argumentos.entero("puerto", 8090),
+                argumentos.entero("hilos", 200),
+                argumentos.entero("catalogo", 10_000),
+                argumentos.entero("latencia-ms", 10),
+                argumentos.entero("variacion-ms", 0),
+                argumentos.decimal("tasa-errores", 0.0),
+                argumentos.decimal("tasa-no-encontrados", 0.0));
+        servidor.iniciar();
+        System.out.println("Servicio de productos simulado escuchando en el puerto " + servidor.puerto());
+    }
+
+    public void iniciar() {
+        servidor.start();
+    }
+
+    public void detener() {
+        servidor.stop(0);
+        hilos.shutdownNow();
+    }
+
+    public int puerto() {
+        return servidor.getAddress().getPort();
+    }
+
+    private void atender(HttpExchange intercambio) throws IOException {
+        try (intercambio) {
+            esperarLatencia();
+            if (ThreadLocalRandom.current().nextDouble() < tasaErrores) {
+                responder(intercambio, 500, "{\"error\":\"Error simulado\"}");
+                return;
+            }
+            URI uri = intercambio.getRequestURI();
+            String ruta = uri.getPath();
+            if (ruta.startsWith("/api/productos/")) {
+                long id = Long.parseLong(ruta.substring("/api/productos/".length()));
+                if (existe(id)) {
+                    responder(intercambio, 200, producto(id));
+                } else {
+                    responder(intercambio, 404, "{\"error\":\"Producto no encontrado\"}");
+                }
+                return;
+            }
+            StringJoiner productos = new StringJoiner(",", "[", "]");
+            for (String id : parametroIds(uri.getRawQuery()).split(",")) {
+                if (!id.isBlank() && existe(Long.parseLong(id.strip()))) {
+                    productos.add(producto(Long.parseLong(id.strip())));
+                }
+            }
+            responder(intercambio, 200, productos.toString());
+        } catch (RuntimeException e) {
+            responder(intercambio, 400, "{\"error\":\"Petición no válida\"}");
+        }
+    }
+
+    private void esperarLatencia() {
+        int espera = latenciaMs + (variacionMs > 0 ? ThreadLocalRandom.current().nextInt(variacionMs + 1) : 0);
+        if (espera > 0) {
+            try {
+                TimeUnit.MILLISECONDS.sleep(espera);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private boolean existe(long id) {
+        if (id < 1 || id > catalogo) {
+            return false;
+        }
+        // Dispersión multiplicativa del ID en [0, 1): el mismo producto siempre da el mismo resultado.
+        double posicion = ((id * 0x9E3779B97F4A7C15L) >>> 11) * 0x1.0p-53;
+        return posicion >= tasaNoEncontrados;
+    }
+
+    private static String producto(long id) {
+        return "{\"id\":" + id + ",\"nombre\":\"Producto " + id + "\",\"descripcion\":\"Producto simulado\",\"precio\":"
+                + (10 + id % 90) + ".0}";
+    }
+
+    private static String parametroIds(String consulta) {
+        if (consulta != null) {
+            for (String parametro : consulta.split("&")) {
+                if (parametro.startsWith("ids=")) {
+                    return URLDecoder.decode(parametro.substring(4), StandardCharsets.UTF_8);
+                }
+            }
+        }
+        return "";
+    }
+
+    private static void responder(HttpExchange intercambio, int estado, String cuerpo) throws IOException {
+        byte[] bytes = cuerpo.getBytes(StandardCharsets.UTF_8);
+        intercambio.getResponseHeaders().set("Content-Type", "application/json");
+        intercambio.sendResponseHeaders(estado, bytes.length);
+        try (OutputStream salida = intercambio.getResponseBody()) {
+            salida.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,312 @@
+package com.example.Inventario.client;
+
+import com.example.Inventario.exception.ProductosNoDisponiblesException;
+import feign.RetryableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * LlamadasProductos ejecuta las llamadas al servicio de productos en el ejecutor de productos, con reintentos
+ * programados y peticiones de cobertura opcionales.
+ * <p>
+ * Un intento que falla con {@link RetryableException} se vuelve a lanzar tras una espera exponencial con
+ * variación aleatoria, programada en un temporizador: mientras espera no ocupa ningún hilo. Si el servicio indica
+ * {@code Retry-After}, se respeta siempre que no supere la espera máxima; si la supera, la llamada falla en lugar de
+ * retener al llamador. El resto de errores no se reintentan.
+ * <p>
+ * Con las peticiones de cobertura activadas, si el primer intento no ha respondido cuando se alcanza el percentil
+ * configurado de la latencia reciente, se lanza un segundo intento y gana la primera respuesta correcta. Las
+ * coberturas no se reintentan y están limitadas por un presupuesto: cada llamada aporta una fracción de ficha y
+ * cada cobertura gasta una, de modo que nunca superan esa fracción del tráfico aunque el servicio se degrade.
+ * <p>
+ * Los reintentos y las coberturas se lanzan desde un único hilo temporizador, que solo entrega el intento al
+ * ejecutor de productos y nunca lo ejecuta él mismo. Si el ejecutor está lleno y rechaza el intento, ese intento
+ * se da por fallido con {@link ProductosNoDisponiblesException}, y la cobertura rechazada devuelve su ficha.
+ * <ul>
+ *     <li>{@code productos.llamadas}: latencia de los intentos correctos; su percentil fija la espera de la
+ *     cobertura.</li>
+ *     <li>{@code productos.feign.reintentos}: reintentos ({@code resultado=reintentado}) y llamadas que agotan los
+ *     intentos ({@code resultado=agotado}).</li>
+ *     <li>{@code productos.coberturas}: coberturas lanzadas ({@code resultado=lanzada}), descartadas por falta de
+ *     presupuesto ({@code resultado=sin-presupuesto}) y que respondieron antes que el primer intento
+ *     ({@code resultado=ganadora}).</li>
+ *     <li>{@code productos.llamadas.rechazadas}: intentos que no se lanzaron porque el ejecutor estaba lleno.</li>
+ * </ul>
+ */
+@Component
+public class LlamadasProductos {
+
+    private static final Logger log = LoggerFactory.getLogger(LlamadasProductos.class);
+
+    private static final long MILESIMAS_POR_FICHA = 1000;
+    private static final long MAXIMO_FICHAS = 10 * MILESIMAS_POR_FICHA;
+
+    private final Executor productosExecutor;
+    private final int maxIntentos;
+    private final long esperaInicialMs;
+    private final long esperaMaximaMs;
+    private final boolean coberturaHabilitada;
+    private final double percentilCobertura;
+    private final long esperaMinimaCoberturaNanos;
+    private final long aportePresupuesto;
+
+    private final Timer latencia;
+    private final Counter reintentos;
+    private final Counter agotados;
+    private final Counter coberturasLanzadas;
+    private final Counter coberturasSinPresupuesto;
+    private final Counter coberturasGanadoras;
+    private final Counter rechazadas;
+
+    /** Presupuesto de coberturas, en milésimas de ficha. */
+    private final AtomicLong fichas = new AtomicLong(MAXIMO_FICHAS);
+    private volatile long esperaCoberturaNanos;
+
+    private final ScheduledExecutorService temporizador = Executors.newSingleThreadScheduledExecutor(tarea -> {
+        Thread hilo = new Thread(tarea, "productos-llamadas-temporizador");
+        hilo.setDaemon(true);
+        return hilo;
+    });
+
+    /**
+     * Crea el ejecutor de llamadas al servicio de productos.
+     *
+     * @param productosExecutor     ejecutor en el que se realizan las llamadas remotas
+     * @param meterRegistry         registro donde se publican la latencia, los reintentos y las coberturas
+     * @param maxIntentos           número máximo de intentos por llamada, incluido el primero
+     * @param esperaInicialMs       espera en milisegundos antes del primer reintento; se duplica en cada uno
+     * @param esperaMaximaMs        espera máxima en milisegundos entre reintentos
+     * @param coberturaHabilitada   si es {@code true}, se lanzan peticiones de cobertura
+     * @param percentilCobertura    percentil de la latencia reciente tras el cual se lanza la cobertura
+     * @param esperaMinimaCobertura espera mínima antes de lanzar una cobertura
+     * @param presupuestoCobertura  fracción máxima de llamadas que pueden recibir una cobertura
+     */
+    public LlamadasProductos(@Qualifier("productosExecutor") Executor productosExecutor,
+                             MeterRegistry meterRegistry,
+                             @Value("${producto-service.reintentos.max-intentos:3}") int maxIntentos,
+                             @Value("${producto-service.reintentos.espera-inicial-ms:100}") long esperaInicialMs,
+                             @Value("${producto-service.reintentos.espera-maxima-ms:1000}") long esperaMaximaMs,
+                             @Value("${productos.cobertura.habilitada:false}") boolean coberturaHabilitada,
+                             @Value("${productos.cobertura.percentil:0.95}") double percentilCobertura,
+                             @Value("${productos.cobertura.espera-minima:20ms}") Duration esperaMinimaCobertura,
+                             @Value("${productos.cobertura.presupuesto:0.1}") double presupuestoCobertura) {
+        this.productosExecutor = productosExecutor;
+        this.maxIntentos = maxIntentos;
+        this.esperaInicialMs = esperaInicialMs;
+        this.esperaMaximaMs = esperaMaximaMs;
+        this.coberturaHabilitada = coberturaHabilitada;
+        this.percentilCobertura = percentilCobertura;
+        this.esperaMinimaCoberturaNanos = esperaMinimaCobertura.toNanos();
+        this.aportePresupuesto = Math.round(presupuestoCobertura * MILESIMAS_POR_FICHA);
+        this.esperaCoberturaNanos = esperaMinimaCoberturaNanos;
+
+        this.latencia = Timer.builder("productos.llamadas")
+                .description("Latencia de los intentos correctos de llamada al servicio de productos")
+                .publishPercentiles(percentilCobertura)
+                .distributionStatisticExpiry(Duration.ofMinutes(1))
+                .register(meterRegistry);
+        this.reintentos = contador(meterRegistry, "productos.feign.reintentos", "Reintentos de llamadas al servicio de productos", "reintentado");
+        this.agotados = contador(meterRegistry, "productos.feign.reintentos", "Reintentos de llamadas al servicio de productos", "agotado");
+        this.coberturasLanzadas = contador(meterRegistry, "productos.coberturas", "Peticiones de cobertura al servicio de productos", "lanzada");
+        this.coberturasSinPresupuesto = contador(meterRegistry, "productos.coberturas", "Peticiones de cobertura al servicio de productos", "sin-presupuesto");
+        this.coberturasGanadoras = contador(meterRegistry, "productos.coberturas", "Peticiones de cobertura al servicio de productos", "ganadora");
+        this.rechazadas = Counter.builder("productos.llamadas.rechazadas")
+                .description("Intentos de llamada al servicio de productos rechazados por el ejecutor lleno")
+                .register(meterRegistry);
+
+        if (coberturaHabilitada) {
+            temporizador.scheduleWithFixedDelay(this::actualizarEsperaCobertura, 1, 1, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Ejecuta una llamada remota sin bloquear el hilo llamador.
+     *
+     * @param llamada llamada remota; puede ejecutarse más de una vez, incluso en paralelo con una cobertura
+     * @return un futuro con la primera respuesta correcta, o con el error del último intento
+     */
+    public <T> CompletableFuture<T> ejecutar(Supplier<T> llamada) {
+        Llamada<T> estado = new Llamada<>(llamada);
+        lanzar(estado, 1);
+        if (coberturaHabilitada) {
+            fichas.updateAndGet(disponibles -> Math.min(MAXIMO_FICHAS, disponibles + aportePresupuesto));
+            ScheduledFuture<?> cobertura = temporizador.schedule(() -> cubrir(estado), esperaCoberturaNanos, TimeUnit.NANOSECONDS);
+            estado.resultado.whenComplete((valor, error) -> cobertura.cancel(false));
+        }
+        return estado.resultado;
+    }
+
+    @PreDestroy
+    public void cerrar() {
+        temporizador.shutdownNow();
+    }
+
+    /**
+     * Devuelve la espera actual antes de lanzar una cobertura.
+     *
+     * @return la espera, nunca menor que la mínima configurada
+     */
+    Duration esperaCobertura() {
+        return Duration.ofNanos(esperaCoberturaNanos);
+    }
+
+    private <T> void lanzar(Llamada<T> estado, int intento) {
+        estado.enCurso.incrementAndGet();
+        entregar(estado, intento, false);
+    }
+
+    private <T> void cubrir(Llamada<T> estado) {
+        if (estado.resultado.isDone()) {
+            return;
+        }
+        if (!gastarFicha()) {
+            coberturasSinPresupuesto.increment();
+            return;
+        }
+        estado.enCurso.incrementAndGet();
+        // La cobertura empieza en el último intento para no multiplicar los reintentos.
+        if (entregar(estado, maxIntentos, true)) {
+            coberturasLanzadas.increment();
+        } else {
+            fichas.updateAndGet(disponibles -> Math.min(MAXIMO_FICHAS, disponibles + MILESIMAS_POR_FICHA));
+        }
+    }
+
+    /**
+     * Entrega un intento, ya contado como en curso, al ejecutor de productos sin esperar a que haya hueco.
+     *
+     * @return {@code false} si el ejecutor rechazó el intento, que se da por fallido
+     */
+    private <T> boolean entregar(Llamada<T> estado, int intento, boolean cobertura) {
+        try {
+            productosExecutor.execute(() -> intentar(estado, intento, cobertura));
+            return true;
+        } catch (RejectedExecutionException e) {
+            rechazadas.increment();
+            log.warn("Intento #{} de la llamada al servicio de productos rechazado: ejecutor lleno.", intento);
+            if (estado.enCurso.decrementAndGet() == 0) {
+                estado.resultado.completeExceptionally(new ProductosNoDisponiblesException(
+                        "El servicio de productos no está disponible: ejecutor de llamadas lleno.", e));
+            }
+            return false;
+        }
+    }
+
+    private <T> void intentar(Llamada<T> estado, int intento, boolean cobertura) {
+        if (estado.resultado.isDone()) {
+            estado.enCurso.decrementAndGet();
+            return;
+        }
+        long inicio = System.nanoTime();
+        T valor;
+        try {
+            valor = estado.llamada.get();
+        } catch (RuntimeException e) {
+            fallar(estado, intento, cobertura, e);
+            return;
+        }
+        latencia.record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+        estado.enCurso.decrementAndGet();
+        if (estado.resultado.complete(valor) && cobertura) {
+            coberturasGanadoras.increment();
+        }
+    }
+
+    private <T> void fallar(Llamada<T> estado, int intento, boolean cobertura, RuntimeException e) {
+        if (!cobertura && e instanceof RetryableException reintentable && !estado.resultado.isDone()) {
+            long esperaMs = espera(intento, reintentable);
+            if (intento < maxIntentos && esperaMs >= 0) {
+                log.warn("Reintento #{} de la llamada al servicio de productos debido a: {}. Esperando {} ms.", intento, e.getMessage(), esperaMs);
+                reintentos.increment();
+                // El intento sigue contando como en curso mientras espera, para que una cobertura fallida no
+                // complete la llamada antes de tiempo.
+                temporizador.schedule(() -> entregar(estado, intento + 1, false), esperaMs, TimeUnit.MILLISECONDS);
+                return;
+            }
+            log.error("Sin más reintentos tras {} intentos de la llamada al servicio de productos. Propagando excepción.", intento);
+            agotados.increment();
+        }
+        // Solo falla la llamada el último intento en curso: mientras quede otro, aún puede responder bien.
+        if (estado.enCurso.decrementAndGet() == 0) {
+            estado.resultado.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Calcula la espera antes del siguiente intento: la indicada por {@code Retry-After}, o un backoff exponencial
+     * en el que la mitad de la espera es aleatoria para que los reintentos de muchas llamadas no coincidan.
+     *
+     * @return la espera en milisegundos, o -1 si {@code Retry-After} pide esperar más que la espera máxima
+     */
+    private long espera(int intento, RetryableException e) {
+        if (e.retryAfter() != null) {
+            // Feign entrega Retry-After como instante absoluto en milisegundos.
+            long esperaMs = Math.max(0, e.retryAfter() - System.currentTimeMillis());
+            return esperaMs <= esperaMaximaMs ? esperaMs : -1;
+        }
+        long techo = Math.min(esperaMaximaMs, esperaInicialMs << Math.min(intento - 1, 30));
+        long mitad = techo / 2;
+        return mitad + ThreadLocalRandom.current().nextLong(techo - mitad + 1);
+    }
+
+    private boolean gastarFicha() {
+        long disponibles;
+        do {
+            disponibles = fichas.get();
+            if (disponibles < MILESIMAS_POR_FICHA) {
+                return false;
+            }
+        } while (!fichas.compareAndSet(disponibles, disponibles - MILESIMAS_POR_FICHA));
+        return true;
+    }
+
+    private void actualizarEsperaCobertura() {
+        for (ValueAtPercentile valor : latencia.takeSnapshot().percentileValues()) {
+            if (valor.percentile() == percentilCobertura) {
+                esperaCoberturaNanos = Math.max(esperaMinimaCoberturaNanos, (long) valor.value(TimeUnit.NANOSECONDS));
+            }
+        }
+    }
+
+    private static Counter contador(MeterRegistry meterRegistry, String nombre, String descripcion, String resultado) {
+        return Counter.builder(nombre)
+                .description(descripcion)
+                .tag("resultado", resultado)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Estado de una llamada: su resultado y el número de intentos en curso o esperando un reintento.
+     */
+    private static final class Llamada<T> {
+
+        private final Supplier<T> llamada;
+        private final CompletableFuture<T> resultado = new CompletableFuture<>();
+        private final AtomicInteger enCurso = new AtomicInteger();
+
+        private Llamada(Supplier<T> llamada) {
+            this.llamada = llamada;
+        }
+    }
+}
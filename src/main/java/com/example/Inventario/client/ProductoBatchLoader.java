@@ -0,0 +1,210 @@
+package com.example.Inventario.client;
+
+import com.example.Inventario.dto.ProductoDto;
+import com.example.Inventario.exception.ProductoNotFoundException;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * ProductoBatchLoader agrupa las consultas individuales de productos en llamadas masivas al servicio remoto.
+ * <p>
+ * Las consultas que llegan desde distintas peticiones se acumulan durante una ventana corta de tiempo, o hasta
+ * alcanzar el tamaño máximo de lote, y se resuelven con una única llamada a
+ * {@link ProductoFeignClient#getProductosByIds}. Las consultas repetidas de un mismo producto dentro de la
+ * ventana comparten el mismo resultado. Cada llamada remota pasa por {@link ProteccionProductos}, así que con el
+ * circuito abierto el lote falla al instante con {@link com.example.Inventario.exception.ProductosNoDisponiblesException}.
+ * Las llamadas se ejecutan a través de {@link LlamadasProductos}, que las reintenta sin bloquear ningún hilo durante
+ * las esperas y puede lanzar una cobertura si la respuesta se retrasa.
+ * <p>
+ * El temporizador de la ventana solo entrega el lote, sin esperar: la llamada remota nunca se hace en su hilo, así
+ * que un lote lento no retrasa las ventanas siguientes. Si el ejecutor de productos está lleno, las consultas del
+ * lote fallan al momento con {@link com.example.Inventario.exception.ProductosNoDisponiblesException}.
+ */
+@Component
+public class ProductoBatchLoader {
+
+    private final ProductoFeignClient productoFeignClient;
+    private final ProteccionProductos proteccionProductos;
+    private final LlamadasProductos llamadasProductos;
+    private final int tamanoMaximoLote;
+    private final long ventanaNanos;
+    private final boolean consultaMasivaHabilitada;
+    private final DistributionSummary tamanoLotes;
+
+    private final ScheduledExecutorService temporizador = Executors.newSingleThreadScheduledExecutor(tarea -> {
+        Thread hilo = new Thread(tarea, "productos-lote-temporizador");
+        hilo.setDaemon(true);
+        return hilo;
+    });
+
+    private final ReentrantLock bloqueo = new ReentrantLock();
+    private Map<Long, CompletableFuture<ProductoDto>> pendientes = new LinkedHashMap<>();
+
+    /**
+     * Crea el agrupador de consultas de productos.
+     *
+     * @param productoFeignClient      cliente remoto de productos
+     * @param proteccionProductos      cortocircuito y límite de concurrencia de las llamadas remotas
+     * @param llamadasProductos        ejecutor de las llamadas remotas, con reintentos y coberturas
+     * @param meterRegistry            registro donde se publica el tamaño de los lotes enviados
+     * @param tamanoMaximoLote         número máximo de productos por llamada masiva
+     * @param ventana                  tiempo máximo que una consulta espera a que se complete su lote
+     * @param consultaMasivaHabilitada si es {@code false}, cada producto del lote se consulta por separado
+     */
+    public ProductoBatchLoader(ProductoFeignClient productoFeignClient,
+                               ProteccionProductos proteccionProductos,
+                               LlamadasProductos llamadasProductos,
+                               MeterRegistry meterRegistry,
+                               @Value("${productos.lote.tamano-maximo:100}") int tamanoMaximoLote,
+                               @Value("${productos.lote.ventana:5ms}") Duration ventana,
+                               @Value("${productos.lote.habilitado:true}") boolean consultaMasivaHabilitada) {
+        this.productoFeignClient = productoFeignClient;
+        this.proteccionProductos = proteccionProductos;
+        this.llamadasProductos = llamadasProductos;
+        this.tamanoMaximoLote = tamanoMaximoLote;
+        this.ventanaNanos = ventana.toNanos();
+        this.consultaMasivaHabilitada = consultaMasivaHabilitada;
+        this.tamanoLotes = DistributionSummary.builder("productos.lote.tamano")
+                .description("Número de productos por llamada masiva al servicio de productos")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Encola la consulta de un producto en el lote en curso.
+     *
+     * @param id identificador del producto
+     * @return un futuro con el producto, o con {@code null} si el servicio remoto no lo conoce
+     */
+    public CompletableFuture<ProductoDto> cargar(Long id) {
+        List<Map<Long, CompletableFuture<ProductoDto>>> lotesCompletos = new ArrayList<>(1);
+        CompletableFuture<ProductoDto> futuro;
+        bloqueo.lock();
+        try {
+            futuro = encolar(id, lotesCompletos);
+        } finally {
+            bloqueo.unlock();
+        }
+        lotesCompletos.forEach(this::despachar);
+        return futuro;
+    }
+
+    /**
+     * Encola la consulta de varios productos, repartiéndolos en tantos lotes como sea necesario.
+     *
+     * @param ids identificadores de los productos
+     * @return un futuro con los productos encontrados por ID
+     */
+    public CompletableFuture<Map<Long, ProductoDto>> cargarTodos(Collection<? extends Long> ids) {
+        List<Map<Long, CompletableFuture<ProductoDto>>> lotesCompletos = new ArrayList<>();
+        Map<Long, CompletableFuture<ProductoDto>> futuros = new HashMap<>();
+        bloqueo.lock();
+        try {
+            for (Long id : ids) {
+                futuros.put(id, encolar(id, lotesCompletos));
+            }
+        } finally {
+            bloqueo.unlock();
+        }
+        lotesCompletos.forEach(this::despachar);
+
+        return CompletableFuture.allOf(futuros.values().toArray(CompletableFuture[]::new))
+                .thenApply(ignorado -> {
+                    Map<Long, ProductoDto> encontrados = new HashMap<>();
+                    futuros.forEach((id, futuro) -> {
+                        ProductoDto producto = futuro.join();
+                        if (producto != null) {
+                            encontrados.put(id, producto);
+                        }
+                    });
+                    return encontrados;
+                });
+    }
+
+    @PreDestroy
+    public void cerrar() {
+        temporizador.shutdownNow();
+    }
+
+    /**
+     * Añade un producto al lote pendiente. Debe llamarse con el bloqueo adquirido.
+     */
+    private CompletableFuture<ProductoDto> encolar(Long id, List<Map<Long, CompletableFuture<ProductoDto>>> lotesCompletos) {
+        CompletableFuture<ProductoDto> futuro = pendientes.get(id);
+        if (futuro != null) {
+            return futuro;
+        }
+        futuro = new CompletableFuture<>();
+        pendientes.put(id, futuro);
+        if (pendientes.size() >= tamanoMaximoLote) {
+            lotesCompletos.add(extraerPendientes());
+        } else if (pendientes.size() == 1) {
+            temporizador.schedule(this::despacharPendientes, ventanaNanos, TimeUnit.NANOSECONDS);
+        }
+        return futuro;
+    }
+
+    private Map<Long, CompletableFuture<ProductoDto>> extraerPendientes() {
+        Map<Long, CompletableFuture<ProductoDto>> lote = pendientes;
+        pendientes = new LinkedHashMap<>();
+        return lote;
+    }
+
+    private void despacharPendientes() {
+        Map<Long, CompletableFuture<ProductoDto>> lote;
+        bloqueo.lock();
+        try {
+            lote = extraerPendientes();
+        } finally {
+            bloqueo.unlock();
+        }
+        if (!lote.isEmpty()) {
+            despachar(lote);
+        }
+    }
+
+    private void despachar(Map<Long, CompletableFuture<ProductoDto>> lote) {
+        tamanoLotes.record(lote.size());
+        List<Long> ids = new ArrayList<>(lote.keySet());
+        llamadasProductos.ejecutar(() -> consultar(ids)).whenComplete((encontrados, error) -> {
+            if (error != null) {
+                lote.values().forEach(futuro -> futuro.completeExceptionally(error));
+            } else {
+                lote.forEach((id, futuro) -> futuro.complete(encontrados.get(id)));
+            }
+        });
+    }
+
+    private Map<Long, ProductoDto> consultar(List<Long> ids) {
+        Map<Long, ProductoDto> encontrados = new HashMap<>();
+        if (consultaMasivaHabilitada) {
+            for (ProductoDto producto : proteccionProductos.ejecutar(() -> productoFeignClient.getProductosByIds(ids))) {
+                encontrados.put(producto.getId(), producto);
+            }
+            return encontrados;
+        }
+        for (Long id : ids) {
+            try {
+                proteccionProductos.ejecutar(() -> productoFeignClient.getProductoById(id)).ifPresent(producto -> encontrados.put(id, producto));
+            } catch (ProductoNotFoundException e) {
+                // Un 404 remoto equivale a un producto inexistente.
+            }
+        }
+        return encontrados;
+    }
+}
@@ -0,0 +1,248 @@
+package com.example.Inventario.client;
+
+import com.example.Inventario.dto.ProductoDto;
+import com.example.Inventario.exception.ProductosNoDisponiblesException;
+import com.github.benmanes.caffeine.cache.AsyncCacheLoader;
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import feign.FeignException;
+import feign.RetryableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * ProductoCache es una caché local de {@link ProductoDto} situada delante de {@link ProductoFeignClient}.
+ * <p>
+ * Los productos que no están en caché se cargan a través de {@link ProductoBatchLoader}, que agrupa las
+ * consultas concurrentes en llamadas masivas al servicio remoto.
+ * <p>
+ * La caché está acotada por tamaño y por tiempo de vida. Las consultas concurrentes de un mismo producto
+ * que no está en caché comparten una única llamada remota, y las entradas se refrescan en segundo plano
+ * antes de expirar. Las estadísticas de aciertos, fallos y desalojos se publican como métricas
+ * {@code cache.*} con la etiqueta {@code cache=productos}.
+ * <p>
+ * Aparte se guarda la última copia conocida de cada producto cargado, con un tamaño y una antigüedad máxima mayores
+ * que los de la caché. Si una carga falla porque el servicio de productos no responde (tiempo de espera agotado,
+ * error 5xx, llamada rechazada o circuito abierto), se devuelve esa copia marcada como
+ * {@linkplain ProductoDto#isDesactualizado() desactualizada} en lugar del error. Los demás fallos, como un 4xx por
+ * una credencial incorrecta o una respuesta que no se puede decodificar, se propagan.
+ * Las lecturas la aceptan siempre; las compras solo si {@code productos.respaldo.compras} está activado, ya que
+ * cobrarían un precio que puede haber cambiado. Cada respuesta servida desde la copia cuenta en
+ * {@code productos.respaldo.servidos}.
+ */
+@Component
+public class ProductoCache {
+
+    static final String NOMBRE_CACHE = "productos";
+
+    private final AsyncLoadingCache<Long, ProductoDto> cache;
+    private final Cache<Long, ProductoDto> ultimosConocidos;
+    private final boolean respaldoCompras;
+    private final Counter respaldosServidos;
+
+    /**
+     * Crea la caché de productos.
+     *
+     * @param productoBatchLoader  agrupador de consultas usado para cargar los productos
+     * @param productosExecutor    ejecutor en el que se completan las cargas y refrescos
+     * @param meterRegistry        registro donde se publican las estadísticas de la caché
+     * @param tamanoMaximo         número máximo de productos en caché
+     * @param expiracion           tiempo tras el cual una entrada se descarta
+     * @param refresco             tiempo tras el cual una entrada se recarga en segundo plano
+     * @param respaldoTamanoMaximo número máximo de últimas copias conocidas
+     * @param respaldoAntiguedad   antigüedad máxima de una última copia conocida
+     * @param respaldoCompras      si es {@code true}, las compras aceptan productos desactualizados
+     */
+    public ProductoCache(ProductoBatchLoader productoBatchLoader,
+                         @Qualifier("productosExecutor") Executor productosExecutor,
+                         MeterRegistry meterRegistry,
+                         @Value("${productos.cache.tamano-maximo:10000}") long tamanoMaximo,
+                         @Value("${productos.cache.expiracion:10m}") Duration expiracion,
+                         @Value("${productos.cache.refresco:5m}") Duration refresco,
+                         @Value("${productos.respaldo.tamano-maximo:100000}") long respaldoTamanoMaximo,
+                         @Value("${productos.respaldo.antiguedad-maxima:24h}") Duration respaldoAntiguedad,
+                         @Value("${productos.respaldo.compras:false}") boolean respaldoCompras) {
+        this.ultimosConocidos = Caffeine.newBuilder()
+                .maximumSize(respaldoTamanoMaximo)
+                .expireAfterWrite(respaldoAntiguedad)
+                .build();
+        this.respaldoCompras = respaldoCompras;
+        this.respaldosServidos = Counter.builder("productos.respaldo.servidos")
+                .description("Consultas de productos respondidas con la última copia conocida")
+                .register(meterRegistry);
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(tamanoMaximo)
+                .expireAfterWrite(expiracion)
+                .refreshAfterWrite(refresco)
+                // Las tareas propias de la caché son breves: si el ejecutor de productos está lleno, se hacen aquí.
+                .executor(tarea -> {
+                    try {
+                        productosExecutor.execute(tarea);
+                    } catch (RejectedExecutionException e) {
+                        tarea.run();
+                    }
+                })
+                .recordStats()
+                .buildAsync(new AsyncCacheLoader<Long, ProductoDto>() {
+                    @Override
+                    public CompletableFuture<ProductoDto> asyncLoad(Long id, Executor executor) {
+                        return productoBatchLoader.cargar(id).thenApply(producto -> recordar(id, producto));
+                    }
+
+                    @Override
+                    public CompletableFuture<Map<Long, ProductoDto>> asyncLoadAll(Set<? extends Long> ids, Executor executor) {
+                        return productoBatchLoader.cargarTodos(ids).thenApply(productos -> {
+                            ids.forEach(id -> recordar(id, productos.get(id)));
+                            return productos;
+                        });
+                    }
+                });
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, NOMBRE_CACHE);
+    }
+
+    /**
+     * Obtiene un producto desde la caché, consultándolo al servicio remoto si no está presente.
+     *
+     * @param id identificador del producto
+     * @return un Optional con el producto, o vacío si el servicio remoto no lo conoce
+     */
+    public Optional<ProductoDto> getProductoById(Long id) {
+        return Optional.ofNullable(esperar(conRespaldo(id, cache.get(id))));
+    }
+
+    /**
+     * Inicia la obtención de un producto sin bloquear el hilo llamador.
+     * <p>
+     * Si el producto está en caché el futuro ya está completado; si no, la carga se resuelve en el
+     * ejecutor de productos junto con el resto del lote en curso.
+     *
+     * @param id identificador del producto
+     * @return un futuro con el producto, o con un Optional vacío si el servicio remoto no lo conoce
+     */
+    public CompletableFuture<Optional<ProductoDto>> getProductoByIdAsync(Long id) {
+        return conRespaldo(id, cache.get(id)).thenApply(Optional::ofNullable);
+    }
+
+    /**
+     * Obtiene varios productos en una sola pasada. Los que no están en caché se cargan juntos.
+     *
+     * @param ids identificadores de los productos
+     * @return los productos encontrados por ID; los que el servicio remoto no conoce no aparecen en el mapa
+     */
+    public Map<Long, ProductoDto> getProductosByIds(Collection<Long> ids) {
+        return esperar(cache.getAll(ids).exceptionally(error -> {
+            // Los productos ya cargados se sirven de la caché y el resto de su última copia conocida.
+            Map<Long, ProductoDto> productos = new HashMap<>(cache.synchronous().getAllPresent(ids));
+            for (Long id : ids) {
+                if (!productos.containsKey(id)) {
+                    productos.put(id, ultimoConocido(id, error));
+                }
+            }
+            return productos;
+        }));
+    }
+
+    /**
+     * Comprueba que un producto puede usarse para cobrar una compra.
+     *
+     * @param producto producto obtenido de esta caché
+     * @throws ProductosNoDisponiblesException si el producto está desactualizado y las compras no lo admiten
+     */
+    public void comprobarParaCompra(ProductoDto producto) {
+        if (producto.isDesactualizado() && !respaldoCompras) {
+            throw new ProductosNoDisponiblesException("El servicio de productos no está disponible y no se puede confirmar el precio del producto con ID: " + producto.getId());
+        }
+    }
+
+    /**
+     * Descarta un producto de la caché para forzar su recarga en la próxima consulta.
+     *
+     * @param id identificador del producto
+     */
+    public void invalidar(Long id) {
+        cache.synchronous().invalidate(id);
+    }
+
+    /**
+     * Devuelve una instantánea de las estadísticas de la caché.
+     *
+     * @return aciertos, fallos, cargas y desalojos acumulados
+     */
+    public CacheStats estadisticas() {
+        return cache.synchronous().stats();
+    }
+
+    /**
+     * Espera el resultado de una carga y propaga la excepción original en lugar del envoltorio asíncrono.
+     *
+     * @param carga futuro devuelto por la caché
+     * @return el resultado de la carga
+     */
+    public static <T> T esperar(CompletableFuture<T> carga) {
+        try {
+            return carga.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw e;
+        }
+    }
+
+    private ProductoDto recordar(Long id, ProductoDto producto) {
+        if (producto != null) {
+            ultimosConocidos.put(id, producto);
+        } else {
+            ultimosConocidos.invalidate(id);
+        }
+        return producto;
+    }
+
+    private CompletableFuture<ProductoDto> conRespaldo(Long id, CompletableFuture<ProductoDto> carga) {
+        return carga.exceptionally(error -> ultimoConocido(id, error));
+    }
+
+    /**
+     * Devuelve la última copia conocida de un producto cuya carga falló porque el servicio de productos no
+     * respondió, o propaga el fallo si no hay copia o el fallo es de otro tipo.
+     */
+    private ProductoDto ultimoConocido(Long id, Throwable error) {
+        ProductoDto conocido = esIndisponibilidad(error) ? ultimosConocidos.getIfPresent(id) : null;
+        if (conocido == null) {
+            throw error instanceof CompletionException completion ? completion : new CompletionException(error);
+        }
+        respaldosServidos.increment();
+        return conocido.comoDesactualizado();
+    }
+
+    /**
+     * Indica si un fallo de carga se debe a que el servicio de productos no respondió: circuito abierto o
+     * llamada rechazada, tiempo de espera agotado o error 5xx. Los errores 4xx o de decodificación no lo son,
+     * ya que la copia conocida ocultaría un fallo de configuración o de contrato.
+     */
+    private static boolean esIndisponibilidad(Throwable error) {
+        Throwable causa = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        return causa instanceof ProductosNoDisponiblesException
+                || causa instanceof RetryableException
+                || causa instanceof TimeoutException
+                || causa instanceof FeignException feign && feign.status() >= 500;
+    }
+}
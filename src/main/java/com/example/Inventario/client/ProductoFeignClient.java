@@ -2,16 +2,20 @@ package com.example.Inventario.client;
 
 import com.example.Inventario.config.FeignClientConfig;
 import com.example.Inventario.dto.ProductoDto;
+import org.springframework.cloud.openfeign.CollectionFormat;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /**
  * ProductoFeignClient es un cliente Feign para comunicarse con el servicio remoto de productos.
  */
-@FeignClient(name = "productos-service", url = "http://productos-service:8080", configuration = FeignClientConfig.class)
+@FeignClient(name = "productos-service", url = "${producto-service.url:http://productos-service:8080}", configuration = FeignClientConfig.class)
 public interface ProductoFeignClient {
 
      /**
@@ -22,4 +26,17 @@ public interface ProductoFeignClient {
      */
     @GetMapping("/api/productos/{id}")
     Optional<ProductoDto> getProductoById(@PathVariable Long id);
-}
\ No newline at end of file
+
+    /**
+     * Obtiene varios productos en una sola llamada al servicio remoto de productos.
+     * <p>
+     * Los identificadores se envían separados por comas ({@code ?ids=1,2,3}). Los productos que no existen
+     * simplemente no aparecen en la respuesta.
+     *
+     * @param ids identificadores de los productos
+     * @return los productos encontrados
+     */
+    @GetMapping("/api/productos")
+    @CollectionFormat(feign.CollectionFormat.CSV)
+    List<ProductoDto> getProductosByIds(@RequestParam("ids") Collection<Long> ids);
+}
@@ -0,0 +1,146 @@
+package com.example.Inventario.client;
+
+import com.example.Inventario.exception.ProductoNotFoundException;
+import com.example.Inventario.exception.ProductosNoDisponiblesException;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedBulkheadMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * ProteccionProductos envuelve las llamadas a {@link ProductoFeignClient} con un cortocircuito y un límite de
+ * llamadas concurrentes.
+ * <p>
+ * Cuando la proporción de llamadas fallidas o lentas supera el umbral, el circuito se abre y las llamadas se
+ * rechazan al instante, sin pasar por los reintentos de Feign, hasta que tras la espera configurada se dejan pasar
+ * unas pocas llamadas de prueba. El límite de concurrencia acota cuántas llamadas pueden estar esperando al
+ * servicio de productos a la vez, de modo que un servicio lento no retiene todos los hilos del ejecutor. Un 404
+ * remoto no cuenta como fallo, y un rechazo por concurrencia tampoco.
+ * <p>
+ * El estado del circuito y las llamadas se publican como métricas {@code resilience4j.circuitbreaker.*} y
+ * {@code resilience4j.bulkhead.*} con la etiqueta {@code name=productos-service}; los rechazos, como
+ * {@code productos.proteccion.rechazadas} con la etiqueta {@code motivo} ({@code circuito-abierto} o
+ * {@code concurrencia}), y cada cambio de estado del circuito se registra en el log y en
+ * {@code productos.circuito.transiciones}.
+ */
+@Component
+public class ProteccionProductos {
+
+    private static final Logger log = LoggerFactory.getLogger(ProteccionProductos.class);
+
+    static final String NOMBRE = "productos-service";
+
+    private final CircuitBreaker circuito;
+    private final Bulkhead bulkhead;
+    private final Counter rechazadasCircuito;
+    private final Counter rechazadasConcurrencia;
+
+    /**
+     * Crea la protección de las llamadas al servicio de productos.
+     *
+     * @param meterRegistry        registro donde se publican el estado del circuito y los rechazos
+     * @param umbralFallos         porcentaje de llamadas fallidas que abre el circuito
+     * @param umbralLlamadasLentas porcentaje de llamadas lentas que abre el circuito
+     * @param llamadaLenta         duración a partir de la cual una llamada se considera lenta
+     * @param ventana              número de llamadas recientes sobre las que se calculan los porcentajes
+     * @param minimoLlamadas       número de llamadas necesario antes de evaluar los porcentajes
+     * @param esperaAbierto        tiempo que el circuito permanece abierto antes de probar de nuevo
+     * @param llamadasSemiabierto  número de llamadas de prueba con el circuito semiabierto
+     * @param maxConcurrentes      número máximo de llamadas simultáneas al servicio de productos
+     * @param esperaMaximaBulkhead tiempo que una llamada espera un hueco antes de rechazarse
+     */
+    public ProteccionProductos(MeterRegistry meterRegistry,
+                               @Value("${productos.circuito.umbral-fallos:50}") float umbralFallos,
+                               @Value("${productos.circuito.umbral-llamadas-lentas:100}") float umbralLlamadasLentas,
+                               @Value("${productos.circuito.llamada-lenta:5s}") Duration llamadaLenta,
+                               @Value("${productos.circuito.ventana:20}") int ventana,
+                               @Value("${productos.circuito.minimo-llamadas:10}") int minimoLlamadas,
+                               @Value("${productos.circuito.espera-abierto:30s}") Duration esperaAbierto,
+                               @Value("${productos.circuito.llamadas-semiabierto:3}") int llamadasSemiabierto,
+                               @Value("${productos.bulkhead.max-concurrentes:10}") int maxConcurrentes,
+                               @Value("${productos.bulkhead.espera-maxima:0ms}") Duration esperaMaximaBulkhead) {
+        CircuitBreakerRegistry circuitos = CircuitBreakerRegistry.of(CircuitBreakerConfig.custom()
+                .slidingWindowType(CircuitBreakerConfig.SlidingWindowType.COUNT_BASED)
+                .slidingWindowSize(ventana)
+                .minimumNumberOfCalls(minimoLlamadas)
+                .failureRateThreshold(umbralFallos)
+                .slowCallRateThreshold(umbralLlamadasLentas)
+                .slowCallDurationThreshold(llamadaLenta)
+                .waitDurationInOpenState(esperaAbierto)
+                .permittedNumberOfCallsInHalfOpenState(llamadasSemiabierto)
+                .ignoreExceptions(ProductoNotFoundException.class, BulkheadFullException.class)
+                .build());
+        BulkheadRegistry bulkheads = BulkheadRegistry.of(BulkheadConfig.custom()
+                .maxConcurrentCalls(maxConcurrentes)
+                .maxWaitDuration(esperaMaximaBulkhead)
+                .build());
+        this.circuito = circuitos.circuitBreaker(NOMBRE);
+        this.bulkhead = bulkheads.bulkhead(NOMBRE);
+
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(circuitos).bindTo(meterRegistry);
+        TaggedBulkheadMetrics.ofBulkheadRegistry(bulkheads).bindTo(meterRegistry);
+        this.rechazadasCircuito = contadorRechazos(meterRegistry, "circuito-abierto");
+        this.rechazadasConcurrencia = contadorRechazos(meterRegistry, "concurrencia");
+        circuito.getEventPublisher().onStateTransition(evento -> {
+            CircuitBreaker.StateTransition transicion = evento.getStateTransition();
+            log.warn("Circuito del servicio de productos: {} -> {}", transicion.getFromState(), transicion.getToState());
+            Counter.builder("productos.circuito.transiciones")
+                    .description("Cambios de estado del circuito del servicio de productos")
+                    .tag("desde", transicion.getFromState().name().toLowerCase())
+                    .tag("hacia", transicion.getToState().name().toLowerCase())
+                    .register(meterRegistry)
+                    .increment();
+        });
+    }
+
+    /**
+     * Ejecuta una llamada al servicio de productos si el circuito está cerrado y hay hueco en el límite de
+     * concurrencia.
+     *
+     * @param llamada llamada remota
+     * @return el resultado de la llamada
+     * @throws ProductosNoDisponiblesException si el circuito está abierto o se alcanzó el límite de concurrencia
+     */
+    public <T> T ejecutar(Supplier<T> llamada) {
+        try {
+            return circuito.executeSupplier(() -> bulkhead.executeSupplier(llamada));
+        } catch (CallNotPermittedException e) {
+            rechazadasCircuito.increment();
+            throw new ProductosNoDisponiblesException("El servicio de productos no está disponible: circuito abierto.", e);
+        } catch (BulkheadFullException e) {
+            rechazadasConcurrencia.increment();
+            throw new ProductosNoDisponiblesException("El servicio de productos no está disponible: límite de llamadas concurrentes alcanzado.", e);
+        }
+    }
+
+    /**
+     * Devuelve el estado actual del circuito.
+     *
+     * @return cerrado, abierto o semiabierto
+     */
+    public CircuitBreaker.State estado() {
+        return circuito.getState();
+    }
+
+    private static Counter contadorRechazos(MeterRegistry meterRegistry, String motivo) {
+        return Counter.builder("productos.proteccion.rechazadas")
+                .description("Llamadas al servicio de productos rechazadas sin enviarse")
+                .tag("motivo", motivo)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.Inventario.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.io.HttpClientConnectionManager;
+import org.apache.hc.core5.http.io.SocketConfig;
+import org.apache.hc.core5.pool.PoolConcurrencyPolicy;
+import org.apache.hc.core5.pool.PoolReusePolicy;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.openfeign.clientconfig.HttpClient5FeignConfiguration.HttpClientBuilderCustomizer;
+import org.springframework.cloud.openfeign.support.FeignHttpClientProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * ClienteHttpConfig configura el transporte HTTP de los clientes Feign: Apache HttpClient 5 con un pool de
+ * conexiones persistentes en lugar de {@code HttpURLConnection}.
+ * <p>
+ * El tamaño del pool, los tiempos de espera y la duración de las conexiones se leen de
+ * {@code spring.cloud.openfeign.httpclient.*}; Spring Cloud OpenFeign construye el cliente HTTP con este pool.
+ */
+@Configuration
+public class ClienteHttpConfig {
+
+    /**
+     * Crea el pool de conexiones de los clientes Feign, medido con {@link PoolConexionesHttp}.
+     * <p>
+     * Las conexiones libres se reutilizan en orden LIFO, de modo que las menos usadas quedan inactivas y se
+     * cierran, y se validan antes de reutilizarse si llevan inactivas más de {@code validarTrasInactividad}.
+     *
+     * @param propiedades            configuración {@code spring.cloud.openfeign.httpclient.*}
+     * @param meterRegistry          registro donde se publican la espera y la ocupación del pool
+     * @param validarTrasInactividad inactividad a partir de la cual una conexión se valida antes de reutilizarse
+     * @return el pool de conexiones
+     */
+    @Bean
+    public HttpClientConnectionManager conexionesHttp(FeignHttpClientProperties propiedades, MeterRegistry meterRegistry,
+                                                      @Value("${producto-service.http.validar-tras-inactividad:2s}") Duration validarTrasInactividad) {
+        FeignHttpClientProperties.Hc5Properties hc5 = propiedades.getHc5();
+        PoolingHttpClientConnectionManager pool = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(propiedades.getMaxConnections())
+                .setMaxConnPerRoute(propiedades.getMaxConnectionsPerRoute())
+                .setPoolConcurrencyPolicy(PoolConcurrencyPolicy.valueOf(hc5.getPoolConcurrencyPolicy().name()))
+                .setConnPoolPolicy(PoolReusePolicy.valueOf(hc5.getPoolReusePolicy().name()))
+                .setDefaultSocketConfig(SocketConfig.custom()
+                        .setSoTimeout(Timeout.of(hc5.getSocketTimeout(), hc5.getSocketTimeoutUnit()))
+                        .build())
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.ofMilliseconds(propiedades.getConnectionTimeout()))
+                        .setTimeToLive(TimeValue.of(propiedades.getTimeToLive(), propiedades.getTimeToLiveUnit()))
+                        .setValidateAfterInactivity(TimeValue.ofMilliseconds(validarTrasInactividad.toMillis()))
+                        .build())
+                .build();
+        return new PoolConexionesHttp(pool, meterRegistry);
+    }
+
+    /**
+     * Cierra en segundo plano las conexiones que llevan inactivas más de {@code inactividadMaxima}, antes de que
+     * el servidor las cierre por su cuenta y la siguiente llamada falle al reutilizarlas.
+     *
+     * @param inactividadMaxima tiempo que una conexión puede permanecer libre en el pool
+     * @return el ajuste del cliente HTTP
+     */
+    @Bean
+    public HttpClientBuilderCustomizer cierreConexionesInactivas(
+            @Value("${producto-service.http.inactividad-maxima:30s}") Duration inactividadMaxima) {
+        return builder -> builder.evictIdleConnections(TimeValue.ofMilliseconds(inactividadMaxima.toMillis()));
+    }
+}
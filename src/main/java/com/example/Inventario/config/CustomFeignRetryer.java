@@ -2,16 +2,22 @@ package com.example.Inventario.config;
 
 import feign.RetryableException;
 import feign.Retryer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.concurrent.TimeUnit;
-
 /**
  * CustomFeignRetryer implementa una política de reintentos personalizada para Feign.
  * <p>
  * Permite configurar el número máximo de intentos, el periodo inicial de espera y el periodo máximo,
- * aplicando un backoff exponencial entre reintentos.
+ * aplicando un backoff exponencial entre reintentos. Si se crea con un {@link MeterRegistry}, cuenta los
+ * reintentos y las llamadas que agotan los intentos en {@code productos.feign.reintentos}; los contadores se
+ * registran una vez y las copias por llamada los comparten.
+ * <p>
+ * Esta política duerme el hilo de la llamada entre intentos. Solo se usa con
+ * {@code producto-service.reintentos.asincronos=false}; por defecto los reintentos los programa
+ * {@link com.example.Inventario.client.LlamadasProductos}.
  */
 public class CustomFeignRetryer implements Retryer {
 
@@ -20,6 +26,8 @@ public class CustomFeignRetryer implements Retryer {
     private final int maxAttempts;
     private final long backoffPeriod;
     private final long maxPeriod;
+    private final Counter reintentos;
+    private final Counter agotados;
     int attempt;
 
     // Constructor por defecto. Configura 3 intentos, 100ms de espera inicial y 1000ms de espera máxima.     
@@ -35,9 +43,35 @@ public class CustomFeignRetryer implements Retryer {
      * @param maxPeriod     Periodo máximo de espera en milisegundos.
      */
     public CustomFeignRetryer(int maxAttempts, long backoffPeriod, long maxPeriod) {
+        this(maxAttempts, backoffPeriod, maxPeriod, null, null);
+    }
+
+    /**
+     * Constructor con métricas de reintentos.
+     *
+     * @param maxAttempts   Número máximo de intentos.
+     * @param backoffPeriod Periodo inicial de espera en milisegundos.
+     * @param maxPeriod     Periodo máximo de espera en milisegundos.
+     * @param meterRegistry Registro donde se publican los reintentos.
+     */
+    public CustomFeignRetryer(int maxAttempts, long backoffPeriod, long maxPeriod, MeterRegistry meterRegistry) {
+        this(maxAttempts, backoffPeriod, maxPeriod,
+                Counter.builder("productos.feign.reintentos")
+                        .description("Reintentos de llamadas al servicio de productos")
+                        .tag("resultado", "reintentado")
+                        .register(meterRegistry),
+                Counter.builder("productos.feign.reintentos")
+                        .description("Reintentos de llamadas al servicio de productos")
+                        .tag("resultado", "agotado")
+                        .register(meterRegistry));
+    }
+
+    private CustomFeignRetryer(int maxAttempts, long backoffPeriod, long maxPeriod, Counter reintentos, Counter agotados) {
         this.maxAttempts = maxAttempts;
         this.backoffPeriod = backoffPeriod;
         this.maxPeriod = maxPeriod;
+        this.reintentos = reintentos;
+        this.agotados = agotados;
         this.attempt = 1;
     }
 
@@ -51,12 +85,16 @@ public class CustomFeignRetryer implements Retryer {
     public void continueOrPropagate(RetryableException e) {
         if (attempt >= maxAttempts) {
             log.error("Excedido el número máximo de reintentos ({}) para la llamada a Feign. Propagando excepción.", maxAttempts);
+            if (agotados != null) {
+                agotados.increment();
+            }
             throw e;
         }
 
         long sleepMillis;
         if (e.retryAfter() != null) {
-            sleepMillis = TimeUnit.SECONDS.toMillis(e.retryAfter());
+            // Feign entrega Retry-After como instante absoluto en milisegundos, no como segundos de espera.
+            sleepMillis = Math.max(0, e.retryAfter() - System.currentTimeMillis());
         } else {
             // Implementa un "backoff" exponencial: 100ms, 200ms, 400ms...
             sleepMillis = (long) (backoffPeriod * Math.pow(2, attempt -1));
@@ -65,6 +103,9 @@ public class CustomFeignRetryer implements Retryer {
 
         log.warn("Reintento #{} para la llamada a Feign debido a: {}. Esperando {} ms.", attempt, e.getMessage(), sleepMillis);
         attempt++;
+        if (reintentos != null) {
+            reintentos.increment();
+        }
 
         try {
             Thread.sleep(sleepMillis);
@@ -82,6 +123,6 @@ public class CustomFeignRetryer implements Retryer {
      */
     @Override
     public Retryer clone() {
-        return new CustomFeignRetryer(maxAttempts, backoffPeriod, maxPeriod);
+        return new CustomFeignRetryer(maxAttempts, backoffPeriod, maxPeriod, reintentos, agotados);
     }
 }
@@ -0,0 +1,166 @@
+package com.example.Inventario.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * EjecutoresConfig define los pools de hilos dedicados que usa el microservicio.
+ * <p>
+ * Cada pool es acotado y, al saturarse, ejecuta la tarea en el hilo llamador en lugar de rechazarla,
+ * de modo que una ráfaga de trabajo se degrada a ejecución secuencial en vez de fallar. El pool de productos es la
+ * excepción: los reintentos, las coberturas y los lotes de productos se le entregan desde hilos temporizadores, que
+ * no deben quedarse ejecutando una llamada remota, así que al saturarse rechaza la tarea.
+ * <p>
+ * Con {@code spring.threads.virtual.enabled=true} (requiere Java 21) los pools se sustituyen por ejecutores
+ * de hilos virtuales: cada tarea obtiene su propio hilo y solo se limita el número de tareas simultáneas.
+ */
+@Configuration
+public class EjecutoresConfig {
+
+    /**
+     * Pool usado para cargar y refrescar productos desde el servicio remoto de productos. Rechaza las tareas que no
+     * caben en lugar de ejecutarlas en el hilo llamador.
+     *
+     * @param hilos        número de hilos del pool
+     * @param capacidadCola tamaño máximo de la cola de tareas pendientes
+     * @return el ejecutor para llamadas al servicio de productos
+     */
+    @Bean(name = "productosExecutor")
+    @ConditionalOnThreading(Threading.PLATFORM)
+    public ThreadPoolTaskExecutor productosExecutor(@Value("${productos.executor.hilos:16}") int hilos,
+                                                    @Value("${productos.executor.capacidad-cola:1000}") int capacidadCola) {
+        return crearEjecutor("productos-", hilos, capacidadCola, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Variante del pool de productos para el modo de hilos virtuales. Al alcanzar el límite rechaza la tarea en
+     * lugar de esperar un hueco.
+     *
+     * @param limite número máximo de llamadas simultáneas al servicio de productos
+     * @return el ejecutor para llamadas al servicio de productos
+     */
+    @Bean(name = "productosExecutor")
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    public SimpleAsyncTaskExecutor productosExecutorVirtual(@Value("${productos.executor.limite-virtual:256}") int limite) {
+        EjecutorVirtualSinEspera executor = new EjecutorVirtualSinEspera("productos-", limite);
+        executor.setVirtualThreads(true);
+        executor.setTaskTerminationTimeout(10_000);
+        return executor;
+    }
+
+    /**
+     * Pool en el que los secuenciadores de compras por producto aplican sus lotes.
+     *
+     * @param hilos        número de hilos del pool; limita cuántos productos se procesan a la vez
+     * @param capacidadCola tamaño máximo de la cola de tareas pendientes
+     * @return el ejecutor de los secuenciadores de compras
+     */
+    @Bean(name = "comprasExecutor")
+    @ConditionalOnThreading(Threading.PLATFORM)
+    public ThreadPoolTaskExecutor comprasExecutor(@Value("${inventario.compras.executor.hilos:8}") int hilos,
+                                                  @Value("${inventario.compras.executor.capacidad-cola:1000}") int capacidadCola) {
+        return crearEjecutor("compras-", hilos, capacidadCola, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * Variante del pool de compras para el modo de hilos virtuales. No se limita la concurrencia: cada producto
+     * tiene como mucho una tarea activa, y una tarea que se reprograma a sí misma no debe esperar un permiso.
+     *
+     * @return el ejecutor de los secuenciadores de compras
+     */
+    @Bean(name = "comprasExecutor")
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    public SimpleAsyncTaskExecutor comprasExecutorVirtual() {
+        return crearEjecutorVirtual("compras-", SimpleAsyncTaskExecutor.UNBOUNDED_CONCURRENCY);
+    }
+
+    /**
+     * Pool en el que Spring MVC ejecuta las respuestas asíncronas, como las exportaciones en flujo. Cada tarea
+     * retiene una conexión de base de datos mientras dura, así que el pool debe ser menor que el de conexiones.
+     *
+     * @param hilos         número de hilos del pool
+     * @param capacidadCola tamaño máximo de la cola de tareas pendientes
+     * @return el ejecutor de respuestas asíncronas
+     */
+    @Bean(name = "exportacionesExecutor")
+    @ConditionalOnThreading(Threading.PLATFORM)
+    public ThreadPoolTaskExecutor exportacionesExecutor(@Value("${inventario.exportacion.executor.hilos:2}") int hilos,
+                                                        @Value("${inventario.exportacion.executor.capacidad-cola:10}") int capacidadCola) {
+        return crearEjecutor("exportaciones-", hilos, capacidadCola, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * Variante del pool de respuestas asíncronas para el modo de hilos virtuales, limitada al mismo número de
+     * tareas simultáneas para no agotar el pool de conexiones.
+     *
+     * @param hilos número máximo de tareas simultáneas
+     * @return el ejecutor de respuestas asíncronas
+     */
+    @Bean(name = "exportacionesExecutor")
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    public SimpleAsyncTaskExecutor exportacionesExecutorVirtual(@Value("${inventario.exportacion.executor.hilos:2}") int hilos) {
+        return crearEjecutorVirtual("exportaciones-", hilos);
+    }
+
+    private SimpleAsyncTaskExecutor crearEjecutorVirtual(String prefijo, int limite) {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(prefijo);
+        executor.setVirtualThreads(true);
+        executor.setConcurrencyLimit(limite);
+        executor.setTaskTerminationTimeout(10_000);
+        return executor;
+    }
+
+    private ThreadPoolTaskExecutor crearEjecutor(String prefijo, int hilos, int capacidadCola, RejectedExecutionHandler alSaturarse) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix(prefijo);
+        executor.setCorePoolSize(hilos);
+        executor.setMaxPoolSize(hilos);
+        executor.setQueueCapacity(capacidadCola);
+        executor.setRejectedExecutionHandler(alSaturarse);
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        return executor;
+    }
+
+    /**
+     * Ejecutor de hilos virtuales que rechaza las tareas por encima del límite, en lugar de bloquear al llamador
+     * como hace {@link SimpleAsyncTaskExecutor#setConcurrencyLimit(int)}.
+     */
+    static class EjecutorVirtualSinEspera extends SimpleAsyncTaskExecutor {
+
+        private final Semaphore permisos;
+
+        EjecutorVirtualSinEspera(String prefijo, int limite) {
+            super(prefijo);
+            this.permisos = new Semaphore(limite);
+        }
+
+        @Override
+        protected void doExecute(Runnable tarea) {
+            if (!permisos.tryAcquire()) {
+                throw new TaskRejectedException("Límite de tareas simultáneas alcanzado en " + getThreadNamePrefix());
+            }
+            try {
+                super.doExecute(() -> {
+                    try {
+                        tarea.run();
+                    } finally {
+                        permisos.release();
+                    }
+                });
+            } catch (RuntimeException e) {
+                permisos.release();
+                throw e;
+            }
+        }
+    }
+}
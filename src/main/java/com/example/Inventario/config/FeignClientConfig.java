@@ -1,7 +1,11 @@
 package com.example.Inventario.config;
 
+import com.example.Inventario.client.FeignErrorDecoder;
 import feign.RequestInterceptor;
 import feign.RequestTemplate;
+import feign.Retryer;
+import feign.codec.ErrorDecoder;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -30,8 +34,45 @@ public class FeignClientConfig {
             public void apply(RequestTemplate template) {
                 // Añadir la API Key al encabezado de la solicitud de Feign
                 template.header(API_KEY_AUTH_HEADER, productsApiKeyForFeign);
-                System.out.println("FeignClient: Añadiendo encabezado " + API_KEY_AUTH_HEADER + " con valor: " + productsApiKeyForFeign);
             }
         };
     }
-}
\ No newline at end of file
+
+    /**
+     * Crea el decodificador de errores de los clientes Feign, que convierte un 404 del servicio de productos en
+     * {@link com.example.Inventario.exception.ProductoNotFoundException}. Así el cortocircuito de
+     * {@link com.example.Inventario.client.ProteccionProductos} no cuenta los productos inexistentes como fallos.
+     *
+     * @return el decodificador de errores
+     */
+    @Bean
+    public ErrorDecoder errorDecoder() {
+        return new FeignErrorDecoder();
+    }
+
+    /**
+     * Crea la política de reintentos de los clientes Feign, con métricas de los reintentos realizados.
+     * <p>
+     * Con los reintentos asíncronos activados, Feign no reintenta: los reintentos los programa
+     * {@link com.example.Inventario.client.LlamadasProductos} sin dormir el hilo de la llamada.
+     *
+     * @param meterRegistry   registro donde se publican los reintentos
+     * @param asincronos      si es {@code true}, Feign no reintenta
+     * @param maxIntentos     número máximo de intentos por llamada, incluido el primero
+     * @param esperaInicialMs espera en milisegundos antes del primer reintento; se duplica en cada uno
+     * @param esperaMaximaMs  espera máxima en milisegundos entre reintentos
+     * @return la política de reintentos
+     */
+    @Bean
+    public Retryer retryer(MeterRegistry meterRegistry,
+                           @Value("${producto-service.reintentos.asincronos:true}") boolean asincronos,
+                           @Value("${producto-service.reintentos.max-intentos:3}") int maxIntentos,
+                           @Value("${producto-service.reintentos.espera-inicial-ms:100}") long esperaInicialMs,
+                           @Value("${producto-service.reintentos.espera-maxima-ms:1000}") long esperaMaximaMs) {
+        if (asincronos) {
+            return Retryer.NEVER_RETRY;
+        }
+        // Se usan milisegundos porque el contexto propio de cada cliente Feign no convierte cadenas a Duration.
+        return new CustomFeignRetryer(maxIntentos, esperaInicialMs, esperaMaximaMs, meterRegistry);
+    }
+}
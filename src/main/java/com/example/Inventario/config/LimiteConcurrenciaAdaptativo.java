@@ -0,0 +1,158 @@
+package com.example.Inventario.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * LimiteConcurrenciaAdaptativo limita cuántas peticiones atiende el servicio a la vez y ajusta ese límite según
+ * la latencia observada, al estilo del algoritmo Gradient2.
+ * <p>
+ * Se comparan dos medias móviles de la latencia: una corta, de las últimas peticiones, y otra larga, que hace de
+ * referencia. Mientras la corta no supera la larga por más de la tolerancia, el límite crece poco a poco; cuando
+ * la supera, la base de datos o el servicio de productos están encolando trabajo y el límite se reduce en
+ * proporción. Las muestras tomadas con poca carga no cambian el límite, porque no dicen nada de la capacidad.
+ * <p>
+ * Las lecturas solo pueden ocupar una parte del límite; el resto queda reservado a las compras y demás
+ * escrituras, que así siguen entrando cuando las lecturas ya se rechazan. El límite y las peticiones en curso se
+ * publican en {@code inventario.concurrencia.limite} e {@code inventario.concurrencia.en.curso}; los rechazos, en
+ * {@code inventario.concurrencia.rechazadas} con la etiqueta {@code prioridad} ({@code escritura} o
+ * {@code lectura}).
+ */
+@Component
+public class LimiteConcurrenciaAdaptativo {
+
+    private static final int VENTANA_CORTA = 10;
+    private static final int VENTANA_LARGA = 600;
+
+    private final boolean habilitado;
+    private final int limiteMinimo;
+    private final int limiteMaximo;
+    private final double reservaEscrituras;
+    private final double tolerancia;
+    private final double suavizado;
+    private final AtomicInteger enCurso = new AtomicInteger();
+    private final Counter rechazadasEscritura;
+    private final Counter rechazadasLectura;
+
+    private volatile int limite;
+
+    // Estado del cálculo del límite, protegido por this.
+    private double limiteEstimado;
+    private double latenciaCorta;
+    private double latenciaLarga;
+    private long muestras;
+
+    /**
+     * Crea el limitador.
+     *
+     * @param meterRegistry     registro donde se publican el límite y los rechazos
+     * @param habilitado        si es {@code false}, no se limita ninguna petición
+     * @param limiteInicial     límite con el que arranca el servicio
+     * @param limiteMinimo      límite por debajo del cual nunca se baja
+     * @param limiteMaximo      límite por encima del cual nunca se sube
+     * @param reservaEscrituras fracción del límite que las lecturas no pueden ocupar
+     * @param tolerancia        cuántas veces puede superar la latencia corta a la larga sin reducir el límite
+     * @param suavizado         peso de cada nuevo cálculo en el límite, entre 0 y 1
+     */
+    public LimiteConcurrenciaAdaptativo(MeterRegistry meterRegistry,
+                                        @Value("${inventario.concurrencia.habilitado:true}") boolean habilitado,
+                                        @Value("${inventario.concurrencia.limite-inicial:20}") int limiteInicial,
+                                        @Value("${inventario.concurrencia.limite-minimo:4}") int limiteMinimo,
+                                        @Value("${inventario.concurrencia.limite-maximo:200}") int limiteMaximo,
+                                        @Value("${inventario.concurrencia.reserva-escrituras:0.2}") double reservaEscrituras,
+                                        @Value("${inventario.concurrencia.tolerancia:1.5}") double tolerancia,
+                                        @Value("${inventario.concurrencia.suavizado:0.2}") double suavizado) {
+        this.habilitado = habilitado;
+        this.limiteMinimo = limiteMinimo;
+        this.limiteMaximo = limiteMaximo;
+        this.reservaEscrituras = reservaEscrituras;
+        this.tolerancia = tolerancia;
+        this.suavizado = suavizado;
+        this.limiteEstimado = Math.min(Math.max(limiteInicial, limiteMinimo), limiteMaximo);
+        this.limite = (int) limiteEstimado;
+
+        Gauge.builder("inventario.concurrencia.limite", this, LimiteConcurrenciaAdaptativo::getLimite)
+                .description("Peticiones simultáneas admitidas")
+                .register(meterRegistry);
+        Gauge.builder("inventario.concurrencia.en.curso", enCurso, AtomicInteger::get)
+                .description("Peticiones en curso sujetas al límite de concurrencia")
+                .register(meterRegistry);
+        this.rechazadasEscritura = contadorRechazos(meterRegistry, "escritura");
+        this.rechazadasLectura = contadorRechazos(meterRegistry, "lectura");
+    }
+
+    public boolean isHabilitado() {
+        return habilitado;
+    }
+
+    public int getLimite() {
+        return limite;
+    }
+
+    /**
+     * Intenta ocupar un hueco del límite.
+     *
+     * @param escritura si es una compra u otra escritura, que pueden usar la parte reservada del límite
+     * @return el número de peticiones en curso antes de esta, o -1 si la petición debe rechazarse
+     */
+    public int adquirir(boolean escritura) {
+        int maximo = escritura ? limite : Math.max(1, (int) (limite * (1 - reservaEscrituras)));
+        while (true) {
+            int actual = enCurso.get();
+            if (actual >= maximo) {
+                (escritura ? rechazadasEscritura : rechazadasLectura).increment();
+                return -1;
+            }
+            if (enCurso.compareAndSet(actual, actual + 1)) {
+                return actual;
+            }
+        }
+    }
+
+    /**
+     * Libera el hueco ocupado por una petición y ajusta el límite con su latencia.
+     *
+     * @param latenciaNanos   duración de la petición
+     * @param enCursoAlEntrar peticiones en curso cuando entró, devuelto por {@link #adquirir(boolean)}
+     */
+    public void liberar(long latenciaNanos, int enCursoAlEntrar) {
+        enCurso.decrementAndGet();
+        registrar(latenciaNanos, enCursoAlEntrar + 1);
+    }
+
+    private synchronized void registrar(long latenciaNanos, int enCursoMuestra) {
+        muestras++;
+        if (muestras == 1) {
+            latenciaCorta = latenciaNanos;
+            latenciaLarga = latenciaNanos;
+            return;
+        }
+        latenciaCorta += (latenciaNanos - latenciaCorta) * 2.0 / (VENTANA_CORTA + 1);
+        latenciaLarga += (latenciaCorta - latenciaLarga) / Math.min(muestras, VENTANA_LARGA);
+        // Si la latencia baja con claridad (el servicio se ha recuperado), la referencia se acerca más deprisa.
+        if (latenciaLarga > 2 * latenciaCorta) {
+            latenciaLarga *= 0.95;
+        }
+        if (enCursoMuestra < limiteEstimado / 2) {
+            return;
+        }
+
+        double gradiente = Math.max(0.5, Math.min(1.0, tolerancia * latenciaLarga / latenciaCorta));
+        double nuevo = limiteEstimado * gradiente + Math.sqrt(limiteEstimado);
+        limiteEstimado = limiteEstimado * (1 - suavizado) + nuevo * suavizado;
+        limiteEstimado = Math.max(limiteMinimo, Math.min(limiteMaximo, limiteEstimado));
+        limite = (int) limiteEstimado;
+    }
+
+    private static Counter contadorRechazos(MeterRegistry meterRegistry, String prioridad) {
+        return Counter.builder("inventario.concurrencia.rechazadas")
+                .description("Peticiones rechazadas por el límite de concurrencia")
+                .tag("prioridad", prioridad)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.Inventario.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * LimiteConcurrenciaFilter aplica {@link LimiteConcurrenciaAdaptativo} a las peticiones de {@code /api/inventario}.
+ * <p>
+ * Se ejecuta después de la autenticación, de modo que las peticiones sin API Key válida no ocupan huecos. Las
+ * peticiones que no caben se rechazan al instante con 503 y {@code Retry-After}, sin llegar al controlador. La
+ * importación y la exportación no se limitan: duran minutos, ocupan su propio ejecutor y sus latencias
+ * falsearían el cálculo del límite.
+ */
+@Component
+public class LimiteConcurrenciaFilter extends OncePerRequestFilter {
+
+    private static final String PREFIJO = "/api/inventario";
+
+    private final LimiteConcurrenciaAdaptativo limiteConcurrencia;
+    private final String reintentarTras;
+
+    public LimiteConcurrenciaFilter(LimiteConcurrenciaAdaptativo limiteConcurrencia,
+                                    @Value("${inventario.concurrencia.reintentar-tras:1s}") Duration reintentarTras) {
+        this.limiteConcurrencia = limiteConcurrencia;
+        this.reintentarTras = Long.toString(Math.max(1, reintentarTras.toSeconds()));
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!limiteConcurrencia.isHabilitado()) {
+            return true;
+        }
+        String ruta = request.getRequestURI().substring(request.getContextPath().length());
+        return !ruta.startsWith(PREFIJO)
+                || ruta.startsWith(PREFIJO + "/exportar")
+                || ruta.startsWith(PREFIJO + "/importar");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        boolean escritura = !HttpMethod.GET.matches(request.getMethod());
+        int enCurso = limiteConcurrencia.adquirir(escritura);
+        if (enCurso < 0) {
+            response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            response.setHeader(HttpHeaders.RETRY_AFTER, reintentarTras);
+            response.getWriter().write("Servicio saturado: inténtelo de nuevo más tarde.");
+            return;
+        }
+
+        long inicio = System.nanoTime();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            limiteConcurrencia.liberar(System.nanoTime() - inicio, enCurso);
+        }
+    }
+}
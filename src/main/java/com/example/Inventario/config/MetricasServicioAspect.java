@@ -0,0 +1,118 @@
+package com.example.Inventario.config;
+
+import com.example.Inventario.exception.IdempotenciaConflictException;
+import com.example.Inventario.exception.InventarioNotFoundException;
+import com.example.Inventario.exception.ProductoNotFoundException;
+import com.example.Inventario.exception.StockNotAvailableException;
+import com.example.Inventario.service.InventarioService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MetricasServicioAspect mide la latencia de cada método público de {@link InventarioService} y el resultado de
+ * las compras.
+ * <p>
+ * Todos los medidores se registran al arrancar y se guardan por método en un mapa que no cambia después, así que
+ * medir una llamada no crea medidores ni etiquetas: solo consulta el mapa y registra el tiempo.
+ * <ul>
+ *     <li>{@code inventario.servicio}: temporizador con las etiquetas {@code metodo} y {@code resultado}
+ *     ({@code exito} o {@code error}).</li>
+ *     <li>{@code inventario.compras}: contador de compras con la etiqueta {@code resultado} ({@code exito},
+ *     {@code sin-stock}, {@code no-encontrado}, {@code conflicto} o {@code error}).</li>
+ * </ul>
+ */
+@Aspect
+@Component
+public class MetricasServicioAspect {
+
+    private static final String METODO_COMPRA = "realizarCompra";
+
+    private final Map<Method, Timer[]> temporizadores = new HashMap<>();
+    private final Counter comprasExito;
+    private final Counter comprasSinStock;
+    private final Counter comprasNoEncontrado;
+    private final Counter comprasConflicto;
+    private final Counter comprasError;
+
+    public MetricasServicioAspect(MeterRegistry meterRegistry) {
+        for (Method metodo : InventarioService.class.getDeclaredMethods()) {
+            if (Modifier.isPublic(metodo.getModifiers())) {
+                temporizadores.put(metodo, new Timer[]{
+                        temporizador(meterRegistry, metodo.getName(), "exito"),
+                        temporizador(meterRegistry, metodo.getName(), "error")
+                });
+            }
+        }
+        this.comprasExito = contadorCompras(meterRegistry, "exito");
+        this.comprasSinStock = contadorCompras(meterRegistry, "sin-stock");
+        this.comprasNoEncontrado = contadorCompras(meterRegistry, "no-encontrado");
+        this.comprasConflicto = contadorCompras(meterRegistry, "conflicto");
+        this.comprasError = contadorCompras(meterRegistry, "error");
+    }
+
+    @Around("execution(public * com.example.Inventario.service.InventarioService.*(..))")
+    public Object medir(ProceedingJoinPoint joinPoint) throws Throwable {
+        Method metodo = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        Timer[] temporizadoresMetodo = temporizadores.get(metodo);
+        if (temporizadoresMetodo == null) {
+            return joinPoint.proceed();
+        }
+        boolean compra = METODO_COMPRA.equals(metodo.getName());
+
+        long inicio = System.nanoTime();
+        try {
+            Object resultado = joinPoint.proceed();
+            temporizadoresMetodo[0].record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+            if (compra) {
+                comprasExito.increment();
+            }
+            return resultado;
+        } catch (Throwable e) {
+            temporizadoresMetodo[1].record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+            if (compra) {
+                contadorCompraFallida(e).increment();
+            }
+            throw e;
+        }
+    }
+
+    private Counter contadorCompraFallida(Throwable e) {
+        if (e instanceof StockNotAvailableException) {
+            return comprasSinStock;
+        }
+        if (e instanceof ProductoNotFoundException || e instanceof InventarioNotFoundException) {
+            return comprasNoEncontrado;
+        }
+        if (e instanceof IdempotenciaConflictException) {
+            return comprasConflicto;
+        }
+        return comprasError;
+    }
+
+    private static Timer temporizador(MeterRegistry meterRegistry, String metodo, String resultado) {
+        return Timer.builder("inventario.servicio")
+                .description("Latencia de los métodos de InventarioService")
+                .tag("metodo", metodo)
+                .tag("resultado", resultado)
+                .register(meterRegistry);
+    }
+
+    private static Counter contadorCompras(MeterRegistry meterRegistry, String resultado) {
+        return Counter.builder("inventario.compras")
+                .description("Compras individuales por resultado")
+                .tag("resultado", resultado)
+                .register(meterRegistry);
+    }
+}
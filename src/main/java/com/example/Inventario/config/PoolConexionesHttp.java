@@ -0,0 +1,165 @@
+package com.example.Inventario.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.io.ConnectionEndpoint;
+import org.apache.hc.client5.http.io.HttpClientConnectionManager;
+import org.apache.hc.client5.http.io.LeaseRequest;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.pool.ConnPoolControl;
+import org.apache.hc.core5.pool.PoolStats;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * PoolConexionesHttp envuelve el pool de conexiones HTTP de los clientes Feign para medir cuánto espera cada
+ * llamada a que quede libre una conexión.
+ * <p>
+ * La espera se publica en {@code http.client.conexiones.espera}, con la etiqueta {@code resultado}
+ * ({@code obtenida} o {@code agotada} si vence {@code connection-request-timeout}); la ocupación del pool, en los
+ * medidores {@code httpcomponents.httpclient.pool.*} con la etiqueta {@code httpclient=feign}. El resto de
+ * operaciones se delegan sin cambios. Implementa {@link ConnPoolControl} para que el cliente HTTP pueda cerrar
+ * las conexiones inactivas.
+ */
+public class PoolConexionesHttp implements HttpClientConnectionManager, ConnPoolControl<HttpRoute> {
+
+    static final String NOMBRE = "feign";
+
+    private final PoolingHttpClientConnectionManager pool;
+    private final Timer esperaObtenida;
+    private final Timer esperaAgotada;
+
+    /**
+     * Crea el pool medido y registra sus métricas.
+     *
+     * @param pool          pool de conexiones que se envuelve
+     * @param meterRegistry registro donde se publican la espera y la ocupación del pool
+     */
+    public PoolConexionesHttp(PoolingHttpClientConnectionManager pool, MeterRegistry meterRegistry) {
+        this.pool = pool;
+        this.esperaObtenida = temporizadorEspera(meterRegistry, "obtenida");
+        this.esperaAgotada = temporizadorEspera(meterRegistry, "agotada");
+        new PoolingHttpClientConnectionManagerMetricsBinder(pool, NOMBRE).bindTo(meterRegistry);
+    }
+
+    @Override
+    public LeaseRequest lease(String id, HttpRoute route, Timeout requestTimeout, Object state) {
+        LeaseRequest solicitud = pool.lease(id, route, requestTimeout, state);
+        return new LeaseRequest() {
+            @Override
+            public ConnectionEndpoint get(Timeout timeout) throws InterruptedException, ExecutionException, TimeoutException {
+                long inicio = System.nanoTime();
+                try {
+                    ConnectionEndpoint conexion = solicitud.get(timeout);
+                    esperaObtenida.record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+                    return conexion;
+                } catch (TimeoutException e) {
+                    esperaAgotada.record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+                    throw e;
+                }
+            }
+
+            @Override
+            public boolean cancel() {
+                return solicitud.cancel();
+            }
+        };
+    }
+
+    @Override
+    public void release(ConnectionEndpoint endpoint, Object newState, TimeValue validDuration) {
+        pool.release(endpoint, newState, validDuration);
+    }
+
+    @Override
+    public void connect(ConnectionEndpoint endpoint, TimeValue connectTimeout, HttpContext context) throws IOException {
+        pool.connect(endpoint, connectTimeout, context);
+    }
+
+    @Override
+    public void upgrade(ConnectionEndpoint endpoint, HttpContext context) throws IOException {
+        pool.upgrade(endpoint, context);
+    }
+
+    @Override
+    public void close(CloseMode closeMode) {
+        pool.close(closeMode);
+    }
+
+    @Override
+    public void close() {
+        pool.close();
+    }
+
+    @Override
+    public void setMaxTotal(int max) {
+        pool.setMaxTotal(max);
+    }
+
+    @Override
+    public int getMaxTotal() {
+        return pool.getMaxTotal();
+    }
+
+    @Override
+    public void setDefaultMaxPerRoute(int max) {
+        pool.setDefaultMaxPerRoute(max);
+    }
+
+    @Override
+    public int getDefaultMaxPerRoute() {
+        return pool.getDefaultMaxPerRoute();
+    }
+
+    @Override
+    public void setMaxPerRoute(HttpRoute route, int max) {
+        pool.setMaxPerRoute(route, max);
+    }
+
+    @Override
+    public int getMaxPerRoute(HttpRoute route) {
+        return pool.getMaxPerRoute(route);
+    }
+
+    @Override
+    public void closeIdle(TimeValue idleTime) {
+        pool.closeIdle(idleTime);
+    }
+
+    @Override
+    public void closeExpired() {
+        pool.closeExpired();
+    }
+
+    @Override
+    public Set<HttpRoute> getRoutes() {
+        return pool.getRoutes();
+    }
+
+    @Override
+    public PoolStats getTotalStats() {
+        return pool.getTotalStats();
+    }
+
+    @Override
+    public PoolStats getStats(HttpRoute route) {
+        return pool.getStats(route);
+    }
+
+    private static Timer temporizadorEspera(MeterRegistry meterRegistry, String resultado) {
+        return Timer.builder("http.client.conexiones.espera")
+                .description("Espera hasta obtener una conexión del pool de los clientes Feign")
+                .tag("resultado", resultado)
+                .register(meterRegistry);
+    }
+}
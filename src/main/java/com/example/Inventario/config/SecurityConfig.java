@@ -2,8 +2,11 @@ package com.example.Inventario.config;
 
 import com.example.Inventario.security.ApiKeyAuthFilter;
 import com.example.Inventario.security.ApiKeyAuthManager;
+import com.example.Inventario.security.ApiKeysProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.DispatcherType;
 import jakarta.servlet.http.HttpServletResponse;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -17,27 +20,28 @@ import org.springframework.security.web.authentication.UsernamePasswordAuthentic
  * <p>
  * Protege los endpoints del servicio de inventario mediante autenticación por API Key,
  * deshabilita CSRF, establece la política de sesiones como stateless y permite el acceso
- * público a la documentación Swagger.
+ * público a la documentación Swagger. Cada API Key tiene su propia cuota de peticiones; al superarla se
+ * responde 429.
  */
 @Configuration
 @EnableWebSecurity
+@EnableConfigurationProperties(ApiKeysProperties.class)
 public class SecurityConfig {
 
-    @Value("${inventario-service.api-key}")
-    private String inventoriesApiKey;
-
     private static final String API_KEY_AUTH_HEADER = "X-API-KEY";
 
 
     /**
      * Configura la cadena de filtros de seguridad para la aplicación.
      *
-     * @param http objeto HttpSecurity para configurar la seguridad HTTP.
+     * @param http          objeto HttpSecurity para configurar la seguridad HTTP.
+     * @param apiKeys       API Keys y cuotas de los clientes.
+     * @param meterRegistry registro donde se publican las peticiones rechazadas por cuota.
      * @return la cadena de filtros de seguridad configurada.
      * @throws Exception si ocurre un error durante la configuración.
      */
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain filterChain(HttpSecurity http, ApiKeysProperties apiKeys, MeterRegistry meterRegistry) throws Exception {
         http.csrf(csrf -> csrf.disable())
                 .exceptionHandling(eh -> eh
                         .authenticationEntryPoint((request, response, authException) -> {
@@ -46,11 +50,15 @@ public class SecurityConfig {
                         })
                 )
                 .sessionManagement(sm -> sm.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
-                .addFilterBefore(new ApiKeyAuthFilter(API_KEY_AUTH_HEADER, new ApiKeyAuthManager(inventoriesApiKey)),
+                .addFilterBefore(new ApiKeyAuthFilter(API_KEY_AUTH_HEADER, new ApiKeyAuthManager(apiKeys, meterRegistry)),
                         UsernamePasswordAuthenticationFilter.class)
                 .authorizeHttpRequests(auth -> auth
+                        // El despacho asíncrono que cierra una respuesta en streaming ya se autorizó en la petición original
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         .requestMatchers("/swagger-ui.html", "/swagger-ui/**", "/v3/api-docs/**", "/webjars/**").permitAll()
+                        .requestMatchers("/actuator/health").permitAll()
                         .requestMatchers("/api/inventario/**").authenticated() // Proteger endpoints de Inventarios
+                        .requestMatchers("/actuator/**").authenticated()
                         .anyRequest().denyAll()
                 );
 
@@ -0,0 +1,36 @@
+package com.example.Inventario.config;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.time.Duration;
+
+/**
+ * WebMvcConfig configura las respuestas asíncronas de Spring MVC.
+ * <p>
+ * Al definir ejecutores propios, Spring Boot no crea el ejecutor por defecto de MVC y las respuestas asíncronas
+ * usarían un hilo nuevo por petición sin límite. Se usa en su lugar el pool acotado {@code exportacionesExecutor},
+ * con un tiempo máximo pensado para exportaciones largas.
+ */
+@Configuration
+public class WebMvcConfig implements WebMvcConfigurer {
+
+    private final AsyncTaskExecutor exportacionesExecutor;
+    private final Duration timeoutAsincrono;
+
+    public WebMvcConfig(@Qualifier("exportacionesExecutor") AsyncTaskExecutor exportacionesExecutor,
+                        @Value("${inventario.exportacion.timeout:2h}") Duration timeoutAsincrono) {
+        this.exportacionesExecutor = exportacionesExecutor;
+        this.timeoutAsincrono = timeoutAsincrono;
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(exportacionesExecutor);
+        configurer.setDefaultTimeout(timeoutAsincrono.toMillis());
+    }
+}
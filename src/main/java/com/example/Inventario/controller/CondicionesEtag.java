@@ -0,0 +1,70 @@
+package com.example.Inventario.controller;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * CondicionesEtag traduce entre la versión de un inventario y su ETag y lee las cabeceras {@code If-None-Match} e
+ * {@code If-Match}.
+ * <p>
+ * La consulta de un inventario lleva una ETag débil ({@code W/"3"}): la versión solo cubre los campos de stock, y
+ * la respuesta incluye además datos del producto que pueden cambiar sin cambiarla. La respuesta de una
+ * actualización solo contiene el inventario, así que su ETag es fuerte ({@code "3"}).
+ */
+final class CondicionesEtag {
+
+    private static final String DEBIL = "W/";
+
+    private CondicionesEtag() {
+    }
+
+    /**
+     * Construye la ETag fuerte de una versión.
+     *
+     * @param version versión del inventario
+     * @return la ETag entre comillas
+     */
+    static String etag(Long version) {
+        return "\"" + version + "\"";
+    }
+
+    /**
+     * Construye la ETag débil de una versión, para las respuestas que incluyen datos ajenos al inventario.
+     *
+     * @param version versión del inventario
+     * @return la ETag entre comillas con el prefijo {@code W/}
+     */
+    static String etagDebil(Long version) {
+        return DEBIL + etag(version);
+    }
+
+    /**
+     * Obtiene las versiones nombradas en una cabecera {@code If-None-Match} o {@code If-Match}.
+     * <p>
+     * Las ETags débiles se aceptan también en {@code If-Match}: la condición de una actualización es la versión del
+     * stock, que es justo lo que cubre la ETag débil de la consulta. Las ETags que no son versiones se ignoran.
+     *
+     * @param cabecera valor de la cabecera
+     * @return las versiones nombradas, o {@code null} si la cabecera es {@code *} (cualquier versión)
+     */
+    static Set<Long> versiones(String cabecera) {
+        Set<Long> versiones = new HashSet<>();
+        for (String etiqueta : cabecera.split(",")) {
+            etiqueta = etiqueta.trim();
+            if (etiqueta.equals("*")) {
+                return null;
+            }
+            if (etiqueta.startsWith(DEBIL)) {
+                etiqueta = etiqueta.substring(DEBIL.length());
+            }
+            if (etiqueta.length() > 2 && etiqueta.startsWith("\"") && etiqueta.endsWith("\"")) {
+                try {
+                    versiones.add(Long.parseLong(etiqueta.substring(1, etiqueta.length() - 1)));
+                } catch (NumberFormatException e) {
+                    // No es una ETag de este servicio: no coincide con ninguna versión.
+                }
+            }
+        }
+        return versiones;
+    }
+}
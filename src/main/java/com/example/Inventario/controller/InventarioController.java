@@ -1,20 +1,42 @@
 package com.example.Inventario.controller;
 
+import com.example.Inventario.dto.InventarioConsultaDto;
 import com.example.Inventario.dto.InventarioResponseDto;
+import com.example.Inventario.dto.PaginaInventarioResponse;
 import com.example.Inventario.model.Inventario;
 import com.example.Inventario.service.InventarioService;
 import com.example.Inventario.dto.CompraRequest;
+import com.example.Inventario.dto.CompraLoteRequest;
+import com.example.Inventario.dto.CompraLoteResponse;
 import com.example.Inventario.dto.CompraResponse;
+import com.example.Inventario.dto.ImportacionResponse;
+import com.example.Inventario.service.ExportacionInventario;
+import com.example.Inventario.service.FormatoFichero;
+import com.example.Inventario.service.ImportacionInventario;
+import com.example.Inventario.dto.ReservaRequest;
+import com.example.Inventario.dto.ReservaResponse;
+import com.example.Inventario.service.ReservaService;
 import org.springframework.beans.factory.annotation.Autowired;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.Principal;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/inventario")
@@ -24,18 +46,80 @@ public class InventarioController {
     @Autowired
     private InventarioService inventarioService;
 
+    @Autowired
+    private ReservaService reservaService;
+
+    @Autowired
+    private ImportacionInventario importacionInventario;
+
+    @Autowired
+    private ExportacionInventario exportacionInventario;
+
     @Operation(summary = "Obtener el inventario por ID de producto", description = "Recupera la información de inventario de un producto específico, incluyendo detalles del producto desde el servicio de Productos.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Inventario recuperado exitosamente",
                     content = @Content(mediaType = "application/json",
                             schema = @Schema(implementation = InventarioResponseDto.class))),
+            @ApiResponse(responseCode = "304", description = "El stock no ha cambiado desde la ETag indicada en If-None-Match"),
             @ApiResponse(responseCode = "404", description = "Inventario o producto no encontrado"),
             @ApiResponse(responseCode = "500", description = "Error interno del servidor")
     })
     @GetMapping("/{productoId}")
-    public ResponseEntity<InventarioResponseDto> getInventarioByProductoId(@PathVariable Long productoId) {
+    public ResponseEntity<InventarioResponseDto> getInventarioByProductoId(@PathVariable Long productoId,
+                                                                           @Parameter(description = "ETags del inventario que el cliente ya tiene")
+                                                                           @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        if (ifNoneMatch != null) {
+            // Basta leer la versión: si el cliente ya la tiene, no se consulta el servicio de productos.
+            Optional<Long> version = inventarioService.getVersionInventario(productoId);
+            Set<Long> versionesCliente = CondicionesEtag.versiones(ifNoneMatch);
+            if (version.isPresent() && (versionesCliente == null || versionesCliente.contains(version.get()))) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(CondicionesEtag.etagDebil(version.get())).build();
+            }
+        }
         InventarioResponseDto inventarioDto = inventarioService.getInventarioByProductoId(productoId);
-        return new ResponseEntity<>(inventarioDto, HttpStatus.OK);
+        if (inventarioDto.isProductoDesactualizado()) {
+            // Los datos del producto son una copia de respaldo: sin ETag, el cliente no revalida contra esta respuesta.
+            return ResponseEntity.ok(inventarioDto);
+        }
+        return ResponseEntity.ok().eTag(CondicionesEtag.etagDebil(inventarioDto.getVersion())).body(inventarioDto);
+    }
+
+    @Operation(summary = "Obtener el inventario de varios productos",
+            description = "Recupera el inventario y los detalles de producto de varios productos en una sola petición. " +
+                    "Los productos sin inventario o desconocidos se informan con su estado en lugar de hacer fallar la respuesta.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Consulta realizada; revise el estado de cada producto",
+                    content = @Content(mediaType = "application/json",
+                            array = @ArraySchema(schema = @Schema(implementation = InventarioConsultaDto.class)))),
+            @ApiResponse(responseCode = "400", description = "Lista de IDs vacía o demasiado larga"),
+            @ApiResponse(responseCode = "500", description = "Error interno del servidor")
+    })
+    @GetMapping(params = "ids")
+    public ResponseEntity<List<InventarioConsultaDto>> getInventariosByProductoIds(@RequestParam List<Long> ids) {
+        List<InventarioConsultaDto> inventarios = inventarioService.getInventariosByProductoIds(ids);
+        return new ResponseEntity<>(inventarios, HttpStatus.OK);
+    }
+
+    @Operation(summary = "Listar inventarios",
+            description = "Devuelve los inventarios por páginas, ordenados por ID de producto y filtrados opcionalmente por un rango de cantidad. " +
+                    "Al filtrar por cantidad se ordenan por cantidad y, a igual cantidad, por ID de producto. " +
+                    "Para pedir la página siguiente se envían en 'desde' y 'desdeCantidad' los valores 'siguienteDesde' y 'siguienteDesdeCantidad' de la respuesta; " +
+                    "cada página cuesta lo mismo a cualquier profundidad. " +
+                    "Con 'cantidadMaxima' se obtienen los productos por debajo de un umbral de reposición.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Página obtenida",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = PaginaInventarioResponse.class))),
+            @ApiResponse(responseCode = "400", description = "Límite, rango de cantidad o posición de la página no válidos"),
+            @ApiResponse(responseCode = "500", description = "Error interno del servidor")
+    })
+    @GetMapping
+    public ResponseEntity<PaginaInventarioResponse> listarInventarios(@RequestParam(required = false) Long desde,
+                                                                      @RequestParam(required = false) Integer desdeCantidad,
+                                                                      @RequestParam(required = false) Integer cantidadMinima,
+                                                                      @RequestParam(required = false) Integer cantidadMaxima,
+                                                                      @RequestParam(defaultValue = "100") int limite) {
+        PaginaInventarioResponse pagina = inventarioService.listarInventarios(desde, desdeCantidad, cantidadMinima, cantidadMaxima, limite);
+        return new ResponseEntity<>(pagina, HttpStatus.OK);
     }
 
     @PostMapping("/inicializar")
@@ -44,10 +128,68 @@ public class InventarioController {
         return new ResponseEntity<>(inventario, HttpStatus.CREATED);
     }
 
+    @Operation(summary = "Importar el stock de muchos productos",
+            description = "Lee un fichero CSV (productoId,cantidad) o NDJSON ({\"productoId\":1,\"cantidad\":50}) sin cargarlo en memoria " +
+                    "y establece la cantidad de cada producto, creando los inventarios que no existan. Las filas inválidas se informan sin detener la importación.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Importación terminada; revise las filas con error",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ImportacionResponse.class))),
+            @ApiResponse(responseCode = "400", description = "Formato no soportado"),
+            @ApiResponse(responseCode = "500", description = "Error interno del servidor")
+    })
+    @PostMapping(value = "/importar", consumes = {"text/csv", FormatoFichero.TIPO_NDJSON})
+    public ResponseEntity<ImportacionResponse> importarInventario(@RequestHeader(HttpHeaders.CONTENT_TYPE) String tipoContenido,
+                                                                  @RequestParam(defaultValue = "true") boolean validarProductos,
+                                                                  InputStream cuerpo) throws IOException {
+        ImportacionResponse importacion = importacionInventario.importar(cuerpo,
+                FormatoFichero.desdeTipoContenido(tipoContenido), validarProductos);
+        return new ResponseEntity<>(importacion, HttpStatus.OK);
+    }
+
+    @Operation(summary = "Exportar todo el inventario",
+            description = "Descarga todos los inventarios en CSV o NDJSON. Las filas se leen de la base de datos y se escriben en la respuesta " +
+                    "a medida que llegan, sin cargarlas en memoria. Si la petición incluye Accept-Encoding: gzip, la respuesta se comprime.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Exportación en curso"),
+            @ApiResponse(responseCode = "400", description = "Formato no soportado"),
+            @ApiResponse(responseCode = "500", description = "Error interno del servidor")
+    })
+    @GetMapping("/exportar")
+    public ResponseEntity<StreamingResponseBody> exportarInventario(@RequestParam(defaultValue = "ndjson") String formato,
+                                                                    @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String codificacionesAceptadas) {
+        FormatoFichero formatoFichero = FormatoFichero.desdeExtension(formato);
+        boolean comprimir = codificacionesAceptadas != null && codificacionesAceptadas.contains("gzip");
+
+        HttpHeaders cabeceras = new HttpHeaders();
+        cabeceras.setContentType(formatoFichero.getTipoContenido());
+        cabeceras.set(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"inventario." + formatoFichero.getExtension() + "\"");
+        cabeceras.set(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (comprimir) {
+            cabeceras.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        StreamingResponseBody cuerpo = salida -> exportacionInventario.exportar(salida, formatoFichero, comprimir);
+        return new ResponseEntity<>(cuerpo, cabeceras, HttpStatus.OK);
+    }
+
+    @Operation(summary = "Establecer la cantidad de inventario de un producto",
+            description = "Sobrescribe la cantidad del inventario. Con If-Match solo se aplica si el inventario sigue en la versión " +
+                    "indicada por la ETag, sin bloquear la fila; si otra petición lo ha modificado se responde 412.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Cantidad actualizada; la ETag de la respuesta es la nueva versión",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = Inventario.class))),
+            @ApiResponse(responseCode = "400", description = "La cantidad es menor que las unidades reservadas"),
+            @ApiResponse(responseCode = "404", description = "Inventario o producto no encontrado"),
+            @ApiResponse(responseCode = "412", description = "El inventario ya no está en la versión indicada en If-Match"),
+            @ApiResponse(responseCode = "500", description = "Error interno del servidor")
+    })
     @PutMapping("/{productoId}/cantidad")
-    public ResponseEntity<Inventario> updateCantidadInventario(@PathVariable Long productoId, @RequestParam Integer cantidad) {
-        Inventario updatedInventario = inventarioService.updateInventario(productoId, cantidad);
-        return new ResponseEntity<>(updatedInventario, HttpStatus.OK);
+    public ResponseEntity<Inventario> updateCantidadInventario(@PathVariable Long productoId, @RequestParam Integer cantidad,
+                                                               @Parameter(description = "ETag de la versión del inventario que se quiere modificar")
+                                                               @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Set<Long> versionesAceptadas = ifMatch != null ? CondicionesEtag.versiones(ifMatch) : null;
+        Inventario updatedInventario = inventarioService.updateInventario(productoId, cantidad, versionesAceptadas);
+        return ResponseEntity.ok().eTag(CondicionesEtag.etag(updatedInventario.getVersion())).body(updatedInventario);
     }
 
     @Operation(summary = "Realizar una compra de un producto",
@@ -61,11 +203,86 @@ public class InventarioController {
                     content = @Content(schema = @Schema(implementation = String.class))),
             @ApiResponse(responseCode = "404", description = "Producto o inventario no encontrado",
                     content = @Content(schema = @Schema(implementation = String.class))),
+            @ApiResponse(responseCode = "409", description = "La clave de idempotencia ya se usó con otra compra",
+                    content = @Content(schema = @Schema(implementation = String.class))),
             @ApiResponse(responseCode = "500", description = "Error interno del servidor")
     })
     @PostMapping("/comprar")
-    public ResponseEntity<CompraResponse> comprarProducto(@RequestBody CompraRequest compraRequest) {
-        CompraResponse compraResponse = inventarioService.realizarCompra(compraRequest);
+    public ResponseEntity<CompraResponse> comprarProducto(@RequestBody CompraRequest compraRequest,
+                                                          @Parameter(description = "Clave única de la compra para el cliente que la envía; las repeticiones con la misma clave devuelven la respuesta original sin volver a descontar stock.")
+                                                          @RequestHeader(value = "Idempotency-Key", required = false) String claveIdempotencia,
+                                                          @Parameter(hidden = true) Principal cliente) {
+        CompraResponse compraResponse = inventarioService.realizarCompra(compraRequest, cliente.getName(), claveIdempotencia);
         return new ResponseEntity<>(compraResponse, HttpStatus.OK);
     }
-}
\ No newline at end of file
+
+    @Operation(summary = "Realizar una compra de varios productos",
+            description = "Procesa un carrito completo en una sola operación: descuenta el stock de todas las líneas o de ninguna.")
+    @Tag(name = "Compras")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Compra realizada exitosamente",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = CompraLoteResponse.class))),
+            @ApiResponse(responseCode = "400", description = "Stock insuficiente o lote inválido",
+                    content = @Content(schema = @Schema(implementation = String.class))),
+            @ApiResponse(responseCode = "404", description = "Producto o inventario no encontrado",
+                    content = @Content(schema = @Schema(implementation = String.class))),
+            @ApiResponse(responseCode = "500", description = "Error interno del servidor")
+    })
+    @PostMapping("/comprar/lote")
+    public ResponseEntity<CompraLoteResponse> comprarLote(@RequestBody CompraLoteRequest compraLoteRequest) {
+        CompraLoteResponse compraLoteResponse = inventarioService.realizarCompraLote(compraLoteRequest);
+        return new ResponseEntity<>(compraLoteResponse, HttpStatus.OK);
+    }
+
+    @Operation(summary = "Reservar unidades de un producto",
+            description = "Retiene unidades mientras se completa el pago. La reserva expira sola si no se confirma ni se libera a tiempo.")
+    @Tag(name = "Reservas")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "201", description = "Reserva creada",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ReservaResponse.class))),
+            @ApiResponse(responseCode = "400", description = "Stock insuficiente o reserva inválida",
+                    content = @Content(schema = @Schema(implementation = String.class))),
+            @ApiResponse(responseCode = "404", description = "Producto o inventario no encontrado",
+                    content = @Content(schema = @Schema(implementation = String.class))),
+            @ApiResponse(responseCode = "500", description = "Error interno del servidor")
+    })
+    @PostMapping("/reservas")
+    public ResponseEntity<ReservaResponse> reservar(@RequestBody ReservaRequest reservaRequest) {
+        ReservaResponse reservaResponse = reservaService.reservar(reservaRequest);
+        return new ResponseEntity<>(reservaResponse, HttpStatus.CREATED);
+    }
+
+    @Operation(summary = "Confirmar una reserva",
+            description = "Convierte una reserva vigente en una compra: sus unidades se descuentan del inventario.")
+    @Tag(name = "Reservas")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Reserva confirmada",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = CompraResponse.class))),
+            @ApiResponse(responseCode = "404", description = "Reserva no encontrada o expirada",
+                    content = @Content(schema = @Schema(implementation = String.class))),
+            @ApiResponse(responseCode = "500", description = "Error interno del servidor")
+    })
+    @PostMapping("/reservas/{reservaId}/confirmar")
+    public ResponseEntity<CompraResponse> confirmarReserva(@PathVariable Long reservaId) {
+        CompraResponse compraResponse = reservaService.confirmar(reservaId);
+        return new ResponseEntity<>(compraResponse, HttpStatus.OK);
+    }
+
+    @Operation(summary = "Liberar una reserva",
+            description = "Cancela una reserva antes de que expire y devuelve sus unidades al stock disponible.")
+    @Tag(name = "Reservas")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "204", description = "Reserva liberada"),
+            @ApiResponse(responseCode = "404", description = "Reserva no encontrada o expirada",
+                    content = @Content(schema = @Schema(implementation = String.class))),
+            @ApiResponse(responseCode = "500", description = "Error interno del servidor")
+    })
+    @DeleteMapping("/reservas/{reservaId}")
+    public ResponseEntity<Void> liberarReserva(@PathVariable Long reservaId) {
+        reservaService.liberar(reservaId);
+        return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+    }
+}
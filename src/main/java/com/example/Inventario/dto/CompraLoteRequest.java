@@ -0,0 +1,18 @@
+package com.example.Inventario.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Request DTO para realizar la compra de varios productos en una sola operación.")
+public class CompraLoteRequest {
+
+    @Schema(description = "Líneas de la compra. Las líneas repetidas de un mismo producto se suman.", required = true)
+    private List<CompraRequest> lineas;
+}
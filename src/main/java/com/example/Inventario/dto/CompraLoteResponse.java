@@ -0,0 +1,31 @@
+package com.example.Inventario.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Response DTO para la compra de varios productos en una sola operación.")
+public class CompraLoteResponse {
+
+    @Schema(description = "Detalle de cada producto comprado.", required = true)
+    private List<CompraResponse> lineas;
+
+    @Schema(description = "Total de unidades compradas.", example = "7", required = true)
+    private Integer cantidadTotal;
+
+    @Schema(description = "Total a pagar por toda la compra.", example = "3500000.00", required = true)
+    private Double totalPagar;
+
+    @Schema(description = "Fecha y hora de la compra.", example = "2023-10-01T10:15:30", required = true)
+    private LocalDateTime fechaCompra;
+
+    @Schema(description = "Mensaje de confirmación de la compra.", example = "Compra realizada con éxito", required = true)
+    private String mensaje;
+}
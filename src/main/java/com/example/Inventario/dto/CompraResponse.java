@@ -1,5 +1,6 @@
 package com.example.Inventario.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -33,4 +34,8 @@ public class CompraResponse {
 
     @Schema(description = "Mensaje de confirmación de la compra.", example = "Compra realizada con éxito", required = true)
     private String mensaje;
+
+    @Schema(description = "Indica que el nombre y el precio son la última copia conocida porque el servicio de productos no respondió. Solo aparece cuando es true.", example = "true")
+    @JsonInclude(JsonInclude.Include.NON_DEFAULT)
+    private boolean productoDesactualizado;
 }
\ No newline at end of file
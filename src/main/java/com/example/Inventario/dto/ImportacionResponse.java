@@ -0,0 +1,49 @@
+package com.example.Inventario.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Resultado de una importación masiva de stock.")
+public class ImportacionResponse {
+
+    @Schema(description = "Filas de datos leídas, sin contar cabecera ni líneas vacías.", example = "500000", required = true)
+    private Long filasLeidas;
+
+    @Schema(description = "Filas escritas en el inventario.", example = "499998", required = true)
+    private Long filasImportadas;
+
+    @Schema(description = "Filas rechazadas.", example = "2", required = true)
+    private Long filasConError;
+
+    @Schema(description = "Detalle de las primeras filas rechazadas; la lista está acotada aunque haya más errores.", required = true)
+    private List<ErrorFila> errores;
+
+    @Schema(description = "Duración de la importación en milisegundos.", example = "41250", required = true)
+    private Long duracionMs;
+
+    @Schema(description = "Filas leídas por segundo.", example = "12121.2", required = true)
+    private Double filasPorSegundo;
+
+    /**
+     * Fila rechazada durante la importación.
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Schema(description = "Fila rechazada durante la importación.")
+    public static class ErrorFila {
+
+        @Schema(description = "Número de línea en el fichero, empezando en 1.", example = "17", required = true)
+        private Long linea;
+
+        @Schema(description = "Motivo del rechazo.", example = "Producto no encontrado en el servicio de productos con ID: 42", required = true)
+        private String mensaje;
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.Inventario.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Resultado de la consulta de inventario de un producto dentro de una consulta múltiple.")
+public class InventarioConsultaDto {
+
+    @Schema(description = "ID del producto consultado.", example = "1", required = true)
+    private Long productoId;
+
+    @Schema(description = "Resultado de la consulta para este producto.", example = "ENCONTRADO", required = true)
+    private Estado estado;
+
+    @Schema(description = "Información de inventario y producto. Solo está presente si el estado es ENCONTRADO.")
+    private InventarioResponseDto inventario;
+
+    /**
+     * Resultado posible de la consulta de un producto.
+     */
+    public enum Estado {
+        ENCONTRADO,
+        INVENTARIO_NO_ENCONTRADO,
+        PRODUCTO_NO_ENCONTRADO
+    }
+}
@@ -1,13 +1,13 @@
 package com.example.Inventario.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import io.swagger.v3.oas.annotations.media.Schema;
-import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Data
 @NoArgsConstructor
-@AllArgsConstructor
 @Schema(description = "Response DTO para la información del inventario de un producto.")
 public class InventarioResponseDto {
 
@@ -25,4 +25,25 @@ public class InventarioResponseDto {
 
     @Schema(description = "Cantidad disponible del producto en el inventario.", example = "50", required = true)
     private Integer cantidadDisponible;
+
+    @Schema(description = "Indica que los datos del producto son la última copia conocida porque el servicio de productos no respondió. Solo aparece cuando es true.", example = "true")
+    @JsonInclude(JsonInclude.Include.NON_DEFAULT)
+    private boolean productoDesactualizado;
+
+    /**
+     * Versión del inventario leído; no forma parte del cuerpo, se devuelve como ETag.
+     */
+    @JsonIgnore
+    @Schema(hidden = true)
+    private Long version;
+
+    public InventarioResponseDto(Long productoId, String nombreProducto, String descripcionProducto, Double precioProducto,
+                                 Integer cantidadDisponible, boolean productoDesactualizado) {
+        this.productoId = productoId;
+        this.nombreProducto = nombreProducto;
+        this.descripcionProducto = descripcionProducto;
+        this.precioProducto = precioProducto;
+        this.cantidadDisponible = cantidadDisponible;
+        this.productoDesactualizado = productoDesactualizado;
+    }
 }
\ No newline at end of file
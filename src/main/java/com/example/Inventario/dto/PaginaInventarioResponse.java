@@ -0,0 +1,26 @@
+package com.example.Inventario.dto;
+
+import com.example.Inventario.model.Inventario;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Página del listado de inventarios, ordenada por ID de producto o, si se filtra por cantidad, por cantidad e ID de producto.")
+public class PaginaInventarioResponse {
+
+    @Schema(description = "Inventarios de la página.", required = true)
+    private List<Inventario> inventarios;
+
+    @Schema(description = "Valor de 'desde' para pedir la página siguiente. Ausente si es la última página.", example = "250")
+    private Long siguienteDesde;
+
+    @Schema(description = "Valor de 'desdeCantidad' para pedir la página siguiente del listado filtrado por cantidad. " +
+            "Ausente si es la última página o el listado no se filtra.", example = "12")
+    private Integer siguienteDesdeCantidad;
+}
@@ -1,13 +1,12 @@
 package com.example.Inventario.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import io.swagger.v3.oas.annotations.media.Schema;
-import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Data
 @NoArgsConstructor
-@AllArgsConstructor
 @Schema(description = "DTO para representar un producto en el sistema de inventario.")
 public class ProductoDto {
 
@@ -22,4 +21,30 @@ public class ProductoDto {
 
     @Schema(description = "Precio del producto.", example = "1500000.00", required = true)
     private Double precio;
-}
\ No newline at end of file
+
+    /**
+     * Indica que el producto es la última copia conocida porque el servicio de productos no respondió. No forma
+     * parte del contrato remoto.
+     */
+    @JsonIgnore
+    @Schema(hidden = true)
+    private boolean desactualizado;
+
+    public ProductoDto(Long id, String nombre, String descripcion, Double precio) {
+        this.id = id;
+        this.nombre = nombre;
+        this.descripcion = descripcion;
+        this.precio = precio;
+    }
+
+    /**
+     * Crea una copia del producto marcada como desactualizada.
+     *
+     * @return la copia
+     */
+    public ProductoDto comoDesactualizado() {
+        ProductoDto copia = new ProductoDto(id, nombre, descripcion, precio);
+        copia.desactualizado = true;
+        return copia;
+    }
+}
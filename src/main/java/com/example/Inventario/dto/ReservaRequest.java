@@ -0,0 +1,21 @@
+package com.example.Inventario.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Request DTO para reservar unidades de un producto mientras se completa el pago.")
+public class ReservaRequest {
+    @Schema(description = "ID del producto a reservar.", example = "1", required = true)
+    private Long productoId;
+
+    @Schema(description = "Cantidad de unidades a reservar.", example = "2", required = true)
+    private Integer cantidad;
+
+    @Schema(description = "Segundos que dura la reserva antes de liberarse sola. Si se omite se usa el valor por defecto.", example = "600")
+    private Long ttlSegundos;
+}
@@ -0,0 +1,27 @@
+package com.example.Inventario.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Response DTO para una reserva de stock.")
+public class ReservaResponse {
+
+    @Schema(description = "ID de la reserva; se usa para confirmarla o liberarla.", example = "101", required = true)
+    private Long reservaId;
+
+    @Schema(description = "ID del producto reservado.", example = "1", required = true)
+    private Long productoId;
+
+    @Schema(description = "Cantidad de unidades reservadas.", example = "2", required = true)
+    private Integer cantidad;
+
+    @Schema(description = "Fecha y hora en que la reserva expira si no se confirma.", example = "2023-10-01T10:25:30", required = true)
+    private LocalDateTime expiraEn;
+}
@@ -0,0 +1,308 @@
+package com.example.Inventario.event;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * ColaEventosInventario desacopla la publicación de eventos de inventario de su procesamiento.
+ * <p>
+ * Los eventos se guardan en una cola acotada en memoria y un hilo consumidor los entrega en lotes a
+ * {@link ProcesadorLoteEventos}. Cuando la cola está llena se aplica la {@link PoliticaDesbordamiento}
+ * configurada. Se publican las métricas {@code inventario.eventos.cola} (profundidad),
+ * {@code inventario.eventos.retraso} (tiempo desde que se encola hasta que se procesa),
+ * {@code inventario.eventos.descartados} y {@code inventario.eventos.derramados}.
+ */
+@Component
+public class ColaEventosInventario {
+
+    private static final Logger log = LoggerFactory.getLogger(ColaEventosInventario.class);
+
+    /**
+     * Qué hacer con un evento nuevo cuando la cola está llena.
+     */
+    public enum PoliticaDesbordamiento {
+        /** El hilo que publica espera a que haya hueco. No se pierden eventos. */
+        BLOQUEAR,
+        /** Se descarta el evento más antiguo de la cola para hacer sitio al nuevo. */
+        DESCARTAR_ANTIGUO,
+        /**
+         * El evento se escribe en un fichero y se procesa cuando la cola se vacía. Los eventos derramados
+         * pueden procesarse después de otros más recientes.
+         */
+        DERRAMAR
+    }
+
+    private final ProcesadorLoteEventos procesador;
+    private final BlockingQueue<EventoEncolado> cola;
+    private final int tamanoLote;
+    private final PoliticaDesbordamiento politica;
+    private final Path archivoDerrame;
+    private final Path archivoDerrameEnProceso;
+
+    private final Counter descartados;
+    private final Counter derramados;
+    private final Timer retraso;
+
+    private final ReentrantLock bloqueoDerrame = new ReentrantLock();
+    private BufferedWriter escritorDerrame;
+    private volatile boolean hayDerrame;
+
+    private final Thread consumidor;
+    private volatile boolean activo = true;
+
+    /**
+     * Crea la cola de eventos de inventario.
+     *
+     * @param procesador      destino de los lotes de eventos
+     * @param meterRegistry   registro donde se publican las métricas de la cola
+     * @param capacidad       número máximo de eventos en memoria
+     * @param tamanoLote      número máximo de eventos entregados al procesador de una vez
+     * @param politica        política aplicada cuando la cola está llena
+     * @param archivoDerrame  fichero donde se guardan los eventos con la política {@code DERRAMAR}
+     */
+    public ColaEventosInventario(ProcesadorLoteEventos procesador,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${inventario.eventos.capacidad:10000}") int capacidad,
+                                 @Value("${inventario.eventos.tamano-lote:500}") int tamanoLote,
+                                 @Value("${inventario.eventos.politica-desbordamiento:BLOQUEAR}") PoliticaDesbordamiento politica,
+                                 @Value("${inventario.eventos.archivo-derrame:${java.io.tmpdir}/inventario-eventos-derramados.log}") Path archivoDerrame) {
+        this.procesador = procesador;
+        this.cola = new ArrayBlockingQueue<>(capacidad);
+        this.tamanoLote = tamanoLote;
+        this.politica = politica;
+        this.archivoDerrame = archivoDerrame;
+        this.archivoDerrameEnProceso = archivoDerrame.resolveSibling(archivoDerrame.getFileName() + ".procesando");
+
+        Gauge.builder("inventario.eventos.cola", cola, BlockingQueue::size)
+                .description("Eventos de inventario pendientes en memoria")
+                .register(meterRegistry);
+        this.retraso = Timer.builder("inventario.eventos.retraso")
+                .description("Tiempo desde que un evento de inventario se encola hasta que se procesa")
+                .register(meterRegistry);
+        this.descartados = Counter.builder("inventario.eventos.descartados")
+                .description("Eventos de inventario descartados por desbordamiento de la cola")
+                .register(meterRegistry);
+        this.derramados = Counter.builder("inventario.eventos.derramados")
+                .description("Eventos de inventario escritos a disco por desbordamiento de la cola")
+                .register(meterRegistry);
+
+        this.consumidor = new Thread(this::consumir, "inventario-eventos-consumidor");
+        this.consumidor.setDaemon(true);
+    }
+
+    @PostConstruct
+    public void iniciar() {
+        hayDerrame = Files.exists(archivoDerrame) || Files.exists(archivoDerrameEnProceso);
+        consumidor.start();
+    }
+
+    /**
+     * Deja de aceptar trabajo nuevo y espera a que el consumidor vacíe la cola. Los eventos derramados que
+     * queden en disco se procesan en el siguiente arranque.
+     */
+    @PreDestroy
+    public void detener() throws InterruptedException {
+        activo = false;
+        consumidor.join(TimeUnit.SECONDS.toMillis(10));
+        bloqueoDerrame.lock();
+        try {
+            cerrarEscritorDerrame();
+        } finally {
+            bloqueoDerrame.unlock();
+        }
+    }
+
+    /**
+     * Encola un evento para su procesamiento en segundo plano.
+     *
+     * @param evento el evento a encolar
+     */
+    public void encolar(InventarioActualizadoEvent evento) {
+        EventoEncolado encolado = new EventoEncolado(evento, System.currentTimeMillis());
+        switch (politica) {
+            case BLOQUEAR -> {
+                try {
+                    cola.put(encolado);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    descartados.increment();
+                    log.warn("Evento de inventario descartado por interrupción: {}", evento);
+                }
+            }
+            case DESCARTAR_ANTIGUO -> {
+                while (!cola.offer(encolado)) {
+                    if (cola.poll() != null) {
+                        descartados.increment();
+                    }
+                }
+            }
+            case DERRAMAR -> {
+                if (!cola.offer(encolado)) {
+                    derramar(encolado);
+                }
+            }
+        }
+    }
+
+    /**
+     * Número de eventos pendientes en memoria.
+     *
+     * @return la profundidad actual de la cola
+     */
+    public int pendientes() {
+        return cola.size();
+    }
+
+    private void consumir() {
+        List<EventoEncolado> lote = new ArrayList<>(tamanoLote);
+        while (activo || !cola.isEmpty()) {
+            try {
+                EventoEncolado primero = cola.poll(100, TimeUnit.MILLISECONDS);
+                if (primero == null) {
+                    if (activo && hayDerrame) {
+                        recuperarDerrame();
+                    }
+                    continue;
+                }
+                lote.add(primero);
+                cola.drainTo(lote, tamanoLote - 1);
+                procesarLote(lote);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                lote.clear();
+            }
+        }
+    }
+
+    private void procesarLote(List<EventoEncolado> lote) {
+        List<InventarioActualizadoEvent> eventos = new ArrayList<>(lote.size());
+        for (EventoEncolado encolado : lote) {
+            eventos.add(encolado.evento());
+        }
+        try {
+            procesador.procesar(eventos);
+        } catch (RuntimeException e) {
+            log.error("Error procesando un lote de {} eventos de inventario", eventos.size(), e);
+        }
+        long ahora = System.currentTimeMillis();
+        for (EventoEncolado encolado : lote) {
+            retraso.record(ahora - encolado.encoladoEn(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void derramar(EventoEncolado encolado) {
+        InventarioActualizadoEvent evento = encolado.evento();
+        bloqueoDerrame.lock();
+        try {
+            if (escritorDerrame == null) {
+                escritorDerrame = Files.newBufferedWriter(archivoDerrame, StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            }
+            escritorDerrame.write(evento.getProductoId() + ";" + evento.getOldCantidad() + ";"
+                    + evento.getNewCantidad() + ";" + encolado.encoladoEn() + ";" + evento.getVersionInventario());
+            escritorDerrame.newLine();
+            escritorDerrame.flush();
+            hayDerrame = true;
+            derramados.increment();
+        } catch (IOException e) {
+            descartados.increment();
+            log.error("No se pudo derramar a disco el evento de inventario {}", evento, e);
+        } finally {
+            bloqueoDerrame.unlock();
+        }
+    }
+
+    /**
+     * Procesa los eventos derramados a disco. El fichero se aparta antes de leerlo, de modo que los nuevos
+     * derrames no esperan a que termine la recuperación.
+     */
+    private void recuperarDerrame() {
+        bloqueoDerrame.lock();
+        try {
+            cerrarEscritorDerrame();
+            if (!Files.exists(archivoDerrameEnProceso) && Files.exists(archivoDerrame)) {
+                Files.move(archivoDerrame, archivoDerrameEnProceso, StandardCopyOption.ATOMIC_MOVE);
+            }
+            hayDerrame = false;
+        } catch (IOException e) {
+            log.error("No se pudo apartar el fichero de eventos derramados {}", archivoDerrame, e);
+            return;
+        } finally {
+            bloqueoDerrame.unlock();
+        }
+        if (!Files.exists(archivoDerrameEnProceso)) {
+            return;
+        }
+
+        List<EventoEncolado> lote = new ArrayList<>(tamanoLote);
+        try (BufferedReader lector = Files.newBufferedReader(archivoDerrameEnProceso, StandardCharsets.UTF_8)) {
+            String linea;
+            while ((linea = lector.readLine()) != null) {
+                try {
+                    String[] campos = linea.split(";");
+                    // Las líneas derramadas antes de incluir la versión no la tienen.
+                    long version = campos.length > 4 ? Long.parseLong(campos[4]) : 0;
+                    lote.add(new EventoEncolado(new InventarioActualizadoEvent(this, Long.valueOf(campos[0]),
+                            Integer.parseInt(campos[1]), Integer.parseInt(campos[2]), version), Long.parseLong(campos[3])));
+                } catch (RuntimeException e) {
+                    log.warn("Línea de evento derramado ilegible, se ignora: {}", linea);
+                    continue;
+                }
+                if (lote.size() == tamanoLote) {
+                    procesarLote(lote);
+                    lote.clear();
+                }
+            }
+            if (!lote.isEmpty()) {
+                procesarLote(lote);
+            }
+            Files.delete(archivoDerrameEnProceso);
+        } catch (IOException e) {
+            hayDerrame = true;
+            log.error("Error recuperando eventos derramados desde {}", archivoDerrameEnProceso, e);
+        }
+    }
+
+    /**
+     * Debe llamarse con el bloqueo de derrame adquirido.
+     */
+    private void cerrarEscritorDerrame() {
+        if (escritorDerrame == null) {
+            return;
+        }
+        try {
+            escritorDerrame.close();
+        } catch (IOException e) {
+            log.warn("Error cerrando el fichero de eventos derramados {}", archivoDerrame, e);
+        }
+        escritorDerrame = null;
+    }
+
+    private record EventoEncolado(InventarioActualizadoEvent evento, long encoladoEn) {
+    }
+}
@@ -5,12 +5,14 @@ import org.springframework.context.ApplicationEvent;
 /**
  * InventarioActualizadoEvent representa un evento que indica que el inventario de un producto ha sido actualizado.
  * <p>
- * Este evento puede ser publicado cuando la cantidad de un producto cambia en el inventario.
+ * Este evento puede ser publicado cuando la cantidad de un producto cambia en el inventario. La versión del
+ * inventario tras el cambio ordena los eventos de un mismo producto.
  */
 public class InventarioActualizadoEvent extends ApplicationEvent {
     private Long productoId;
     private int oldCantidad;
     private int newCantidad;
+    private long versionInventario;
 
     /**
      * Crea un nuevo evento de actualización de inventario.
@@ -19,12 +21,14 @@ public class InventarioActualizadoEvent extends ApplicationEvent {
      * @param productoId  identificador del producto actualizado
      * @param oldCantidad cantidad anterior del producto en inventario
      * @param newCantidad nueva cantidad del producto en inventario
+     * @param versionInventario versión del inventario tras el cambio
      */
-    public InventarioActualizadoEvent(Object source, Long productoId, int oldCantidad, int newCantidad) {
+    public InventarioActualizadoEvent(Object source, Long productoId, int oldCantidad, int newCantidad, long versionInventario) {
         super(source);
         this.productoId = productoId;
         this.oldCantidad = oldCantidad;
         this.newCantidad = newCantidad;
+        this.versionInventario = versionInventario;
     }
 
     /**
@@ -54,6 +58,15 @@ public class InventarioActualizadoEvent extends ApplicationEvent {
         return newCantidad;
     }
 
+    /**
+     * Obtiene la versión del inventario tras el cambio, que crece con cada cambio del producto.
+     *
+     * @return la versión, o 0 si el evento se derramó a disco antes de que los eventos la incluyeran
+     */
+    public long getVersionInventario() {
+        return versionInventario;
+    }
+
     /**
      * Devuelve una representación en cadena del evento.
      *
@@ -65,6 +78,7 @@ public class InventarioActualizadoEvent extends ApplicationEvent {
                 "productoId=" + productoId +
                 ", oldCantidad=" + oldCantidad +
                 ", newCantidad=" + newCantidad +
+                ", versionInventario=" + versionInventario +
                 '}';
     }
 }
\ No newline at end of file
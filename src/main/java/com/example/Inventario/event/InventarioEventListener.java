@@ -1,26 +1,32 @@
 package com.example.Inventario.event;
 
-import org.springframework.context.event.EventListener;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
 
 /**
  * InventarioEventListener escucha y maneja eventos relacionados con el inventario.
  * <p>
- * Permite realizar acciones cuando se publica un evento de actualización de inventario.
+ * Los eventos solo se aceptan cuando la transacción que los publicó se confirma, y se entregan a
+ * {@link ColaEventosInventario} para procesarlos en segundo plano sin retener el hilo de la petición.
  */
 @Component
 public class InventarioEventListener {
 
+    @Autowired
+    private ColaEventosInventario colaEventosInventario;
+
     /**
      * Maneja el evento InventarioActualizadoEvent.
      * <p>
-     * Este método se ejecuta automáticamente cuando se publica un evento de actualización de inventario.
+     * Se ejecuta tras la confirmación de la transacción que publicó el evento; si se revierte, el evento se
+     * descarta. Los eventos publicados fuera de una transacción se aceptan inmediatamente.
      *
      * @param event el evento de inventario actualizado recibido
      */
-    @EventListener
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
     public void handleInventarioActualizadoEvent(InventarioActualizadoEvent event) {
-        System.out.println("EVENTO DE INVENTARIO: Inventario actualizado para Producto ID: " + event.getProductoId() +
-                " de " + event.getOldCantidad() + " a " + event.getNewCantidad());
+        colaEventosInventario.encolar(event);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,19 @@
+package com.example.Inventario.event;
+
+import java.util.List;
+
+/**
+ * ProcesadorLoteEventos recibe los eventos de inventario ya confirmados, agrupados en lotes.
+ * <p>
+ * Lo invoca el consumidor de {@link ColaEventosInventario} desde su propio hilo, nunca desde el hilo de la
+ * petición que originó el cambio de stock.
+ */
+public interface ProcesadorLoteEventos {
+
+    /**
+     * Procesa un lote de eventos en el orden en que se encolaron.
+     *
+     * @param eventos eventos del lote; nunca vacío
+     */
+    void procesar(List<InventarioActualizadoEvent> eventos);
+}
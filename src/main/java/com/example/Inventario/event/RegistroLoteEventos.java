@@ -0,0 +1,27 @@
+package com.example.Inventario.event;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * RegistroLoteEventos es el procesador de eventos por defecto: deja constancia de cada cambio de stock en el log.
+ */
+@Component
+public class RegistroLoteEventos implements ProcesadorLoteEventos {
+
+    private static final Logger log = LoggerFactory.getLogger(RegistroLoteEventos.class);
+
+    @Override
+    public void procesar(List<InventarioActualizadoEvent> eventos) {
+        if (!log.isInfoEnabled()) {
+            return;
+        }
+        for (InventarioActualizadoEvent event : eventos) {
+            log.info("Inventario actualizado para producto ID {}: de {} a {} (versión {})",
+                    event.getProductoId(), event.getOldCantidad(), event.getNewCantidad(), event.getVersionInventario());
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.Inventario.event;
+
+import com.example.Inventario.model.EventoInventarioOutbox;
+import com.example.Inventario.repository.EventoInventarioOutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * RelayOutboxInventario publica en segundo plano los eventos escritos en la tabla outbox.
+ * <p>
+ * En cada ciclo reclama lotes de eventos pendientes con {@code FOR UPDATE SKIP LOCKED}, los entrega a
+ * {@link SumideroEventosInventario} y los borra en la misma transacción. Mientras los lotes lleguen llenos
+ * sigue drenando sin esperar al siguiente ciclo, hasta un máximo de lotes por ciclo. Con varias instancias cada
+ * una publica lotes distintos en paralelo, así que dos cambios de un mismo producto pueden llegar desordenados: los
+ * consumidores deben ordenarlos por {@link EventoInventarioOutbox#getVersionInventario()} y descartar los que
+ * tengan una versión igual o menor que la última aplicada para ese producto.
+ */
+@Component
+@ConditionalOnProperty(name = "inventario.outbox.relay.habilitado", havingValue = "true", matchIfMissing = true)
+public class RelayOutboxInventario {
+
+    private static final Logger log = LoggerFactory.getLogger(RelayOutboxInventario.class);
+
+    private final EventoInventarioOutboxRepository outboxRepository;
+    private final SumideroEventosInventario sumidero;
+    private final TransactionTemplate transactionTemplate;
+    private final int tamanoLote;
+    private final int maxLotesPorCiclo;
+
+    private final Counter publicados;
+    private final Timer retraso;
+
+    /**
+     * Crea el relay de la tabla outbox.
+     *
+     * @param outboxRepository   repositorio de eventos pendientes
+     * @param sumidero           destino de los eventos
+     * @param transactionManager gestor de transacciones con el que se reclama y borra cada lote
+     * @param meterRegistry      registro donde se publican las métricas del relay
+     * @param tamanoLote         número máximo de eventos reclamados por transacción
+     * @param maxLotesPorCiclo   número máximo de lotes drenados en un mismo ciclo
+     */
+    public RelayOutboxInventario(EventoInventarioOutboxRepository outboxRepository,
+                                 SumideroEventosInventario sumidero,
+                                 PlatformTransactionManager transactionManager,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${inventario.outbox.relay.tamano-lote:1000}") int tamanoLote,
+                                 @Value("${inventario.outbox.relay.max-lotes-por-ciclo:50}") int maxLotesPorCiclo) {
+        this.outboxRepository = outboxRepository;
+        this.sumidero = sumidero;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.tamanoLote = tamanoLote;
+        this.maxLotesPorCiclo = maxLotesPorCiclo;
+        this.publicados = Counter.builder("inventario.outbox.publicados")
+                .description("Eventos de la tabla outbox publicados en el sumidero")
+                .register(meterRegistry);
+        this.retraso = Timer.builder("inventario.outbox.retraso")
+                .description("Tiempo desde que se escribe un evento en la tabla outbox hasta que se publica")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Drena la tabla outbox. Se ejecuta periódicamente; un fallo del sumidero deja el lote pendiente para el
+     * siguiente ciclo.
+     *
+     * @return el número de eventos publicados en este ciclo
+     */
+    @Scheduled(fixedDelayString = "${inventario.outbox.relay.intervalo-ms:200}",
+            initialDelayString = "${inventario.outbox.relay.intervalo-ms:200}")
+    public int drenar() {
+        int total = 0;
+        try {
+            for (int i = 0; i < maxLotesPorCiclo; i++) {
+                int publicadosLote = publicarLote();
+                total += publicadosLote;
+                if (publicadosLote < tamanoLote) {
+                    break;
+                }
+            }
+        } catch (RuntimeException e) {
+            log.error("Error publicando eventos de la tabla outbox; se reintentará en el siguiente ciclo", e);
+        }
+        return total;
+    }
+
+    private int publicarLote() {
+        List<EventoInventarioOutbox> lote = transactionTemplate.execute(estado -> {
+            List<EventoInventarioOutbox> reclamados = outboxRepository.reclamarPendientes(tamanoLote);
+            if (reclamados.isEmpty()) {
+                return reclamados;
+            }
+            sumidero.publicar(reclamados);
+
+            List<Long> ids = new ArrayList<>(reclamados.size());
+            for (EventoInventarioOutbox evento : reclamados) {
+                ids.add(evento.getId());
+            }
+            outboxRepository.deleteAllByIdInBatch(ids);
+            return reclamados;
+        });
+
+        Instant ahora = Instant.now();
+        for (EventoInventarioOutbox evento : lote) {
+            retraso.record(Duration.between(evento.getCreadoEn(), ahora));
+        }
+        publicados.increment(lote.size());
+        return lote.size();
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.Inventario.event;
+
+import com.example.Inventario.model.EventoInventarioOutbox;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Sumidero de sustitución que no sale del proceso: registra los eventos publicados en el log.
+ * <p>
+ * Se usa mientras no se configure un sumidero real ({@code inventario.outbox.sumidero=en-proceso}).
+ */
+@Component
+@ConditionalOnProperty(name = "inventario.outbox.sumidero", havingValue = "en-proceso", matchIfMissing = true)
+public class SumideroEventosEnProceso implements SumideroEventosInventario {
+
+    private static final Logger log = LoggerFactory.getLogger(SumideroEventosEnProceso.class);
+
+    @Override
+    public void publicar(List<EventoInventarioOutbox> eventos) {
+        if (!log.isDebugEnabled()) {
+            return;
+        }
+        for (EventoInventarioOutbox evento : eventos) {
+            log.debug("Evento de inventario {} publicado: producto ID {} de {} a {} (versión {})", evento.getId(),
+                    evento.getProductoId(), evento.getCantidadAnterior(), evento.getCantidadNueva(), evento.getVersionInventario());
+        }
+    }
+}
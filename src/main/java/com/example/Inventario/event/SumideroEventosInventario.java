@@ -0,0 +1,22 @@
+package com.example.Inventario.event;
+
+import com.example.Inventario.model.EventoInventarioOutbox;
+
+import java.util.List;
+
+/**
+ * SumideroEventosInventario es el destino al que {@link RelayOutboxInventario} publica los cambios de stock
+ * (por ejemplo, un broker de mensajería).
+ * <p>
+ * La publicación se considera completada cuando el método retorna; si lanza una excepción, el lote se
+ * vuelve a intentar en el siguiente ciclo, por lo que un mismo evento puede entregarse más de una vez.
+ */
+public interface SumideroEventosInventario {
+
+    /**
+     * Publica un lote de eventos en orden de creación.
+     *
+     * @param eventos eventos a publicar; nunca vacío
+     */
+    void publicar(List<EventoInventarioOutbox> eventos);
+}
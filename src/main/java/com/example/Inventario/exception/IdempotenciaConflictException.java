@@ -0,0 +1,12 @@
+package com.example.Inventario.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.CONFLICT)
+public class IdempotenciaConflictException extends RuntimeException {
+
+    public IdempotenciaConflictException(String message) {
+        super(message);
+    }
+}
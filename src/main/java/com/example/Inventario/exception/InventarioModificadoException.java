@@ -0,0 +1,16 @@
+package com.example.Inventario.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.PRECONDITION_FAILED)
+public class InventarioModificadoException extends RuntimeException {
+
+    public InventarioModificadoException(String message) {
+        super(message);
+    }
+
+    public InventarioModificadoException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.Inventario.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class ProductosNoDisponiblesException extends RuntimeException {
+
+    public ProductosNoDisponiblesException(String message) {
+        super(message);
+    }
+
+    public ProductosNoDisponiblesException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.Inventario.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
+import org.springframework.data.domain.Persistable;
+
+import java.io.Serializable;
+import java.time.Instant;
+import java.time.LocalDateTime;
+
+/**
+ * Resultado de una compra realizada con una clave de idempotencia.
+ * <p>
+ * Se escribe en la misma transacción que el descuento de stock, por lo que existe si y solo si la compra se
+ * confirmó. Guarda los campos de la respuesta en columnas propias en lugar de la respuesta serializada. Las
+ * filas nunca se actualizan: {@link #isNew()} siempre es {@code true}, de modo que guardar una clave repetida
+ * viola la clave primaria en lugar de sobrescribir la compra original.
+ * <p>
+ * La clave primaria es el cliente de la API junto con su clave de idempotencia: cada cliente tiene su propio
+ * espacio de claves y no puede recibir la respuesta de la compra de otro.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@IdClass(CompraIdempotente.Clave.class)
+@Table(name = "compras_idempotentes", indexes = @Index(name = "idx_compras_idempotentes_expira_en", columnList = "expiraEn"))
+public class CompraIdempotente implements Persistable<CompraIdempotente.Clave> {
+
+    @Id
+    @Column(length = 255)
+    private String cliente;
+
+    @Id
+    @Column(length = 255)
+    private String clave;
+
+    @Column(nullable = false)
+    private Long productoId;
+
+    @Column(nullable = false)
+    private String nombreProducto;
+
+    @Column(nullable = false)
+    private Double precioUnitario;
+
+    @Column(nullable = false)
+    private Integer cantidadComprada;
+
+    @Column(nullable = false)
+    private Double totalPagar;
+
+    @Column(nullable = false)
+    private LocalDateTime fechaCompra;
+
+    @Column(nullable = false)
+    private String mensaje;
+
+    /**
+     * Indica que la compra se hizo con la última copia conocida del producto, para que las repeticiones lo
+     * devuelvan igual que la respuesta original.
+     */
+    @Column(nullable = false)
+    @ColumnDefault("false")
+    private boolean productoDesactualizado;
+
+    @Column(nullable = false)
+    private Instant expiraEn;
+
+    @Override
+    public Clave getId() {
+        return new Clave(cliente, clave);
+    }
+
+    @Override
+    public boolean isNew() {
+        return true;
+    }
+
+    /**
+     * Clave primaria de una compra idempotente: el cliente que la realizó y su clave de idempotencia.
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Clave implements Serializable {
+
+        private String cliente;
+
+        private String clave;
+    }
+}
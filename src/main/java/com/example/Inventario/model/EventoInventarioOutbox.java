@@ -0,0 +1,57 @@
+package com.example.Inventario.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import org.hibernate.annotations.ColumnDefault;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Cambio de stock pendiente de publicar a sistemas externos (patrón outbox).
+ * <p>
+ * Cada fila se escribe en la misma transacción que el cambio de stock que describe, por lo que solo existe
+ * si ese cambio se confirmó. El identificador es único y permite a los consumidores descartar duplicados, pero no
+ * sigue el orden de confirmación entre instancias, porque cada una reserva su propio bloque de identificadores.
+ * Para ordenar los cambios de un producto se usa {@code versionInventario}, la versión que dejó el cambio en el
+ * inventario: crece con cada cambio del producto y nunca se repite.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "inventario_outbox")
+public class EventoInventarioOutbox {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "inventario_outbox_seq")
+    @SequenceGenerator(name = "inventario_outbox_seq", sequenceName = "inventario_outbox_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long productoId;
+
+    @Column(nullable = false)
+    private Integer cantidadAnterior;
+
+    @Column(nullable = false)
+    private Integer cantidadNueva;
+
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    private Long versionInventario;
+
+    @Column(nullable = false)
+    private Instant creadoEn;
+
+    public EventoInventarioOutbox(Long productoId, int cantidadAnterior, int cantidadNueva, long versionInventario) {
+        this(null, productoId, cantidadAnterior, cantidadNueva, versionInventario, Instant.now());
+    }
+}
@@ -4,16 +4,18 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
-import lombok.AllArgsConstructor;
+import jakarta.persistence.Version;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
 
 @Entity
 @Data
 @NoArgsConstructor
-@AllArgsConstructor
-@Table(name = "inventarios")
+// Sirve al listado filtrado por cantidad, que pagina por (cantidad, producto_id): el índice da el rango y el orden.
+@Table(name = "inventarios", indexes = @Index(name = "idx_inventarios_cantidad_producto", columnList = "cantidad, productoId"))
 public class Inventario {
 
     @Id
@@ -23,4 +25,38 @@ public class Inventario {
     @Column(nullable = false)
     @Schema(description = "Cantidad de inventario del producto", example = "50")
     private Integer cantidad;
+
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    @Schema(description = "Unidades retenidas por reservas activas; no pueden venderse", example = "5")
+    private Integer reservada = 0;
+
+    /**
+     * Versión de la fila, que se incrementa con cada cambio y se expone como ETag. Las sentencias de actualización
+     * masiva la incrementan explícitamente, porque no pasan por Hibernate. Es nula hasta que el inventario se guarda.
+     */
+    @Version
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    @Schema(description = "Versión del inventario; se devuelve también como ETag", example = "3")
+    private Long version;
+
+    public Inventario(Long productoId, Integer cantidad) {
+        this(productoId, cantidad, 0);
+    }
+
+    public Inventario(Long productoId, Integer cantidad, Integer reservada) {
+        this.productoId = productoId;
+        this.cantidad = cantidad;
+        this.reservada = reservada;
+    }
+
+    /**
+     * Unidades que pueden venderse o reservarse: la cantidad menos las reservas activas.
+     *
+     * @return la cantidad disponible
+     */
+    public int cantidadDisponible() {
+        return cantidad - reservada;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,50 @@
+package com.example.Inventario.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Reserva activa de unidades de un producto.
+ * <p>
+ * Las unidades reservadas se acumulan en {@link Inventario#getReservada()} en la misma transacción que crea la
+ * fila. La fila solo existe mientras la reserva está activa: confirmarla, liberarla o dejarla expirar la borra.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "reservas", indexes = @Index(name = "idx_reservas_expira_en", columnList = "expiraEn"))
+public class Reserva {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "reservas_seq")
+    @SequenceGenerator(name = "reservas_seq", sequenceName = "reservas_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long productoId;
+
+    @Column(nullable = false)
+    private Integer cantidad;
+
+    @Column(nullable = false)
+    private Instant expiraEn;
+
+    @Column(nullable = false)
+    private Instant creadaEn;
+
+    public Reserva(Long productoId, int cantidad, Instant expiraEn) {
+        this(null, productoId, cantidad, expiraEn, Instant.now());
+    }
+}
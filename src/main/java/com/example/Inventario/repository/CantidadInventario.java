@@ -0,0 +1,13 @@
+package com.example.Inventario.repository;
+
+/**
+ * Proyección de {@link com.example.Inventario.model.Inventario} con solo el ID de producto, la cantidad y la versión.
+ */
+public interface CantidadInventario {
+
+    Long getProductoId();
+
+    Integer getCantidad();
+
+    Long getVersion();
+}
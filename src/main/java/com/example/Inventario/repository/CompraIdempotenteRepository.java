@@ -0,0 +1,43 @@
+package com.example.Inventario.repository;
+
+import com.example.Inventario.model.CompraIdempotente;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+
+/**
+ * Repositorio para la entidad {@link CompraIdempotente}.
+ */
+@Repository
+public interface CompraIdempotenteRepository extends JpaRepository<CompraIdempotente, CompraIdempotente.Clave> {
+
+    /**
+     * Borra las compras cuya clave de idempotencia ya expiró.
+     *
+     * @param ahora instante de referencia
+     * @return el número de filas borradas
+     */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM CompraIdempotente c WHERE c.expiraEn < :ahora")
+    int borrarExpiradas(@Param("ahora") Instant ahora);
+
+    /**
+     * Borra una compra si su clave de idempotencia ya expiró, para que el cliente pueda reutilizar la clave sin
+     * esperar a la purga periódica.
+     *
+     * @param cliente cliente de la API que realizó la compra
+     * @param clave   clave de idempotencia
+     * @param ahora   instante de referencia
+     * @return el número de filas borradas
+     */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM CompraIdempotente c WHERE c.cliente = :cliente AND c.clave = :clave AND c.expiraEn < :ahora")
+    int borrarExpirada(@Param("cliente") String cliente, @Param("clave") String clave, @Param("ahora") Instant ahora);
+}
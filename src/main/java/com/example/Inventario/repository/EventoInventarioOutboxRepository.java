@@ -0,0 +1,28 @@
+package com.example.Inventario.repository;
+
+import com.example.Inventario.model.EventoInventarioOutbox;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Repositorio para la entidad {@link EventoInventarioOutbox}.
+ */
+@Repository
+public interface EventoInventarioOutboxRepository extends JpaRepository<EventoInventarioOutbox, Long> {
+
+    /**
+     * Reclama los eventos pendientes más antiguos, bloqueándolos hasta el final de la transacción.
+     * <p>
+     * Las filas ya bloqueadas por otra instancia se saltan en lugar de esperar, de modo que varias
+     * instancias pueden vaciar la tabla en paralelo sin publicar dos veces el mismo evento.
+     *
+     * @param limite número máximo de eventos a reclamar
+     * @return los eventos reclamados, en orden de creación
+     */
+    @Query(value = "SELECT * FROM inventario_outbox ORDER BY id LIMIT :limite FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<EventoInventarioOutbox> reclamarPendientes(@Param("limite") int limite);
+}
@@ -1,15 +1,194 @@
 package com.example.Inventario.repository;
 
 import com.example.Inventario.model.Inventario;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 /**
  * Repositorio para la entidad {@link Inventario}.
  * <p>
  * Proporciona operaciones CRUD y consultas sobre Inventario utilizando Spring Data JPA.
  * Los métodos básicos como guardar, buscar, actualizar y eliminar son heredados de {@link JpaRepository}.
  * </p>
+ * Las sentencias de actualización masiva no pasan por Hibernate, así que incrementan la versión del inventario
+ * de forma explícita para que su ETag cambie.
  */
 @Repository
-public interface InventarioRepository extends JpaRepository<Inventario, Long> {}
+public interface InventarioRepository extends JpaRepository<Inventario, Long>, InventarioRepositoryCustom {
+
+    /**
+     * Descuenta stock en una única sentencia, solo si la cantidad disponible es suficiente.
+     * <p>
+     * La condición {@code cantidad - reservada >= :cantidad} se evalúa sobre la fila bloqueada por el propio
+     * UPDATE, por lo que compras concurrentes del mismo producto nunca dejan el stock en negativo ni consumen
+     * unidades reservadas.
+     *
+     * @param productoId identificador del producto
+     * @param cantidad   unidades a descontar
+     * @return 1 si se descontó el stock, 0 si el inventario no existe o el stock es insuficiente
+     */
+    @Modifying
+    @Query("UPDATE Inventario i SET i.cantidad = i.cantidad - :cantidad, i.version = i.version + 1 WHERE i.productoId = :productoId AND i.cantidad - i.reservada >= :cantidad")
+    int descontarStockSiDisponible(@Param("productoId") Long productoId, @Param("cantidad") int cantidad);
+
+    /**
+     * Aplica el descuento neto de varias compras agrupadas sobre una fila ya bloqueada por la transacción.
+     * <p>
+     * La versión aumenta una vez por compra, de modo que cada evento del lote tiene su propia versión.
+     *
+     * @param productoId identificador del producto
+     * @param cantidad   unidades a descontar en total
+     * @param compras    número de compras aceptadas en el lote
+     * @return el número de filas actualizadas
+     */
+    @Modifying
+    @Query("UPDATE Inventario i SET i.cantidad = i.cantidad - :cantidad, i.version = i.version + :compras WHERE i.productoId = :productoId")
+    int descontarStockNeto(@Param("productoId") Long productoId, @Param("cantidad") int cantidad, @Param("compras") int compras);
+
+    /**
+     * Obtiene únicamente la cantidad en inventario de un producto, leída directamente de la base de datos.
+     *
+     * @param productoId identificador del producto
+     * @return un Optional con la cantidad, o vacío si el inventario no existe
+     */
+    @Query("SELECT i.cantidad FROM Inventario i WHERE i.productoId = :productoId")
+    Optional<Integer> findCantidadByProductoId(@Param("productoId") Long productoId);
+
+    /**
+     * Obtiene la cantidad y la versión del inventario de un producto, leídas directamente de la base de datos.
+     *
+     * @param productoId identificador del producto
+     * @return un Optional con la cantidad y la versión, o vacío si el inventario no existe
+     */
+    Optional<CantidadInventario> findCantidadYVersionByProductoId(Long productoId);
+
+    /**
+     * Obtiene únicamente la versión del inventario de un producto, sin cargar la entidad.
+     *
+     * @param productoId identificador del producto
+     * @return un Optional con la versión, o vacío si el inventario no existe
+     */
+    @Query("SELECT i.version FROM Inventario i WHERE i.productoId = :productoId")
+    Optional<Long> findVersionByProductoId(@Param("productoId") Long productoId);
+
+    /**
+     * Obtiene las unidades disponibles de un producto (cantidad menos reservas activas).
+     *
+     * @param productoId identificador del producto
+     * @return un Optional con la cantidad disponible, o vacío si el inventario no existe
+     */
+    @Query("SELECT i.cantidad - i.reservada FROM Inventario i WHERE i.productoId = :productoId")
+    Optional<Integer> findDisponibleByProductoId(@Param("productoId") Long productoId);
+
+    /**
+     * Lee el inventario de un producto y bloquea la fila hasta el final de la transacción.
+     *
+     * @param productoId identificador del producto
+     * @return un Optional con el inventario, o vacío si no existe
+     */
+    @Query(value = "SELECT * FROM inventarios WHERE producto_id = :productoId FOR UPDATE", nativeQuery = true)
+    Optional<Inventario> findByProductoIdParaActualizar(@Param("productoId") Long productoId);
+
+    /**
+     * Retiene unidades para una reserva, solo si hay suficientes disponibles.
+     *
+     * @param productoId identificador del producto
+     * @param cantidad   unidades a reservar
+     * @return 1 si la reserva se aplicó, 0 si el inventario no existe o no hay suficientes unidades disponibles
+     */
+    @Modifying
+    @Query("UPDATE Inventario i SET i.reservada = i.reservada + :cantidad, i.version = i.version + 1 WHERE i.productoId = :productoId AND i.cantidad - i.reservada >= :cantidad")
+    int reservarSiDisponible(@Param("productoId") Long productoId, @Param("cantidad") int cantidad);
+
+    /**
+     * Libera unidades reservadas sin venderlas.
+     *
+     * @param productoId identificador del producto
+     * @param cantidad   unidades a liberar
+     * @return el número de filas actualizadas
+     */
+    @Modifying
+    @Query("UPDATE Inventario i SET i.reservada = i.reservada - :cantidad, i.version = i.version + 1 WHERE i.productoId = :productoId")
+    int liberarReservada(@Param("productoId") Long productoId, @Param("cantidad") int cantidad);
+
+    /**
+     * Convierte unidades reservadas en una venta: las descuenta de la cantidad y de las reservadas a la vez. No
+     * hace nada si el inventario no tiene esas unidades reservadas y en stock.
+     *
+     * @param productoId identificador del producto
+     * @param cantidad   unidades vendidas
+     * @return el número de filas actualizadas
+     */
+    @Modifying
+    @Query("UPDATE Inventario i SET i.cantidad = i.cantidad - :cantidad, i.reservada = i.reservada - :cantidad, i.version = i.version + 1 " +
+            "WHERE i.productoId = :productoId AND i.reservada >= :cantidad AND i.cantidad >= :cantidad")
+    int confirmarReservada(@Param("productoId") Long productoId, @Param("cantidad") int cantidad);
+
+    /**
+     * Lee una página del listado de inventarios por búsqueda de clave (keyset): en lugar de saltar filas con un
+     * desplazamiento, continúa a partir del último producto de la página anterior, así que el coste de una página
+     * no depende de su profundidad.
+     *
+     * @param desdeProductoId último producto de la página anterior; la página empieza en el siguiente
+     * @param limite          número máximo de inventarios
+     * @return los inventarios de la página, ordenados por producto
+     */
+    @Query("SELECT i FROM Inventario i WHERE i.productoId > :desdeProductoId ORDER BY i.productoId")
+    List<Inventario> findPagina(@Param("desdeProductoId") long desdeProductoId, Limit limite);
+
+    /**
+     * Lee una página del listado filtrado por cantidad, por búsqueda de clave sobre {@code (cantidad, productoId)}.
+     * <p>
+     * La clave de búsqueda coincide con el índice {@code idx_inventarios_cantidad_producto}: la página empieza en
+     * la posición del índice que sigue al último inventario de la página anterior y lo recorre en orden hasta
+     * {@code cantidadMaxima}, así que ni se ordena el rango completo ni el coste depende de la profundidad. La
+     * página tampoco empieza antes de {@code cantidadMinima}.
+     *
+     * @param desdeCantidad   cantidad del último inventario de la página anterior
+     * @param desdeProductoId producto del último inventario de la página anterior
+     * @param cantidadMinima  cantidad mínima incluida
+     * @param cantidadMaxima  cantidad máxima incluida
+     * @param limite          número máximo de inventarios
+     * @return los inventarios de la página, ordenados por cantidad y, a igual cantidad, por producto
+     */
+    @Query("SELECT i FROM Inventario i WHERE (i.cantidad, i.productoId) > (:desdeCantidad, :desdeProductoId) " +
+            "AND i.cantidad BETWEEN :cantidadMinima AND :cantidadMaxima ORDER BY i.cantidad, i.productoId")
+    List<Inventario> findPaginaPorCantidad(@Param("desdeCantidad") int desdeCantidad,
+                                           @Param("desdeProductoId") long desdeProductoId,
+                                           @Param("cantidadMinima") int cantidadMinima,
+                                           @Param("cantidadMaxima") int cantidadMaxima,
+                                           Limit limite);
+
+    /**
+     * Obtiene únicamente el ID, la cantidad y la versión de varios inventarios, leídos directamente de la base de datos.
+     *
+     * @param productoIds identificadores de los productos
+     * @return las cantidades de los inventarios existentes
+     */
+    List<CantidadInventario> findByProductoIdIn(Collection<Long> productoIds);
+
+    /**
+     * Descuenta stock de forma atómica y devuelve la cantidad y la versión resultantes.
+     * <p>
+     * Debe invocarse dentro de una transacción: la lectura posterior al UPDATE ve la fila que la propia
+     * transacción mantiene bloqueada, así que la cantidad devuelta es exactamente la que dejó este descuento.
+     *
+     * @param productoId identificador del producto
+     * @param cantidad   unidades a descontar
+     * @return un Optional con la cantidad y la versión resultantes si el descuento se aplicó, o vacío si no se aplicó
+     */
+    default Optional<CantidadInventario> descontarStock(Long productoId, int cantidad) {
+        if (descontarStockSiDisponible(productoId, cantidad) == 0) {
+            return Optional.empty();
+        }
+        return findCantidadYVersionByProductoId(productoId);
+    }
+}
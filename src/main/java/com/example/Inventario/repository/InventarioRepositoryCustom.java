@@ -0,0 +1,48 @@
+package com.example.Inventario.repository;
+
+import com.example.Inventario.model.Inventario;
+
+import java.util.SortedMap;
+import java.util.function.Consumer;
+
+/**
+ * Operaciones de {@link InventarioRepository} implementadas directamente con JDBC.
+ * <p>
+ * Se usan para escrituras masivas en las que interesa enviar varias sentencias en un único lote.
+ */
+public interface InventarioRepositoryCustom {
+
+    /**
+     * Descuenta stock de varios productos enviando todas las sentencias en un único lote JDBC.
+     * <p>
+     * Cada sentencia solo se aplica si el stock del producto es suficiente. Los productos se procesan
+     * en orden ascendente de ID para que compras concurrentes bloqueen las filas siempre en el mismo orden.
+     *
+     * @param cantidadesPorProducto unidades a descontar por ID de producto
+     * @return número de filas actualizadas por cada producto, en el mismo orden que el mapa
+     */
+    int[] descontarStockLote(SortedMap<Long, Integer> cantidadesPorProducto);
+
+    /**
+     * Establece la cantidad de varios productos enviando todas las sentencias en un único lote JDBC.
+     * <p>
+     * Los inventarios que no existen se crean sin unidades reservadas; en los existentes solo cambian la
+     * cantidad y la versión, y no cambia nada si la cantidad nueva es menor que las unidades reservadas. Los
+     * productos se procesan en orden ascendente de ID, igual que en {@link #descontarStockLote}.
+     *
+     * @param cantidadesPorProducto cantidad a establecer por ID de producto
+     * @return número de filas afectadas por cada producto, en el mismo orden que el mapa; 0 si no se cambió
+     */
+    int[] establecerCantidadesLote(SortedMap<Long, Integer> cantidadesPorProducto);
+
+    /**
+     * Recorre todos los inventarios, ordenados por ID de producto, con un cursor de solo avance.
+     * <p>
+     * Las filas se leen de la base de datos en bloques de {@code tamanoFetch} y se entregan una a una, sin
+     * acumularlas en memoria. En PostgreSQL el cursor solo se respeta dentro de una transacción.
+     *
+     * @param tamanoFetch número de filas pedidas a la base de datos en cada viaje
+     * @param consumidor  recibe cada inventario; no debe conservar la referencia si no la necesita
+     */
+    void recorrerInventarios(int tamanoFetch, Consumer<Inventario> consumidor);
+}
@@ -0,0 +1,87 @@
+package com.example.Inventario.repository;
+
+import com.example.Inventario.model.Inventario;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.function.Consumer;
+
+/**
+ * Implementación JDBC de {@link InventarioRepositoryCustom}.
+ * <p>
+ * {@link JdbcTemplate} participa en la transacción JPA en curso, por lo que estas operaciones se
+ * confirman o se revierten junto con el resto de la transacción.
+ */
+public class InventarioRepositoryImpl implements InventarioRepositoryCustom {
+
+    private static final String SQL_DESCONTAR_STOCK =
+            "UPDATE inventarios SET cantidad = cantidad - ?, version = version + 1 WHERE producto_id = ? AND cantidad - reservada >= ?";
+
+    /** Upsert nativo de PostgreSQL. */
+    private static final String SQL_ESTABLECER_CANTIDAD_POSTGRESQL =
+            "INSERT INTO inventarios (producto_id, cantidad, reservada, version) VALUES (?, ?, 0, 0) "
+                    + "ON CONFLICT (producto_id) DO UPDATE SET cantidad = EXCLUDED.cantidad, version = inventarios.version + 1 "
+                    + "WHERE inventarios.reservada <= EXCLUDED.cantidad";
+
+    /** Upsert de H2, que no admite {@code ON CONFLICT ... DO UPDATE}. */
+    private static final String SQL_ESTABLECER_CANTIDAD_H2 =
+            "MERGE INTO inventarios i USING (VALUES (CAST(? AS BIGINT), CAST(? AS INTEGER))) v (producto_id, cantidad) "
+                    + "ON i.producto_id = v.producto_id "
+                    + "WHEN MATCHED AND i.reservada <= v.cantidad THEN UPDATE SET cantidad = v.cantidad, version = i.version + 1 "
+                    + "WHEN NOT MATCHED THEN INSERT (producto_id, cantidad, reservada, version) VALUES (v.producto_id, v.cantidad, 0, 0)";
+
+    private static final String SQL_RECORRER_INVENTARIOS =
+            "SELECT producto_id, cantidad, reservada FROM inventarios ORDER BY producto_id";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private volatile String sqlEstablecerCantidad;
+
+    @Override
+    public int[] descontarStockLote(SortedMap<Long, Integer> cantidadesPorProducto) {
+        List<Object[]> parametros = new ArrayList<>(cantidadesPorProducto.size());
+        for (Map.Entry<Long, Integer> linea : cantidadesPorProducto.entrySet()) {
+            parametros.add(new Object[]{linea.getValue(), linea.getKey(), linea.getValue()});
+        }
+        return jdbcTemplate.batchUpdate(SQL_DESCONTAR_STOCK, parametros);
+    }
+
+    @Override
+    public int[] establecerCantidadesLote(SortedMap<Long, Integer> cantidadesPorProducto) {
+        List<Object[]> parametros = new ArrayList<>(cantidadesPorProducto.size());
+        for (Map.Entry<Long, Integer> linea : cantidadesPorProducto.entrySet()) {
+            parametros.add(new Object[]{linea.getKey(), linea.getValue()});
+        }
+        return jdbcTemplate.batchUpdate(sqlEstablecerCantidad(), parametros);
+    }
+
+    @Override
+    public void recorrerInventarios(int tamanoFetch, Consumer<Inventario> consumidor) {
+        jdbcTemplate.query(conexion -> {
+            PreparedStatement sentencia = conexion.prepareStatement(SQL_RECORRER_INVENTARIOS,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            sentencia.setFetchSize(tamanoFetch);
+            return sentencia;
+        }, (RowCallbackHandler) fila -> consumidor.accept(
+                new Inventario(fila.getLong(1), fila.getInt(2), fila.getInt(3))));
+    }
+
+    private String sqlEstablecerCantidad() {
+        String sql = sqlEstablecerCantidad;
+        if (sql == null) {
+            String baseDatos = jdbcTemplate.execute((ConnectionCallback<String>) conexion -> conexion.getMetaData().getDatabaseProductName());
+            sql = "H2".equals(baseDatos) ? SQL_ESTABLECER_CANTIDAD_H2 : SQL_ESTABLECER_CANTIDAD_POSTGRESQL;
+            sqlEstablecerCantidad = sql;
+        }
+        return sql;
+    }
+}
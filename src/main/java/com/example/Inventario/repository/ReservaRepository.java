@@ -0,0 +1,60 @@
+package com.example.Inventario.repository;
+
+import com.example.Inventario.model.Reserva;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Repositorio para la entidad {@link Reserva}.
+ */
+@Repository
+public interface ReservaRepository extends JpaRepository<Reserva, Long> {
+
+    /**
+     * Lee una reserva y la bloquea hasta el final de la transacción.
+     *
+     * @param id identificador de la reserva
+     * @return un Optional con la reserva, o vacío si no existe
+     */
+    @Query(value = "SELECT * FROM reservas WHERE id = :id FOR UPDATE", nativeQuery = true)
+    Optional<Reserva> findByIdParaActualizar(@Param("id") Long id);
+
+    /**
+     * Lee varias reservas y las bloquea hasta el final de la transacción, siempre en el mismo orden para que
+     * dos transacciones nunca se esperen mutuamente.
+     *
+     * @param ids identificadores de las reservas
+     * @return las reservas que siguen existiendo, ordenadas por ID
+     */
+    @Query(value = "SELECT * FROM reservas WHERE id IN (:ids) ORDER BY id FOR UPDATE", nativeQuery = true)
+    List<Reserva> findAllByIdParaActualizar(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Obtiene la siguiente página de reservas a partir de un ID (paginación por clave).
+     *
+     * @param desdeId  ID a partir del cual se lee, sin incluirlo
+     * @param pageable tamaño de la página; el desplazamiento debe ser cero
+     * @return las reservas siguientes, ordenadas por ID
+     */
+    @Query("SELECT r FROM Reserva r WHERE r.id > :desdeId ORDER BY r.id")
+    List<Reserva> findSiguientes(@Param("desdeId") Long desdeId, Pageable pageable);
+
+    /**
+     * Obtiene los IDs de la siguiente página de reservas vencidas a partir de un ID (paginación por clave).
+     *
+     * @param ahora    instante de referencia
+     * @param desdeId  ID a partir del cual se lee, sin incluirlo
+     * @param pageable tamaño de la página; el desplazamiento debe ser cero
+     * @return los IDs de las reservas vencidas siguientes, ordenados
+     */
+    @Query("SELECT r.id FROM Reserva r WHERE r.expiraEn < :ahora AND r.id > :desdeId ORDER BY r.id")
+    List<Long> findIdsVencidas(@Param("ahora") Instant ahora, @Param("desdeId") Long desdeId, Pageable pageable);
+}
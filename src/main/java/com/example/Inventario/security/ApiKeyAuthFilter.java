@@ -4,19 +4,20 @@ import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.core.Authentication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.concurrent.TimeUnit;
 
 public class ApiKeyAuthFilter extends OncePerRequestFilter {
 
     private final String authenticationHeaderName;
-    private final AuthenticationManager authenticationManager;
+    private final ApiKeyAuthManager authenticationManager;
 
-    public ApiKeyAuthFilter(String authenticationHeaderName, AuthenticationManager authenticationManager) {
+    public ApiKeyAuthFilter(String authenticationHeaderName, ApiKeyAuthManager authenticationManager) {
         this.authenticationHeaderName = authenticationHeaderName;
         this.authenticationManager = authenticationManager;
     }
@@ -33,18 +34,25 @@ public class ApiKeyAuthFilter extends OncePerRequestFilter {
             return;
         }
 
-        try {
-            Authentication authentication = new ApiKeyAuthToken(apiKey, null);
-            Authentication result = authenticationManager.authenticate(authentication);
-            SecurityContextHolder.getContext().setAuthentication(result);
-        } catch (Exception e) {
+        ClienteApiKey cliente = authenticationManager.buscar(apiKey);
+        if (cliente == null) {
             // Si la autenticación falla, limpiar el contexto y enviar error 401
             SecurityContextHolder.clearContext();
             response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
-            response.getWriter().write("Acceso no autorizado: " + e.getMessage());
+            response.getWriter().write("Acceso no autorizado: API Key inválida");
             return;
         }
 
+        long espera = cliente.consumir();
+        if (espera > 0) {
+            // El cliente ha superado su cuota: se le indica cuándo puede volver a intentarlo
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(TimeUnit.NANOSECONDS.toSeconds(espera - 1) + 1));
+            response.getWriter().write("Demasiadas peticiones: se ha superado la cuota de la API Key.");
+            return;
+        }
+
+        SecurityContextHolder.getContext().setAuthentication(cliente.getAutenticacion());
         filterChain.doFilter(request, response);
     }
 }
@@ -1,26 +1,110 @@
 package com.example.Inventario.security;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.core.authority.AuthorityUtils;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+
+/**
+ * ApiKeyAuthManager reconoce las API Keys de los clientes configurados en {@link ApiKeysProperties}.
+ * <p>
+ * Solo se guarda el SHA-256 de cada clave: la clave recibida se resume y se busca en un mapa, de modo que la
+ * búsqueda cuesta lo mismo con uno que con cientos de clientes.
+ */
 public class ApiKeyAuthManager implements AuthenticationManager {
 
-    private final String principalRequestHeader;
+    static final String CLIENTE_PRINCIPAL = "principal";
+
+    private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(ApiKeyAuthManager::sha256);
+
+    private final Map<ByteBuffer, ClienteApiKey> clientes;
+
+    /**
+     * Registra los clientes configurados.
+     *
+     * @param propiedades   API Keys y cuotas de los clientes
+     * @param meterRegistry registro donde se publican las peticiones rechazadas por cuota
+     * @throws IllegalStateException si un hash no es un SHA-256 válido o dos clientes comparten clave
+     */
+    public ApiKeyAuthManager(ApiKeysProperties propiedades, MeterRegistry meterRegistry) {
+        Map<ByteBuffer, ClienteApiKey> registrados = new HashMap<>();
+        propiedades.getClientes().forEach((nombre, cliente) ->
+                registrar(registrados, nombre, leerHash(nombre, cliente.getHash()), cliente, meterRegistry));
+        String apiKey = propiedades.getApiKey();
+        if (apiKey != null && !apiKey.isBlank()) {
+            registrar(registrados, CLIENTE_PRINCIPAL, resumir(apiKey), new ApiKeysProperties.Cliente(), meterRegistry);
+        }
+        this.clientes = Map.copyOf(registrados);
+    }
 
-    public ApiKeyAuthManager(String principalRequestHeader) {
-        this.principalRequestHeader = principalRequestHeader;
+    /**
+     * Busca el cliente al que pertenece una API Key.
+     *
+     * @param apiKey API Key recibida
+     * @return el cliente, o {@code null} si la clave no es válida
+     */
+    public ClienteApiKey buscar(String apiKey) {
+        return clientes.get(resumir(apiKey));
     }
 
     @Override
     public Authentication authenticate(Authentication authentication) throws AuthenticationException {
-        String apiKey = authentication.getPrincipal().toString();
-        if (!apiKey.equals(principalRequestHeader)) {
+        ClienteApiKey cliente = buscar(authentication.getPrincipal().toString());
+        if (cliente == null) {
             throw new BadCredentialsException("API Key inválida");
         }
-        // Si la API Key es válida, se autentica el token
-        return new ApiKeyAuthToken(apiKey, AuthorityUtils.NO_AUTHORITIES);
+        return cliente.getAutenticacion();
+    }
+
+    private static void registrar(Map<ByteBuffer, ClienteApiKey> registrados, String nombre, ByteBuffer hash,
+                                  ApiKeysProperties.Cliente cliente, MeterRegistry meterRegistry) {
+        CuotaPeticiones cuota = null;
+        if (cliente.getPeticionesPorSegundo() > 0) {
+            int rafaga = cliente.getRafaga() > 0 ? cliente.getRafaga() : (int) Math.ceil(cliente.getPeticionesPorSegundo());
+            cuota = new CuotaPeticiones(cliente.getPeticionesPorSegundo(), rafaga);
+        }
+        Counter rechazadas = Counter.builder("inventario.api.cuota.rechazadas")
+                .description("Peticiones rechazadas por superar la cuota de su API Key")
+                .tag("cliente", nombre)
+                .register(meterRegistry);
+        ClienteApiKey anterior = registrados.putIfAbsent(hash, new ClienteApiKey(nombre,
+                new ApiKeyAuthToken(nombre, AuthorityUtils.NO_AUTHORITIES), cuota, rechazadas));
+        if (anterior != null) {
+            throw new IllegalStateException("Los clientes " + anterior.getNombre() + " y " + nombre + " tienen la misma API Key.");
+        }
+    }
+
+    private static ByteBuffer leerHash(String nombre, String hash) {
+        if (hash == null || hash.length() != 64) {
+            throw new IllegalStateException("El hash de la API Key del cliente " + nombre + " debe ser un SHA-256 en hexadecimal.");
+        }
+        try {
+            return ByteBuffer.wrap(HexFormat.of().parseHex(hash));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalStateException("El hash de la API Key del cliente " + nombre + " debe ser un SHA-256 en hexadecimal.", e);
+        }
+    }
+
+    private static ByteBuffer resumir(String apiKey) {
+        return ByteBuffer.wrap(SHA256.get().digest(apiKey.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
     }
 }
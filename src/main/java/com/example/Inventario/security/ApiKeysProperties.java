@@ -0,0 +1,53 @@
+package com.example.Inventario.security;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * ApiKeysProperties contiene las API Keys aceptadas por el servicio de inventario, leídas de
+ * {@code inventario-service.*}.
+ * <p>
+ * Cada cliente se configura con el SHA-256 de su API Key en hexadecimal, nunca con la clave en claro, y con su
+ * propia cuota de peticiones. La propiedad {@code inventario-service.api-key} se mantiene por compatibilidad: si
+ * está definida, esa clave se acepta como el cliente {@code principal}, sin cuota.
+ */
+@Data
+@ConfigurationProperties(prefix = "inventario-service")
+public class ApiKeysProperties {
+
+    /**
+     * API Key en claro del cliente {@code principal}. Opcional; es preferible configurarla como cliente.
+     */
+    private String apiKey;
+
+    /**
+     * Clientes aceptados, por nombre.
+     */
+    private Map<String, Cliente> clientes = new LinkedHashMap<>();
+
+    /**
+     * Configuración de un cliente de la API.
+     */
+    @Data
+    public static class Cliente {
+
+        /**
+         * SHA-256 de la API Key en hexadecimal.
+         */
+        private String hash;
+
+        /**
+         * Peticiones por segundo permitidas de forma sostenida; 0 significa sin límite.
+         */
+        private double peticionesPorSegundo;
+
+        /**
+         * Peticiones que pueden llegar de golpe por encima del ritmo sostenido; 0 usa el número de peticiones
+         * por segundo.
+         */
+        private int rafaga;
+    }
+}
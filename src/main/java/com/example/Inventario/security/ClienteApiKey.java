@@ -0,0 +1,55 @@
+package com.example.Inventario.security;
+
+import io.micrometer.core.instrument.Counter;
+import org.springframework.security.core.Authentication;
+
+/**
+ * ClienteApiKey es un cliente registrado de la API: su nombre, la autenticación que se asigna a sus peticiones
+ * (creada una sola vez y compartida) y su cuota de peticiones.
+ */
+public class ClienteApiKey {
+
+    private final String nombre;
+    private final Authentication autenticacion;
+    private final CuotaPeticiones cuota;
+    private final Counter rechazadas;
+
+    /**
+     * Crea un cliente registrado.
+     *
+     * @param nombre        nombre del cliente
+     * @param autenticacion autenticación de sus peticiones
+     * @param cuota         cuota de peticiones, o {@code null} si no tiene límite
+     * @param rechazadas    contador de peticiones rechazadas por superar la cuota
+     */
+    public ClienteApiKey(String nombre, Authentication autenticacion, CuotaPeticiones cuota, Counter rechazadas) {
+        this.nombre = nombre;
+        this.autenticacion = autenticacion;
+        this.cuota = cuota;
+        this.rechazadas = rechazadas;
+    }
+
+    public String getNombre() {
+        return nombre;
+    }
+
+    public Authentication getAutenticacion() {
+        return autenticacion;
+    }
+
+    /**
+     * Consume una petición de la cuota del cliente.
+     *
+     * @return 0 si la petición está permitida, o los nanosegundos que el cliente debe esperar
+     */
+    public long consumir() {
+        if (cuota == null) {
+            return 0;
+        }
+        long espera = cuota.consumir();
+        if (espera > 0) {
+            rechazadas.increment();
+        }
+        return espera;
+    }
+}
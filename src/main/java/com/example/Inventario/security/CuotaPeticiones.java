@@ -0,0 +1,53 @@
+package com.example.Inventario.security;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * CuotaPeticiones limita el ritmo de peticiones de un cliente con un cubo de fichas sin bloqueos.
+ * <p>
+ * El cubo se guarda como un único instante en nanosegundos: el momento en que el cubo volvería a estar lleno
+ * (algoritmo GCRA). Cada petición lo adelanta un intervalo con un {@code compareAndSet}, y se rechaza si lo dejaría
+ * más allá de la ráfaga permitida. No hay hilos de recarga ni se reserva memoria por petición.
+ */
+public class CuotaPeticiones {
+
+    private final long intervaloNanos;
+    private final long toleranciaNanos;
+    private final AtomicLong lleno;
+
+    /**
+     * Crea una cuota con el cubo lleno.
+     *
+     * @param peticionesPorSegundo ritmo sostenido permitido
+     * @param rafaga               número de peticiones que caben en el cubo
+     */
+    public CuotaPeticiones(double peticionesPorSegundo, int rafaga) {
+        if (peticionesPorSegundo <= 0 || rafaga <= 0) {
+            throw new IllegalArgumentException("La cuota necesita un ritmo y una ráfaga positivos.");
+        }
+        this.intervaloNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / peticionesPorSegundo));
+        this.toleranciaNanos = intervaloNanos * rafaga;
+        this.lleno = new AtomicLong(System.nanoTime());
+    }
+
+    /**
+     * Intenta consumir una ficha.
+     *
+     * @return 0 si la petición está permitida, o los nanosegundos que faltan para que haya una ficha libre
+     */
+    public long consumir() {
+        long ahora = System.nanoTime();
+        while (true) {
+            long actual = lleno.get();
+            long siguiente = Math.max(actual, ahora) + intervaloNanos;
+            long exceso = siguiente - ahora - toleranciaNanos;
+            if (exceso > 0) {
+                return exceso;
+            }
+            if (lleno.compareAndSet(actual, siguiente)) {
+                return 0;
+            }
+        }
+    }
+}
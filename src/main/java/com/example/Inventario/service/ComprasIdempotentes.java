@@ -0,0 +1,228 @@
+package com.example.Inventario.service;
+
+import com.example.Inventario.client.ProductoCache;
+import com.example.Inventario.dto.CompraRequest;
+import com.example.Inventario.dto.CompraResponse;
+import com.example.Inventario.exception.IdempotenciaConflictException;
+import com.example.Inventario.model.CompraIdempotente;
+import com.example.Inventario.repository.CompraIdempotenteRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * ComprasIdempotentes garantiza que una compra repetida con la misma clave de idempotencia se ejecute una sola vez.
+ * <p>
+ * Delante de la base de datos hay una caché en memoria, acotada por tamaño y por tiempo, que guarda el futuro de
+ * cada compra: una repetición de una compra terminada recibe la respuesta sin consultar la base de datos ni el
+ * servicio de productos, y una repetición concurrente espera a la compra original. La fuente de verdad es la tabla
+ * {@code compras_idempotentes}, cuya fila se escribe en la misma transacción que el descuento de stock; así otra
+ * instancia del servicio que reciba la repetición la encuentra, y si dos instancias compiten con la misma clave la
+ * clave primaria revierte el descuento de la segunda, que espera un tiempo acotado a que la fila de la primera sea
+ * visible y devuelve su respuesta.
+ * <p>
+ * Las compras que fallan no se recuerdan, de modo que el cliente puede reintentarlas con la misma clave. Las claves
+ * pertenecen al cliente de la API que las envía: dos clientes pueden usar la misma clave sin interferir entre sí.
+ */
+@Component
+public class ComprasIdempotentes {
+
+    private static final Logger log = LoggerFactory.getLogger(ComprasIdempotentes.class);
+
+    static final int LONGITUD_MAXIMA_CLAVE = 255;
+
+    private static final long PAUSA_INICIAL_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long PAUSA_MAXIMA_NANOS = TimeUnit.MILLISECONDS.toNanos(200);
+
+    private final CompraIdempotenteRepository repository;
+    private final Duration ttl;
+    private final Duration esperaOtraInstancia;
+    private final Cache<CompraIdempotente.Clave, CompraEnCurso> enMemoria;
+    private final Counter repetidasMemoria;
+    private final Counter repetidasBaseDatos;
+
+    /**
+     * Crea el registro de compras idempotentes.
+     *
+     * @param repository          repositorio de compras con clave de idempotencia
+     * @param meterRegistry       registro donde se publican las repeticiones detectadas
+     * @param ttl                 tiempo durante el que se recuerda una clave
+     * @param tamanoMaximo        número máximo de claves en memoria
+     * @param esperaOtraInstancia tiempo máximo de espera a la compra original cuando la guardó otra instancia
+     */
+    public ComprasIdempotentes(CompraIdempotenteRepository repository,
+                               MeterRegistry meterRegistry,
+                               @Value("${inventario.idempotencia.ttl:24h}") Duration ttl,
+                               @Value("${inventario.idempotencia.tamano-maximo-memoria:100000}") long tamanoMaximo,
+                               @Value("${inventario.idempotencia.espera-otra-instancia:2s}") Duration esperaOtraInstancia) {
+        this.repository = repository;
+        this.ttl = ttl;
+        this.esperaOtraInstancia = esperaOtraInstancia;
+        this.enMemoria = Caffeine.newBuilder()
+                .maximumSize(tamanoMaximo)
+                .expireAfterWrite(ttl)
+                .build();
+        this.repetidasMemoria = Counter.builder("inventario.idempotencia.repetidas")
+                .description("Compras repetidas respondidas sin volver a ejecutarse")
+                .tag("origen", "memoria")
+                .register(meterRegistry);
+        this.repetidasBaseDatos = Counter.builder("inventario.idempotencia.repetidas")
+                .description("Compras repetidas respondidas sin volver a ejecutarse")
+                .tag("origen", "base-datos")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Ejecuta una compra una sola vez por cliente y clave de idempotencia.
+     *
+     * @param cliente       cliente autenticado de la API que envía la compra
+     * @param clave         clave de idempotencia enviada por el cliente
+     * @param compraRequest datos de la compra; deben coincidir con los de la compra original
+     * @param compra        ejecuta la compra; debe guardar {@link #registro} en la transacción del descuento
+     * @return la respuesta de la compra original
+     * @throws IdempotenciaConflictException si la clave ya se usó con otra compra, o la compra original de otra
+     *                                       instancia no es visible tras {@code inventario.idempotencia.espera-otra-instancia}
+     */
+    public CompraResponse ejecutar(String cliente, String clave, CompraRequest compraRequest, Supplier<CompraResponse> compra) {
+        if (clave.length() > LONGITUD_MAXIMA_CLAVE) {
+            throw new IllegalArgumentException("La clave de idempotencia no puede superar " + LONGITUD_MAXIMA_CLAVE + " caracteres.");
+        }
+        CompraIdempotente.Clave id = new CompraIdempotente.Clave(cliente, clave);
+        CompraEnCurso propia = new CompraEnCurso(compraRequest.getProductoId(), compraRequest.getCantidad(), new CompletableFuture<>());
+        CompraEnCurso existente = enMemoria.asMap().putIfAbsent(id, propia);
+        if (existente != null) {
+            comprobarMismaCompra(clave, existente.productoId(), existente.cantidad(), compraRequest);
+            CompraResponse respuesta = ProductoCache.esperar(existente.respuesta());
+            repetidasMemoria.increment();
+            return respuesta;
+        }
+
+        try {
+            CompraResponse respuesta = buscarGuardada(id, compraRequest).orElseGet(() -> ejecutarUnaVez(id, compraRequest, compra));
+            propia.respuesta().complete(respuesta);
+            return respuesta;
+        } catch (RuntimeException e) {
+            enMemoria.asMap().remove(id, propia);
+            propia.respuesta().completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Crea la fila que debe guardarse junto con el descuento de stock de una compra idempotente.
+     *
+     * @param cliente        cliente de la API que realiza la compra
+     * @param clave          clave de idempotencia
+     * @param compraResponse respuesta que se devolverá a las repeticiones
+     * @return la fila a guardar
+     */
+    public CompraIdempotente registro(String cliente, String clave, CompraResponse compraResponse) {
+        return new CompraIdempotente(cliente,
+                clave,
+                compraResponse.getProductoId(),
+                compraResponse.getNombreProducto(),
+                compraResponse.getPrecioUnitario(),
+                compraResponse.getCantidadComprada(),
+                compraResponse.getTotalPagar(),
+                compraResponse.getFechaCompra(),
+                compraResponse.getMensaje(),
+                compraResponse.isProductoDesactualizado(),
+                Instant.now().plus(ttl));
+    }
+
+    /**
+     * Borra de la base de datos las claves expiradas. En memoria expiran solas.
+     */
+    @Scheduled(fixedDelayString = "${inventario.idempotencia.purga-intervalo-ms:600000}",
+            initialDelayString = "${inventario.idempotencia.purga-intervalo-ms:600000}")
+    public void purgarExpiradas() {
+        int borradas = repository.borrarExpiradas(Instant.now());
+        if (borradas > 0) {
+            log.debug("Borradas {} claves de idempotencia expiradas", borradas);
+        }
+    }
+
+    private CompraResponse ejecutarUnaVez(CompraIdempotente.Clave id, CompraRequest compraRequest, Supplier<CompraResponse> compra) {
+        try {
+            return compra.get();
+        } catch (DataIntegrityViolationException e) {
+            // Otra instancia guardó antes una compra con la misma clave y la nuestra se revirtió.
+            return esperarGuardada(id, compraRequest);
+        }
+    }
+
+    /**
+     * Espera a que la compra original de otra instancia sea visible, consultando la tabla con pausas crecientes.
+     */
+    private CompraResponse esperarGuardada(CompraIdempotente.Clave id, CompraRequest compraRequest) {
+        long limite = System.nanoTime() + esperaOtraInstancia.toNanos();
+        long pausa = PAUSA_INICIAL_NANOS;
+        while (true) {
+            Optional<CompraResponse> guardada = buscarGuardada(id, compraRequest);
+            if (guardada.isPresent()) {
+                return guardada.get();
+            }
+            long restante = limite - System.nanoTime();
+            if (restante <= 0) {
+                break;
+            }
+            try {
+                TimeUnit.NANOSECONDS.sleep(Math.min(pausa, restante));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            pausa = Math.min(pausa * 2, PAUSA_MAXIMA_NANOS);
+        }
+        throw new IdempotenciaConflictException(
+                "La compra con la clave de idempotencia " + id.getClave() + " sigue en curso. Reintente más tarde.");
+    }
+
+    private Optional<CompraResponse> buscarGuardada(CompraIdempotente.Clave id, CompraRequest compraRequest) {
+        Optional<CompraIdempotente> guardada = repository.findById(id);
+        if (guardada.isEmpty()) {
+            return Optional.empty();
+        }
+        CompraIdempotente compra = guardada.get();
+        if (compra.getExpiraEn().isBefore(Instant.now())) {
+            // La compra la vuelve a ejecutar, y su transacción borra la fila expirada antes de guardar la nueva.
+            return Optional.empty();
+        }
+        comprobarMismaCompra(id.getClave(), compra.getProductoId(), compra.getCantidadComprada(), compraRequest);
+        repetidasBaseDatos.increment();
+        return Optional.of(new CompraResponse(
+                compra.getProductoId(),
+                compra.getNombreProducto(),
+                compra.getPrecioUnitario(),
+                compra.getCantidadComprada(),
+                compra.getTotalPagar(),
+                compra.getFechaCompra(),
+                compra.getMensaje(),
+                compra.isProductoDesactualizado()
+        ));
+    }
+
+    private static void comprobarMismaCompra(String clave, Long productoId, Integer cantidad, CompraRequest compraRequest) {
+        if (!Objects.equals(productoId, compraRequest.getProductoId()) || !Objects.equals(cantidad, compraRequest.getCantidad())) {
+            throw new IdempotenciaConflictException("La clave de idempotencia " + clave + " ya se usó con otra compra.");
+        }
+    }
+
+    private record CompraEnCurso(Long productoId, Integer cantidad, CompletableFuture<CompraResponse> respuesta) {
+    }
+}
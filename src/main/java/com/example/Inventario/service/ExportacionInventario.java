@@ -0,0 +1,113 @@
+package com.example.Inventario.service;
+
+import com.example.Inventario.model.Inventario;
+import com.example.Inventario.repository.InventarioRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * ExportacionInventario vuelca la tabla de inventarios completa a un flujo, en CSV o NDJSON.
+ * <p>
+ * Las filas se leen con un cursor de solo avance dentro de una transacción de solo lectura y se escriben en la
+ * salida a medida que llegan, con compresión gzip opcional. La memoria usada depende del tamaño del bloque de
+ * lectura y del búfer de escritura, no del número de filas. La exportación retiene una conexión de base de datos
+ * mientras dura.
+ */
+@Service
+public class ExportacionInventario {
+
+    private static final Logger log = LoggerFactory.getLogger(ExportacionInventario.class);
+
+    private static final int TAMANO_BUFER = 64 * 1024;
+
+    private final InventarioRepository inventarioRepository;
+    private final TransactionTemplate transaccionLectura;
+    private final int tamanoFetch;
+    private final Counter filasExportadas;
+
+    /**
+     * Crea el exportador de inventarios.
+     *
+     * @param inventarioRepository repositorio con el recorrido por cursor
+     * @param transactionManager   gestor de la transacción de solo lectura que sostiene el cursor
+     * @param meterRegistry        registro donde se publican las filas exportadas
+     * @param tamanoFetch          número de filas pedidas a la base de datos en cada viaje
+     */
+    public ExportacionInventario(InventarioRepository inventarioRepository,
+                                 PlatformTransactionManager transactionManager,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${inventario.exportacion.tamano-fetch:1000}") int tamanoFetch) {
+        this.inventarioRepository = inventarioRepository;
+        this.transaccionLectura = new TransactionTemplate(transactionManager);
+        this.transaccionLectura.setReadOnly(true);
+        this.tamanoFetch = tamanoFetch;
+        this.filasExportadas = Counter.builder("inventario.exportacion.filas")
+                .description("Filas de inventario escritas por exportaciones completas")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Escribe todos los inventarios en la salida. La salida no se cierra.
+     *
+     * @param salida    flujo de destino
+     * @param formato   formato de las filas
+     * @param comprimir si es {@code true}, la salida se comprime con gzip
+     * @return el número de filas exportadas
+     * @throws IOException si falla la escritura
+     */
+    public long exportar(OutputStream salida, FormatoFichero formato, boolean comprimir) throws IOException {
+        long inicio = System.nanoTime();
+        GZIPOutputStream gzip = comprimir ? new GZIPOutputStream(salida, TAMANO_BUFER) : null;
+        Writer escritor = new BufferedWriter(new OutputStreamWriter(gzip != null ? gzip : salida, StandardCharsets.UTF_8), TAMANO_BUFER);
+
+        if (formato == FormatoFichero.CSV) {
+            escritor.write("productoId,cantidad,reservada\n");
+        }
+        long[] filas = {0};
+        try {
+            transaccionLectura.executeWithoutResult(estado -> inventarioRepository.recorrerInventarios(tamanoFetch, inventario -> {
+                try {
+                    escribirFila(escritor, inventario, formato);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                filas[0]++;
+            }));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        escritor.flush();
+        if (gzip != null) {
+            gzip.finish();
+        }
+
+        filasExportadas.increment(filas[0]);
+        log.info("Exportación de inventario terminada: {} filas en {} ms", filas[0], (System.nanoTime() - inicio) / 1_000_000);
+        return filas[0];
+    }
+
+    private static void escribirFila(Writer escritor, Inventario inventario, FormatoFichero formato) throws IOException {
+        if (formato == FormatoFichero.CSV) {
+            escritor.write(inventario.getProductoId() + "," + inventario.getCantidad() + "," + inventario.getReservada() + "\n");
+        } else {
+            escritor.write("{\"productoId\":" + inventario.getProductoId()
+                    + ",\"cantidad\":" + inventario.getCantidad()
+                    + ",\"reservada\":" + inventario.getReservada() + "}\n");
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.Inventario.service;
+
+import org.springframework.http.MediaType;
+
+/**
+ * Formato de los ficheros de stock que se importan y exportan.
+ */
+public enum FormatoFichero {
+
+    /** Una fila de valores separados por comas por línea, con cabecera. */
+    CSV("text/csv", "csv"),
+    /** Un objeto JSON por línea. */
+    NDJSON(FormatoFichero.TIPO_NDJSON, "ndjson");
+
+    /** Tipo de contenido de NDJSON. */
+    public static final String TIPO_NDJSON = "application/x-ndjson";
+
+    private final MediaType tipoContenido;
+    private final String extension;
+
+    FormatoFichero(String tipoContenido, String extension) {
+        this.tipoContenido = MediaType.parseMediaType(tipoContenido);
+        this.extension = extension;
+    }
+
+    public MediaType getTipoContenido() {
+        return tipoContenido;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * Determina el formato a partir de la cabecera {@code Content-Type}.
+     *
+     * @param tipoContenido valor de la cabecera
+     * @return el formato correspondiente
+     * @throws IllegalArgumentException si el tipo de contenido no es CSV ni NDJSON
+     */
+    public static FormatoFichero desdeTipoContenido(String tipoContenido) {
+        MediaType tipo = MediaType.parseMediaType(tipoContenido);
+        for (FormatoFichero formato : values()) {
+            if (tipo.isCompatibleWith(formato.tipoContenido)) {
+                return formato;
+            }
+        }
+        throw new IllegalArgumentException("Formato no soportado: " + tipoContenido + ". Use text/csv o " + TIPO_NDJSON + ".");
+    }
+
+    /**
+     * Determina el formato a partir de su extensión ({@code csv} o {@code ndjson}), sin distinguir mayúsculas.
+     *
+     * @param extension extensión del formato
+     * @return el formato correspondiente
+     * @throws IllegalArgumentException si la extensión no corresponde a ningún formato
+     */
+    public static FormatoFichero desdeExtension(String extension) {
+        for (FormatoFichero formato : values()) {
+            if (formato.extension.equalsIgnoreCase(extension)) {
+                return formato;
+            }
+        }
+        throw new IllegalArgumentException("Formato no soportado: " + extension + ". Use csv o ndjson.");
+    }
+}
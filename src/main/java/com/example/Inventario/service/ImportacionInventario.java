@@ -0,0 +1,223 @@
+package com.example.Inventario.service;
+
+import com.example.Inventario.client.ProductoBatchLoader;
+import com.example.Inventario.client.ProductoCache;
+import com.example.Inventario.dto.ImportacionResponse;
+import com.example.Inventario.dto.ProductoDto;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ImportacionInventario carga el stock de muchos productos desde un fichero CSV o NDJSON.
+ * <p>
+ * El cuerpo se lee línea a línea sin cargarlo entero en memoria. En CSV cada línea es {@code productoId,cantidad},
+ * con cabecera opcional y separador {@code ,} o {@code ;}; en NDJSON, {@code {"productoId": 1, "cantidad": 50}}.
+ * Las filas válidas se acumulan en lotes de tamaño fijo; cada lote se valida contra el servicio de productos con
+ * consultas masivas (sin pasar por la caché de productos, para no desalojar los productos que se venden) y se
+ * escribe con un upsert JDBC por lotes en su propia transacción. La memoria usada depende del tamaño del lote y del
+ * máximo de errores reportados, no del tamaño del fichero. Si la importación se interrumpe, los lotes ya escritos
+ * quedan confirmados y el fichero puede volver a importarse: cada fila establece una cantidad, así que repetirla no
+ * cambia el resultado.
+ */
+@Service
+public class ImportacionInventario {
+
+    private static final Logger log = LoggerFactory.getLogger(ImportacionInventario.class);
+
+    private final ProductoBatchLoader productoBatchLoader;
+    private final StockService stockService;
+    private final ObjectMapper objectMapper;
+    private final int tamanoLote;
+    private final int maxErroresReportados;
+    private final Counter filasImportadas;
+
+    /**
+     * Crea el importador de stock.
+     *
+     * @param productoBatchLoader  agrupador de consultas masivas de productos
+     * @param stockService         servicio que escribe cada lote en su transacción
+     * @param objectMapper         lector de las filas NDJSON
+     * @param meterRegistry        registro donde se publican las filas importadas
+     * @param tamanoLote           número de filas validadas y escritas juntas
+     * @param maxErroresReportados número máximo de errores detallados en la respuesta
+     */
+    public ImportacionInventario(ProductoBatchLoader productoBatchLoader,
+                                 StockService stockService,
+                                 ObjectMapper objectMapper,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${inventario.importacion.tamano-lote:1000}") int tamanoLote,
+                                 @Value("${inventario.importacion.max-errores-reportados:1000}") int maxErroresReportados) {
+        this.productoBatchLoader = productoBatchLoader;
+        this.stockService = stockService;
+        this.objectMapper = objectMapper;
+        this.tamanoLote = tamanoLote;
+        this.maxErroresReportados = maxErroresReportados;
+        this.filasImportadas = Counter.builder("inventario.importacion.filas")
+                .description("Filas de stock escritas por importaciones masivas")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Importa el stock leído de un flujo.
+     *
+     * @param entrada           cuerpo del fichero, en UTF-8
+     * @param formato           formato del fichero
+     * @param validarProductos  si es {@code false}, no se comprueba que los productos existan
+     * @return el recuento de filas, los primeros errores y el rendimiento de la importación
+     * @throws IOException si falla la lectura del flujo
+     */
+    public ImportacionResponse importar(InputStream entrada, FormatoFichero formato, boolean validarProductos) throws IOException {
+        Progreso progreso = new Progreso(System.nanoTime());
+        SortedMap<Long, FilaStock> lote = new TreeMap<>();
+        BufferedReader lector = new BufferedReader(new InputStreamReader(entrada, StandardCharsets.UTF_8));
+
+        String linea;
+        long numeroLinea = 0;
+        while ((linea = lector.readLine()) != null) {
+            numeroLinea++;
+            if (linea.isBlank() || (numeroLinea == 1 && formato == FormatoFichero.CSV && esCabecera(linea))) {
+                continue;
+            }
+            progreso.filasLeidas++;
+            try {
+                FilaStock fila = formato == FormatoFichero.CSV ? leerCsv(linea, numeroLinea) : leerNdjson(linea, numeroLinea);
+                // Si un producto se repite, prevalece su última fila, igual que si se importaran por separado.
+                lote.put(fila.productoId(), fila);
+            } catch (IllegalArgumentException e) {
+                progreso.error(numeroLinea, e.getMessage());
+            }
+            if (lote.size() >= tamanoLote) {
+                escribirLote(lote, validarProductos, progreso);
+                lote.clear();
+            }
+        }
+        if (!lote.isEmpty()) {
+            escribirLote(lote, validarProductos, progreso);
+        }
+
+        long duracionNanos = System.nanoTime() - progreso.inicioNanos;
+        double filasPorSegundo = duracionNanos == 0 ? 0 : progreso.filasLeidas * 1e9 / duracionNanos;
+        log.info("Importación de stock terminada: {} filas leídas, {} importadas, {} con error, {} filas/s",
+                progreso.filasLeidas, progreso.filasImportadas, progreso.filasConError, Math.round(filasPorSegundo));
+        return new ImportacionResponse(progreso.filasLeidas, progreso.filasImportadas, progreso.filasConError,
+                progreso.errores, TimeUnit.NANOSECONDS.toMillis(duracionNanos), filasPorSegundo);
+    }
+
+    private void escribirLote(SortedMap<Long, FilaStock> lote, boolean validarProductos, Progreso progreso) {
+        if (validarProductos) {
+            Map<Long, ProductoDto> productos = ProductoCache.esperar(productoBatchLoader.cargarTodos(lote.keySet()));
+            lote.values().removeIf(fila -> {
+                if (productos.containsKey(fila.productoId())) {
+                    return false;
+                }
+                progreso.error(fila.linea(), "Producto no encontrado en el servicio de productos con ID: " + fila.productoId());
+                return true;
+            });
+            if (lote.isEmpty()) {
+                return;
+            }
+        }
+
+        SortedMap<Long, Integer> cantidades = new TreeMap<>();
+        lote.forEach((productoId, fila) -> cantidades.put(productoId, fila.cantidad()));
+        List<Long> rechazados = stockService.establecerCantidades(cantidades);
+        for (Long productoId : rechazados) {
+            FilaStock fila = lote.get(productoId);
+            progreso.error(fila.linea(), "La cantidad " + fila.cantidad() + " del producto con ID " + productoId
+                    + " es menor que sus unidades reservadas.");
+        }
+        int importadas = cantidades.size() - rechazados.size();
+        progreso.filasImportadas += importadas;
+        filasImportadas.increment(importadas);
+    }
+
+    private static boolean esCabecera(String linea) {
+        return !Character.isDigit(linea.strip().charAt(0));
+    }
+
+    private static FilaStock leerCsv(String linea, long numeroLinea) {
+        String[] campos = linea.split("[,;]", -1);
+        if (campos.length != 2) {
+            throw new IllegalArgumentException("Se esperaban 2 columnas (productoId,cantidad) y hay " + campos.length + ".");
+        }
+        return validar(numeroLinea, campos[0].strip(), campos[1].strip());
+    }
+
+    private FilaStock leerNdjson(String linea, long numeroLinea) {
+        JsonNode nodo;
+        try {
+            nodo = objectMapper.readTree(linea);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("JSON inválido: " + e.getOriginalMessage());
+        }
+        JsonNode productoId = nodo.get("productoId");
+        JsonNode cantidad = nodo.get("cantidad");
+        if (productoId == null || cantidad == null) {
+            throw new IllegalArgumentException("Cada línea debe indicar productoId y cantidad.");
+        }
+        return validar(numeroLinea, productoId.asText(), cantidad.asText());
+    }
+
+    private static FilaStock validar(long numeroLinea, String productoId, String cantidad) {
+        long id;
+        int unidades;
+        try {
+            id = Long.parseLong(productoId);
+            unidades = Integer.parseInt(cantidad);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("productoId y cantidad deben ser números enteros.");
+        }
+        if (id <= 0) {
+            throw new IllegalArgumentException("El productoId debe ser mayor que cero.");
+        }
+        if (unidades < 0) {
+            throw new IllegalArgumentException("La cantidad no puede ser negativa.");
+        }
+        return new FilaStock(numeroLinea, id, unidades);
+    }
+
+    private record FilaStock(long linea, long productoId, int cantidad) {
+    }
+
+    /**
+     * Recuento de una importación en curso. Solo conserva el detalle de los primeros errores.
+     */
+    private final class Progreso {
+
+        private final long inicioNanos;
+        private final List<ImportacionResponse.ErrorFila> errores = new ArrayList<>();
+        private long filasLeidas;
+        private long filasImportadas;
+        private long filasConError;
+
+        private Progreso(long inicioNanos) {
+            this.inicioNanos = inicioNanos;
+        }
+
+        private void error(long linea, String mensaje) {
+            filasConError++;
+            if (errores.size() < maxErroresReportados) {
+                errores.add(new ImportacionResponse.ErrorFila(linea, mensaje));
+            }
+        }
+    }
+}
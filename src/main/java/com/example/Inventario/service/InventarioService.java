@@ -1,22 +1,37 @@
 package com.example.Inventario.service;
 
-import com.example.Inventario.client.ProductoFeignClient;
+import com.example.Inventario.client.ProductoCache;
+import com.example.Inventario.dto.InventarioConsultaDto;
 import com.example.Inventario.dto.InventarioResponseDto;
+import com.example.Inventario.dto.PaginaInventarioResponse;
 import com.example.Inventario.dto.ProductoDto;
 import com.example.Inventario.model.Inventario;
 import com.example.Inventario.repository.InventarioRepository;
-import com.example.Inventario.event.InventarioActualizadoEvent;
+import com.example.Inventario.exception.InventarioModificadoException;
 import com.example.Inventario.exception.InventarioNotFoundException;
 import com.example.Inventario.exception.ProductoNotFoundException;
+import com.example.Inventario.exception.ProductosNoDisponiblesException;
 import com.example.Inventario.dto.CompraRequest;
+import com.example.Inventario.dto.CompraLoteRequest;
+import com.example.Inventario.dto.CompraLoteResponse;
 import com.example.Inventario.dto.CompraResponse;
 import com.example.Inventario.exception.StockNotAvailableException;
-import jakarta.transaction.Transactional;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * InventarioService gestiona la lógica de negocio relacionada con el inventario de productos.
@@ -26,18 +41,38 @@ import java.time.LocalDateTime;
 @Service
 public class InventarioService {
 
+    private static final int MAX_INTENTOS_ACTUALIZACION = 3;
+
     @Autowired
     private InventarioRepository inventarioRepository;
 
     @Autowired
-    private ProductoFeignClient productoFeignClient;
+    private ProductoCache productoCache;
+
+    @Autowired
+    private StockService stockService;
 
     @Autowired
-    private ApplicationEventPublisher eventPublisher;
+    private SecuenciadorCompras secuenciadorCompras;
+
+    @Autowired
+    private ComprasIdempotentes comprasIdempotentes;
+
+    @Value("${inventario.compra-lote.max-lineas:100}")
+    private int maxLineasCompraLote;
+
+    @Value("${inventario.consulta-lote.max-ids:5000}")
+    private int maxIdsConsultaLote;
+
+    @Value("${inventario.listado.limite-maximo:500}")
+    private int limiteMaximoListado;
 
 
     /**
      * Obtiene la información de inventario y producto para un producto dado.
+     * <p>
+     * La lectura del inventario y la consulta del producto se realizan en paralelo, por lo que la latencia es
+     * la mayor de las dos y no su suma. Si falta el inventario se informa antes que la ausencia del producto.
      *
      * @param productoId identificador del producto
      * @return DTO con información combinada de inventario y producto
@@ -45,19 +80,145 @@ public class InventarioService {
      * @throws ProductoNotFoundException si el producto no existe en el microservicio de productos
      */
     public InventarioResponseDto getInventarioByProductoId(Long productoId) {
+        // La consulta del producto avanza en segundo plano mientras se lee el inventario.
+        CompletableFuture<Optional<ProductoDto>> productoFuturo = productoCache.getProductoByIdAsync(productoId);
+
         Inventario inventario = inventarioRepository.findById(productoId)
                 .orElseThrow(() -> new InventarioNotFoundException("Inventario no encontrado para el producto con ID: " + productoId));
 
-        ProductoDto producto = productoFeignClient.getProductoById(productoId)
+        ProductoDto producto = ProductoCache.esperar(productoFuturo)
                 .orElseThrow(() -> new ProductoNotFoundException("Producto no encontrado en el servicio de productos con ID: " + productoId));
 
-        return new InventarioResponseDto(
+        InventarioResponseDto inventarioDto = new InventarioResponseDto(
                 inventario.getProductoId(),
                 producto.getNombre(),
                 producto.getDescripcion(),
                 producto.getPrecio(),
-                inventario.getCantidad()
+                inventario.cantidadDisponible(),
+                producto.isDesactualizado()
         );
+        inventarioDto.setVersion(inventario.getVersion());
+        return inventarioDto;
+    }
+
+    /**
+     * Obtiene la versión del inventario de un producto sin consultar el servicio de productos.
+     * <p>
+     * Permite responder a una petición condicional sin construir la respuesta completa.
+     *
+     * @param productoId identificador del producto
+     * @return un Optional con la versión, o vacío si el inventario no existe
+     */
+    public Optional<Long> getVersionInventario(Long productoId) {
+        return inventarioRepository.findVersionByProductoId(productoId);
+    }
+
+
+    /**
+     * Obtiene la información de inventario y producto de varios productos en una sola operación.
+     * <p>
+     * Los inventarios se leen con una única consulta y los productos se resuelven con una única consulta masiva.
+     * Un producto sin inventario o desconocido para el servicio de productos no hace fallar la consulta: se
+     * informa con su estado en la posición correspondiente del resultado.
+     *
+     * @param productoIds identificadores de los productos, en el orden en que se quieren recibir
+     * @return un resultado por cada ID solicitado, en el mismo orden
+     * @throws IllegalArgumentException si no se indica ningún ID o se supera el máximo permitido
+     */
+    public List<InventarioConsultaDto> getInventariosByProductoIds(List<Long> productoIds) {
+        if (productoIds == null || productoIds.isEmpty()) {
+            throw new IllegalArgumentException("Debe indicar al menos un ID de producto.");
+        }
+        if (productoIds.size() > maxIdsConsultaLote) {
+            throw new IllegalArgumentException("La consulta supera el máximo de " + maxIdsConsultaLote + " productos.");
+        }
+
+        Map<Long, Inventario> inventarios = new HashMap<>();
+        for (Inventario inventario : inventarioRepository.findAllById(productoIds)) {
+            inventarios.put(inventario.getProductoId(), inventario);
+        }
+        Map<Long, ProductoDto> productos = inventarios.isEmpty()
+                ? Map.of()
+                : productoCache.getProductosByIds(inventarios.keySet());
+
+        List<InventarioConsultaDto> resultado = new ArrayList<>(productoIds.size());
+        for (Long productoId : productoIds) {
+            Inventario inventario = inventarios.get(productoId);
+            ProductoDto producto = productos.get(productoId);
+            if (inventario == null) {
+                resultado.add(new InventarioConsultaDto(productoId, InventarioConsultaDto.Estado.INVENTARIO_NO_ENCONTRADO, null));
+            } else if (producto == null) {
+                resultado.add(new InventarioConsultaDto(productoId, InventarioConsultaDto.Estado.PRODUCTO_NO_ENCONTRADO, null));
+            } else {
+                resultado.add(new InventarioConsultaDto(productoId, InventarioConsultaDto.Estado.ENCONTRADO, new InventarioResponseDto(
+                        inventario.getProductoId(),
+                        producto.getNombre(),
+                        producto.getDescripcion(),
+                        producto.getPrecio(),
+                        inventario.cantidadDisponible(),
+                        producto.isDesactualizado()
+                )));
+            }
+        }
+        return resultado;
+    }
+
+
+    /**
+     * Lista los inventarios por páginas, ordenados por producto y filtrados opcionalmente por un rango de cantidad.
+     * <p>
+     * La paginación es por búsqueda de clave: cada página continúa a partir del último inventario de la anterior, así
+     * que pedir una página profunda cuesta lo mismo que pedir la primera. Sin filtro la clave es el producto. Con
+     * filtro de cantidad la clave es {@code (cantidad, productoId)}, la misma del índice que resuelve el rango, y el
+     * listado se ordena por cantidad y, a igual cantidad, por producto. Con {@code cantidadMaxima} se obtienen los
+     * productos por debajo de un umbral de reposición. No consulta el servicio de productos.
+     *
+     * @param desdeProductoId último producto de la página anterior, o {@code null} para la primera página
+     * @param desdeCantidad   cantidad del último inventario de la página anterior en el listado filtrado por
+     *                        cantidad, o {@code null} para la primera página
+     * @param cantidadMinima  cantidad mínima incluida, o {@code null} para no acotarla
+     * @param cantidadMaxima  cantidad máxima incluida, o {@code null} para no acotarla
+     * @param limite          número máximo de inventarios de la página
+     * @return la página y los valores de {@code desde} y {@code desdeCantidad} para pedir la siguiente, si la hay
+     * @throws IllegalArgumentException si el límite, el rango de cantidad o la posición de la página no son válidos
+     */
+    public PaginaInventarioResponse listarInventarios(Long desdeProductoId, Integer desdeCantidad,
+                                                      Integer cantidadMinima, Integer cantidadMaxima, int limite) {
+        if (limite <= 0 || limite > limiteMaximoListado) {
+            throw new IllegalArgumentException("El límite debe estar entre 1 y " + limiteMaximoListado + ".");
+        }
+        if (cantidadMinima == null && cantidadMaxima == null) {
+            if (desdeCantidad != null) {
+                throw new IllegalArgumentException("'desdeCantidad' solo se usa al filtrar por cantidad.");
+            }
+            // Se lee una fila de más para saber si hay página siguiente sin contar el total.
+            List<Inventario> inventarios = inventarioRepository.findPagina(desdeProductoId == null ? 0L : desdeProductoId,
+                    Limit.of(limite + 1));
+            if (inventarios.size() <= limite) {
+                return new PaginaInventarioResponse(inventarios, null, null);
+            }
+            List<Inventario> pagina = inventarios.subList(0, limite);
+            return new PaginaInventarioResponse(new ArrayList<>(pagina), pagina.get(limite - 1).getProductoId(), null);
+        }
+
+        int minima = cantidadMinima == null ? Integer.MIN_VALUE : cantidadMinima;
+        int maxima = cantidadMaxima == null ? Integer.MAX_VALUE : cantidadMaxima;
+        if (minima > maxima) {
+            throw new IllegalArgumentException("La cantidad mínima no puede ser mayor que la máxima.");
+        }
+        if ((desdeProductoId == null) != (desdeCantidad == null)) {
+            throw new IllegalArgumentException("Al filtrar por cantidad, 'desde' y 'desdeCantidad' se envían juntos.");
+        }
+        // La primera página empieza antes del primer inventario con la cantidad mínima.
+        List<Inventario> inventarios = desdeCantidad == null
+                ? inventarioRepository.findPaginaPorCantidad(minima, 0L, minima, maxima, Limit.of(limite + 1))
+                : inventarioRepository.findPaginaPorCantidad(desdeCantidad, desdeProductoId, minima, maxima, Limit.of(limite + 1));
+        if (inventarios.size() <= limite) {
+            return new PaginaInventarioResponse(inventarios, null, null);
+        }
+        List<Inventario> pagina = inventarios.subList(0, limite);
+        Inventario ultimo = pagina.get(limite - 1);
+        return new PaginaInventarioResponse(new ArrayList<>(pagina), ultimo.getProductoId(), ultimo.getCantidad());
     }
 
 
@@ -71,19 +232,42 @@ public class InventarioService {
      * @throws InventarioNotFoundException si el inventario no existe
      */
     public Inventario updateInventario(Long productoId, Integer nuevaCantidad) {
-        productoFeignClient.getProductoById(productoId)
-                .orElseThrow(() -> new ProductoNotFoundException("No se puede actualizar el inventario: Producto no encontrado en el servicio de productos con ID: " + productoId));
-
-        Inventario inventario = inventarioRepository.findById(productoId)
-                .orElseThrow(() -> new InventarioNotFoundException("Inventario no encontrado para actualizar el producto con ID: " + productoId + ". Por favor, inicialícelo primero."));
-
-        int oldCantidad = inventario.getCantidad();
-        inventario.setCantidad(nuevaCantidad);
-        Inventario updatedInventario = inventarioRepository.save(inventario);
+        return updateInventario(productoId, nuevaCantidad, null);
+    }
 
-        eventPublisher.publishEvent(new InventarioActualizadoEvent(this, productoId, oldCantidad, nuevaCantidad));
+    /**
+     * Actualiza la cantidad de inventario para un producto existente, opcionalmente solo si su versión es una de
+     * las indicadas ({@code If-Match}).
+     * <p>
+     * Sin versiones, la cantidad se sobrescribe: si otra petición modifica el inventario a la vez, la
+     * actualización se repite sobre la versión nueva hasta {@value #MAX_INTENTOS_ACTUALIZACION} veces.
+     *
+     * @param productoId         identificador del producto
+     * @param nuevaCantidad      nueva cantidad a establecer en el inventario
+     * @param versionesAceptadas versiones con las que se permite la actualización, o {@code null} para cualquiera
+     * @return el inventario actualizado
+     * @throws ProductoNotFoundException si el producto no existe en el microservicio de productos
+     * @throws InventarioNotFoundException si el inventario no existe
+     * @throws InventarioModificadoException si la versión del inventario no es ninguna de las aceptadas
+     */
+    public Inventario updateInventario(Long productoId, Integer nuevaCantidad, Collection<Long> versionesAceptadas) {
+        productoCache.getProductoById(productoId)
+                .orElseThrow(() -> new ProductoNotFoundException("No se puede actualizar el inventario: Producto no encontrado en el servicio de productos con ID: " + productoId));
 
-        return updatedInventario;
+        for (int intento = 1; ; intento++) {
+            try {
+                return stockService.actualizarCantidad(productoId, nuevaCantidad, versionesAceptadas)
+                        .orElseThrow(() -> new InventarioNotFoundException("Inventario no encontrado para actualizar el producto con ID: " + productoId + ". Por favor, inicialícelo primero."));
+            } catch (OptimisticLockingFailureException e) {
+                if (versionesAceptadas != null) {
+                    throw new InventarioModificadoException("El inventario del producto con ID " + productoId
+                            + " se modificó durante la actualización. Consúltelo de nuevo antes de actualizarlo.", e);
+                }
+                if (intento == MAX_INTENTOS_ACTUALIZACION) {
+                    throw e;
+                }
+            }
+        }
     }
 
 
@@ -93,15 +277,17 @@ public class InventarioService {
      * @param productoId      identificador del producto
      * @param cantidadInicial cantidad inicial a establecer
      * @return el inventario inicializado o actualizado
-     * @throws ProductoNotFoundException si el producto no existe en el microservicio de productos
+     * @throws ProductoNotFoundException  si el producto no existe en el microservicio de productos
+     * @throws StockNotAvailableException si el inventario existe y la cantidad es menor que sus unidades reservadas
      */
     public Inventario inicializarInventario(Long productoId, Integer cantidadInicial) {
-        productoFeignClient.getProductoById(productoId)
+        productoCache.getProductoById(productoId)
                 .orElseThrow(() -> new ProductoNotFoundException("No se puede inicializar el inventario: Producto no encontrado en el servicio de productos con ID: " + productoId));
 
         Inventario inventario = inventarioRepository.findById(productoId)
                 .orElse(new Inventario(productoId, 0));
 
+        StockService.comprobarCubreReservada(inventario, cantidadInicial);
         inventario.setCantidad(cantidadInicial);
         return inventarioRepository.save(inventario);
     }
@@ -109,36 +295,71 @@ public class InventarioService {
 
     /**
      * Realiza una compra de un producto, actualizando el inventario y emitiendo un evento.
+     * <p>
+     * Este método no es transaccional: la transacción se limita al descuento de stock en {@link StockService}.
      *
      * @param compraRequest objeto con los datos de la compra (productoId y cantidad)
      * @return respuesta con los detalles de la compra realizada
      * @throws ProductoNotFoundException si el producto no existe en el microservicio de productos
      * @throws InventarioNotFoundException si el inventario no está inicializado para el producto
      * @throws StockNotAvailableException si no hay suficiente stock disponible
+     * @throws ProductosNoDisponiblesException si el servicio de productos no responde y las compras no admiten su última copia conocida
      */
-    @Transactional
     public CompraResponse realizarCompra(CompraRequest compraRequest) {
         Long productoId = compraRequest.getProductoId();
         Integer cantidadComprada = compraRequest.getCantidad();
 
-        ProductoDto producto = productoFeignClient.getProductoById(productoId)
+        ProductoDto producto = productoCache.getProductoById(productoId)
                 .orElseThrow(() -> new ProductoNotFoundException("Producto no encontrado en el servicio de productos con ID: " + productoId));
+        productoCache.comprobarParaCompra(producto);
 
-        Inventario inventario = inventarioRepository.findById(productoId)
-                .orElseThrow(() -> new InventarioNotFoundException("Inventario no inicializado para el producto con ID: " + productoId));
+        // El producto se resuelve antes de abrir la transacción: la conexión solo se toma para el descuento.
+        Optional<Integer> cantidadResultante = secuenciadorCompras.gestiona(productoId)
+                ? secuenciadorCompras.descontarStock(productoId, cantidadComprada)
+                : stockService.descontarStock(productoId, cantidadComprada);
+        cantidadResultante.orElseThrow(() -> stockNoDescontado(productoId, cantidadComprada, producto));
+
+        return compraRealizada(productoId, cantidadComprada, producto);
+    }
 
-        if (inventario.getCantidad() < cantidadComprada) {
-            throw new StockNotAvailableException("No hay suficiente stock para el producto " + producto.getNombre() +
-                    ". Stock disponible: " + inventario.getCantidad() +
-                    ", Cantidad solicitada: " + cantidadComprada);
+    /**
+     * Realiza una compra que se ejecuta una sola vez por clave de idempotencia.
+     * <p>
+     * Una repetición con la misma clave devuelve la respuesta de la compra original sin volver a descontar stock,
+     * y una repetición concurrente espera a que termine la original. Las compras con clave no pasan por el
+     * secuenciador de SKU caliente, porque la clave debe guardarse en la misma transacción que su descuento.
+     *
+     * @param compraRequest     objeto con los datos de la compra (productoId y cantidad)
+     * @param cliente           cliente autenticado de la API; cada cliente tiene su propio espacio de claves
+     * @param claveIdempotencia clave enviada por el cliente en la cabecera {@code Idempotency-Key}; si es
+     *                          {@code null} o está vacía, la compra se realiza sin idempotencia
+     * @return respuesta con los detalles de la compra realizada
+     * @throws ProductoNotFoundException   si el producto no existe en el microservicio de productos
+     * @throws InventarioNotFoundException si el inventario no está inicializado para el producto
+     * @throws StockNotAvailableException  si no hay suficiente stock disponible
+     * @throws ProductosNoDisponiblesException si el servicio de productos no responde y las compras no admiten su última copia conocida
+     * @throws com.example.Inventario.exception.IdempotenciaConflictException si la clave ya se usó con otra compra
+     */
+    public CompraResponse realizarCompra(CompraRequest compraRequest, String cliente, String claveIdempotencia) {
+        if (claveIdempotencia == null || claveIdempotencia.isBlank()) {
+            return realizarCompra(compraRequest);
         }
+        return comprasIdempotentes.ejecutar(cliente, claveIdempotencia, compraRequest, () -> {
+            Long productoId = compraRequest.getProductoId();
+            Integer cantidadComprada = compraRequest.getCantidad();
 
-        int oldCantidad = inventario.getCantidad();
-        inventario.setCantidad(oldCantidad - cantidadComprada);
-        inventarioRepository.save(inventario);
+            ProductoDto producto = productoCache.getProductoById(productoId)
+                    .orElseThrow(() -> new ProductoNotFoundException("Producto no encontrado en el servicio de productos con ID: " + productoId));
+            productoCache.comprobarParaCompra(producto);
 
-        eventPublisher.publishEvent(new InventarioActualizadoEvent(this, productoId, oldCantidad, inventario.getCantidad()));
+            CompraResponse compraResponse = compraRealizada(productoId, cantidadComprada, producto);
+            stockService.descontarStockIdempotente(productoId, cantidadComprada, comprasIdempotentes.registro(cliente, claveIdempotencia, compraResponse))
+                    .orElseThrow(() -> stockNoDescontado(productoId, cantidadComprada, producto));
+            return compraResponse;
+        });
+    }
 
+    private static CompraResponse compraRealizada(Long productoId, Integer cantidadComprada, ProductoDto producto) {
         Double totalPagar = producto.getPrecio() * cantidadComprada;
         return new CompraResponse(
                 productoId,
@@ -147,7 +368,103 @@ public class InventarioService {
                 cantidadComprada,
                 totalPagar,
                 LocalDateTime.now(),
-                "Compra realizada exitosamente."
+                "Compra realizada exitosamente.",
+                producto.isDesactualizado()
         );
     }
+
+    /**
+     * Realiza la compra de varios productos en una sola operación, todo o nada.
+     * <p>
+     * Todos los productos se resuelven en una sola pasada antes de abrir la transacción, y el stock de todas
+     * las líneas se descuenta en una única transacción con sentencias por lote. Si una línea falla, no se
+     * descuenta nada.
+     *
+     * @param compraLoteRequest líneas de la compra
+     * @return respuesta con el detalle de cada producto y el total de la compra
+     * @throws IllegalArgumentException si el lote está vacío, supera el máximo de líneas o tiene cantidades no positivas
+     * @throws ProductoNotFoundException si algún producto no existe en el microservicio de productos
+     * @throws InventarioNotFoundException si algún producto no tiene inventario inicializado
+     * @throws StockNotAvailableException si algún producto no tiene stock suficiente
+     * @throws ProductosNoDisponiblesException si el servicio de productos no responde y las compras no admiten su última copia conocida
+     */
+    public CompraLoteResponse realizarCompraLote(CompraLoteRequest compraLoteRequest) {
+        SortedMap<Long, Integer> cantidadesPorProducto = agruparLineas(compraLoteRequest);
+
+        Map<Long, ProductoDto> productos = productoCache.getProductosByIds(cantidadesPorProducto.keySet());
+        for (Long productoId : cantidadesPorProducto.keySet()) {
+            if (!productos.containsKey(productoId)) {
+                throw new ProductoNotFoundException("Producto no encontrado en el servicio de productos con ID: " + productoId);
+            }
+            productoCache.comprobarParaCompra(productos.get(productoId));
+        }
+
+        try {
+            stockService.descontarStockLote(cantidadesPorProducto);
+        } catch (StockService.LineaRechazadaException e) {
+            Long productoId = e.getProductoId();
+            throw stockNoDescontado(productoId, cantidadesPorProducto.get(productoId), productos.get(productoId));
+        }
+
+        LocalDateTime fechaCompra = LocalDateTime.now();
+        List<CompraResponse> lineas = new ArrayList<>(cantidadesPorProducto.size());
+        int cantidadTotal = 0;
+        double totalPagar = 0;
+        for (Map.Entry<Long, Integer> linea : cantidadesPorProducto.entrySet()) {
+            ProductoDto producto = productos.get(linea.getKey());
+            Double totalLinea = producto.getPrecio() * linea.getValue();
+            lineas.add(new CompraResponse(
+                    linea.getKey(),
+                    producto.getNombre(),
+                    producto.getPrecio(),
+                    linea.getValue(),
+                    totalLinea,
+                    fechaCompra,
+                    "Compra realizada exitosamente.",
+                    producto.isDesactualizado()
+            ));
+            cantidadTotal += linea.getValue();
+            totalPagar += totalLinea;
+        }
+        return new CompraLoteResponse(lineas, cantidadTotal, totalPagar, fechaCompra, "Compra realizada exitosamente.");
+    }
+
+    /**
+     * Valida las líneas de una compra por lote y suma las cantidades de un mismo producto.
+     *
+     * @return unidades a comprar por ID de producto, ordenadas por ID
+     */
+    private SortedMap<Long, Integer> agruparLineas(CompraLoteRequest compraLoteRequest) {
+        List<CompraRequest> lineas = compraLoteRequest.getLineas();
+        if (lineas == null || lineas.isEmpty()) {
+            throw new IllegalArgumentException("La compra debe contener al menos una línea.");
+        }
+        if (lineas.size() > maxLineasCompraLote) {
+            throw new IllegalArgumentException("La compra supera el máximo de " + maxLineasCompraLote + " líneas.");
+        }
+
+        SortedMap<Long, Integer> cantidadesPorProducto = new TreeMap<>();
+        for (CompraRequest linea : lineas) {
+            if (linea.getProductoId() == null || linea.getCantidad() == null || linea.getCantidad() <= 0) {
+                throw new IllegalArgumentException("Cada línea debe indicar un productoId y una cantidad mayor que cero.");
+            }
+            cantidadesPorProducto.merge(linea.getProductoId(), linea.getCantidad(), Integer::sum);
+        }
+        return cantidadesPorProducto;
+    }
+
+    /**
+     * Determina por qué no se pudo descontar el stock. Solo se ejecuta en el camino de error.
+     *
+     * @return la excepción a lanzar: inventario inexistente o stock insuficiente
+     */
+    private RuntimeException stockNoDescontado(Long productoId, Integer cantidadComprada, ProductoDto producto) {
+        Integer stockDisponible = inventarioRepository.findDisponibleByProductoId(productoId).orElse(null);
+        if (stockDisponible == null) {
+            return new InventarioNotFoundException("Inventario no inicializado para el producto con ID: " + productoId);
+        }
+        return new StockNotAvailableException("No hay suficiente stock para el producto " + producto.getNombre() +
+                ". Stock disponible: " + stockDisponible +
+                ", Cantidad solicitada: " + cantidadComprada);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,299 @@
+package com.example.Inventario.service;
+
+import com.example.Inventario.client.ProductoCache;
+import com.example.Inventario.dto.CompraResponse;
+import com.example.Inventario.dto.ProductoDto;
+import com.example.Inventario.dto.ReservaRequest;
+import com.example.Inventario.dto.ReservaResponse;
+import com.example.Inventario.exception.InventarioNotFoundException;
+import com.example.Inventario.exception.ProductoNotFoundException;
+import com.example.Inventario.exception.ReservaNotFoundException;
+import com.example.Inventario.exception.StockNotAvailableException;
+import com.example.Inventario.model.Reserva;
+import com.example.Inventario.repository.InventarioRepository;
+import com.example.Inventario.repository.ReservaRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ReservaService gestiona las reservas de stock que retienen unidades mientras se completa un pago.
+ * <p>
+ * Cada reserva activa tiene un temporizador en una {@link RuedaTemporizadores}: programarlo y cancelarlo cuesta
+ * O(1) y el vencimiento no requiere recorrer la tabla de reservas. Las reservas vencidas se liberan en lotes desde
+ * un hilo propio, fuera del hilo de la rueda. Las reservas viven en la base de datos, así que tras un reinicio se
+ * vuelven a programar leyendo la tabla una única vez al arrancar. Como las reservas de una instancia que se detiene
+ * y no vuelve a arrancar no tienen temporizador en ninguna otra, cada instancia barre además periódicamente la
+ * tabla en busca de reservas vencidas.
+ */
+@Service
+public class ReservaService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReservaService.class);
+
+    /** Espera antes de reintentar la liberación de reservas vencidas cuando falla. */
+    private static final Duration REINTENTO_EXPIRACION = Duration.ofSeconds(5);
+
+    private final StockService stockService;
+    private final ProductoCache productoCache;
+    private final InventarioRepository inventarioRepository;
+    private final ReservaRepository reservaRepository;
+    private final Duration ttlPorDefecto;
+    private final Duration ttlMaximo;
+    private final int tamanoLoteExpiracion;
+
+    private final RuedaTemporizadores<Long> rueda;
+    private final Map<Long, RuedaTemporizadores.Temporizador<Long>> temporizadores = new ConcurrentHashMap<>();
+    private final ExecutorService expirador = Executors.newSingleThreadExecutor(tarea -> {
+        Thread hilo = new Thread(tarea, "inventario-reservas-expiracion");
+        hilo.setDaemon(true);
+        return hilo;
+    });
+    private final Counter expiradas;
+
+    /**
+     * Crea el servicio de reservas y arranca su rueda de temporizadores.
+     *
+     * @param stockService         servicio que aplica las reservas en la base de datos
+     * @param productoCache        caché de productos del servicio remoto
+     * @param inventarioRepository repositorio de inventario, para explicar los rechazos
+     * @param reservaRepository    repositorio de reservas, para recuperarlas al arrancar
+     * @param meterRegistry        registro donde se publican las métricas de reservas
+     * @param ttlPorDefecto        duración de una reserva cuando la petición no la indica
+     * @param ttlMaximo            duración máxima que puede pedirse para una reserva
+     * @param tick                 precisión de la rueda de temporizadores
+     * @param ranuras              número de ranuras de la rueda
+     * @param tamanoLoteExpiracion número máximo de reservas vencidas liberadas por transacción
+     */
+    public ReservaService(StockService stockService,
+                          ProductoCache productoCache,
+                          InventarioRepository inventarioRepository,
+                          ReservaRepository reservaRepository,
+                          MeterRegistry meterRegistry,
+                          @Value("${inventario.reservas.ttl-por-defecto:10m}") Duration ttlPorDefecto,
+                          @Value("${inventario.reservas.ttl-maximo:1h}") Duration ttlMaximo,
+                          @Value("${inventario.reservas.rueda.tick:100ms}") Duration tick,
+                          @Value("${inventario.reservas.rueda.ranuras:4096}") int ranuras,
+                          @Value("${inventario.reservas.expiracion.tamano-lote:500}") int tamanoLoteExpiracion) {
+        this.stockService = stockService;
+        this.productoCache = productoCache;
+        this.inventarioRepository = inventarioRepository;
+        this.reservaRepository = reservaRepository;
+        this.ttlPorDefecto = ttlPorDefecto;
+        this.ttlMaximo = ttlMaximo;
+        this.tamanoLoteExpiracion = tamanoLoteExpiracion;
+        this.rueda = new RuedaTemporizadores<>("inventario-reservas-rueda", tick, ranuras,
+                vencidas -> expirador.execute(() -> expirar(vencidas)));
+
+        Gauge.builder("inventario.reservas.activas", rueda, RuedaTemporizadores::pendientes)
+                .description("Reservas de stock activas con un temporizador pendiente")
+                .register(meterRegistry);
+        this.expiradas = Counter.builder("inventario.reservas.expiradas")
+                .description("Reservas de stock liberadas por expiración")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Reserva unidades de un producto durante un tiempo limitado.
+     *
+     * @param reservaRequest producto, cantidad y duración de la reserva
+     * @return la reserva creada
+     * @throws IllegalArgumentException    si la cantidad o la duración no son válidas
+     * @throws ProductoNotFoundException   si el producto no existe en el microservicio de productos
+     * @throws InventarioNotFoundException si el inventario no está inicializado para el producto
+     * @throws StockNotAvailableException  si no hay suficientes unidades disponibles
+     */
+    public ReservaResponse reservar(ReservaRequest reservaRequest) {
+        Long productoId = reservaRequest.getProductoId();
+        Integer cantidad = reservaRequest.getCantidad();
+        if (productoId == null || cantidad == null || cantidad <= 0) {
+            throw new IllegalArgumentException("La reserva debe indicar un productoId y una cantidad mayor que cero.");
+        }
+        Duration ttl = reservaRequest.getTtlSegundos() == null
+                ? ttlPorDefecto
+                : Duration.ofSeconds(reservaRequest.getTtlSegundos());
+        if (ttl.isNegative() || ttl.isZero() || ttl.compareTo(ttlMaximo) > 0) {
+            throw new IllegalArgumentException("La duración de la reserva debe estar entre 1 y " + ttlMaximo.toSeconds() + " segundos.");
+        }
+
+        ProductoDto producto = productoCache.getProductoById(productoId)
+                .orElseThrow(() -> new ProductoNotFoundException("Producto no encontrado en el servicio de productos con ID: " + productoId));
+
+        Reserva reserva = stockService.reservar(productoId, cantidad, Instant.now().plus(ttl))
+                .orElseThrow(() -> stockNoReservado(productoId, cantidad, producto));
+        temporizadores.put(reserva.getId(), rueda.programar(reserva.getId(), ttl));
+
+        return new ReservaResponse(reserva.getId(), productoId, cantidad,
+                LocalDateTime.ofInstant(reserva.getExpiraEn(), ZoneId.systemDefault()));
+    }
+
+    /**
+     * Confirma una reserva vigente: sus unidades se venden y dejan de estar reservadas.
+     *
+     * @param reservaId identificador de la reserva
+     * @return respuesta con los detalles de la compra
+     * @throws ReservaNotFoundException  si la reserva no existe, ya se usó o expiró
+     * @throws ProductoNotFoundException si el producto no existe en el microservicio de productos
+     */
+    public CompraResponse confirmar(Long reservaId) {
+        Reserva reserva = reservaRepository.findById(reservaId)
+                .orElseThrow(() -> reservaNoEncontrada(reservaId));
+        ProductoDto producto = productoCache.getProductoById(reserva.getProductoId())
+                .orElseThrow(() -> new ProductoNotFoundException("Producto no encontrado en el servicio de productos con ID: " + reserva.getProductoId()));
+        productoCache.comprobarParaCompra(producto);
+
+        // El producto se resuelve antes de abrir la transacción, igual que en una compra directa.
+        Reserva confirmada = stockService.confirmarReserva(reservaId)
+                .orElseThrow(() -> reservaNoEncontrada(reservaId));
+        cancelarTemporizador(reservaId);
+
+        Double totalPagar = producto.getPrecio() * confirmada.getCantidad();
+        return new CompraResponse(
+                confirmada.getProductoId(),
+                producto.getNombre(),
+                producto.getPrecio(),
+                confirmada.getCantidad(),
+                totalPagar,
+                LocalDateTime.now(),
+                "Reserva confirmada con éxito",
+                producto.isDesactualizado()
+        );
+    }
+
+    /**
+     * Libera una reserva antes de que expire.
+     *
+     * @param reservaId identificador de la reserva
+     * @throws ReservaNotFoundException si la reserva no existe o ya se usó
+     */
+    public void liberar(Long reservaId) {
+        stockService.liberarReserva(reservaId)
+                .orElseThrow(() -> reservaNoEncontrada(reservaId));
+        cancelarTemporizador(reservaId);
+    }
+
+    /**
+     * Vuelve a programar los temporizadores de las reservas guardadas, que se pierden al reiniciar el servicio.
+     * Las reservas que vencieron mientras el servicio estaba parado se liberan en el siguiente tick.
+     *
+     * @return el número de reservas recuperadas
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public int recuperar() {
+        int recuperadas = 0;
+        long desdeId = 0;
+        List<Reserva> pagina;
+        do {
+            pagina = reservaRepository.findSiguientes(desdeId, PageRequest.of(0, tamanoLoteExpiracion));
+            Instant ahora = Instant.now();
+            for (Reserva reserva : pagina) {
+                Duration restante = Duration.between(ahora, reserva.getExpiraEn());
+                temporizadores.computeIfAbsent(reserva.getId(), id -> rueda.programar(id, restante));
+                desdeId = reserva.getId();
+            }
+            recuperadas += pagina.size();
+        } while (pagina.size() == tamanoLoteExpiracion);
+        if (recuperadas > 0) {
+            log.info("Recuperadas {} reservas de stock activas", recuperadas);
+        }
+        return recuperadas;
+    }
+
+    /**
+     * Libera las reservas vencidas que siguen en la base de datos, incluidas las de instancias que ya no están en
+     * marcha. Una reserva que vence a la vez en la rueda de esta instancia se libera una sola vez: la segunda
+     * liberación ya no la encuentra.
+     *
+     * @return el número de reservas liberadas
+     */
+    @Scheduled(fixedDelayString = "${inventario.reservas.expiracion.barrido-intervalo-ms:60000}",
+            initialDelayString = "${inventario.reservas.expiracion.barrido-intervalo-ms:60000}")
+    public int barrerVencidas() {
+        int liberadas = 0;
+        long desdeId = 0;
+        List<Long> pagina;
+        do {
+            pagina = reservaRepository.findIdsVencidas(Instant.now(), desdeId, PageRequest.of(0, tamanoLoteExpiracion));
+            if (pagina.isEmpty()) {
+                break;
+            }
+            pagina.forEach(this::cancelarTemporizador);
+            liberadas += stockService.expirarReservas(pagina);
+            desdeId = pagina.get(pagina.size() - 1);
+        } while (pagina.size() == tamanoLoteExpiracion);
+        if (liberadas > 0) {
+            expiradas.increment(liberadas);
+            log.info("Liberadas {} reservas vencidas sin temporizador en esta instancia", liberadas);
+        }
+        return liberadas;
+    }
+
+    @PreDestroy
+    public void detener() throws InterruptedException {
+        rueda.detener();
+        expirador.shutdown();
+        expirador.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Libera las reservas vencidas en lotes. Si un lote falla, sus reservas se vuelven a programar.
+     */
+    private void expirar(List<Long> reservaIds) {
+        for (int inicio = 0; inicio < reservaIds.size(); inicio += tamanoLoteExpiracion) {
+            List<Long> lote = reservaIds.subList(inicio, Math.min(inicio + tamanoLoteExpiracion, reservaIds.size()));
+            lote.forEach(temporizadores::remove);
+            try {
+                expiradas.increment(stockService.expirarReservas(lote));
+            } catch (RuntimeException e) {
+                log.error("Error liberando {} reservas vencidas; se reintentará", lote.size(), e);
+                for (Long reservaId : lote) {
+                    temporizadores.put(reservaId, rueda.programar(reservaId, REINTENTO_EXPIRACION));
+                }
+            }
+        }
+    }
+
+    private void cancelarTemporizador(Long reservaId) {
+        RuedaTemporizadores.Temporizador<Long> temporizador = temporizadores.remove(reservaId);
+        if (temporizador != null) {
+            temporizador.cancelar();
+        }
+    }
+
+    private static ReservaNotFoundException reservaNoEncontrada(Long reservaId) {
+        return new ReservaNotFoundException("Reserva no encontrada o expirada con ID: " + reservaId);
+    }
+
+    /**
+     * Determina por qué no se pudo reservar. Solo se ejecuta en el camino de error.
+     */
+    private RuntimeException stockNoReservado(Long productoId, Integer cantidad, ProductoDto producto) {
+        Integer stockDisponible = inventarioRepository.findDisponibleByProductoId(productoId).orElse(null);
+        if (stockDisponible == null) {
+            return new InventarioNotFoundException("Inventario no inicializado para el producto con ID: " + productoId);
+        }
+        return new StockNotAvailableException("No hay suficiente stock para el producto " + producto.getNombre() +
+                ". Stock disponible: " + stockDisponible +
+                ", Cantidad solicitada: " + cantidad);
+    }
+}
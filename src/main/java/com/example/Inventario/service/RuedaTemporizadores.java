@@ -0,0 +1,219 @@
+package com.example.Inventario.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * RuedaTemporizadores es una rueda de temporizadores con dispersión (hashed timing wheel).
+ * <p>
+ * El tiempo se divide en ticks de duración fija y cada temporizador se guarda en la ranura
+ * {@code tick_de_vencimiento mod ranuras}, junto con el número de vueltas completas que faltan. Programar y
+ * cancelar cuestan O(1) sin importar cuántos temporizadores haya; en cada tick solo se recorre una ranura. Los
+ * temporizadores vencen con una precisión de un tick, nunca antes de su plazo.
+ * <p>
+ * Un único hilo avanza la rueda. Los temporizadores nuevos llegan por una cola concurrente y los cancelados se
+ * descartan al recorrer su ranura, por lo que ningún otro hilo toca las ranuras. Los que vencen en un mismo tick
+ * se entregan juntos al consumidor, desde el hilo de la rueda.
+ *
+ * @param <T> tipo del valor asociado a cada temporizador
+ */
+public class RuedaTemporizadores<T> {
+
+    private static final Logger log = LoggerFactory.getLogger(RuedaTemporizadores.class);
+
+    private final long tickNanos;
+    private final int mascara;
+    private final List<Temporizador<T>>[] ranuras;
+    private final Queue<Temporizador<T>> nuevos = new ConcurrentLinkedQueue<>();
+    private final Consumer<List<T>> alVencer;
+    private final AtomicInteger pendientes = new AtomicInteger();
+
+    private final Thread hilo;
+    private final long inicioNanos;
+    private volatile boolean activa = true;
+    private long tickActual;
+
+    /**
+     * Crea la rueda y arranca su hilo.
+     *
+     * @param nombre   nombre del hilo que avanza la rueda
+     * @param tick     duración de un tick; es la precisión de los vencimientos
+     * @param ranuras  número de ranuras; se redondea a la siguiente potencia de dos
+     * @param alVencer consumidor de los valores vencidos en cada tick; no debe bloquearse
+     */
+    @SuppressWarnings("unchecked")
+    public RuedaTemporizadores(String nombre, Duration tick, int ranuras, Consumer<List<T>> alVencer) {
+        if (tick.isNegative() || tick.isZero()) {
+            throw new IllegalArgumentException("El tick de la rueda debe ser positivo.");
+        }
+        int numeroRanuras = Integer.highestOneBit(Math.max(1, ranuras - 1)) << 1;
+        this.tickNanos = tick.toNanos();
+        this.mascara = numeroRanuras - 1;
+        this.ranuras = new List[numeroRanuras];
+        for (int i = 0; i < numeroRanuras; i++) {
+            this.ranuras[i] = new ArrayList<>();
+        }
+        this.alVencer = alVencer;
+        this.inicioNanos = System.nanoTime();
+        this.hilo = new Thread(this::avanzar, nombre);
+        this.hilo.setDaemon(true);
+        this.hilo.start();
+    }
+
+    /**
+     * Programa un temporizador.
+     *
+     * @param valor   valor que se entregará al vencer
+     * @param retraso tiempo hasta el vencimiento; si es negativo o cero vence en el siguiente tick
+     * @return el temporizador, que puede cancelarse
+     */
+    public Temporizador<T> programar(T valor, Duration retraso) {
+        long vencimiento = System.nanoTime() + Math.max(0, retraso.toNanos());
+        Temporizador<T> temporizador = new Temporizador<>(valor, vencimiento, pendientes);
+        pendientes.incrementAndGet();
+        nuevos.add(temporizador);
+        return temporizador;
+    }
+
+    /**
+     * Número de temporizadores programados que aún no han vencido ni se han cancelado.
+     *
+     * @return los temporizadores pendientes
+     */
+    public int pendientes() {
+        return pendientes.get();
+    }
+
+    /**
+     * Detiene el hilo de la rueda. Los temporizadores pendientes no llegan a vencer.
+     */
+    public void detener() throws InterruptedException {
+        activa = false;
+        hilo.interrupt();
+        hilo.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    private void avanzar() {
+        while (activa) {
+            long siguienteTick = inicioNanos + (tickActual + 1) * tickNanos;
+            long espera = siguienteTick - System.nanoTime();
+            if (espera > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(espera);
+                } catch (InterruptedException e) {
+                    if (!activa) {
+                        return;
+                    }
+                    continue;
+                }
+            }
+            incorporarNuevos();
+            List<T> vencidos = recorrerRanura(ranuras[(int) (tickActual & mascara)]);
+            tickActual++;
+            if (!vencidos.isEmpty()) {
+                try {
+                    alVencer.accept(vencidos);
+                } catch (RuntimeException e) {
+                    log.error("Error entregando {} temporizadores vencidos", vencidos.size(), e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Coloca en su ranura los temporizadores programados desde el último tick.
+     */
+    private void incorporarNuevos() {
+        Temporizador<T> temporizador;
+        while ((temporizador = nuevos.poll()) != null) {
+            if (temporizador.cancelado()) {
+                continue;
+            }
+            // Tick en el que el plazo ya ha pasado; nunca antes del que se va a recorrer ahora.
+            long transcurrido = temporizador.vencimientoNanos - inicioNanos;
+            long tickVencimiento = Math.max(tickActual, (transcurrido + tickNanos - 1) / tickNanos - 1);
+            temporizador.vueltas = (tickVencimiento - tickActual) / ranuras.length;
+            ranuras[(int) (tickVencimiento & mascara)].add(temporizador);
+        }
+    }
+
+    /**
+     * Extrae de la ranura los temporizadores vencidos y descarta los cancelados; el resto pierde una vuelta.
+     */
+    private List<T> recorrerRanura(List<Temporizador<T>> ranura) {
+        List<T> vencidos = new ArrayList<>();
+        int conservados = 0;
+        for (int i = 0; i < ranura.size(); i++) {
+            Temporizador<T> temporizador = ranura.get(i);
+            if (temporizador.cancelado()) {
+                continue;
+            }
+            if (temporizador.vueltas > 0) {
+                temporizador.vueltas--;
+                ranura.set(conservados++, temporizador);
+            } else if (temporizador.vencer()) {
+                vencidos.add(temporizador.valor);
+            }
+        }
+        ranura.subList(conservados, ranura.size()).clear();
+        return vencidos;
+    }
+
+    /**
+     * Temporizador programado en la rueda. Vence o se cancela una sola vez.
+     *
+     * @param <T> tipo del valor asociado
+     */
+    public static final class Temporizador<T> {
+
+        private static final int PENDIENTE = 0;
+        private static final int VENCIDO = 1;
+        private static final int CANCELADO = 2;
+
+        private final T valor;
+        private final long vencimientoNanos;
+        private final AtomicInteger pendientesRueda;
+        private final AtomicInteger estado = new AtomicInteger(PENDIENTE);
+        private long vueltas;
+
+        private Temporizador(T valor, long vencimientoNanos, AtomicInteger pendientesRueda) {
+            this.valor = valor;
+            this.vencimientoNanos = vencimientoNanos;
+            this.pendientesRueda = pendientesRueda;
+        }
+
+        /**
+         * Cancela el temporizador si aún no ha vencido.
+         *
+         * @return {@code true} si se canceló, {@code false} si ya había vencido o se había cancelado
+         */
+        public boolean cancelar() {
+            if (estado.compareAndSet(PENDIENTE, CANCELADO)) {
+                pendientesRueda.decrementAndGet();
+                return true;
+            }
+            return false;
+        }
+
+        private boolean vencer() {
+            if (estado.compareAndSet(PENDIENTE, VENCIDO)) {
+                pendientesRueda.decrementAndGet();
+                return true;
+            }
+            return false;
+        }
+
+        private boolean cancelado() {
+            return estado.get() == CANCELADO;
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.example.Inventario.service;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * SecuenciadorCompras serializa las compras de productos muy demandados (modo "SKU caliente").
+ * <p>
+ * En lugar de abrir una transacción por compra y competir por la misma fila, las compras de un producto se
+ * encolan y un único escritor por producto las aplica por lotes en orden de llegada mediante
+ * {@link StockService#descontarStockAgrupado}: una lectura bloqueante, las decisiones de aceptar o rechazar
+ * en memoria y un solo UPDATE con el descuento neto. Cada comprador recibe su respuesta cuando la
+ * transacción del lote se ha confirmado.
+ * <p>
+ * Los escritores comparten el ejecutor {@code comprasExecutor}; un producto nunca tiene más de una tarea
+ * activa y, tras cada lote, cede el hilo a otros productos. El tamaño de los lotes se publica en la métrica
+ * {@code inventario.compras.lote}.
+ * <p>
+ * La cola de un producto solo existe mientras tiene compras pendientes o un lote en curso: al vaciarse se
+ * retira del mapa, de modo que el número de colas queda acotado por los productos con compras en vuelo y no
+ * crece con el catálogo cuando todos los productos pasan por el secuenciador. El número de colas vivas se
+ * publica en {@code inventario.compras.colas}.
+ */
+@Component
+public class SecuenciadorCompras {
+
+    private static final Logger log = LoggerFactory.getLogger(SecuenciadorCompras.class);
+
+    private final StockService stockService;
+    private final Executor comprasExecutor;
+    private final boolean habilitado;
+    private final Set<Long> productosCalientes;
+    private final int tamanoMaximoLote;
+    private final DistributionSummary tamanoLotes;
+
+    private final ConcurrentHashMap<Long, ColaProducto> colas = new ConcurrentHashMap<>();
+
+    /**
+     * Crea el secuenciador de compras.
+     *
+     * @param stockService       servicio que aplica cada lote en una transacción
+     * @param comprasExecutor    ejecutor compartido por los escritores de todos los productos
+     * @param meterRegistry      registro donde se publica el tamaño de los lotes
+     * @param habilitado         activa el modo de SKU caliente
+     * @param productosCalientes productos que pasan por el secuenciador; si está vacío, todos
+     * @param tamanoMaximoLote   número máximo de compras aplicadas en una transacción
+     */
+    public SecuenciadorCompras(StockService stockService,
+                               @Qualifier("comprasExecutor") Executor comprasExecutor,
+                               MeterRegistry meterRegistry,
+                               @Value("${inventario.compras.sku-caliente.habilitado:false}") boolean habilitado,
+                               @Value("${inventario.compras.sku-caliente.productos:}") Set<Long> productosCalientes,
+                               @Value("${inventario.compras.sku-caliente.tamano-maximo-lote:500}") int tamanoMaximoLote) {
+        this.stockService = stockService;
+        this.comprasExecutor = comprasExecutor;
+        this.habilitado = habilitado;
+        this.productosCalientes = Set.copyOf(productosCalientes);
+        this.tamanoMaximoLote = tamanoMaximoLote;
+        this.tamanoLotes = DistributionSummary.builder("inventario.compras.lote")
+                .description("Número de compras de un mismo producto confirmadas en una transacción")
+                .register(meterRegistry);
+        Gauge.builder("inventario.compras.colas", colas, ConcurrentHashMap::size)
+                .description("Número de productos con compras pendientes en el secuenciador")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Indica si las compras del producto deben pasar por el secuenciador.
+     *
+     * @param productoId identificador del producto
+     * @return {@code true} si el modo de SKU caliente está activo para el producto
+     */
+    public boolean gestiona(Long productoId) {
+        return habilitado && (productosCalientes.isEmpty() || productosCalientes.contains(productoId));
+    }
+
+    /**
+     * Encola una compra y espera a que se confirme el lote en el que se aplica.
+     *
+     * @param productoId identificador del producto
+     * @param cantidad   unidades a descontar
+     * @return un Optional con la cantidad resultante, o vacío si el inventario no existe o el stock es insuficiente
+     */
+    public Optional<Integer> descontarStock(Long productoId, int cantidad) {
+        Solicitud solicitud = new Solicitud(cantidad);
+        // El alta se hace dentro de compute para que no se cruce con la retirada de una cola que se acaba de vaciar.
+        ColaProducto cola = colas.compute(productoId, (id, actual) -> {
+            ColaProducto destino = actual != null ? actual : new ColaProducto(id);
+            destino.pendientes.add(solicitud);
+            return destino;
+        });
+        cola.programar();
+        try {
+            return solicitud.resultado.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw e;
+        }
+    }
+
+    private record Solicitud(int cantidad, CompletableFuture<Optional<Integer>> resultado) {
+        Solicitud(int cantidad) {
+            this(cantidad, new CompletableFuture<>());
+        }
+    }
+
+    /**
+     * Cola y escritor único de un producto.
+     */
+    private final class ColaProducto {
+
+        private final Long productoId;
+        private final Queue<Solicitud> pendientes = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean programada = new AtomicBoolean();
+
+        private ColaProducto(Long productoId) {
+            this.productoId = productoId;
+        }
+
+        private void programar() {
+            if (programada.compareAndSet(false, true)) {
+                comprasExecutor.execute(this::aplicarLote);
+            }
+        }
+
+        private void aplicarLote() {
+            try {
+                List<Solicitud> lote = new ArrayList<>();
+                Solicitud solicitud;
+                while (lote.size() < tamanoMaximoLote && (solicitud = pendientes.poll()) != null) {
+                    lote.add(solicitud);
+                }
+                if (!lote.isEmpty()) {
+                    aplicar(lote);
+                }
+            } finally {
+                programada.set(false);
+                if (!pendientes.isEmpty()) {
+                    programar();
+                } else {
+                    retirarSiInactiva();
+                }
+            }
+        }
+
+        /**
+         * Retira la cola del mapa si sigue vacía y sin lote en curso. La comprobación se repite dentro de
+         * {@code computeIfPresent}, que excluye a las altas concurrentes del mismo producto: una compra que llega
+         * después encuentra el hueco libre y crea una cola nueva.
+         */
+        private void retirarSiInactiva() {
+            colas.computeIfPresent(productoId,
+                    (id, actual) -> actual == this && pendientes.isEmpty() && !programada.get() ? null : actual);
+        }
+
+        private void aplicar(List<Solicitud> lote) {
+            List<Integer> cantidades = new ArrayList<>(lote.size());
+            for (Solicitud solicitud : lote) {
+                cantidades.add(solicitud.cantidad());
+            }
+            tamanoLotes.record(lote.size());
+
+            List<Optional<Integer>> resultados;
+            try {
+                resultados = stockService.descontarStockAgrupado(productoId, cantidades);
+            } catch (RuntimeException e) {
+                log.error("Error aplicando un lote de {} compras del producto {}", lote.size(), productoId, e);
+                lote.forEach(pendiente -> pendiente.resultado().completeExceptionally(e));
+                return;
+            }
+            for (int i = 0; i < lote.size(); i++) {
+                lote.get(i).resultado().complete(resultados.get(i));
+            }
+        }
+    }
+}
@@ -0,0 +1,368 @@
+package com.example.Inventario.service;
+
+import com.example.Inventario.event.InventarioActualizadoEvent;
+import com.example.Inventario.exception.InventarioModificadoException;
+import com.example.Inventario.exception.StockNotAvailableException;
+import com.example.Inventario.model.CompraIdempotente;
+import com.example.Inventario.model.EventoInventarioOutbox;
+import com.example.Inventario.model.Inventario;
+import com.example.Inventario.model.Reserva;
+import com.example.Inventario.repository.CantidadInventario;
+import com.example.Inventario.repository.CompraIdempotenteRepository;
+import com.example.Inventario.repository.EventoInventarioOutboxRepository;
+import com.example.Inventario.repository.InventarioRepository;
+import com.example.Inventario.repository.ReservaRepository;
+import jakarta.transaction.Transactional;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * StockService agrupa las mutaciones de stock que deben ejecutarse dentro de una transacción.
+ * <p>
+ * Sus métodos solo acceden a la base de datos: cualquier consulta al microservicio de productos debe
+ * resolverse antes de invocarlos, para que una conexión del pool nunca quede retenida mientras se
+ * espera una respuesta remota.
+ * <p>
+ * Cada cambio de stock escribe además una fila en la tabla outbox dentro de la misma transacción, que
+ * {@link com.example.Inventario.event.RelayOutboxInventario} publica después a sistemas externos. Los eventos y las
+ * filas outbox llevan la versión del inventario que dejó el cambio, con la que se ordenan los de cada producto.
+ */
+@Service
+public class StockService {
+
+    @Autowired
+    private InventarioRepository inventarioRepository;
+
+    @Autowired
+    private EventoInventarioOutboxRepository outboxRepository;
+
+    @Autowired
+    private ReservaRepository reservaRepository;
+
+    @Autowired
+    private CompraIdempotenteRepository compraIdempotenteRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+
+    /**
+     * Descuenta stock de forma atómica y publica el evento de actualización si el descuento se aplicó.
+     *
+     * @param productoId identificador del producto
+     * @param cantidad   unidades a descontar
+     * @return un Optional con la cantidad resultante, o vacío si el inventario no existe o el stock es insuficiente
+     */
+    @Transactional
+    public Optional<Integer> descontarStock(Long productoId, int cantidad) {
+        Optional<CantidadInventario> resultado = inventarioRepository.descontarStock(productoId, cantidad);
+        resultado.ifPresent(inventario -> registrarCambio(productoId, inventario.getCantidad() + cantidad,
+                inventario.getCantidad(), inventario.getVersion()));
+        return resultado.map(CantidadInventario::getCantidad);
+    }
+
+    /**
+     * Descuenta stock como {@link #descontarStock} y, si el descuento se aplicó, guarda en la misma transacción
+     * el resultado de la compra bajo su clave de idempotencia.
+     * <p>
+     * Una fila anterior con la misma clave que ya expiró se borra en la misma transacción. Si la clave existe y no
+     * ha expirado, la inserción viola la clave primaria y la transacción completa se revierte, descuento incluido.
+     *
+     * @param productoId identificador del producto
+     * @param cantidad   unidades a descontar
+     * @param registro   resultado de la compra a guardar con su clave
+     * @return un Optional con la cantidad resultante, o vacío si el inventario no existe o el stock es insuficiente
+     * @throws org.springframework.dao.DataIntegrityViolationException si la clave ya estaba registrada
+     */
+    @Transactional
+    public Optional<Integer> descontarStockIdempotente(Long productoId, int cantidad, CompraIdempotente registro) {
+        Optional<Integer> newCantidad = descontarStock(productoId, cantidad);
+        if (newCantidad.isPresent()) {
+            compraIdempotenteRepository.borrarExpirada(registro.getCliente(), registro.getClave(), Instant.now());
+            compraIdempotenteRepository.saveAndFlush(registro);
+        }
+        return newCantidad;
+    }
+
+    /**
+     * Aplica en orden de llegada varias compras de un mismo producto y confirma el descuento neto con una sola
+     * sentencia.
+     * <p>
+     * La fila del inventario se bloquea al leerla, de modo que las compras que no pasan por este método (u
+     * otras instancias del servicio) esperan a que termine la transacción. Cada compra se acepta si las unidades
+     * disponibles tras las compras anteriores del lote la cubren, y se rechaza en caso contrario.
+     *
+     * @param productoId identificador del producto
+     * @param cantidades unidades de cada compra, en orden de llegada
+     * @return para cada compra, la cantidad resultante si se aceptó, o vacío si se rechazó o el inventario no existe
+     */
+    @Transactional
+    public List<Optional<Integer>> descontarStockAgrupado(Long productoId, List<Integer> cantidades) {
+        Optional<Inventario> inventario = inventarioRepository.findByProductoIdParaActualizar(productoId);
+        if (inventario.isEmpty()) {
+            return Collections.nCopies(cantidades.size(), Optional.empty());
+        }
+
+        int cantidadInicial = inventario.get().getCantidad();
+        int reservada = inventario.get().getReservada();
+        long version = inventario.get().getVersion();
+        int restante = cantidadInicial;
+        List<Optional<Integer>> resultados = new ArrayList<>(cantidades.size());
+        List<EventoInventarioOutbox> eventosOutbox = new ArrayList<>();
+        for (int cantidad : cantidades) {
+            if (cantidad > restante - reservada) {
+                resultados.add(Optional.empty());
+                continue;
+            }
+            restante -= cantidad;
+            resultados.add(Optional.of(restante));
+            eventPublisher.publishEvent(new InventarioActualizadoEvent(this, productoId, restante + cantidad, restante, ++version));
+            eventosOutbox.add(new EventoInventarioOutbox(productoId, restante + cantidad, restante, version));
+        }
+
+        if (!eventosOutbox.isEmpty()) {
+            inventarioRepository.descontarStockNeto(productoId, cantidadInicial - restante, eventosOutbox.size());
+            outboxRepository.saveAll(eventosOutbox);
+        }
+        return resultados;
+    }
+
+    /**
+     * Establece la cantidad de inventario de un producto existente y publica el evento de actualización.
+     *
+     * @param productoId    identificador del producto
+     * @param nuevaCantidad cantidad a establecer
+     * @return un Optional con el inventario actualizado, o vacío si el inventario no existe
+     */
+    @Transactional
+    public Optional<Inventario> actualizarCantidad(Long productoId, int nuevaCantidad) {
+        return actualizarCantidad(productoId, nuevaCantidad, null);
+    }
+
+    /**
+     * Establece la cantidad de inventario de un producto existente solo si su versión es una de las esperadas.
+     * <p>
+     * No se bloquea la fila: si otra transacción la modifica entre la lectura y la escritura, Hibernate detecta
+     * el cambio de versión y lanza {@link org.springframework.dao.OptimisticLockingFailureException}. Si la cantidad
+     * no cambia, no se escribe nada ni se publica ningún evento.
+     *
+     * @param productoId         identificador del producto
+     * @param nuevaCantidad      cantidad a establecer
+     * @param versionesAceptadas versiones con las que se permite la actualización, o {@code null} para cualquiera
+     * @return un Optional con el inventario actualizado, o vacío si el inventario no existe
+     * @throws InventarioModificadoException si la versión actual no es ninguna de las aceptadas
+     * @throws StockNotAvailableException    si la cantidad nueva es menor que las unidades reservadas
+     */
+    @Transactional
+    public Optional<Inventario> actualizarCantidad(Long productoId, int nuevaCantidad, Collection<Long> versionesAceptadas) {
+        return inventarioRepository.findById(productoId).map(inventario -> {
+            if (versionesAceptadas != null && !versionesAceptadas.contains(inventario.getVersion())) {
+                throw new InventarioModificadoException("El inventario del producto con ID " + productoId
+                        + " ha cambiado (versión actual " + inventario.getVersion() + "). Consúltelo de nuevo antes de actualizarlo.");
+            }
+            int oldCantidad = inventario.getCantidad();
+            if (oldCantidad == nuevaCantidad) {
+                return inventario;
+            }
+            comprobarCubreReservada(inventario, nuevaCantidad);
+            inventario.setCantidad(nuevaCantidad);
+            // Se escribe ya para conocer la versión que deja el cambio.
+            Inventario updatedInventario = inventarioRepository.saveAndFlush(inventario);
+
+            registrarCambio(productoId, oldCantidad, nuevaCantidad, updatedInventario.getVersion());
+            return updatedInventario;
+        });
+    }
+
+    /**
+     * Retiene unidades de un producto y registra la reserva, solo si hay suficientes unidades disponibles.
+     *
+     * @param productoId identificador del producto
+     * @param cantidad   unidades a reservar
+     * @param expiraEn   instante en que la reserva expira
+     * @return un Optional con la reserva creada, o vacío si el inventario no existe o no hay unidades suficientes
+     */
+    @Transactional
+    public Optional<Reserva> reservar(Long productoId, int cantidad, Instant expiraEn) {
+        if (inventarioRepository.reservarSiDisponible(productoId, cantidad) == 0) {
+            return Optional.empty();
+        }
+        return Optional.of(reservaRepository.save(new Reserva(productoId, cantidad, expiraEn)));
+    }
+
+    /**
+     * Convierte una reserva vigente en una venta: descuenta sus unidades del stock y borra la reserva.
+     *
+     * @param reservaId identificador de la reserva
+     * @return un Optional con la reserva confirmada, o vacío si no existe o ya expiró
+     */
+    @Transactional
+    public Optional<Reserva> confirmarReserva(Long reservaId) {
+        Optional<Reserva> reserva = reservaRepository.findByIdParaActualizar(reservaId)
+                .filter(r -> r.getExpiraEn().isAfter(Instant.now()));
+        reserva.ifPresent(r -> {
+            Long productoId = r.getProductoId();
+            int cantidad = r.getCantidad();
+            reservaRepository.delete(r);
+            if (inventarioRepository.confirmarReservada(productoId, cantidad) == 0) {
+                // Solo ocurre si la fila se modificó saltándose el servicio; se revierte el borrado de la reserva.
+                throw new IllegalStateException("El inventario del producto con ID " + productoId
+                        + " no tiene las " + cantidad + " unidades de la reserva " + r.getId() + ".");
+            }
+            CantidadInventario resultado = inventarioRepository.findCantidadYVersionByProductoId(productoId).orElseThrow();
+            registrarCambio(productoId, resultado.getCantidad() + cantidad, resultado.getCantidad(), resultado.getVersion());
+        });
+        return reserva;
+    }
+
+    /**
+     * Libera una reserva antes de que expire, devolviendo sus unidades al stock disponible.
+     *
+     * @param reservaId identificador de la reserva
+     * @return un Optional con la reserva liberada, o vacío si no existe
+     */
+    @Transactional
+    public Optional<Reserva> liberarReserva(Long reservaId) {
+        Optional<Reserva> reserva = reservaRepository.findByIdParaActualizar(reservaId);
+        reserva.ifPresent(r -> {
+            reservaRepository.delete(r);
+            inventarioRepository.liberarReservada(r.getProductoId(), r.getCantidad());
+        });
+        return reserva;
+    }
+
+    /**
+     * Libera varias reservas vencidas en una sola transacción. Las que ya no existen (confirmadas o liberadas
+     * mientras tanto) se ignoran.
+     *
+     * @param reservaIds identificadores de las reservas vencidas
+     * @return el número de reservas liberadas
+     */
+    @Transactional
+    public int expirarReservas(Collection<Long> reservaIds) {
+        List<Reserva> reservas = reservaRepository.findAllByIdParaActualizar(reservaIds);
+        if (reservas.isEmpty()) {
+            return 0;
+        }
+        // Las filas de inventario se actualizan por orden de producto para no cruzar bloqueos con otros lotes.
+        SortedMap<Long, Integer> liberadasPorProducto = new TreeMap<>();
+        for (Reserva reserva : reservas) {
+            liberadasPorProducto.merge(reserva.getProductoId(), reserva.getCantidad(), Integer::sum);
+        }
+        reservaRepository.deleteAllInBatch(reservas);
+        liberadasPorProducto.forEach(inventarioRepository::liberarReservada);
+        return reservas.size();
+    }
+
+    /**
+     * Descuenta el stock de varios productos en una sola transacción, todo o nada.
+     * <p>
+     * Las sentencias se envían en un único lote JDBC. Si alguna línea no puede descontarse, la transacción
+     * completa se revierte y se lanza {@link LineaRechazadaException} con el producto que la provocó.
+     *
+     * @param cantidadesPorProducto unidades a descontar por ID de producto
+     * @return la cantidad resultante de cada producto
+     * @throws LineaRechazadaException si algún producto no tiene inventario o stock suficiente
+     */
+    @Transactional
+    public Map<Long, Integer> descontarStockLote(SortedMap<Long, Integer> cantidadesPorProducto) {
+        int[] filasActualizadas = inventarioRepository.descontarStockLote(cantidadesPorProducto);
+
+        int indice = 0;
+        for (Long productoId : cantidadesPorProducto.keySet()) {
+            if (filasActualizadas[indice++] == 0) {
+                throw new LineaRechazadaException(productoId);
+            }
+        }
+
+        Map<Long, CantidadInventario> resultados = new HashMap<>();
+        for (CantidadInventario inventario : inventarioRepository.findByProductoIdIn(cantidadesPorProducto.keySet())) {
+            resultados.put(inventario.getProductoId(), inventario);
+        }
+        Map<Long, Integer> cantidadesResultantes = new HashMap<>();
+        List<EventoInventarioOutbox> eventosOutbox = new ArrayList<>(cantidadesPorProducto.size());
+        cantidadesPorProducto.forEach((productoId, cantidad) -> {
+            CantidadInventario resultado = resultados.get(productoId);
+            int cantidadResultante = resultado.getCantidad();
+            cantidadesResultantes.put(productoId, cantidadResultante);
+            eventPublisher.publishEvent(new InventarioActualizadoEvent(this, productoId, cantidadResultante + cantidad, cantidadResultante, resultado.getVersion()));
+            eventosOutbox.add(new EventoInventarioOutbox(productoId, cantidadResultante + cantidad, cantidadResultante, resultado.getVersion()));
+        });
+        outboxRepository.saveAll(eventosOutbox);
+        return cantidadesResultantes;
+    }
+
+    /**
+     * Establece la cantidad de varios productos en una sola transacción, creando los inventarios que no existan.
+     * <p>
+     * Es una carga de datos, como {@code inicializar}: no publica eventos de actualización ni escribe en la
+     * tabla outbox. Los productos cuya cantidad nueva es menor que sus unidades reservadas no se modifican.
+     *
+     * @param cantidadesPorProducto cantidad a establecer por ID de producto
+     * @return los productos que no se modificaron porque la cantidad no cubre sus unidades reservadas
+     */
+    @Transactional
+    public List<Long> establecerCantidades(SortedMap<Long, Integer> cantidadesPorProducto) {
+        int[] filasActualizadas = inventarioRepository.establecerCantidadesLote(cantidadesPorProducto);
+
+        List<Long> rechazados = new ArrayList<>();
+        int indice = 0;
+        for (Long productoId : cantidadesPorProducto.keySet()) {
+            if (filasActualizadas[indice++] == 0) {
+                rechazados.add(productoId);
+            }
+        }
+        return rechazados;
+    }
+
+    /**
+     * Comprueba que una cantidad nueva no deja el stock disponible en negativo.
+     *
+     * @param inventario    inventario que se va a modificar
+     * @param nuevaCantidad cantidad a establecer
+     * @throws StockNotAvailableException si la cantidad nueva es menor que las unidades reservadas
+     */
+    static void comprobarCubreReservada(Inventario inventario, int nuevaCantidad) {
+        if (nuevaCantidad < inventario.getReservada()) {
+            throw new StockNotAvailableException("No se puede establecer la cantidad del producto con ID " + inventario.getProductoId()
+                    + " en " + nuevaCantidad + ": hay " + inventario.getReservada() + " unidades reservadas.");
+        }
+    }
+
+    /**
+     * Publica el evento de un cambio de stock y escribe su fila en la tabla outbox.
+     */
+    private void registrarCambio(Long productoId, int oldCantidad, int nuevaCantidad, long version) {
+        eventPublisher.publishEvent(new InventarioActualizadoEvent(this, productoId, oldCantidad, nuevaCantidad, version));
+        outboxRepository.save(new EventoInventarioOutbox(productoId, oldCantidad, nuevaCantidad, version));
+    }
+
+    /**
+     * Indica que una línea de una compra por lote no pudo descontarse y que el lote completo se revirtió.
+     */
+    public static class LineaRechazadaException extends RuntimeException {
+
+        private final Long productoId;
+
+        public LineaRechazadaException(Long productoId) {
+            super("No se pudo descontar el stock del producto con ID: " + productoId);
+            this.productoId = productoId;
+        }
+
+        public Long getProductoId() {
+            return productoId;
+        }
+    }
+}
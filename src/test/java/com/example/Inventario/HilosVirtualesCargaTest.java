@@ -0,0 +1,149 @@
+package com.example.Inventario;
+
+import com.example.Inventario.model.Inventario;
+import com.example.Inventario.repository.InventarioRepository;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compara el modelo de hilos de plataforma con el de hilos virtuales bajo una carga con un servicio de productos lento.
+ * <p>
+ * Cada petición a {@code GET /api/inventario/{productoId}} provoca una llamada remota que tarda
+ * {@link #RETARDO_PRODUCTOS_MS} ms. Con hilos de plataforma el rendimiento queda acotado por el tamaño de los pools;
+ * con hilos virtuales las peticiones esperan en paralelo. Solo se ejecuta en Java 21 o superior.
+ */
+@EnabledForJreRange(min = JRE.JAVA_21)
+class HilosVirtualesCargaTest {
+
+    private static final Logger log = LoggerFactory.getLogger(HilosVirtualesCargaTest.class);
+
+    private static final long RETARDO_PRODUCTOS_MS = 300;
+    private static final int HILOS_PLATAFORMA = 4;
+    private static final int PETICIONES = 64;
+
+    private static HttpServer servidorProductos;
+    private static final HttpClient clienteHttp = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    @BeforeAll
+    static void iniciarServidorProductos() throws IOException {
+        servidorProductos = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        servidorProductos.createContext("/api/productos", intercambio -> {
+            try {
+                Thread.sleep(RETARDO_PRODUCTOS_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            String id = intercambio.getRequestURI().getQuery().substring("ids=".length());
+            byte[] cuerpo = ("[{\"id\":" + id + ",\"nombre\":\"Producto " + id + "\",\"descripcion\":\"Desc\",\"precio\":10.0}]")
+                    .getBytes(StandardCharsets.UTF_8);
+            intercambio.getResponseHeaders().add("Content-Type", "application/json");
+            intercambio.sendResponseHeaders(200, cuerpo.length);
+            try (OutputStream salida = intercambio.getResponseBody()) {
+                salida.write(cuerpo);
+            }
+        });
+        servidorProductos.setExecutor(Executors.newCachedThreadPool());
+        servidorProductos.start();
+    }
+
+    @AfterAll
+    static void detenerServidorProductos() {
+        servidorProductos.stop(0);
+    }
+
+    @Test
+    @DisplayName("Con hilos virtuales la latencia total bajo carga no debe quedar acotada por el tamaño de los pools")
+    void givenServicioProductosLento_whenCargaConcurrente_thenVirtualThreadsOutperformPlatformThreads() throws Exception {
+        long plataformaMs = medir(false);
+        long virtualesMs = medir(true);
+
+        log.info("{} peticiones con servicio de productos a {} ms: hilos de plataforma {} ms, hilos virtuales {} ms",
+                PETICIONES, RETARDO_PRODUCTOS_MS, plataformaMs, virtualesMs);
+        assertTrue(plataformaMs >= (PETICIONES / HILOS_PLATAFORMA) * RETARDO_PRODUCTOS_MS / 2,
+                "con hilos de plataforma se esperaba una latencia acotada por el pool y fue de " + plataformaMs + " ms");
+        assertTrue(virtualesMs * 2 < plataformaMs,
+                "hilos virtuales: " + virtualesMs + " ms, hilos de plataforma: " + plataformaMs + " ms");
+    }
+
+    /**
+     * Arranca el servicio en el modo indicado y devuelve el tiempo que tarda en atender todas las peticiones concurrentes.
+     */
+    private long medir(boolean hilosVirtuales) throws Exception {
+        try (ConfigurableApplicationContext contexto = new SpringApplicationBuilder(InventarioApplication.class)
+                .profiles("test")
+                .run(
+                        "--server.port=0",
+                        "--spring.threads.virtual.enabled=" + hilosVirtuales,
+                        "--server.tomcat.threads.max=" + HILOS_PLATAFORMA,
+                        "--server.tomcat.threads.min-spare=" + HILOS_PLATAFORMA,
+                        "--productos.executor.hilos=" + HILOS_PLATAFORMA,
+                        "--producto-service.url=http://localhost:" + servidorProductos.getAddress().getPort(),
+                        // Una llamada remota por producto para que cada petición pague el retardo del servicio.
+                        "--productos.lote.tamano-maximo=1",
+                        // Se mide la capacidad de los hilos, no la de los límites de concurrencia.
+                        "--productos.bulkhead.max-concurrentes=" + PETICIONES,
+                        "--inventario.concurrencia.habilitado=false")) {
+            InventarioRepository repository = contexto.getBean(InventarioRepository.class);
+            LongStream.rangeClosed(1, 2L * PETICIONES).forEach(id -> repository.save(new Inventario(id, 10)));
+            int puerto = ((WebServerApplicationContext) contexto).getWebServer().getPort();
+
+            // Calentamiento con productos distintos de los de la medición, para que no se sirvan desde la caché.
+            lanzarRonda(puerto, PETICIONES + 1);
+
+            long inicio = System.nanoTime();
+            lanzarRonda(puerto, 1);
+            return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio);
+        }
+    }
+
+    /**
+     * Lanza {@link #PETICIONES} consultas concurrentes de productos consecutivos y espera a que terminen todas.
+     */
+    private static void lanzarRonda(int puerto, long primerProductoId) throws Exception {
+        List<CompletableFuture<HttpResponse<String>>> respuestas = new ArrayList<>();
+        for (long id = primerProductoId; id < primerProductoId + PETICIONES; id++) {
+            respuestas.add(consultar(puerto, id));
+        }
+        for (CompletableFuture<HttpResponse<String>> respuesta : respuestas) {
+            assertEquals(200, respuesta.get(30, TimeUnit.SECONDS).statusCode());
+        }
+    }
+
+    private static CompletableFuture<HttpResponse<String>> consultar(int puerto, long productoId) {
+        HttpRequest peticion = HttpRequest.newBuilder(URI.create("http://localhost:" + puerto + "/api/inventario/" + productoId))
+                .header("X-API-KEY", "inventario_secreta_54321")
+                .timeout(Duration.ofSeconds(30))
+                .build();
+        return clienteHttp.sendAsync(peticion, HttpResponse.BodyHandlers.ofString());
+    }
+}
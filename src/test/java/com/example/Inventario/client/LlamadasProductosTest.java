@@ -0,0 +1,192 @@
+package com.example.Inventario.client;
+
+import com.example.Inventario.exception.ProductosNoDisponiblesException;
+import feign.Request;
+import feign.RetryableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LlamadasProductosTest {
+
+    private ExecutorService executor;
+    private SimpleMeterRegistry meterRegistry;
+    private LlamadasProductos llamadasProductos;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newFixedThreadPool(2);
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void tearDown() {
+        llamadasProductos.cerrar();
+        executor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Debe reintentar los fallos reintentables hasta obtener respuesta")
+    void givenFallosReintentables_whenEjecutar_thenRetriesAndSucceeds() throws Exception {
+        llamadasProductos = new LlamadasProductos(executor, meterRegistry, 3, 50, 100, false, 0.95, Duration.ofMillis(20), 0.1);
+        AtomicInteger intentos = new AtomicInteger();
+
+        CompletableFuture<String> resultado = llamadasProductos.ejecutar(() -> {
+            if (intentos.incrementAndGet() < 3) {
+                throw fallo();
+            }
+            return "producto";
+        });
+
+        assertEquals("producto", resultado.get(5, TimeUnit.SECONDS));
+        assertEquals(3, intentos.get());
+        assertEquals(2.0, meterRegistry.get("productos.feign.reintentos").tag("resultado", "reintentado").counter().count());
+    }
+
+    @Test
+    @DisplayName("No debe reintentar los errores no reintentables ni superar el máximo de intentos")
+    void givenErrores_whenEjecutar_thenPropagatesWithoutExtraAttempts() {
+        llamadasProductos = new LlamadasProductos(executor, meterRegistry, 2, 1, 1, false, 0.95, Duration.ofMillis(20), 0.1);
+        AtomicInteger noReintentables = new AtomicInteger();
+        AtomicInteger reintentables = new AtomicInteger();
+
+        ExecutionException rechazo = assertThrows(ExecutionException.class, () -> llamadasProductos.ejecutar(() -> {
+            noReintentables.incrementAndGet();
+            throw new ProductosNoDisponiblesException("circuito abierto");
+        }).get(5, TimeUnit.SECONDS));
+        ExecutionException agotado = assertThrows(ExecutionException.class, () -> llamadasProductos.ejecutar(() -> {
+            reintentables.incrementAndGet();
+            throw fallo();
+        }).get(5, TimeUnit.SECONDS));
+
+        assertInstanceOf(ProductosNoDisponiblesException.class, rechazo.getCause());
+        assertEquals(1, noReintentables.get());
+        assertInstanceOf(RetryableException.class, agotado.getCause());
+        assertEquals(2, reintentables.get());
+        assertEquals(1.0, meterRegistry.get("productos.feign.reintentos").tag("resultado", "agotado").counter().count());
+    }
+
+    @Test
+    @DisplayName("Debe lanzar una cobertura cuando el primer intento se retrasa y quedarse con la primera respuesta")
+    void givenPrimerIntentoLento_whenEjecutar_thenHedgeWins() throws Exception {
+        llamadasProductos = new LlamadasProductos(executor, meterRegistry, 3, 1, 1, true, 0.95, Duration.ofMillis(20), 0.1);
+        CountDownLatch liberarPrimero = new CountDownLatch(1);
+        AtomicInteger intentos = new AtomicInteger();
+
+        CompletableFuture<String> resultado = llamadasProductos.ejecutar(() -> {
+            if (intentos.incrementAndGet() == 1) {
+                esperar(liberarPrimero);
+                return "lento";
+            }
+            return "cobertura";
+        });
+
+        try {
+            assertEquals("cobertura", resultado.get(5, TimeUnit.SECONDS));
+        } finally {
+            liberarPrimero.countDown();
+        }
+        assertEquals(2, intentos.get());
+        // El contador se incrementa después de completar el resultado, en el hilo de la cobertura.
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (meterRegistry.get("productos.coberturas").tag("resultado", "ganadora").counter().count() < 1
+                && System.nanoTime() < limite) {
+            Thread.onSpinWait();
+        }
+        assertEquals(1.0, meterRegistry.get("productos.coberturas").tag("resultado", "ganadora").counter().count());
+    }
+
+    @Test
+    @DisplayName("Con el ejecutor lleno, el reintento debe fallar al momento sin ejecutarse en el temporizador")
+    void givenEjecutorLleno_whenReintentar_thenFailsWithoutRunningOnTimer() {
+        AtomicBoolean lleno = new AtomicBoolean();
+        llamadasProductos = new LlamadasProductos(saturable(lleno), meterRegistry, 3, 1, 1, false, 0.95, Duration.ofMillis(20), 0.1);
+        List<String> hilos = new CopyOnWriteArrayList<>();
+
+        ExecutionException error = assertThrows(ExecutionException.class, () -> llamadasProductos.ejecutar(() -> {
+            hilos.add(Thread.currentThread().getName());
+            lleno.set(true);
+            throw fallo();
+        }).get(5, TimeUnit.SECONDS));
+
+        assertInstanceOf(ProductosNoDisponiblesException.class, error.getCause());
+        assertEquals(1, hilos.size());
+        assertFalse(hilos.get(0).startsWith("productos-llamadas-temporizador"));
+        assertEquals(1.0, meterRegistry.get("productos.llamadas.rechazadas").counter().count());
+    }
+
+    @Test
+    @DisplayName("Con el ejecutor lleno, la cobertura debe descartarse sin retrasar al primer intento")
+    void givenEjecutorLleno_whenCubrir_thenHedgeRejectedAndFirstAttemptWins() throws Exception {
+        AtomicBoolean lleno = new AtomicBoolean();
+        llamadasProductos = new LlamadasProductos(saturable(lleno), meterRegistry, 3, 1, 1, true, 0.95, Duration.ofMillis(20), 0.1);
+        CountDownLatch liberarPrimero = new CountDownLatch(1);
+        AtomicInteger intentos = new AtomicInteger();
+
+        CompletableFuture<String> resultado = llamadasProductos.ejecutar(() -> {
+            intentos.incrementAndGet();
+            lleno.set(true);
+            esperar(liberarPrimero);
+            return "lento";
+        });
+
+        try {
+            long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (meterRegistry.get("productos.llamadas.rechazadas").counter().count() < 1 && System.nanoTime() < limite) {
+                Thread.onSpinWait();
+            }
+            assertEquals(1.0, meterRegistry.get("productos.llamadas.rechazadas").counter().count());
+            assertFalse(resultado.isDone());
+        } finally {
+            liberarPrimero.countDown();
+        }
+        assertEquals("lento", resultado.get(5, TimeUnit.SECONDS));
+        assertEquals(1, intentos.get());
+        assertEquals(0.0, meterRegistry.get("productos.coberturas").tag("resultado", "lanzada").counter().count());
+    }
+
+    /**
+     * Ejecutor que rechaza las tareas, como un pool saturado, mientras {@code lleno} está activo.
+     */
+    private Executor saturable(AtomicBoolean lleno) {
+        return tarea -> {
+            if (lleno.get()) {
+                throw new RejectedExecutionException("pool lleno");
+            }
+            executor.execute(tarea);
+        };
+    }
+
+    private static RetryableException fallo() {
+        return new RetryableException(-1, "conexión rechazada", Request.HttpMethod.GET, (Long) null,
+                Request.create(Request.HttpMethod.GET, "http://productos/1", Map.of(), null, StandardCharsets.UTF_8, null));
+    }
+
+    private static void esperar(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
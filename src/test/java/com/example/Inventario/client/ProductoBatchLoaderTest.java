@@ -0,0 +1,228 @@
+package com.example.Inventario.client;
+
+import com.example.Inventario.dto.ProductoDto;
+import com.example.Inventario.exception.ProductosNoDisponiblesException;
+import com.sun.net.httpserver.HttpServer;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Ejercita el agrupador de consultas contra un servidor HTTP local que simula el servicio de productos.
+ * El servidor solo conoce los productos con ID par.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles("test")
+class ProductoBatchLoaderTest {
+
+    private static final HttpServer servidorProductos;
+    private static final AtomicInteger llamadasMasivas = new AtomicInteger();
+    private static final AtomicInteger llamadasIndividuales = new AtomicInteger();
+    private static final List<String> apiKeysRecibidas = new ArrayList<>();
+    private static final Set<Integer> puertosClientes = ConcurrentHashMap.newKeySet();
+
+    static {
+        try {
+            servidorProductos = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        servidorProductos.createContext("/api/productos", intercambio -> {
+            puertosClientes.add(intercambio.getRemoteAddress().getPort());
+            synchronized (apiKeysRecibidas) {
+                apiKeysRecibidas.add(intercambio.getRequestHeaders().getFirst("X-API-KEY"));
+            }
+            String consulta = intercambio.getRequestURI().getQuery();
+            if (consulta == null || !consulta.startsWith("ids=")) {
+                llamadasIndividuales.incrementAndGet();
+                intercambio.sendResponseHeaders(404, -1);
+                intercambio.close();
+                return;
+            }
+            llamadasMasivas.incrementAndGet();
+            StringJoiner productos = new StringJoiner(",", "[", "]");
+            for (String id : consulta.substring("ids=".length()).split("%2C|,")) {
+                if (Long.parseLong(id) % 2 == 0) {
+                    productos.add("{\"id\":" + id + ",\"nombre\":\"Producto " + id + "\",\"descripcion\":\"Desc\",\"precio\":10.0}");
+                }
+            }
+            byte[] cuerpo = productos.toString().getBytes(StandardCharsets.UTF_8);
+            intercambio.getResponseHeaders().add("Content-Type", "application/json");
+            intercambio.sendResponseHeaders(200, cuerpo.length);
+            try (OutputStream salida = intercambio.getResponseBody()) {
+                salida.write(cuerpo);
+            }
+        });
+        servidorProductos.setExecutor(Executors.newFixedThreadPool(8));
+        servidorProductos.start();
+    }
+
+    @DynamicPropertySource
+    static void configurarServicioProductos(DynamicPropertyRegistry registry) {
+        registry.add("producto-service.url", () -> "http://localhost:" + servidorProductos.getAddress().getPort());
+        registry.add("productos.lote.ventana", () -> "50ms");
+        registry.add("productos.lote.tamano-maximo", () -> "50");
+    }
+
+    @AfterAll
+    static void detenerServidor() {
+        servidorProductos.stop(0);
+    }
+
+    @Autowired
+    private ProductoCache productoCache;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ProductoFeignClient productoFeignClient;
+
+    @Autowired
+    private ProteccionProductos proteccionProductos;
+
+    @BeforeEach
+    void setUp() {
+        llamadasMasivas.set(0);
+        llamadasIndividuales.set(0);
+        puertosClientes.clear();
+    }
+
+    @Test
+    @DisplayName("Debe agrupar cientos de consultas concurrentes en unas pocas llamadas masivas")
+    void givenConsultasConcurrentes_whenGetProductoById_thenFewBulkCalls() throws Exception {
+        int consultas = 200;
+        CountDownLatch salida = new CountDownLatch(1);
+        ExecutorService clientes = Executors.newFixedThreadPool(consultas);
+        try {
+            List<Future<Optional<ProductoDto>>> resultados = new ArrayList<>();
+            for (long id = 1; id <= consultas; id++) {
+                long productoId = id;
+                resultados.add(clientes.submit(() -> {
+                    salida.await();
+                    return productoCache.getProductoById(productoId);
+                }));
+            }
+            salida.countDown();
+
+            for (int i = 0; i < consultas; i++) {
+                Optional<ProductoDto> producto = resultados.get(i).get(10, TimeUnit.SECONDS);
+                long productoId = i + 1;
+                assertEquals(productoId % 2 == 0, producto.isPresent(), "producto " + productoId);
+                producto.ifPresent(p -> assertEquals("Producto " + productoId, p.getNombre()));
+            }
+        } finally {
+            clientes.shutdownNow();
+        }
+
+        assertEquals(0, llamadasIndividuales.get());
+        assertTrue(llamadasMasivas.get() <= consultas / 10,
+                "se esperaban como mucho " + consultas / 10 + " llamadas masivas y hubo " + llamadasMasivas.get());
+        assertTrue(apiKeysRecibidas.stream().allMatch("productos_secreta_12345"::equals));
+    }
+
+    @Test
+    @DisplayName("Debe resolver una consulta masiva repartiéndola en lotes del tamaño máximo")
+    void givenMasIdsQueElTamanoMaximo_whenGetProductosByIds_thenSplitIntoBatches() {
+        List<Long> ids = LongStream.rangeClosed(1001, 1120).boxed().collect(Collectors.toList());
+
+        Map<Long, ProductoDto> productos = productoCache.getProductosByIds(ids);
+
+        assertEquals(60, productos.size());
+        assertEquals(3, llamadasMasivas.get());
+    }
+
+    @Test
+    @DisplayName("Debe reutilizar la misma conexión del pool en llamadas consecutivas y medir la espera")
+    void givenLlamadasConsecutivas_whenGetProductosByIds_thenConnectionReused() {
+        for (long id = 2002; id <= 2020; id += 2) {
+            assertEquals(1, productoCache.getProductosByIds(List.of(id)).size());
+        }
+
+        assertEquals(10, llamadasMasivas.get());
+        assertEquals(1, puertosClientes.size(), "se abrieron conexiones desde los puertos " + puertosClientes);
+        assertTrue(meterRegistry.get("http.client.conexiones.espera").tag("resultado", "obtenida").timer().count() >= 10);
+        assertEquals(200.0, meterRegistry.get("httpcomponents.httpclient.pool.total.max").gauge().value());
+    }
+
+    @Test
+    @DisplayName("Con el ejecutor de productos lleno, cada ventana debe fallar sus consultas sin hacer la llamada en el temporizador")
+    void givenEjecutorLleno_whenCargar_thenPendingFailAndNextWindowsStillDispatch() {
+        SimpleMeterRegistry registro = new SimpleMeterRegistry();
+        LlamadasProductos llamadas = new LlamadasProductos(tarea -> {
+            throw new RejectedExecutionException("pool lleno");
+        }, registro, 3, 1, 1, false, 0.95, Duration.ofMillis(20), 0.1);
+        ProductoBatchLoader loader = new ProductoBatchLoader(productoFeignClient, proteccionProductos, llamadas, registro,
+                50, Duration.ofMillis(5), true);
+        try {
+            for (long id = 3002; id <= 3006; id += 2) {
+                CompletableFuture<ProductoDto> carga = loader.cargar(id);
+                ExecutionException error = assertThrows(ExecutionException.class, () -> carga.get(5, TimeUnit.SECONDS));
+                assertInstanceOf(ProductosNoDisponiblesException.class, error.getCause());
+            }
+        } finally {
+            loader.cerrar();
+            llamadas.cerrar();
+        }
+
+        assertEquals(0, llamadasMasivas.get());
+        assertEquals(3.0, registro.get("productos.llamadas.rechazadas").counter().count());
+    }
+
+    @Test
+    @DisplayName("Un 404 del servicio de productos debe tratarse como producto inexistente sin abrir el circuito")
+    void givenProductosInexistentes_whenCargarUnoAUno_thenCircuitStaysClosed() {
+        SimpleMeterRegistry registro = new SimpleMeterRegistry();
+        ProteccionProductos proteccion = new ProteccionProductos(registro,
+                50, 100, Duration.ofSeconds(5), 4, 4, Duration.ofMinutes(1), 1, 10, Duration.ZERO);
+        LlamadasProductos llamadas = new LlamadasProductos(Runnable::run, registro, 1, 1, 1, false, 0.95, Duration.ofMillis(20), 0.1);
+        ProductoBatchLoader loader = new ProductoBatchLoader(productoFeignClient, proteccion, llamadas, registro,
+                50, Duration.ofMillis(5), false);
+        try {
+            Map<Long, ProductoDto> productos = loader.cargarTodos(LongStream.rangeClosed(4001, 4008).boxed().toList()).join();
+
+            assertTrue(productos.isEmpty());
+        } finally {
+            loader.cerrar();
+            llamadas.cerrar();
+        }
+
+        assertEquals(8, llamadasIndividuales.get());
+        assertEquals(CircuitBreaker.State.CLOSED, proteccion.estado());
+    }
+}
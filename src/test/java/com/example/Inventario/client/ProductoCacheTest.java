@@ -0,0 +1,200 @@
+package com.example.Inventario.client;
+
+import com.example.Inventario.dto.ProductoDto;
+import com.example.Inventario.exception.ProductosNoDisponiblesException;
+import feign.FeignException;
+import feign.Request;
+import feign.Response;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProductoCacheTest {
+
+    @Mock
+    private ProductoFeignClient productoFeignClient;
+
+    private ExecutorService executor;
+    private SimpleMeterRegistry meterRegistry;
+    private ProductoCache productoCache;
+    private ProductoDto productoDto;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newFixedThreadPool(4);
+        meterRegistry = new SimpleMeterRegistry();
+        ProteccionProductos proteccionProductos = new ProteccionProductos(meterRegistry,
+                50, 100, Duration.ofSeconds(5), 10, 10, Duration.ofMinutes(1), 1, 10, Duration.ZERO);
+        LlamadasProductos llamadasProductos = new LlamadasProductos(executor, meterRegistry,
+                1, 1, 1, false, 0.95, Duration.ofMillis(20), 0.1);
+        ProductoBatchLoader productoBatchLoader = new ProductoBatchLoader(productoFeignClient, proteccionProductos,
+                llamadasProductos, meterRegistry, 100, Duration.ofMillis(5), true);
+        productoCache = new ProductoCache(productoBatchLoader, executor, meterRegistry,
+                100, Duration.ofMinutes(10), Duration.ofMinutes(5), 1000, Duration.ofHours(1), false);
+
+        productoDto = new ProductoDto();
+        productoDto.setId(1L);
+        productoDto.setNombre("Producto de prueba");
+        productoDto.setPrecio(100.0);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Debe consultar el servicio remoto una sola vez y servir las siguientes consultas desde caché")
+    void givenProductoEnCache_whenGetProductoById_thenNoRemoteCall() {
+        when(productoFeignClient.getProductosByIds(List.of(1L))).thenReturn(List.of(productoDto));
+
+        assertEquals(Optional.of(productoDto), productoCache.getProductoById(1L));
+        assertEquals(Optional.of(productoDto), productoCache.getProductoById(1L));
+
+        verify(productoFeignClient, times(1)).getProductosByIds(List.of(1L));
+        assertEquals(1, productoCache.estadisticas().hitCount());
+        assertEquals(1, productoCache.estadisticas().missCount());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("result", "hit").functionCounter().count());
+    }
+
+    @Test
+    @DisplayName("Debe agrupar las consultas concurrentes de un mismo producto en una única llamada remota")
+    void givenConsultasConcurrentes_whenGetProductoById_thenSingleRemoteCall() throws Exception {
+        CountDownLatch liberarRespuesta = new CountDownLatch(1);
+        when(productoFeignClient.getProductosByIds(List.of(1L))).thenAnswer(invocation -> {
+            liberarRespuesta.await(5, TimeUnit.SECONDS);
+            return List.of(productoDto);
+        });
+
+        ExecutorService clientes = Executors.newFixedThreadPool(20);
+        try {
+            List<Future<Optional<ProductoDto>>> resultados = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                resultados.add(clientes.submit(() -> productoCache.getProductoById(1L)));
+            }
+            Thread.sleep(100);
+            liberarRespuesta.countDown();
+
+            for (Future<Optional<ProductoDto>> resultado : resultados) {
+                assertEquals(Optional.of(productoDto), resultado.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            clientes.shutdownNow();
+        }
+
+        verify(productoFeignClient, times(1)).getProductosByIds(List.of(1L));
+    }
+
+    @Test
+    @DisplayName("Debe devolver vacío y no cachear cuando el servicio remoto no conoce el producto")
+    void givenProductoInexistente_whenGetProductoById_thenEmptyAndNotCached() {
+        when(productoFeignClient.getProductosByIds(List.of(2L))).thenReturn(List.of());
+
+        assertTrue(productoCache.getProductoById(2L).isEmpty());
+        assertTrue(productoCache.getProductoById(2L).isEmpty());
+
+        verify(productoFeignClient, times(2)).getProductosByIds(List.of(2L));
+    }
+
+    @Test
+    @DisplayName("Debe cargar en una sola llamada masiva los productos que faltan en caché")
+    void givenVariosProductos_whenGetProductosByIds_thenSingleBulkCall() {
+        ProductoDto otroProducto = new ProductoDto(2L, "Otro producto", "Otra descripción", 50.0);
+        when(productoFeignClient.getProductosByIds(anyCollection())).thenReturn(List.of(productoDto, otroProducto));
+
+        Map<Long, ProductoDto> productos = productoCache.getProductosByIds(List.of(1L, 2L, 3L));
+
+        assertEquals(Map.of(1L, productoDto, 2L, otroProducto), productos);
+        verify(productoFeignClient, times(1)).getProductosByIds(anyCollection());
+        verify(productoFeignClient, never()).getProductoById(anyLong());
+    }
+
+    @Test
+    @DisplayName("Debe propagar los errores inesperados del servicio remoto")
+    void givenErrorRemoto_whenGetProductoById_thenPropagateException() {
+        when(productoFeignClient.getProductosByIds(List.of(3L))).thenThrow(new IllegalStateException("servicio caído"));
+
+        IllegalStateException thrown = assertThrows(IllegalStateException.class, () -> productoCache.getProductoById(3L));
+        assertEquals("servicio caído", thrown.getMessage());
+    }
+
+    @Test
+    @DisplayName("Debe servir la última copia conocida, marcada como desactualizada, si el servicio remoto no está disponible")
+    void givenProductoConocidoYErrorRemoto_whenGetProductoById_thenStaleCopy() {
+        when(productoFeignClient.getProductosByIds(List.of(1L)))
+                .thenReturn(List.of(productoDto))
+                .thenThrow(errorHttp(503));
+        productoCache.getProductoById(1L);
+        productoCache.invalidar(1L);
+
+        ProductoDto producto = productoCache.getProductoById(1L).orElseThrow();
+
+        assertTrue(producto.isDesactualizado());
+        assertEquals("Producto de prueba", producto.getNombre());
+        assertFalse(productoDto.isDesactualizado());
+        assertEquals(1.0, meterRegistry.get("productos.respaldo.servidos").counter().count());
+        assertThrows(ProductosNoDisponiblesException.class, () -> productoCache.comprobarParaCompra(producto));
+    }
+
+    @Test
+    @DisplayName("Debe completar una consulta masiva con las copias conocidas de los productos que no están en caché")
+    void givenErrorRemoto_whenGetProductosByIds_thenCachedAndStaleProducts() {
+        ProductoDto otroProducto = new ProductoDto(2L, "Otro producto", "Otra descripción", 50.0);
+        when(productoFeignClient.getProductosByIds(anyCollection()))
+                .thenReturn(List.of(productoDto, otroProducto))
+                .thenThrow(errorHttp(503));
+        productoCache.getProductosByIds(List.of(1L, 2L));
+        productoCache.invalidar(2L);
+
+        Map<Long, ProductoDto> productos = productoCache.getProductosByIds(List.of(1L, 2L));
+
+        assertFalse(productos.get(1L).isDesactualizado());
+        assertTrue(productos.get(2L).isDesactualizado());
+        assertThrows(FeignException.ServiceUnavailable.class, () -> productoCache.getProductosByIds(List.of(1L, 3L)));
+    }
+
+    @Test
+    @DisplayName("Debe propagar un error 4xx del servicio remoto aunque haya una copia conocida del producto")
+    void givenProductoConocidoYError4xx_whenGetProductoById_thenPropagateException() {
+        when(productoFeignClient.getProductosByIds(List.of(1L)))
+                .thenReturn(List.of(productoDto))
+                .thenThrow(errorHttp(401));
+        productoCache.getProductoById(1L);
+        productoCache.invalidar(1L);
+
+        assertThrows(FeignException.Unauthorized.class, () -> productoCache.getProductoById(1L));
+        assertEquals(0.0, meterRegistry.get("productos.respaldo.servidos").counter().count());
+    }
+
+    private static FeignException errorHttp(int estado) {
+        Request request = Request.create(Request.HttpMethod.GET, "/api/productos", Map.of(), null, StandardCharsets.UTF_8, null);
+        return FeignException.errorStatus("ProductoFeignClient#getProductosByIds", Response.builder()
+                .status(estado)
+                .request(request)
+                .headers(Map.of())
+                .build());
+    }
+}
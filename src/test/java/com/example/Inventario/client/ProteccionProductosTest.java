@@ -0,0 +1,85 @@
+package com.example.Inventario.client;
+
+import com.example.Inventario.exception.ProductoNotFoundException;
+import com.example.Inventario.exception.ProductosNoDisponiblesException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProteccionProductosTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private ProteccionProductos proteccionProductos;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        proteccionProductos = new ProteccionProductos(meterRegistry,
+                50, 100, Duration.ofSeconds(5), 4, 4, Duration.ofMinutes(1), 1, 1, Duration.ZERO);
+    }
+
+    @Test
+    @DisplayName("Debe abrir el circuito tras los fallos y rechazar las llamadas siguientes sin ejecutarlas")
+    void givenFallosRemotos_whenEjecutar_thenCircuitOpensAndFailsFast() {
+        for (int i = 0; i < 4; i++) {
+            assertThrows(IllegalStateException.class, () -> proteccionProductos.ejecutar(() -> {
+                throw new IllegalStateException("servicio caído");
+            }));
+        }
+        assertEquals(CircuitBreaker.State.OPEN, proteccionProductos.estado());
+
+        AtomicInteger llamadas = new AtomicInteger();
+        assertThrows(ProductosNoDisponiblesException.class, () -> proteccionProductos.ejecutar(llamadas::incrementAndGet));
+
+        assertEquals(0, llamadas.get());
+        assertEquals(1.0, meterRegistry.get("productos.proteccion.rechazadas").tag("motivo", "circuito-abierto").counter().count());
+        assertEquals(1.0, meterRegistry.get("productos.circuito.transiciones").tag("hacia", "open").counter().count());
+    }
+
+    @Test
+    @DisplayName("No debe contar como fallo que el servicio remoto no conozca un producto")
+    void givenProductoInexistente_whenEjecutar_thenCircuitStaysClosed() {
+        for (int i = 0; i < 8; i++) {
+            assertThrows(ProductoNotFoundException.class, () -> proteccionProductos.ejecutar(() -> {
+                throw new ProductoNotFoundException("no existe");
+            }));
+        }
+
+        assertEquals(CircuitBreaker.State.CLOSED, proteccionProductos.estado());
+    }
+
+    @Test
+    @DisplayName("Debe rechazar las llamadas que superan el límite de concurrencia")
+    void givenLimiteConcurrenciaAlcanzado_whenEjecutar_thenRejected() throws Exception {
+        CountDownLatch enCurso = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+        Thread ocupante = new Thread(() -> proteccionProductos.ejecutar(() -> {
+            enCurso.countDown();
+            try {
+                return liberar.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        }));
+        ocupante.start();
+        try {
+            assertTrue(enCurso.await(5, TimeUnit.SECONDS));
+
+            assertThrows(ProductosNoDisponiblesException.class, () -> proteccionProductos.ejecutar(() -> true));
+            assertEquals(1.0, meterRegistry.get("productos.proteccion.rechazadas").tag("motivo", "concurrencia").counter().count());
+        } finally {
+            liberar.countDown();
+            ocupante.join();
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, proteccionProductos.estado());
+    }
+}
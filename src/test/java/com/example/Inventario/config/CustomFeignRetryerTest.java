@@ -0,0 +1,35 @@
+package com.example.Inventario.config;
+
+import feign.Request;
+import feign.RetryableException;
+import feign.Retryer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CustomFeignRetryerTest {
+
+    @Test
+    @DisplayName("Debe contar cada reintento y la llamada que agota los intentos, compartiendo contadores entre copias")
+    void givenFallosRepetidos_whenContinueOrPropagate_thenCuentaReintentosYAgotados() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        Retryer plantilla = new CustomFeignRetryer(3, 1, 1, meterRegistry);
+        RetryableException fallo = new RetryableException(503, "no disponible", Request.HttpMethod.GET, (Long) null,
+                Request.create(Request.HttpMethod.GET, "http://productos/1", Map.of(), null, StandardCharsets.UTF_8, null));
+
+        for (int llamada = 0; llamada < 2; llamada++) {
+            Retryer retryer = plantilla.clone();
+            retryer.continueOrPropagate(fallo);
+            retryer.continueOrPropagate(fallo);
+            assertThrows(RetryableException.class, () -> retryer.continueOrPropagate(fallo));
+        }
+
+        assertEquals(4, meterRegistry.get("productos.feign.reintentos").tag("resultado", "reintentado").counter().count());
+        assertEquals(2, meterRegistry.get("productos.feign.reintentos").tag("resultado", "agotado").counter().count());
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.Inventario.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LimiteConcurrenciaAdaptativoTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    @DisplayName("Debe rechazar antes las lecturas que las escrituras al llenarse el límite")
+    void givenLimiteLleno_whenAdquirir_thenReadsShedBeforeWrites() {
+        LimiteConcurrenciaAdaptativo limite = new LimiteConcurrenciaAdaptativo(meterRegistry, true, 10, 10, 10, 0.2, 1.5, 0.2);
+
+        for (int i = 0; i < 8; i++) {
+            assertTrue(limite.adquirir(false) >= 0);
+        }
+        assertEquals(-1, limite.adquirir(false));
+        assertTrue(limite.adquirir(true) >= 0);
+        assertTrue(limite.adquirir(true) >= 0);
+        assertEquals(-1, limite.adquirir(true));
+
+        assertEquals(1.0, meterRegistry.get("inventario.concurrencia.rechazadas").tag("prioridad", "lectura").counter().count());
+        assertEquals(1.0, meterRegistry.get("inventario.concurrencia.rechazadas").tag("prioridad", "escritura").counter().count());
+        assertEquals(10.0, meterRegistry.get("inventario.concurrencia.en.curso").gauge().value());
+    }
+
+    @Test
+    @DisplayName("Debe subir el límite con latencia estable y bajarlo cuando la latencia se dispara")
+    void givenLatencia_whenLiberar_thenLimitFollowsLatency() {
+        LimiteConcurrenciaAdaptativo limite = new LimiteConcurrenciaAdaptativo(meterRegistry, true, 20, 4, 200, 0.2, 1.5, 0.2);
+
+        muestras(limite, 200, TimeUnit.MILLISECONDS.toNanos(10));
+        int limiteEstable = limite.getLimite();
+        muestras(limite, 50, TimeUnit.MILLISECONDS.toNanos(200));
+
+        assertTrue(limiteEstable > 20, "el límite debía crecer y es " + limiteEstable);
+        assertTrue(limite.getLimite() < limiteEstable / 2,
+                "el límite debía bajar de " + limiteEstable + " y es " + limite.getLimite());
+    }
+
+    @Test
+    @DisplayName("Debe responder 503 con Retry-After sin llegar al controlador y no limitar las exportaciones")
+    void givenLimiteAgotado_whenFiltrar_thenServiceUnavailable() throws Exception {
+        LimiteConcurrenciaAdaptativo limite = new LimiteConcurrenciaAdaptativo(meterRegistry, true, 1, 1, 1, 0.0, 1.5, 0.2);
+        LimiteConcurrenciaFilter filtro = new LimiteConcurrenciaFilter(limite, Duration.ofSeconds(2));
+        limite.adquirir(true);
+        AtomicInteger atendidas = new AtomicInteger();
+
+        MockHttpServletResponse rechazada = new MockHttpServletResponse();
+        filtro.doFilter(new MockHttpServletRequest("POST", "/api/inventario/comprar"), rechazada, contar(atendidas));
+        MockHttpServletResponse exportacion = new MockHttpServletResponse();
+        filtro.doFilter(new MockHttpServletRequest("GET", "/api/inventario/exportar"), exportacion, contar(atendidas));
+
+        assertEquals(503, rechazada.getStatus());
+        assertEquals("2", rechazada.getHeader("Retry-After"));
+        assertEquals(200, exportacion.getStatus());
+        assertEquals(1, atendidas.get());
+    }
+
+    private static void muestras(LimiteConcurrenciaAdaptativo limite, int numero, long latenciaNanos) {
+        for (int i = 0; i < numero; i++) {
+            // Se simula un servicio cargado: cada petición entra con el límite casi lleno.
+            limite.adquirir(true);
+            limite.liberar(latenciaNanos, limite.getLimite() - 1);
+        }
+    }
+
+    private static MockFilterChain contar(AtomicInteger atendidas) {
+        return new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest req, HttpServletResponse resp) {
+                atendidas.incrementAndGet();
+            }
+        });
+    }
+}
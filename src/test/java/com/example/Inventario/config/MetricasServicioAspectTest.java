@@ -0,0 +1,100 @@
+package com.example.Inventario.config;
+
+import com.example.Inventario.client.ProductoCache;
+import com.example.Inventario.dto.CompraRequest;
+import com.example.Inventario.dto.ProductoDto;
+import com.example.Inventario.exception.ProductoNotFoundException;
+import com.example.Inventario.exception.StockNotAvailableException;
+import com.example.Inventario.model.Inventario;
+import com.example.Inventario.repository.InventarioRepository;
+import com.example.Inventario.service.InventarioService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Verifica las métricas de InventarioService y su publicación en el endpoint de Prometheus.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+@ActiveProfiles("test")
+class MetricasServicioAspectTest {
+
+    @Autowired
+    private InventarioService inventarioService;
+
+    @Autowired
+    private InventarioRepository inventarioRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private ProductoCache productoCache;
+
+    @BeforeEach
+    void setUp() {
+        inventarioRepository.deleteAll();
+        inventarioRepository.save(new Inventario(1L, 5));
+        when(productoCache.getProductoById(1L)).thenReturn(Optional.of(new ProductoDto(1L, "Producto", "Desc", 10.0)));
+        when(productoCache.getProductoById(2L)).thenReturn(Optional.empty());
+    }
+
+    @Test
+    @DisplayName("Debe contar las compras por resultado y medir la latencia del método con su resultado")
+    void givenComprasConDistintoResultado_whenRealizarCompra_thenCuentaCadaResultado() {
+        double exito = compras("exito");
+        double sinStock = compras("sin-stock");
+        double noEncontrado = compras("no-encontrado");
+        long llamadasConError = meterRegistry.get("inventario.servicio")
+                .tags("metodo", "realizarCompra", "resultado", "error").timer().count();
+
+        inventarioService.realizarCompra(new CompraRequest(1L, 2), null, null);
+        assertThrows(StockNotAvailableException.class, () -> inventarioService.realizarCompra(new CompraRequest(1L, 50), null, null));
+        assertThrows(ProductoNotFoundException.class, () -> inventarioService.realizarCompra(new CompraRequest(2L, 1), null, null));
+
+        assertEquals(exito + 1, compras("exito"));
+        assertEquals(sinStock + 1, compras("sin-stock"));
+        assertEquals(noEncontrado + 1, compras("no-encontrado"));
+        assertEquals(llamadasConError + 2, meterRegistry.get("inventario.servicio")
+                .tags("metodo", "realizarCompra", "resultado", "error").timer().count());
+    }
+
+    @Test
+    @DisplayName("El endpoint de Prometheus debe publicar las métricas con histogramas y requerir la API Key")
+    void givenApiKey_whenScrapePrometheus_thenPublicaLasMetricas() throws Exception {
+        inventarioService.realizarCompra(new CompraRequest(1L, 1), null, null);
+
+        mockMvc.perform(get("/actuator/prometheus").header("X-API-KEY", "inventario_secreta_54321"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(org.hamcrest.Matchers.containsString("inventario_compras_total{")))
+                .andExpect(content().string(org.hamcrest.Matchers.containsString("inventario_servicio_seconds_bucket{")))
+                .andExpect(content().string(org.hamcrest.Matchers.containsString("hikaricp_connections_pending")));
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isUnauthorized());
+    }
+
+    private double compras(String resultado) {
+        return meterRegistry.get("inventario.compras").tag("resultado", resultado).counter().count();
+    }
+}
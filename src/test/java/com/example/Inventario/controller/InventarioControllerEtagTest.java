@@ -0,0 +1,150 @@
+package com.example.Inventario.controller;
+
+import com.example.Inventario.client.ProductoCache;
+import com.example.Inventario.dto.ProductoDto;
+import com.example.Inventario.model.Inventario;
+import com.example.Inventario.repository.InventarioRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Verifica las peticiones condicionales sobre el inventario: ETag y 304 en las lecturas, If-Match en las escrituras.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class InventarioControllerEtagTest {
+
+    private static final String API_KEY = "inventario_secreta_54321";
+    private static final long PRODUCTO_ID = 501L;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private InventarioRepository inventarioRepository;
+
+    @MockBean
+    private ProductoCache productoCache;
+
+    @BeforeEach
+    void setUp() {
+        inventarioRepository.deleteById(PRODUCTO_ID);
+        inventarioRepository.save(new Inventario(PRODUCTO_ID, 10));
+        Optional<ProductoDto> producto = Optional.of(new ProductoDto(PRODUCTO_ID, "Producto de prueba", "Descripción de prueba", 100.0));
+        when(productoCache.getProductoByIdAsync(anyLong())).thenReturn(CompletableFuture.completedFuture(producto));
+        when(productoCache.getProductoById(anyLong())).thenReturn(producto);
+    }
+
+    @Test
+    @DisplayName("Debe responder 304 sin consultar el servicio de productos si la ETag no ha cambiado")
+    void givenEtagVigente_whenGetInventario_thenNotModifiedWithoutProductLookup() throws Exception {
+        String etag = mockMvc.perform(get("/api/inventario/{id}", PRODUCTO_ID).header("X-API-KEY", API_KEY))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.cantidadDisponible").value(10))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(etag);
+        assertTrue(etag.startsWith("W/"), "la ETag de la consulta debe ser débil y fue " + etag);
+
+        mockMvc.perform(get("/api/inventario/{id}", PRODUCTO_ID).header("X-API-KEY", API_KEY)
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag));
+
+        verify(productoCache, times(1)).getProductoByIdAsync(PRODUCTO_ID);
+    }
+
+    @Test
+    @DisplayName("Debe cambiar la ETag cuando una compra o una importación modifican el inventario")
+    void givenActualizacionesMasivas_whenGetInventario_thenEtagChanges() throws Exception {
+        long version = inventarioRepository.findVersionByProductoId(PRODUCTO_ID).orElseThrow();
+
+        mockMvc.perform(post("/api/inventario/comprar").header("X-API-KEY", API_KEY)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"productoId\": " + PRODUCTO_ID + ", \"cantidad\": 2}"))
+                .andExpect(status().isOk());
+        assertEquals(version + 1, inventarioRepository.findVersionByProductoId(PRODUCTO_ID).orElseThrow());
+
+        inventarioRepository.establecerCantidadesLote(new TreeMap<>(Map.of(PRODUCTO_ID, 30)));
+        assertEquals(version + 2, inventarioRepository.findVersionByProductoId(PRODUCTO_ID).orElseThrow());
+
+        mockMvc.perform(get("/api/inventario/{id}", PRODUCTO_ID).header("X-API-KEY", API_KEY)
+                        .header(HttpHeaders.IF_NONE_MATCH, CondicionesEtag.etag(version)))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, CondicionesEtag.etagDebil(version + 2)))
+                .andExpect(jsonPath("$.cantidadDisponible").value(30));
+    }
+
+    @Test
+    @DisplayName("Debe aplicar la actualización con la ETag vigente y responder 412 con una ETag obsoleta")
+    void givenIfMatch_whenUpdateCantidad_thenOptimisticConcurrency() throws Exception {
+        String etag = CondicionesEtag.etag(inventarioRepository.findVersionByProductoId(PRODUCTO_ID).orElseThrow());
+
+        String nuevaEtag = mockMvc.perform(put("/api/inventario/{id}/cantidad", PRODUCTO_ID).header("X-API-KEY", API_KEY)
+                        .param("cantidad", "25")
+                        .header(HttpHeaders.IF_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.cantidad").value(25))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotEquals(etag, nuevaEtag);
+
+        mockMvc.perform(put("/api/inventario/{id}/cantidad", PRODUCTO_ID).header("X-API-KEY", API_KEY)
+                        .param("cantidad", "40")
+                        .header(HttpHeaders.IF_MATCH, etag))
+                .andExpect(status().isPreconditionFailed());
+
+        assertEquals(25, inventarioRepository.findCantidadByProductoId(PRODUCTO_ID).orElseThrow());
+        assertEquals(nuevaEtag, CondicionesEtag.etag(inventarioRepository.findVersionByProductoId(PRODUCTO_ID).orElseThrow()));
+    }
+
+    @Test
+    @DisplayName("La ETag débil de una consulta debe servir como If-Match para actualizar la cantidad")
+    void givenEtagDeConsulta_whenUpdateCantidadConIfMatch_thenActualiza() throws Exception {
+        String etag = mockMvc.perform(get("/api/inventario/{id}", PRODUCTO_ID).header("X-API-KEY", API_KEY))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(put("/api/inventario/{id}/cantidad", PRODUCTO_ID).header("X-API-KEY", API_KEY)
+                        .param("cantidad", "12")
+                        .header(HttpHeaders.IF_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.cantidad").value(12));
+    }
+
+    @Test
+    @DisplayName("No debe emitir ETag cuando los datos del producto son una copia desactualizada")
+    void givenProductoDesactualizado_whenGetInventario_thenSinEtag() throws Exception {
+        Optional<ProductoDto> producto = Optional.of(
+                new ProductoDto(PRODUCTO_ID, "Producto de prueba", "Descripción de prueba", 100.0).comoDesactualizado());
+        when(productoCache.getProductoByIdAsync(anyLong())).thenReturn(CompletableFuture.completedFuture(producto));
+
+        mockMvc.perform(get("/api/inventario/{id}", PRODUCTO_ID).header("X-API-KEY", API_KEY))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.productoDesactualizado").value(true))
+                .andExpect(header().doesNotExist(HttpHeaders.ETAG));
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.Inventario.event;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ColaEventosInventarioTest {
+
+    @TempDir
+    Path directorio;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<List<Long>> lotes = Collections.synchronizedList(new ArrayList<>());
+    private final CountDownLatch liberarProcesador = new CountDownLatch(1);
+    private final CountDownLatch primerLoteRecibido = new CountDownLatch(1);
+    private ColaEventosInventario cola;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        liberarProcesador.countDown();
+        cola.detener();
+    }
+
+    private ColaEventosInventario crearCola(int capacidad, ColaEventosInventario.PoliticaDesbordamiento politica) {
+        ProcesadorLoteEventos procesador = eventos -> {
+            primerLoteRecibido.countDown();
+            try {
+                liberarProcesador.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            lotes.add(eventos.stream().map(InventarioActualizadoEvent::getProductoId).toList());
+        };
+        cola = new ColaEventosInventario(procesador, meterRegistry, capacidad, 10, politica,
+                directorio.resolve("derrame.log"));
+        cola.iniciar();
+        return cola;
+    }
+
+    private static InventarioActualizadoEvent evento(long productoId) {
+        return new InventarioActualizadoEvent(ColaEventosInventarioTest.class, productoId, 10, 9, 1);
+    }
+
+    private List<Long> procesados() {
+        List<Long> ids = new ArrayList<>();
+        synchronized (lotes) {
+            lotes.forEach(ids::addAll);
+        }
+        return ids;
+    }
+
+    private void esperarProcesados(int cantidad) throws InterruptedException {
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (procesados().size() < cantidad && System.nanoTime() < limite) {
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    @DisplayName("Debe entregar los eventos acumulados en lotes y en orden")
+    void givenEventosAcumulados_whenConsumidorLibre_thenEntregaEnLotes() throws Exception {
+        crearCola(100, ColaEventosInventario.PoliticaDesbordamiento.BLOQUEAR);
+        cola.encolar(evento(0));
+        assertTrue(primerLoteRecibido.await(5, TimeUnit.SECONDS));
+        for (long id = 1; id <= 25; id++) {
+            cola.encolar(evento(id));
+        }
+        assertEquals(25, meterRegistry.get("inventario.eventos.cola").gauge().value());
+
+        liberarProcesador.countDown();
+        esperarProcesados(26);
+
+        assertEquals(LongStream.rangeClosed(0, 25).boxed().toList(), procesados());
+        assertTrue(lotes.size() <= 4, "se esperaban lotes de hasta 10 eventos y hubo " + lotes.size());
+        assertEquals(26, meterRegistry.get("inventario.eventos.retraso").timer().count());
+    }
+
+    @Test
+    @DisplayName("Con la política BLOQUEAR el publicador debe esperar a que haya hueco en la cola")
+    void givenColaLlenaYPoliticaBloquear_whenEncolar_thenBloqueaHastaHaberHueco() throws Exception {
+        crearCola(1, ColaEventosInventario.PoliticaDesbordamiento.BLOQUEAR);
+        cola.encolar(evento(1));
+        assertTrue(primerLoteRecibido.await(5, TimeUnit.SECONDS));
+        cola.encolar(evento(2));
+
+        CompletableFuture<Void> bloqueado = CompletableFuture.runAsync(() -> cola.encolar(evento(3)));
+        assertThrows(TimeoutException.class, () -> bloqueado.get(200, TimeUnit.MILLISECONDS));
+
+        liberarProcesador.countDown();
+        bloqueado.get(5, TimeUnit.SECONDS);
+        esperarProcesados(3);
+        assertEquals(List.of(1L, 2L, 3L), procesados());
+    }
+
+    @Test
+    @DisplayName("Con la política DESCARTAR_ANTIGUO se debe descartar el evento más antiguo de la cola")
+    void givenColaLlenaYPoliticaDescartarAntiguo_whenEncolar_thenDescartaElMasAntiguo() throws Exception {
+        crearCola(2, ColaEventosInventario.PoliticaDesbordamiento.DESCARTAR_ANTIGUO);
+        cola.encolar(evento(1));
+        assertTrue(primerLoteRecibido.await(5, TimeUnit.SECONDS));
+        cola.encolar(evento(2));
+        cola.encolar(evento(3));
+        cola.encolar(evento(4));
+
+        liberarProcesador.countDown();
+        esperarProcesados(3);
+        assertEquals(List.of(1L, 3L, 4L), procesados());
+        assertEquals(1.0, meterRegistry.get("inventario.eventos.descartados").counter().count());
+    }
+
+    @Test
+    @DisplayName("Con la política DERRAMAR los eventos sobrantes deben escribirse a disco y procesarse después")
+    void givenColaLlenaYPoliticaDerramar_whenEncolar_thenDerramaYRecuperaDespues() throws Exception {
+        crearCola(1, ColaEventosInventario.PoliticaDesbordamiento.DERRAMAR);
+        cola.encolar(evento(1));
+        assertTrue(primerLoteRecibido.await(5, TimeUnit.SECONDS));
+        cola.encolar(evento(2));
+        cola.encolar(evento(3));
+        cola.encolar(evento(4));
+        assertTrue(Files.exists(directorio.resolve("derrame.log")));
+        assertEquals(2.0, meterRegistry.get("inventario.eventos.derramados").counter().count());
+
+        liberarProcesador.countDown();
+        esperarProcesados(4);
+        assertEquals(List.of(1L, 2L, 3L, 4L), procesados());
+        Path enProceso = directorio.resolve("derrame.log.procesando");
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (Files.exists(enProceso) && System.nanoTime() < limite) {
+            Thread.sleep(10);
+        }
+        assertFalse(Files.exists(enProceso));
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.Inventario.event;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles("test")
+class InventarioEventListenerTest {
+
+    @MockBean
+    private ColaEventosInventario colaEventosInventario;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    @DisplayName("Debe encolar el evento solo cuando la transacción se confirma")
+    void givenTransaccionConfirmada_whenPublicarEvento_thenEncolaTrasCommit() {
+        InventarioActualizadoEvent evento = new InventarioActualizadoEvent(this, 1L, 10, 5, 1);
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(estado -> {
+            eventPublisher.publishEvent(evento);
+            verify(colaEventosInventario, never()).encolar(any());
+        });
+
+        verify(colaEventosInventario, times(1)).encolar(evento);
+    }
+
+    @Test
+    @DisplayName("No debe encolar el evento si la transacción se revierte")
+    void givenTransaccionRevertida_whenPublicarEvento_thenNoEncola() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(estado -> {
+            eventPublisher.publishEvent(new InventarioActualizadoEvent(this, 1L, 10, 5, 1));
+            estado.setRollbackOnly();
+        });
+
+        verify(colaEventosInventario, never()).encolar(any());
+    }
+
+    @Test
+    @DisplayName("Debe encolar inmediatamente los eventos publicados fuera de una transacción")
+    void givenSinTransaccion_whenPublicarEvento_thenEncolaInmediatamente() {
+        InventarioActualizadoEvent evento = new InventarioActualizadoEvent(this, 2L, 3, 1, 1);
+
+        eventPublisher.publishEvent(evento);
+
+        verify(colaEventosInventario, times(1)).encolar(evento);
+    }
+}
@@ -0,0 +1,180 @@
+package com.example.Inventario.event;
+
+import com.example.Inventario.model.EventoInventarioOutbox;
+import com.example.Inventario.model.Inventario;
+import com.example.Inventario.repository.EventoInventarioOutboxRepository;
+import com.example.Inventario.repository.InventarioRepository;
+import com.example.Inventario.service.StockService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Ejercita la tabla outbox y su relay contra H2. El relay periódico se retrasa para invocarlo a mano.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "inventario.outbox.sumidero=prueba",
+        "inventario.outbox.relay.intervalo-ms=3600000",
+        "inventario.outbox.relay.tamano-lote=4"
+})
+@ActiveProfiles("test")
+class RelayOutboxInventarioTest {
+
+    static final List<EventoInventarioOutbox> publicados = Collections.synchronizedList(new ArrayList<>());
+    static volatile boolean fallarSumidero;
+
+    @TestConfiguration
+    static class SumideroPrueba {
+        @Bean
+        SumideroEventosInventario sumideroPrueba() {
+            return eventos -> {
+                if (fallarSumidero) {
+                    throw new IllegalStateException("broker caído");
+                }
+                publicados.addAll(eventos);
+            };
+        }
+    }
+
+    @Autowired
+    private RelayOutboxInventario relay;
+
+    @Autowired
+    private StockService stockService;
+
+    @Autowired
+    private InventarioRepository inventarioRepository;
+
+    @Autowired
+    private EventoInventarioOutboxRepository outboxRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void setUp() {
+        outboxRepository.deleteAllInBatch();
+        inventarioRepository.deleteAll();
+        inventarioRepository.saveAll(List.of(new Inventario(1L, 100), new Inventario(2L, 100)));
+        publicados.clear();
+        fallarSumidero = false;
+    }
+
+    @Test
+    @DisplayName("Debe escribir un evento outbox por cambio de stock y publicarlos en orden, en varios lotes")
+    void givenCambiosDeStock_whenDrenar_thenPublicaEnOrdenYVaciaLaTabla() {
+        for (int i = 0; i < 5; i++) {
+            stockService.descontarStock(1L, 1);
+        }
+        stockService.descontarStockLote(new TreeMap<>(Map.of(1L, 2, 2L, 3)));
+        stockService.actualizarCantidad(2L, 50);
+        assertEquals(8, outboxRepository.count());
+
+        assertEquals(8, relay.drenar());
+
+        assertEquals(List.of(99, 98, 97, 96, 95, 93), publicados.stream()
+                .filter(evento -> evento.getProductoId() == 1L).map(EventoInventarioOutbox::getCantidadNueva).toList());
+        assertEquals(List.of(97, 50), publicados.stream()
+                .filter(evento -> evento.getProductoId() == 2L).map(EventoInventarioOutbox::getCantidadNueva).toList());
+        List<Long> ids = publicados.stream().map(EventoInventarioOutbox::getId).toList();
+        assertEquals(ids.stream().sorted().toList(), ids);
+        assertEquals(0, outboxRepository.count());
+        // La versión del inventario ordena los cambios de cada producto y coincide con la que queda en la fila.
+        for (long productoId : List.of(1L, 2L)) {
+            List<Long> versiones = publicados.stream().filter(evento -> evento.getProductoId() == productoId)
+                    .map(EventoInventarioOutbox::getVersionInventario).toList();
+            assertEquals(versiones.stream().distinct().sorted().toList(), versiones);
+            assertEquals(inventarioRepository.findVersionByProductoId(productoId).orElseThrow(), versiones.get(versiones.size() - 1));
+        }
+    }
+
+    @Test
+    @DisplayName("Las compras agrupadas deben dar a cada evento outbox su propia versión del inventario")
+    void givenComprasAgrupadas_whenDrenar_thenVersionesConsecutivas() {
+        long version = inventarioRepository.findVersionByProductoId(1L).orElseThrow();
+
+        stockService.descontarStockAgrupado(1L, List.of(1, 2, 3));
+        relay.drenar();
+
+        assertEquals(List.of(version + 1, version + 2, version + 3),
+                publicados.stream().map(EventoInventarioOutbox::getVersionInventario).toList());
+        assertEquals(version + 3, inventarioRepository.findVersionByProductoId(1L).orElseThrow());
+    }
+
+    @Test
+    @DisplayName("No debe escribir eventos outbox si la transacción del cambio de stock se revierte")
+    void givenLoteRechazado_whenDescontarStockLote_thenNoOutboxRows() {
+        assertThrows(StockService.LineaRechazadaException.class, () ->
+                stockService.descontarStockLote(new TreeMap<>(Map.of(1L, 2, 2L, 500))));
+
+        assertEquals(0, outboxRepository.count());
+    }
+
+    @Test
+    @DisplayName("Debe mantener los eventos pendientes si el sumidero falla")
+    void givenSumideroCaido_whenDrenar_thenEventosPendientes() {
+        stockService.descontarStock(1L, 1);
+        fallarSumidero = true;
+
+        assertEquals(0, relay.drenar());
+        assertEquals(1, outboxRepository.count());
+
+        fallarSumidero = false;
+        assertEquals(1, relay.drenar());
+        assertEquals(0, outboxRepository.count());
+    }
+
+    @Test
+    @DisplayName("Dos reclamaciones concurrentes deben obtener eventos distintos sin esperarse")
+    void givenReclamacionEnCurso_whenOtraReclama_thenSaltaLasFilasBloqueadas() throws Exception {
+        for (int i = 0; i < 6; i++) {
+            stockService.descontarStock(1L, 1);
+        }
+        TransactionTemplate transaccion = new TransactionTemplate(transactionManager);
+        CountDownLatch primeraReclamada = new CountDownLatch(1);
+        CountDownLatch liberarPrimera = new CountDownLatch(1);
+
+        CompletableFuture<List<Long>> primera = CompletableFuture.supplyAsync(() -> transaccion.execute(estado -> {
+            List<Long> ids = outboxRepository.reclamarPendientes(3).stream().map(EventoInventarioOutbox::getId).toList();
+            primeraReclamada.countDown();
+            try {
+                liberarPrimera.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return ids;
+        }));
+        assertTrue(primeraReclamada.await(5, TimeUnit.SECONDS));
+
+        List<Long> segunda = CompletableFuture.supplyAsync(() -> transaccion.execute(estado ->
+                outboxRepository.reclamarPendientes(10).stream().map(EventoInventarioOutbox::getId).toList()))
+                .get(5, TimeUnit.SECONDS);
+        liberarPrimera.countDown();
+
+        Set<Long> todos = new HashSet<>(primera.get(5, TimeUnit.SECONDS));
+        assertEquals(3, todos.size());
+        assertEquals(3, segunda.size());
+        todos.addAll(segunda);
+        assertEquals(6, todos.size());
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.Inventario.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ApiKeyAuthFilterTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private ApiKeyAuthFilter filtro;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        meterRegistry = new SimpleMeterRegistry();
+        ApiKeysProperties propiedades = new ApiKeysProperties();
+        propiedades.getClientes().put("tienda-web", cliente("clave-tienda", 1, 2));
+        propiedades.getClientes().put("pagos", cliente("clave-pagos", 1, 1));
+        propiedades.setApiKey("clave-principal");
+        filtro = new ApiKeyAuthFilter("X-API-KEY", new ApiKeyAuthManager(propiedades, meterRegistry));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    @DisplayName("Debe autenticar al cliente dueño de la API Key y rechazar las claves desconocidas")
+    void givenApiKeys_whenFiltrar_thenAuthenticatesKnownClientsOnly() throws Exception {
+        MockHttpServletResponse aceptada = filtrar("clave-tienda");
+        assertEquals(200, aceptada.getStatus());
+        assertEquals("tienda-web", SecurityContextHolder.getContext().getAuthentication().getPrincipal());
+        assertEquals(200, filtrar("clave-principal").getStatus());
+
+        SecurityContextHolder.clearContext();
+        MockHttpServletResponse rechazada = filtrar("clave-falsa");
+        assertEquals(401, rechazada.getStatus());
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+    }
+
+    @Test
+    @DisplayName("Debe responder 429 cuando un cliente agota su cuota sin afectar a los demás")
+    void givenClienteSinCuota_whenFiltrar_thenTooManyRequestsOnlyForThatClient() throws Exception {
+        assertEquals(200, filtrar("clave-tienda").getStatus());
+        assertEquals(200, filtrar("clave-tienda").getStatus());
+
+        MockHttpServletResponse limitada = filtrar("clave-tienda");
+        assertEquals(429, limitada.getStatus());
+        assertEquals("1", limitada.getHeader("Retry-After"));
+        assertEquals(200, filtrar("clave-pagos").getStatus());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(200, filtrar("clave-principal").getStatus());
+        }
+        assertEquals(1.0, meterRegistry.get("inventario.api.cuota.rechazadas").tag("cliente", "tienda-web").counter().count());
+    }
+
+    @Test
+    @DisplayName("Debe rechazar al arrancar un hash que no es SHA-256 o una clave repetida")
+    void givenConfiguracionInvalida_whenCrear_thenFails() throws Exception {
+        ApiKeysProperties hashInvalido = new ApiKeysProperties();
+        ApiKeysProperties.Cliente cliente = new ApiKeysProperties.Cliente();
+        cliente.setHash("clave-en-claro");
+        hashInvalido.getClientes().put("tienda-web", cliente);
+        ApiKeysProperties repetida = new ApiKeysProperties();
+        repetida.getClientes().put("principal", cliente("clave-principal", 0, 0));
+        repetida.setApiKey("clave-principal");
+
+        assertThrows(IllegalStateException.class, () -> new ApiKeyAuthManager(hashInvalido, meterRegistry));
+        assertThrows(IllegalStateException.class, () -> new ApiKeyAuthManager(repetida, meterRegistry));
+    }
+
+    private MockHttpServletResponse filtrar(String apiKey) throws Exception {
+        MockHttpServletRequest peticion = new MockHttpServletRequest("GET", "/api/inventario/1");
+        peticion.addHeader("X-API-KEY", apiKey);
+        MockHttpServletResponse respuesta = new MockHttpServletResponse();
+        filtro.doFilter(peticion, respuesta, new MockFilterChain());
+        return respuesta;
+    }
+
+    private static ApiKeysProperties.Cliente cliente(String apiKey, double peticionesPorSegundo, int rafaga) throws Exception {
+        ApiKeysProperties.Cliente cliente = new ApiKeysProperties.Cliente();
+        cliente.setHash(HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(apiKey.getBytes(StandardCharsets.UTF_8))));
+        cliente.setPeticionesPorSegundo(peticionesPorSegundo);
+        cliente.setRafaga(rafaga);
+        return cliente;
+    }
+}
@@ -0,0 +1,198 @@
+package com.example.Inventario.service;
+
+import com.example.Inventario.client.ProductoCache;
+import com.example.Inventario.dto.CompraRequest;
+import com.example.Inventario.dto.CompraResponse;
+import com.example.Inventario.dto.ProductoDto;
+import com.example.Inventario.exception.IdempotenciaConflictException;
+import com.example.Inventario.exception.StockNotAvailableException;
+import com.example.Inventario.model.CompraIdempotente;
+import com.example.Inventario.model.Inventario;
+import com.example.Inventario.repository.CompraIdempotenteRepository;
+import com.example.Inventario.repository.InventarioRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+/**
+ * Ejercita las compras con clave de idempotencia contra H2.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles("test")
+class ComprasIdempotentesTest {
+
+    private static final String CLIENTE = "tienda";
+
+    @Autowired
+    private InventarioService inventarioService;
+
+    @Autowired
+    private InventarioRepository inventarioRepository;
+
+    @Autowired
+    private CompraIdempotenteRepository compraIdempotenteRepository;
+
+    @Autowired
+    private ComprasIdempotentes comprasIdempotentes;
+
+    @MockBean
+    private ProductoCache productoCache;
+
+    private final String clave = UUID.randomUUID().toString();
+
+    @BeforeEach
+    void setUp() {
+        ProductoDto productoDto = new ProductoDto(1L, "Producto de prueba", "Descripción de prueba", 100.0);
+        when(productoCache.getProductoById(anyLong())).thenReturn(Optional.of(productoDto));
+        inventarioRepository.deleteAll();
+        inventarioRepository.save(new Inventario(1L, 10));
+    }
+
+    @Test
+    @DisplayName("Una compra repetida con la misma clave debe devolver la respuesta original sin volver a descontar stock")
+    void givenClaveRepetida_whenRealizarCompra_thenDescuentaUnaVez() {
+        CompraResponse original = inventarioService.realizarCompra(new CompraRequest(1L, 3), CLIENTE, clave);
+        CompraResponse repetida = inventarioService.realizarCompra(new CompraRequest(1L, 3), CLIENTE, clave);
+
+        assertEquals(original, repetida);
+        assertEquals(7, inventarioRepository.findCantidadByProductoId(1L).orElseThrow());
+        assertTrue(compraIdempotenteRepository.existsById(new CompraIdempotente.Clave(CLIENTE, clave)));
+        verify(productoCache, times(1)).getProductoById(1L);
+    }
+
+    @Test
+    @DisplayName("Las repeticiones concurrentes deben esperar a la compra original y recibir su respuesta")
+    void givenRepeticionesConcurrentes_whenRealizarCompra_thenDescuentaUnaVez() throws Exception {
+        int repeticiones = 16;
+        CountDownLatch salida = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(repeticiones);
+        List<Future<CompraResponse>> respuestas = new ArrayList<>();
+        for (int i = 0; i < repeticiones; i++) {
+            respuestas.add(executor.submit(() -> {
+                salida.await();
+                return inventarioService.realizarCompra(new CompraRequest(1L, 2), CLIENTE, clave);
+            }));
+        }
+        salida.countDown();
+
+        CompraResponse primera = respuestas.get(0).get(10, TimeUnit.SECONDS);
+        for (Future<CompraResponse> respuesta : respuestas) {
+            assertEquals(primera, respuesta.get(10, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+        assertEquals(8, inventarioRepository.findCantidadByProductoId(1L).orElseThrow());
+    }
+
+    @Test
+    @DisplayName("Una clave guardada por otra instancia debe responderse desde la base de datos sin consultar productos")
+    void givenClaveGuardadaEnBaseDatos_whenRealizarCompra_thenRespuestaGuardada() {
+        compraIdempotenteRepository.save(new CompraIdempotente(CLIENTE, clave, 1L, "Producto de prueba", 100.0, 4, 400.0,
+                LocalDateTime.of(2024, 1, 1, 10, 0), "Compra realizada exitosamente.", true, Instant.now().plusSeconds(60)));
+
+        CompraResponse respuesta = inventarioService.realizarCompra(new CompraRequest(1L, 4), CLIENTE, clave);
+
+        assertEquals(LocalDateTime.of(2024, 1, 1, 10, 0), respuesta.getFechaCompra());
+        assertTrue(respuesta.isProductoDesactualizado());
+        assertEquals(10, inventarioRepository.findCantidadByProductoId(1L).orElseThrow());
+        verifyNoInteractions(productoCache);
+    }
+
+    @Test
+    @DisplayName("Una clave expirada y aún no purgada debe permitir volver a ejecutar la compra")
+    void givenClaveExpiradaSinPurgar_whenRealizarCompra_thenSeEjecutaDeNuevo() {
+        compraIdempotenteRepository.save(new CompraIdempotente(CLIENTE, clave, 1L, "Producto de prueba", 100.0, 3, 300.0,
+                LocalDateTime.of(2024, 1, 1, 10, 0), "Compra realizada exitosamente.", false, Instant.now().minusSeconds(1)));
+
+        CompraResponse respuesta = inventarioService.realizarCompra(new CompraRequest(1L, 3), CLIENTE, clave);
+
+        assertNotEquals(LocalDateTime.of(2024, 1, 1, 10, 0), respuesta.getFechaCompra());
+        assertEquals(7, inventarioRepository.findCantidadByProductoId(1L).orElseThrow());
+        CompraIdempotente guardada = compraIdempotenteRepository.findById(new CompraIdempotente.Clave(CLIENTE, clave)).orElseThrow();
+        assertTrue(guardada.getExpiraEn().isAfter(Instant.now()));
+        verify(productoCache, times(1)).getProductoById(1L);
+    }
+
+    @Test
+    @DisplayName("Si otra instancia guarda antes la misma clave, debe esperar a su compra y devolver su respuesta")
+    void givenClaveGuardadaPorOtraInstancia_whenCompraRevertida_thenEsperaYDevuelveLaOriginal() throws Exception {
+        CompraIdempotente original = new CompraIdempotente(CLIENTE, clave, 1L, "Producto de prueba", 100.0, 2, 200.0,
+                LocalDateTime.of(2024, 1, 1, 10, 0), "Compra realizada exitosamente.", false, Instant.now().plusSeconds(60));
+        CountDownLatch revertida = new CountDownLatch(1);
+        ExecutorService otraInstancia = Executors.newSingleThreadExecutor();
+        try {
+            // La fila de la otra instancia solo se vuelve visible después de que la compra propia se revierte.
+            Future<?> guardado = otraInstancia.submit(() -> {
+                revertida.await();
+                Thread.sleep(100);
+                return compraIdempotenteRepository.save(original);
+            });
+
+            CompraResponse respuesta = comprasIdempotentes.ejecutar(CLIENTE, clave, new CompraRequest(1L, 2), () -> {
+                revertida.countDown();
+                throw new DataIntegrityViolationException("clave duplicada");
+            });
+
+            guardado.get(5, TimeUnit.SECONDS);
+            assertEquals(LocalDateTime.of(2024, 1, 1, 10, 0), respuesta.getFechaCompra());
+        } finally {
+            otraInstancia.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("La misma clave enviada por dos clientes debe ejecutar dos compras independientes")
+    void givenMismaClaveEnDosClientes_whenRealizarCompra_thenCadaClienteTieneSuCompra() {
+        CompraResponse tienda = inventarioService.realizarCompra(new CompraRequest(1L, 3), CLIENTE, clave);
+        CompraResponse movil = inventarioService.realizarCompra(new CompraRequest(1L, 5), "movil", clave);
+
+        assertEquals(3, tienda.getCantidadComprada());
+        assertEquals(5, movil.getCantidadComprada());
+        assertEquals(2, inventarioRepository.findCantidadByProductoId(1L).orElseThrow());
+        assertTrue(compraIdempotenteRepository.existsById(new CompraIdempotente.Clave("movil", clave)));
+    }
+
+    @Test
+    @DisplayName("Debe rechazar una clave reutilizada con otra compra")
+    void givenClaveConOtraCompra_whenRealizarCompra_thenConflict() {
+        inventarioService.realizarCompra(new CompraRequest(1L, 3), CLIENTE, clave);
+
+        assertThrows(IdempotenciaConflictException.class,
+                () -> inventarioService.realizarCompra(new CompraRequest(1L, 5), CLIENTE, clave));
+        assertEquals(7, inventarioRepository.findCantidadByProductoId(1L).orElseThrow());
+    }
+
+    @Test
+    @DisplayName("Una compra fallida no debe recordarse, para poder reintentarla con la misma clave")
+    void givenCompraFallida_whenReintentar_thenSeEjecuta() {
+        assertThrows(StockNotAvailableException.class,
+                () -> inventarioService.realizarCompra(new CompraRequest(1L, 15), CLIENTE, clave));
+        assertFalse(compraIdempotenteRepository.existsById(new CompraIdempotente.Clave(CLIENTE, clave)));
+
+        inventarioRepository.deleteAll();
+        inventarioRepository.save(new Inventario(1L, 20));
+        inventarioService.realizarCompra(new CompraRequest(1L, 15), CLIENTE, clave);
+
+        assertEquals(5, inventarioRepository.findCantidadByProductoId(1L).orElseThrow());
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.Inventario.service;
+
+import com.example.Inventario.model.Inventario;
+import com.example.Inventario.repository.InventarioRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Ejercita la exportación completa de inventarios contra H2, con un tamaño de fetch menor que el número de filas.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "inventario.exportacion.tamano-fetch=2"
+})
+@ActiveProfiles("test")
+class ExportacionInventarioTest {
+
+    @Autowired
+    private ExportacionInventario exportacionInventario;
+
+    @Autowired
+    private InventarioRepository inventarioRepository;
+
+    @LocalServerPort
+    private int puerto;
+
+    @BeforeEach
+    void setUp() {
+        inventarioRepository.deleteAll();
+        inventarioRepository.save(new Inventario(3L, 30, 0));
+        inventarioRepository.save(new Inventario(1L, 10, 2));
+        inventarioRepository.save(new Inventario(2L, 20, 0));
+    }
+
+    @Test
+    @DisplayName("Debe exportar todos los inventarios en CSV, ordenados por producto y con cabecera")
+    void givenInventarios_whenExportarCsv_thenEscribeTodasLasFilas() throws Exception {
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+
+        long filas = exportacionInventario.exportar(salida, FormatoFichero.CSV, false);
+
+        assertEquals(3, filas);
+        assertEquals("""
+                productoId,cantidad,reservada
+                1,10,2
+                2,20,0
+                3,30,0
+                """, salida.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisplayName("Debe exportar en NDJSON comprimido con gzip")
+    void givenInventarios_whenExportarNdjsonComprimido_thenSeDescomprimeCompleto() throws Exception {
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+
+        exportacionInventario.exportar(salida, FormatoFichero.NDJSON, true);
+
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(salida.toByteArray()))) {
+            assertEquals("""
+                    {"productoId":1,"cantidad":10,"reservada":2}
+                    {"productoId":2,"cantidad":20,"reservada":0}
+                    {"productoId":3,"cantidad":30,"reservada":0}
+                    """, new String(gzip.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    @DisplayName("El endpoint debe transmitir la exportación con la API Key y negar el acceso sin ella")
+    void givenPeticionHttp_whenExportar_thenRespondeConElFichero() throws Exception {
+        HttpClient cliente = HttpClient.newHttpClient();
+        URI uri = URI.create("http://localhost:" + puerto + "/api/inventario/exportar?formato=csv");
+
+        HttpResponse<byte[]> respuesta = cliente.send(HttpRequest.newBuilder(uri)
+                .header("X-API-KEY", "inventario_secreta_54321")
+                .header("Accept-Encoding", "gzip")
+                .build(), HttpResponse.BodyHandlers.ofByteArray());
+
+        assertEquals(200, respuesta.statusCode());
+        assertEquals("gzip", respuesta.headers().firstValue("Content-Encoding").orElseThrow());
+        assertTrue(respuesta.headers().firstValue("Content-Type").orElseThrow().startsWith("text/csv"));
+        assertEquals("attachment; filename=\"inventario.csv\"",
+                respuesta.headers().firstValue("Content-Disposition").orElseThrow());
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(respuesta.body()))) {
+            assertEquals(4, new String(gzip.readAllBytes(), StandardCharsets.UTF_8).lines().count());
+        }
+
+        HttpResponse<String> sinClave = cliente.send(HttpRequest.newBuilder(uri).build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(401, sinClave.statusCode());
+    }
+}
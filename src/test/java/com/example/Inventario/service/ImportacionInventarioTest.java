@@ -0,0 +1,171 @@
+package com.example.Inventario.service;
+
+import com.example.Inventario.client.ProductoBatchLoader;
+import com.example.Inventario.dto.ImportacionResponse;
+import com.example.Inventario.dto.ProductoDto;
+import com.example.Inventario.model.Inventario;
+import com.example.Inventario.repository.InventarioRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Ejercita la importación masiva de stock contra H2, con lotes pequeños para cruzar varios lotes.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "inventario.importacion.tamano-lote=2",
+        "inventario.importacion.max-errores-reportados=3"
+})
+@ActiveProfiles("test")
+class ImportacionInventarioTest {
+
+    @Autowired
+    private ImportacionInventario importacionInventario;
+
+    @Autowired
+    private InventarioRepository inventarioRepository;
+
+    @MockBean
+    private ProductoBatchLoader productoBatchLoader;
+
+    @Test
+    @DisplayName("Debe crear y actualizar inventarios desde CSV, informando las filas inválidas y los productos desconocidos")
+    void givenCsvConErrores_whenImportar_thenImportaLasFilasValidas() throws Exception {
+        inventarioRepository.deleteAll();
+        inventarioRepository.save(new Inventario(1L, 50, 5));
+        when(productoBatchLoader.cargarTodos(any())).thenAnswer(invocacion -> {
+            Collection<Long> ids = invocacion.getArgument(0);
+            Map<Long, ProductoDto> encontrados = new HashMap<>();
+            ids.stream().filter(id -> id != 99L)
+                    .forEach(id -> encontrados.put(id, new ProductoDto(id, "Producto " + id, "Desc", 10.0)));
+            return CompletableFuture.completedFuture(encontrados);
+        });
+        String csv = """
+                productoId,cantidad
+                1,20
+                2;30
+
+                3,abc
+                99,5
+                4,-1
+                5,7,8
+                6,60
+                """;
+
+        ImportacionResponse respuesta = importacionInventario.importar(flujo(csv), FormatoFichero.CSV, true);
+
+        assertEquals(7, respuesta.getFilasLeidas());
+        assertEquals(3, respuesta.getFilasImportadas());
+        assertEquals(4, respuesta.getFilasConError());
+        // Los productos se validan al completar cada lote, así que el producto 99 se rechaza después de las líneas 7 y 8
+        // y queda fuera del detalle, acotado a 3 errores.
+        assertEquals(List.of(5L, 7L, 8L), respuesta.getErrores().stream().map(ImportacionResponse.ErrorFila::getLinea).toList());
+
+        Inventario existente = inventarioRepository.findById(1L).orElseThrow();
+        assertEquals(20, existente.getCantidad());
+        assertEquals(5, existente.getReservada());
+        assertEquals(30, inventarioRepository.findCantidadByProductoId(2L).orElseThrow());
+        assertEquals(60, inventarioRepository.findCantidadByProductoId(6L).orElseThrow());
+        assertTrue(inventarioRepository.findById(99L).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Debe rechazar las filas cuya cantidad es menor que las unidades reservadas del producto")
+    void givenCantidadMenorQueReservada_whenImportar_thenFilaRechazada() throws Exception {
+        inventarioRepository.deleteAll();
+        inventarioRepository.save(new Inventario(21L, 10, 6));
+        inventarioRepository.save(new Inventario(22L, 10, 6));
+        String csv = """
+                21,4
+                22,6
+                """;
+
+        ImportacionResponse respuesta = importacionInventario.importar(flujo(csv), FormatoFichero.CSV, false);
+
+        assertEquals(1, respuesta.getFilasImportadas());
+        assertEquals(1, respuesta.getFilasConError());
+        assertEquals(1L, respuesta.getErrores().get(0).getLinea());
+        assertEquals(10, inventarioRepository.findCantidadByProductoId(21L).orElseThrow());
+        assertEquals(6, inventarioRepository.findCantidadByProductoId(22L).orElseThrow());
+    }
+
+    @Test
+    @DisplayName("Debe importar NDJSON sin consultar el servicio de productos si la validación está desactivada")
+    void givenNdjsonSinValidacion_whenImportar_thenNoConsultaProductos() throws Exception {
+        String ndjson = """
+                {"productoId": 11, "cantidad": 3}
+                {"productoId": 12
+                {"productoId": 13, "cantidad": 4}
+                {"productoId": 11, "cantidad": 8}
+                """;
+
+        ImportacionResponse respuesta = importacionInventario.importar(flujo(ndjson), FormatoFichero.NDJSON, false);
+
+        assertEquals(4, respuesta.getFilasLeidas());
+        assertEquals(1, respuesta.getFilasConError());
+        assertEquals(2L, respuesta.getErrores().get(0).getLinea());
+        assertEquals(8, inventarioRepository.findCantidadByProductoId(11L).orElseThrow());
+        assertEquals(4, inventarioRepository.findCantidadByProductoId(13L).orElseThrow());
+        verifyNoInteractions(productoBatchLoader);
+    }
+
+    @Test
+    @DisplayName("Debe leer el fichero como flujo y acotar el detalle de errores aunque haya muchos")
+    void givenFicheroGrande_whenImportar_thenErroresAcotados() throws Exception {
+        int filas = 5000;
+        // El fichero se genera a medida que se lee: nunca está entero en memoria.
+        Enumeration<InputStream> lineas = new Enumeration<>() {
+            private int siguiente = 1;
+
+            @Override
+            public boolean hasMoreElements() {
+                return siguiente <= filas;
+            }
+
+            @Override
+            public InputStream nextElement() {
+                int id = siguiente++;
+                return flujo(id % 10 == 0 ? "x,1\n" : (1000 + id) + "," + id + "\n");
+            }
+        };
+
+        ImportacionResponse respuesta = importacionInventario.importar(new SequenceInputStream(lineas),
+                FormatoFichero.CSV, false);
+
+        assertEquals(filas, respuesta.getFilasLeidas());
+        assertEquals(filas / 10, respuesta.getFilasConError());
+        assertEquals(filas - filas / 10, respuesta.getFilasImportadas());
+        assertEquals(3, respuesta.getErrores().size());
+        assertTrue(respuesta.getFilasPorSegundo() > 0);
+        assertEquals(4999, inventarioRepository.findCantidadByProductoId(1000L + 4999).orElseThrow());
+    }
+
+    @Test
+    @DisplayName("Debe rechazar un tipo de contenido que no sea CSV ni NDJSON")
+    void givenTipoContenidoNoSoportado_whenFormato_thenIllegalArgument() {
+        assertEquals(FormatoFichero.CSV, FormatoFichero.desdeTipoContenido("text/csv; charset=UTF-8"));
+        assertThrows(IllegalArgumentException.class, () -> FormatoFichero.desdeTipoContenido("application/json"));
+    }
+
+    private static InputStream flujo(String contenido) {
+        return new ByteArrayInputStream(contenido.getBytes(StandardCharsets.UTF_8));
+    }
+}
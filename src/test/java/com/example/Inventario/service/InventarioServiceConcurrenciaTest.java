@@ -0,0 +1,89 @@
+package com.example.Inventario.service;
+
+import com.example.Inventario.client.ProductoCache;
+import com.example.Inventario.dto.CompraRequest;
+import com.example.Inventario.dto.ProductoDto;
+import com.example.Inventario.exception.StockNotAvailableException;
+import com.example.Inventario.model.Inventario;
+import com.example.Inventario.repository.InventarioRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles("test")
+class InventarioServiceConcurrenciaTest {
+
+    private static final int STOCK_INICIAL = 100;
+    private static final int COMPRADORES = 300;
+
+    @Autowired
+    private InventarioService inventarioService;
+
+    @Autowired
+    private InventarioRepository inventarioRepository;
+
+    @MockBean
+    private ProductoCache productoCache;
+
+    @BeforeEach
+    void setUp() {
+        ProductoDto productoDto = new ProductoDto(1L, "Producto de prueba", "Descripción de prueba", 100.0);
+        when(productoCache.getProductoById(anyLong())).thenReturn(Optional.of(productoDto));
+        inventarioRepository.deleteAll();
+        inventarioRepository.save(new Inventario(1L, STOCK_INICIAL));
+    }
+
+    @Test
+    @DisplayName("No debe sobrevender cuando cientos de compradores compran el mismo producto en paralelo")
+    void givenCompradoresConcurrentes_whenRealizarCompra_thenNoOverselling() throws Exception {
+        AtomicInteger compras = new AtomicInteger();
+        AtomicInteger rechazos = new AtomicInteger();
+        CountDownLatch salida = new CountDownLatch(1);
+
+        ExecutorService compradores = Executors.newFixedThreadPool(64);
+        try {
+            List<Future<?>> tareas = new ArrayList<>();
+            for (int i = 0; i < COMPRADORES; i++) {
+                tareas.add(compradores.submit(() -> {
+                    salida.await();
+                    try {
+                        inventarioService.realizarCompra(new CompraRequest(1L, 1));
+                        compras.incrementAndGet();
+                    } catch (StockNotAvailableException e) {
+                        rechazos.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            salida.countDown();
+            for (Future<?> tarea : tareas) {
+                tarea.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            compradores.shutdownNow();
+        }
+
+        assertEquals(STOCK_INICIAL, compras.get());
+        assertEquals(COMPRADORES - STOCK_INICIAL, rechazos.get());
+        assertEquals(0, inventarioRepository.findCantidadByProductoId(1L).orElseThrow());
+    }
+}
@@ -1,8 +1,11 @@
 package com.example.Inventario.service;
 
-import com.example.Inventario.client.ProductoFeignClient;
+import com.example.Inventario.client.ProductoCache;
+import com.example.Inventario.dto.CompraLoteRequest;
+import com.example.Inventario.dto.CompraLoteResponse;
 import com.example.Inventario.dto.CompraRequest;
 import com.example.Inventario.dto.CompraResponse; 
+import com.example.Inventario.dto.InventarioConsultaDto;
 import com.example.Inventario.dto.InventarioResponseDto;
 import com.example.Inventario.dto.ProductoDto;
 import com.example.Inventario.exception.InventarioNotFoundException;
@@ -14,15 +17,24 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.*;
 
@@ -33,7 +45,13 @@ class InventarioServiceTest {
     private InventarioRepository inventarioRepository;
 
     @Mock
-    private ProductoFeignClient productoFeignClient;
+    private ProductoCache productoCache;
+
+    @Mock
+    private StockService stockService;
+
+    @Mock
+    private SecuenciadorCompras secuenciadorCompras;
 
     @Mock
     private ApplicationEventPublisher eventPublisher;
@@ -62,13 +80,17 @@ class InventarioServiceTest {
         compraRequest.setProductoId(1L);
         compraRequest.setCantidad(5);
 
+        ReflectionTestUtils.setField(inventarioService, "maxLineasCompraLote", 100);
+        ReflectionTestUtils.setField(inventarioService, "maxIdsConsultaLote", 5000);
+
         // Inicializar el DTO de respuesta esperado
         inventarioResponseDto = new InventarioResponseDto(
                 inventario.getProductoId(),
                 productoDto.getNombre(),
                 productoDto.getDescripcion(),
                 productoDto.getPrecio(),
-                inventario.getCantidad()
+                inventario.getCantidad(),
+                false
         );
     }
 
@@ -78,7 +100,7 @@ class InventarioServiceTest {
         // Configurar el mock del repositorio para devolver el objeto Inventario
         when(inventarioRepository.findById(anyLong())).thenReturn(Optional.of(inventario));
         // Configurar el mock del cliente Feign para devolver el ProductoDto
-        when(productoFeignClient.getProductoById(anyLong())).thenReturn(Optional.of(productoDto));
+        when(productoCache.getProductoByIdAsync(anyLong())).thenReturn(CompletableFuture.completedFuture(Optional.of(productoDto)));
 
         // ¡Aquí está el cambio! El tipo de 'result' ahora es InventarioResponseDto
         InventarioResponseDto result = inventarioService.getInventarioByProductoId(1L);
@@ -92,41 +114,71 @@ class InventarioServiceTest {
 
 
         verify(inventarioRepository, times(1)).findById(1L);
-        verify(productoFeignClient, times(1)).getProductoById(1L);
+        verify(productoCache, times(1)).getProductoByIdAsync(1L);
     }
 
     @Test
-    @DisplayName("Debe lanzar excepción si no se encuentra el inventario")
+    @DisplayName("Debe lanzar excepción si no se encuentra el inventario, aunque tampoco exista el producto")
     void givenNonExistingProductoId_whenGetInventarioByProductoId_thenThrowInventarioNotFoundException() {
         when(inventarioRepository.findById(anyLong())).thenReturn(Optional.empty());
+        when(productoCache.getProductoByIdAsync(anyLong())).thenReturn(CompletableFuture.completedFuture(Optional.empty()));
 
         assertThrows(InventarioNotFoundException.class, () -> inventarioService.getInventarioByProductoId(1L));
         verify(inventarioRepository, times(1)).findById(1L);
-        verify(productoFeignClient, never()).getProductoById(anyLong()); // No se debe llamar al cliente de productos
+        // Solo se lanza la consulta asíncrona del producto; su resultado no decide la excepción
+        verify(productoCache, times(1)).getProductoByIdAsync(1L);
+        verifyNoMoreInteractions(productoCache);
     }
 
     @Test
     @DisplayName("Debe lanzar excepción si el producto no se encuentra en el servicio de productos")
     void givenInventarioExistsButProductoNotFound_whenGetInventarioByProductoId_thenThrowProductoNotFoundException() {
         when(inventarioRepository.findById(anyLong())).thenReturn(Optional.of(inventario));
-        when(productoFeignClient.getProductoById(anyLong())).thenReturn(Optional.empty());
+        when(productoCache.getProductoByIdAsync(anyLong())).thenReturn(CompletableFuture.completedFuture(Optional.empty()));
 
         assertThrows(ProductoNotFoundException.class, () -> inventarioService.getInventarioByProductoId(1L));
         verify(inventarioRepository, times(1)).findById(1L);
-        verify(productoFeignClient, times(1)).getProductoById(1L);
+        verify(productoCache, times(1)).getProductoByIdAsync(1L);
+    }
+
+    @Test
+    @DisplayName("Debe propagar el error original del servicio de productos al consultar el inventario")
+    void givenErrorRemoto_whenGetInventarioByProductoId_thenPropagateException() {
+        when(inventarioRepository.findById(anyLong())).thenReturn(Optional.of(inventario));
+        when(productoCache.getProductoByIdAsync(anyLong())).thenReturn(CompletableFuture.failedFuture(new IllegalStateException("servicio caído")));
+
+        IllegalStateException thrown = assertThrows(IllegalStateException.class, () -> inventarioService.getInventarioByProductoId(1L));
+        assertEquals("servicio caído", thrown.getMessage());
+    }
+
+    @Test
+    @DisplayName("Debe leer el inventario mientras la consulta del producto sigue en curso")
+    void givenConsultaProductoPendiente_whenGetInventarioByProductoId_thenInventarioSeLeeEnParalelo() {
+        CompletableFuture<Optional<ProductoDto>> productoFuturo = new CompletableFuture<>();
+        when(productoCache.getProductoByIdAsync(anyLong())).thenReturn(productoFuturo);
+        when(inventarioRepository.findById(anyLong())).thenAnswer(invocation -> {
+            // La consulta del producto ya se lanzó y no ha terminado: ambas operaciones se solapan
+            verify(productoCache, times(1)).getProductoByIdAsync(1L);
+            assertFalse(productoFuturo.isDone());
+            productoFuturo.complete(Optional.of(productoDto));
+            return Optional.of(inventario);
+        });
+
+        InventarioResponseDto result = inventarioService.getInventarioByProductoId(1L);
+
+        assertEquals(inventarioResponseDto, result);
+        InOrder orden = inOrder(productoCache, inventarioRepository);
+        orden.verify(productoCache).getProductoByIdAsync(1L);
+        orden.verify(inventarioRepository).findById(1L);
     }
 
     @Test
     @DisplayName("Debe realizar una compra exitosamente y actualizar el stock")
     void givenCompraRequest_whenRealizarCompra_thenReturnCompraResponseAndReduceStock() {
         // Given
-        when(productoFeignClient.getProductoById(anyLong())).thenReturn(Optional.of(productoDto));
-        when(inventarioRepository.findById(anyLong())).thenReturn(Optional.of(inventario));
-        // Simula que save devuelve el inventario con la cantidad actualizada
-        when(inventarioRepository.save(any(Inventario.class))).thenAnswer(invocation -> {
-            Inventario savedInventario = invocation.getArgument(0);
-            return savedInventario; // Devuelve el mismo objeto que se pasó, con la cantidad modificada
-        });
+        when(productoCache.getProductoById(anyLong())).thenReturn(Optional.of(productoDto));
+        // Simula el descuento atómico en base de datos: 10 - 5 = 5
+        when(stockService.descontarStock(1L, 5)).thenReturn(Optional.of(5));
 
         // When
         var compraResponse = inventarioService.realizarCompra(compraRequest);
@@ -138,13 +190,10 @@ class InventarioServiceTest {
         assertEquals(compraRequest.getCantidad(), compraResponse.getCantidadComprada());
         assertEquals(productoDto.getPrecio() * compraRequest.getCantidad(), compraResponse.getTotalPagar());
 
-        // Verifica que el stock en el objeto 'inventario' mockeado se redujo
-        assertEquals(5, inventario.getCantidad()); // 10 - 5 = 5
-
-        // Verifica que el método save del repositorio fue llamado una vez
-        verify(inventarioRepository, times(1)).save(inventario); // Se pasó el objeto 'inventario' modificado
-        // Verifica que el evento se publicó
-        verify(eventPublisher, times(1)).publishEvent(any()); // O un matcher más específico para el evento
+        // Verifica que el stock se descontó con una única operación atómica, sin leer la fila antes
+        verify(stockService, times(1)).descontarStock(1L, 5);
+        verify(inventarioRepository, never()).findById(anyLong());
+        verify(inventarioRepository, never()).save(any(Inventario.class));
     }
 
     @Test
@@ -152,8 +201,9 @@ class InventarioServiceTest {
     void givenCompraRequestWithInsufficientStock_whenRealizarCompra_thenThrowStockNotAvailableException() {
         // Given
         compraRequest.setCantidad(15); // Intentar comprar 15, cuando solo hay 10
-        when(productoFeignClient.getProductoById(anyLong())).thenReturn(Optional.of(productoDto));
-        when(inventarioRepository.findById(anyLong())).thenReturn(Optional.of(inventario));
+        when(productoCache.getProductoById(anyLong())).thenReturn(Optional.of(productoDto));
+        when(stockService.descontarStock(1L, 15)).thenReturn(Optional.empty());
+        when(inventarioRepository.findDisponibleByProductoId(anyLong())).thenReturn(Optional.of(10));
 
         // When & Then
         StockNotAvailableException thrown = assertThrows(StockNotAvailableException.class, () -> {
@@ -171,13 +221,13 @@ class InventarioServiceTest {
     @DisplayName("Debe lanzar ProductoNotFoundException si el producto no existe al realizar compra")
     void givenCompraRequest_whenProductoNotFound_thenThrowProductoNotFoundException() {
         // Given
-        when(productoFeignClient.getProductoById(anyLong())).thenReturn(Optional.empty());
+        when(productoCache.getProductoById(anyLong())).thenReturn(Optional.empty());
 
         // When & Then
         assertThrows(ProductoNotFoundException.class, () -> inventarioService.realizarCompra(compraRequest));
 
         // Verificar que no se intentó obtener inventario ni guardar
-        verify(inventarioRepository, never()).findById(anyLong());
+        verify(stockService, never()).descontarStock(anyLong(), anyInt());
         verify(inventarioRepository, never()).save(any(Inventario.class));
         verify(eventPublisher, never()).publishEvent(any());
     }
@@ -186,8 +236,9 @@ class InventarioServiceTest {
     @DisplayName("Debe lanzar InventarioNotFoundException si el inventario no está inicializado al realizar compra")
     void givenProductoExistsButInventarioNotFound_whenRealizarCompra_thenThrowInventarioNotFoundException() {
         // Given
-        when(productoFeignClient.getProductoById(anyLong())).thenReturn(Optional.of(productoDto));
-        when(inventarioRepository.findById(anyLong())).thenReturn(Optional.empty());
+        when(productoCache.getProductoById(anyLong())).thenReturn(Optional.of(productoDto));
+        when(stockService.descontarStock(1L, 5)).thenReturn(Optional.empty());
+        when(inventarioRepository.findDisponibleByProductoId(anyLong())).thenReturn(Optional.empty());
 
         // When & Then
         assertThrows(InventarioNotFoundException.class, () -> inventarioService.realizarCompra(compraRequest));
@@ -204,7 +255,7 @@ class InventarioServiceTest {
         when(inventarioRepository.findById(anyLong())).thenReturn(Optional.of(inventario));
 
         // Configurar el mock del cliente Feign para devolver el ProductoDto
-        when(productoFeignClient.getProductoById(anyLong())).thenReturn(Optional.of(productoDto));
+        when(productoCache.getProductoByIdAsync(anyLong())).thenReturn(CompletableFuture.completedFuture(Optional.of(productoDto)));
 
         InventarioResponseDto result = inventarioService.getInventarioByProductoId(1L);
 
@@ -217,36 +268,37 @@ class InventarioServiceTest {
 
         // Verificar que el método findById del repositorio fue llamado una vez con el ID correcto
         verify(inventarioRepository, times(1)).findById(1L);
-        // Verificar que el método getProductoById del cliente Feign fue llamado una vez con el ID correcto
-        verify(productoFeignClient, times(1)).getProductoById(1L);
+        // Verificar que la consulta del producto se lanzó una vez con el ID correcto
+        verify(productoCache, times(1)).getProductoByIdAsync(1L);
     }
 
     @Test
-    @DisplayName("Debe lanzar excepción si no se encuentra el inventario (y por tanto no se llama a productos)")
-    void givenNonExistingInventario_whenGetInventarioByProductoId_thenThrowInventarioNotFoundExceptionAndNoProductCall() {
-        // Configurar el mock del repositorio para devolver Optional.empty()
+    @DisplayName("Debe lanzar excepción si no se encuentra el inventario sin esperar la consulta de productos")
+    void givenNonExistingInventario_whenGetInventarioByProductoId_thenThrowInventarioNotFoundExceptionWithoutWaitingForProduct() {
+        // La consulta del producto nunca termina: si el servicio la esperara, la prueba no acabaría
+        CompletableFuture<Optional<ProductoDto>> productoFuturo = new CompletableFuture<>();
+        when(productoCache.getProductoByIdAsync(anyLong())).thenReturn(productoFuturo);
         when(inventarioRepository.findById(anyLong())).thenReturn(Optional.empty());
 
-        // Asegurarse de que se lanza la excepción InventarioNotFoundException
-        assertThrows(InventarioNotFoundException.class, () -> inventarioService.getInventarioByProductoId(1L));
+        // Asegurarse de que se lanza la excepción InventarioNotFoundException sin quedarse esperando
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () ->
+                assertThrows(InventarioNotFoundException.class, () -> inventarioService.getInventarioByProductoId(1L)));
 
         // Verificar que el método findById del repositorio fue llamado
         verify(inventarioRepository, times(1)).findById(1L);
-        // Verificar que el método getProductoById del cliente Feign NUNCA fue llamado
-        verify(productoFeignClient, never()).getProductoById(anyLong());
+        // Verificar que solo se lanzó la consulta asíncrona, que sigue pendiente
+        verify(productoCache, times(1)).getProductoByIdAsync(1L);
+        verifyNoMoreInteractions(productoCache);
+        assertFalse(productoFuturo.isDone());
     }
 
     @Test
     @DisplayName("Debe realizar una compra exitosamente, reducir stock y llamar a productos para info")
     void givenCompraRequest_whenRealizarCompra_thenReturnCompraResponseAndReduceStockAndCallProductService() {
         // Given
-        when(productoFeignClient.getProductoById(anyLong())).thenReturn(Optional.of(productoDto));
-        when(inventarioRepository.findById(anyLong())).thenReturn(Optional.of(inventario));
-        // Simula que save devuelve el inventario con la cantidad actualizada
-        when(inventarioRepository.save(any(Inventario.class))).thenAnswer(invocation -> {
-            Inventario savedInventario = invocation.getArgument(0);
-            return savedInventario; // Devuelve el mismo objeto que se pasó, con la cantidad modificada
-        });
+        when(productoCache.getProductoById(anyLong())).thenReturn(Optional.of(productoDto));
+        // Simula el descuento atómico en base de datos: 10 - 5 = 5
+        when(stockService.descontarStock(1L, 5)).thenReturn(Optional.of(5));
 
         // When
         CompraResponse compraResponse = inventarioService.realizarCompra(compraRequest);
@@ -258,32 +310,27 @@ class InventarioServiceTest {
         assertEquals(compraRequest.getCantidad(), compraResponse.getCantidadComprada());
         assertEquals(productoDto.getPrecio() * compraRequest.getCantidad(), compraResponse.getTotalPagar());
 
-        // Verificar que el stock en el objeto 'inventario' mockeado se redujo
-        assertEquals(5, inventario.getCantidad()); // 10 - 5 = 5
-
         // Verificar que el método getProductoById del cliente Feign fue llamado una vez
-        verify(productoFeignClient, times(1)).getProductoById(productoDto.getId());
-        // Verificar que el método save del repositorio fue llamado una vez
-        verify(inventarioRepository, times(1)).save(inventario);
-        // Verificar que el evento se publicó
-        verify(eventPublisher, times(1)).publishEvent(any());
+        verify(productoCache, times(1)).getProductoById(productoDto.getId());
+        // Verificar que el stock se descontó de forma atómica
+        verify(stockService, times(1)).descontarStock(1L, 5);
     }
 
     @Test
     @DisplayName("Debe lanzar ProductoNotFoundException si el producto no existe al realizar compra")
     void givenCompraRequest_whenProductoNotFoundOnRealizarCompra_thenThrowProductoNotFoundException() {
         // Given: El cliente Feign devuelve Optional.empty() para el producto
-        when(productoFeignClient.getProductoById(anyLong())).thenReturn(Optional.empty());
+        when(productoCache.getProductoById(anyLong())).thenReturn(Optional.empty());
 
         // When & Then: Se espera que se lance ProductoNotFoundException
         assertThrows(ProductoNotFoundException.class, () -> inventarioService.realizarCompra(compraRequest));
 
         // Verificar que el repositorio de inventario NUNCA fue consultado o modificado
-        verify(inventarioRepository, never()).findById(anyLong());
+        verify(stockService, never()).descontarStock(anyLong(), anyInt());
         verify(inventarioRepository, never()).save(any(Inventario.class));
         verify(eventPublisher, never()).publishEvent(any());
         // Verificar que el cliente Feign fue llamado
-        verify(productoFeignClient, times(1)).getProductoById(productoDto.getId());
+        verify(productoCache, times(1)).getProductoById(productoDto.getId());
     }
 
     @Test
@@ -299,10 +346,11 @@ class InventarioServiceTest {
 
         // Verificar el mensaje de la excepción
         assertEquals("Inventario no encontrado para el producto con ID: 99", thrown.getMessage());
-        // Verificar que solo se llamó al repositorio de inventario
+        // Verificar que se llamó al repositorio de inventario
         verify(inventarioRepository, times(1)).findById(99L);
-        // Verificar que el cliente Feign NO fue llamado
-        verify(productoFeignClient, never()).getProductoById(anyLong());
+        // Verificar que solo se lanzó la consulta asíncrona del producto, sin otras llamadas a la caché
+        verify(productoCache, times(1)).getProductoByIdAsync(99L);
+        verifyNoMoreInteractions(productoCache);
     }
 
     @Test
@@ -311,7 +359,7 @@ class InventarioServiceTest {
         // Given: El repositorio de inventario devuelve un Inventario
         when(inventarioRepository.findById(anyLong())).thenReturn(Optional.of(inventario));
         // Given: El cliente Feign devuelve Optional.empty() para el producto
-        when(productoFeignClient.getProductoById(anyLong())).thenReturn(Optional.empty());
+        when(productoCache.getProductoByIdAsync(anyLong())).thenReturn(CompletableFuture.completedFuture(Optional.empty()));
 
         // When & Then: Verificar que se lanza la excepción correcta
         ProductoNotFoundException thrown = assertThrows(ProductoNotFoundException.class, () ->
@@ -322,14 +370,14 @@ class InventarioServiceTest {
         assertEquals("Producto no encontrado en el servicio de productos con ID: 1", thrown.getMessage());
         // Verificar que se llamó a ambos (repositorio de inventario y cliente Feign)
         verify(inventarioRepository, times(1)).findById(1L);
-        verify(productoFeignClient, times(1)).getProductoById(1L);
+        verify(productoCache, times(1)).getProductoByIdAsync(1L);
     }
 
     @Test
     @DisplayName("Debe lanzar ProductoNotFoundException si el producto no existe al intentar realizar una compra")
     void givenNonExistingProductForPurchase_whenRealizarCompra_thenThrowProductoNotFoundException() {
         // Given: El cliente Feign devuelve Optional.empty() para el producto
-        when(productoFeignClient.getProductoById(anyLong())).thenReturn(Optional.empty());
+        when(productoCache.getProductoById(anyLong())).thenReturn(Optional.empty());
 
         // When & Then: Verificar que se lanza la excepción correcta
         ProductoNotFoundException thrown = assertThrows(ProductoNotFoundException.class, () ->
@@ -339,8 +387,8 @@ class InventarioServiceTest {
         // Verificar el mensaje de la excepción
         assertEquals("Producto no encontrado en el servicio de productos con ID: " + compraRequest.getProductoId(), thrown.getMessage());
         // Verificar que solo se llamó al cliente Feign y no se procedió con la lógica de inventario
-        verify(productoFeignClient, times(1)).getProductoById(compraRequest.getProductoId());
-        verify(inventarioRepository, never()).findById(anyLong());
+        verify(productoCache, times(1)).getProductoById(compraRequest.getProductoId());
+        verify(stockService, never()).descontarStock(anyLong(), anyInt());
         verify(inventarioRepository, never()).save(any(Inventario.class));
         verify(eventPublisher, never()).publishEvent(any());
     }
@@ -349,9 +397,10 @@ class InventarioServiceTest {
     @DisplayName("Debe lanzar InventarioNotFoundException si el inventario no está inicializado al intentar realizar una compra")
     void givenProductExistsButInventarioNotInitializedForPurchase_whenRealizarCompra_thenThrowInventarioNotFoundException() {
         // Given: El cliente Feign encuentra el producto
-        when(productoFeignClient.getProductoById(anyLong())).thenReturn(Optional.of(productoDto));
-        // Given: Pero el repositorio de inventario devuelve Optional.empty()
-        when(inventarioRepository.findById(anyLong())).thenReturn(Optional.empty());
+        when(productoCache.getProductoById(anyLong())).thenReturn(Optional.of(productoDto));
+        // Given: Pero el descuento no se aplica porque el inventario no existe
+        when(stockService.descontarStock(1L, 5)).thenReturn(Optional.empty());
+        when(inventarioRepository.findDisponibleByProductoId(anyLong())).thenReturn(Optional.empty());
 
         // When & Then: Verificar que se lanza la excepción correcta
         InventarioNotFoundException thrown = assertThrows(InventarioNotFoundException.class, () ->
@@ -361,8 +410,8 @@ class InventarioServiceTest {
         // Verificar el mensaje de la excepción
         assertEquals("Inventario no inicializado para el producto con ID: " + compraRequest.getProductoId(), thrown.getMessage());
         // Verificar que se llamó al cliente Feign y al repositorio de inventario, pero no se guardó ni se publicó evento
-        verify(productoFeignClient, times(1)).getProductoById(compraRequest.getProductoId());
-        verify(inventarioRepository, times(1)).findById(compraRequest.getProductoId());
+        verify(productoCache, times(1)).getProductoById(compraRequest.getProductoId());
+        verify(inventarioRepository, times(1)).findDisponibleByProductoId(compraRequest.getProductoId());
         verify(inventarioRepository, never()).save(any(Inventario.class));
         verify(eventPublisher, never()).publishEvent(any());
     }
@@ -373,9 +422,10 @@ class InventarioServiceTest {
         // Given: Configurar la solicitud para exceder el stock actual (10)
         compraRequest.setCantidad(15);
         // Given: El cliente Feign encuentra el producto
-        when(productoFeignClient.getProductoById(anyLong())).thenReturn(Optional.of(productoDto));
-        // Given: El repositorio de inventario encuentra el inventario con 10 unidades
-        when(inventarioRepository.findById(anyLong())).thenReturn(Optional.of(inventario));
+        when(productoCache.getProductoById(anyLong())).thenReturn(Optional.of(productoDto));
+        // Given: El descuento atómico no se aplica y el inventario tiene 10 unidades
+        when(stockService.descontarStock(1L, 15)).thenReturn(Optional.empty());
+        when(inventarioRepository.findDisponibleByProductoId(anyLong())).thenReturn(Optional.of(10));
 
         // When & Then: Verificar que se lanza la excepción correcta
         StockNotAvailableException thrown = assertThrows(StockNotAvailableException.class, () ->
@@ -385,9 +435,127 @@ class InventarioServiceTest {
         // Verificar el mensaje de la excepción
         assertEquals("No hay suficiente stock para el producto Producto de prueba. Stock disponible: 10, Cantidad solicitada: 15", thrown.getMessage());
         // Verificar que se llamó al cliente Feign y al repositorio de inventario, pero no se guardó ni se publicó evento
-        verify(productoFeignClient, times(1)).getProductoById(compraRequest.getProductoId());
-        verify(inventarioRepository, times(1)).findById(compraRequest.getProductoId());
+        verify(productoCache, times(1)).getProductoById(compraRequest.getProductoId());
+        verify(inventarioRepository, times(1)).findDisponibleByProductoId(compraRequest.getProductoId());
         verify(inventarioRepository, never()).save(any(Inventario.class));
         verify(eventPublisher, never()).publishEvent(any());
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Debe realizar una compra por lote, sumando líneas repetidas y resolviendo los productos en una sola pasada")
+    void givenCompraLoteRequest_whenRealizarCompraLote_thenReturnAggregatedResponse() {
+        // Given: dos líneas del producto 1 y una del producto 2
+        ProductoDto otroProducto = new ProductoDto(2L, "Otro producto", "Otra descripción", 50.0);
+        CompraLoteRequest compraLoteRequest = new CompraLoteRequest(List.of(
+                new CompraRequest(1L, 2), new CompraRequest(2L, 4), new CompraRequest(1L, 3)));
+        when(productoCache.getProductosByIds(Set.of(1L, 2L))).thenReturn(Map.of(1L, productoDto, 2L, otroProducto));
+        when(stockService.descontarStockLote(any())).thenReturn(Map.of(1L, 5, 2L, 6));
+
+        // When
+        CompraLoteResponse compraLoteResponse = inventarioService.realizarCompraLote(compraLoteRequest);
+
+        // Then
+        assertEquals(2, compraLoteResponse.getLineas().size());
+        assertEquals(5, compraLoteResponse.getLineas().get(0).getCantidadComprada());
+        assertEquals(4, compraLoteResponse.getLineas().get(1).getCantidadComprada());
+        assertEquals(9, compraLoteResponse.getCantidadTotal());
+        assertEquals(100.0 * 5 + 50.0 * 4, compraLoteResponse.getTotalPagar());
+        verify(productoCache, times(1)).getProductosByIds(Set.of(1L, 2L));
+        verify(productoCache, times(1)).comprobarParaCompra(productoDto);
+        verify(productoCache, times(1)).comprobarParaCompra(otroProducto);
+        verifyNoMoreInteractions(productoCache);
+        verify(stockService, times(1)).descontarStockLote(new TreeMap<>(Map.of(1L, 5, 2L, 4)));
+    }
+
+    @Test
+    @DisplayName("Debe lanzar ProductoNotFoundException y no descontar nada si algún producto del lote no existe")
+    void givenCompraLoteWithUnknownProduct_whenRealizarCompraLote_thenThrowProductoNotFoundException() {
+        CompraLoteRequest compraLoteRequest = new CompraLoteRequest(List.of(new CompraRequest(1L, 2), new CompraRequest(2L, 4)));
+        when(productoCache.getProductosByIds(Set.of(1L, 2L))).thenReturn(Map.of(1L, productoDto));
+
+        ProductoNotFoundException thrown = assertThrows(ProductoNotFoundException.class, () ->
+                inventarioService.realizarCompraLote(compraLoteRequest));
+
+        assertEquals("Producto no encontrado en el servicio de productos con ID: 2", thrown.getMessage());
+        verify(stockService, never()).descontarStockLote(any());
+    }
+
+    @Test
+    @DisplayName("Debe lanzar StockNotAvailableException con el detalle de la línea que no tiene stock suficiente")
+    void givenCompraLoteWithInsufficientStock_whenRealizarCompraLote_thenThrowStockNotAvailableException() {
+        CompraLoteRequest compraLoteRequest = new CompraLoteRequest(List.of(new CompraRequest(1L, 15)));
+        when(productoCache.getProductosByIds(Set.of(1L))).thenReturn(Map.of(1L, productoDto));
+        when(stockService.descontarStockLote(any())).thenThrow(new StockService.LineaRechazadaException(1L));
+        when(inventarioRepository.findDisponibleByProductoId(1L)).thenReturn(Optional.of(10));
+
+        StockNotAvailableException thrown = assertThrows(StockNotAvailableException.class, () ->
+                inventarioService.realizarCompraLote(compraLoteRequest));
+
+        assertEquals("No hay suficiente stock para el producto Producto de prueba. Stock disponible: 10, Cantidad solicitada: 15", thrown.getMessage());
+    }
+
+    @Test
+    @DisplayName("Debe rechazar un lote vacío o con cantidades no positivas")
+    void givenInvalidCompraLote_whenRealizarCompraLote_thenThrowIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class, () ->
+                inventarioService.realizarCompraLote(new CompraLoteRequest(List.of())));
+        assertThrows(IllegalArgumentException.class, () ->
+                inventarioService.realizarCompraLote(new CompraLoteRequest(List.of(new CompraRequest(1L, 0)))));
+
+        verifyNoInteractions(productoCache, stockService);
+    }
+
+    @Test
+    @DisplayName("Debe devolver el inventario de varios productos con un estado por cada ID solicitado")
+    void givenVariosProductoIds_whenGetInventariosByProductoIds_thenReturnEstadoPorProducto() {
+        Inventario inventarioSinProducto = new Inventario(2L, 7);
+        when(inventarioRepository.findAllById(List.of(1L, 2L, 3L))).thenReturn(List.of(inventario, inventarioSinProducto));
+        when(productoCache.getProductosByIds(Set.of(1L, 2L))).thenReturn(Map.of(1L, productoDto));
+
+        List<InventarioConsultaDto> resultado = inventarioService.getInventariosByProductoIds(List.of(1L, 2L, 3L));
+
+        assertEquals(List.of(
+                new InventarioConsultaDto(1L, InventarioConsultaDto.Estado.ENCONTRADO, inventarioResponseDto),
+                new InventarioConsultaDto(2L, InventarioConsultaDto.Estado.PRODUCTO_NO_ENCONTRADO, null),
+                new InventarioConsultaDto(3L, InventarioConsultaDto.Estado.INVENTARIO_NO_ENCONTRADO, null)
+        ), resultado);
+        verify(inventarioRepository, times(1)).findAllById(any());
+        verify(productoCache, times(1)).getProductosByIds(any());
+        verifyNoMoreInteractions(productoCache);
+    }
+
+    @Test
+    @DisplayName("No debe consultar productos si ninguno de los IDs tiene inventario")
+    void givenSinInventarios_whenGetInventariosByProductoIds_thenNoProductLookup() {
+        when(inventarioRepository.findAllById(List.of(5L))).thenReturn(List.of());
+
+        List<InventarioConsultaDto> resultado = inventarioService.getInventariosByProductoIds(List.of(5L));
+
+        assertEquals(List.of(new InventarioConsultaDto(5L, InventarioConsultaDto.Estado.INVENTARIO_NO_ENCONTRADO, null)), resultado);
+        verifyNoInteractions(productoCache);
+    }
+
+    @Test
+    @DisplayName("Debe rechazar una consulta múltiple vacía o que supera el máximo de IDs")
+    void givenInvalidProductoIds_whenGetInventariosByProductoIds_thenThrowIllegalArgumentException() {
+        ReflectionTestUtils.setField(inventarioService, "maxIdsConsultaLote", 2);
+
+        assertThrows(IllegalArgumentException.class, () -> inventarioService.getInventariosByProductoIds(List.of()));
+        assertThrows(IllegalArgumentException.class, () -> inventarioService.getInventariosByProductoIds(List.of(1L, 2L, 3L)));
+
+        verifyNoInteractions(inventarioRepository, productoCache);
+    }
+
+    @Test
+    @DisplayName("Debe enviar al secuenciador las compras de productos en modo SKU caliente")
+    void givenProductoCaliente_whenRealizarCompra_thenUsaSecuenciador() {
+        when(productoCache.getProductoById(anyLong())).thenReturn(Optional.of(productoDto));
+        when(secuenciadorCompras.gestiona(1L)).thenReturn(true);
+        when(secuenciadorCompras.descontarStock(1L, 5)).thenReturn(Optional.of(5));
+
+        CompraResponse compraResponse = inventarioService.realizarCompra(compraRequest);
+
+        assertEquals(5, compraResponse.getCantidadComprada());
+        verify(stockService, never()).descontarStock(anyLong(), anyInt());
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.Inventario.service;
+
+import com.example.Inventario.dto.PaginaInventarioResponse;
+import com.example.Inventario.model.Inventario;
+import com.example.Inventario.repository.InventarioRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Ejercita el listado paginado por búsqueda de clave contra H2.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "inventario.listado.limite-maximo=10"
+})
+@ActiveProfiles("test")
+class ListadoInventarioTest {
+
+    @Autowired
+    private InventarioService inventarioService;
+
+    @Autowired
+    private InventarioRepository inventarioRepository;
+
+    @BeforeEach
+    void setUp() {
+        inventarioRepository.deleteAll();
+        // Productos 1..9 con cantidad igual a su ID multiplicado por 10.
+        for (long productoId = 9; productoId >= 1; productoId--) {
+            inventarioRepository.save(new Inventario(productoId, (int) productoId * 10));
+        }
+    }
+
+    @Test
+    @DisplayName("Debe recorrer todos los inventarios en orden, página a página, hasta una última página sin siguiente")
+    void givenVariasPaginas_whenListar_thenRecorreTodosEnOrden() {
+        List<Long> recorridos = new ArrayList<>();
+        List<Long> paginas = new ArrayList<>();
+        Long desde = null;
+        do {
+            PaginaInventarioResponse pagina = inventarioService.listarInventarios(desde, null, null, null, 4);
+            pagina.getInventarios().forEach(inventario -> recorridos.add(inventario.getProductoId()));
+            paginas.add((long) pagina.getInventarios().size());
+            desde = pagina.getSiguienteDesde();
+        } while (desde != null);
+
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L), recorridos);
+        assertEquals(List.of(4L, 4L, 1L), paginas);
+    }
+
+    @Test
+    @DisplayName("Debe filtrar por rango de cantidad y por umbral de stock bajo")
+    void givenRangoDeCantidad_whenListar_thenSoloDevuelveLosInventariosDelRango() {
+        PaginaInventarioResponse rango = inventarioService.listarInventarios(null, null, 30, 60, 10);
+        PaginaInventarioResponse stockBajo = inventarioService.listarInventarios(1L, 10, null, 25, 10);
+
+        assertEquals(List.of(3L, 4L, 5L, 6L), rango.getInventarios().stream().map(Inventario::getProductoId).toList());
+        assertNull(rango.getSiguienteDesde());
+        assertEquals(List.of(2L), stockBajo.getInventarios().stream().map(Inventario::getProductoId).toList());
+    }
+
+    @Test
+    @DisplayName("Al filtrar por cantidad debe paginar por cantidad y producto, sin saltar ni repetir inventarios con la misma cantidad")
+    void givenCantidadesRepetidas_whenListarFiltrado_thenPaginaPorCantidadYProducto() {
+        inventarioRepository.save(new Inventario(20L, 20));
+        inventarioRepository.save(new Inventario(11L, 20));
+        inventarioRepository.save(new Inventario(10L, 10));
+
+        List<Long> recorridos = new ArrayList<>();
+        Long desde = null;
+        Integer desdeCantidad = null;
+        do {
+            PaginaInventarioResponse pagina = inventarioService.listarInventarios(desde, desdeCantidad, 10, 30, 2);
+            pagina.getInventarios().forEach(inventario -> recorridos.add(inventario.getProductoId()));
+            desde = pagina.getSiguienteDesde();
+            desdeCantidad = pagina.getSiguienteDesdeCantidad();
+        } while (desde != null);
+
+        assertEquals(List.of(1L, 10L, 2L, 11L, 20L, 3L), recorridos);
+    }
+
+    @Test
+    @DisplayName("Debe rechazar un límite fuera de rango o un rango de cantidad invertido")
+    void givenParametrosInvalidos_whenListar_thenLanzaIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class, () -> inventarioService.listarInventarios(null, null, null, null, 0));
+        assertThrows(IllegalArgumentException.class, () -> inventarioService.listarInventarios(null, null, null, null, 11));
+        assertThrows(IllegalArgumentException.class, () -> inventarioService.listarInventarios(null, null, 50, 10, 5));
+        assertThrows(IllegalArgumentException.class, () -> inventarioService.listarInventarios(null, 10, null, null, 5));
+        assertThrows(IllegalArgumentException.class, () -> inventarioService.listarInventarios(3L, null, null, 40, 5));
+    }
+}
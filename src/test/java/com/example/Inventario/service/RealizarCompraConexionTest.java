@@ -0,0 +1,76 @@
+package com.example.Inventario.service;
+
+import com.example.Inventario.client.ProductoCache;
+import com.example.Inventario.dto.ProductoDto;
+import com.example.Inventario.model.Inventario;
+import com.example.Inventario.repository.InventarioRepository;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.sql.DataSource;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Verifica que la compra no retiene una conexión del pool mientras espera al servicio de productos.
+ * <p>
+ * El relay de la tabla outbox se desactiva porque sus ciclos periódicos también toman conexiones del pool.
+ */
+@SpringBootTest(properties = "inventario.outbox.relay.habilitado=false")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class RealizarCompraConexionTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private InventarioRepository inventarioRepository;
+
+    @MockBean
+    private ProductoCache productoCache;
+
+    @BeforeEach
+    void setUp() {
+        inventarioRepository.deleteAll();
+        inventarioRepository.save(new Inventario(1L, 10));
+    }
+
+    @Test
+    @DisplayName("No debe haber conexiones activas mientras se consulta el servicio de productos")
+    void givenCompra_whenConsultaProductoRemoto_thenNoConnectionCheckedOut() throws Exception {
+        HikariDataSource hikari = dataSource.unwrap(HikariDataSource.class);
+        AtomicInteger conexionesActivasDuranteLlamada = new AtomicInteger(-1);
+        when(productoCache.getProductoById(anyLong())).thenAnswer(invocation -> {
+            conexionesActivasDuranteLlamada.set(hikari.getHikariPoolMXBean().getActiveConnections());
+            return Optional.of(new ProductoDto(1L, "Producto de prueba", "Descripción de prueba", 100.0));
+        });
+
+        mockMvc.perform(post("/api/inventario/comprar")
+                        .header("X-API-KEY", "inventario_secreta_54321")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"productoId\": 1, \"cantidad\": 2}"))
+                .andExpect(status().isOk());
+
+        assertEquals(0, conexionesActivasDuranteLlamada.get());
+        assertEquals(8, inventarioRepository.findCantidadByProductoId(1L).orElseThrow());
+    }
+}
@@ -0,0 +1,174 @@
+package com.example.Inventario.service;
+
+import com.example.Inventario.client.ProductoCache;
+import com.example.Inventario.dto.CompraRequest;
+import com.example.Inventario.dto.CompraResponse;
+import com.example.Inventario.dto.ProductoDto;
+import com.example.Inventario.dto.ReservaRequest;
+import com.example.Inventario.dto.ReservaResponse;
+import com.example.Inventario.exception.ReservaNotFoundException;
+import com.example.Inventario.exception.StockNotAvailableException;
+import com.example.Inventario.model.Inventario;
+import com.example.Inventario.model.Reserva;
+import com.example.Inventario.repository.InventarioRepository;
+import com.example.Inventario.repository.ReservaRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Instant;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.when;
+
+/**
+ * Ejercita el ciclo de vida de las reservas contra H2: reservar, confirmar, liberar, expirar y recuperar.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "inventario.reservas.rueda.tick=20ms"
+})
+@ActiveProfiles("test")
+class ReservaServiceTest {
+
+    @Autowired
+    private ReservaService reservaService;
+
+    @Autowired
+    private InventarioService inventarioService;
+
+    @Autowired
+    private InventarioRepository inventarioRepository;
+
+    @Autowired
+    private ReservaRepository reservaRepository;
+
+    @MockBean
+    private ProductoCache productoCache;
+
+    @BeforeEach
+    void setUp() {
+        ProductoDto productoDto = new ProductoDto(1L, "Producto de prueba", "Descripción de prueba", 100.0);
+        when(productoCache.getProductoById(anyLong())).thenReturn(Optional.of(productoDto));
+        reservaRepository.deleteAll();
+        inventarioRepository.deleteAll();
+        inventarioRepository.save(new Inventario(1L, 10));
+    }
+
+    @Test
+    @DisplayName("Las unidades reservadas no deben poder comprarse y al confirmar la reserva deben venderse")
+    void givenReserva_whenCompraYConfirmar_thenReservaProtegeElStock() {
+        ReservaResponse reserva = reservaService.reservar(new ReservaRequest(1L, 8, null));
+
+        assertEquals(2, inventarioRepository.findDisponibleByProductoId(1L).orElseThrow());
+        assertThrows(StockNotAvailableException.class, () -> inventarioService.realizarCompra(new CompraRequest(1L, 3)));
+
+        CompraResponse compra = reservaService.confirmar(reserva.getReservaId());
+
+        assertEquals(8, compra.getCantidadComprada());
+        assertEquals(800.0, compra.getTotalPagar());
+        Inventario inventario = inventarioRepository.findById(1L).orElseThrow();
+        assertEquals(2, inventario.getCantidad());
+        assertEquals(0, inventario.getReservada());
+        assertThrows(ReservaNotFoundException.class, () -> reservaService.confirmar(reserva.getReservaId()));
+    }
+
+    @Test
+    @DisplayName("Debe rechazar una reserva que supera las unidades disponibles")
+    void givenStockInsuficiente_whenReservar_thenStockNotAvailable() {
+        reservaService.reservar(new ReservaRequest(1L, 6, null));
+
+        StockNotAvailableException thrown = assertThrows(StockNotAvailableException.class,
+                () -> reservaService.reservar(new ReservaRequest(1L, 5, null)));
+
+        assertEquals("No hay suficiente stock para el producto Producto de prueba. Stock disponible: 4, Cantidad solicitada: 5", thrown.getMessage());
+    }
+
+    @Test
+    @DisplayName("Liberar una reserva debe devolver sus unidades al stock disponible")
+    void givenReserva_whenLiberar_thenStockDisponibleRestaurado() {
+        ReservaResponse reserva = reservaService.reservar(new ReservaRequest(1L, 4, null));
+
+        reservaService.liberar(reserva.getReservaId());
+
+        assertEquals(10, inventarioRepository.findDisponibleByProductoId(1L).orElseThrow());
+        assertFalse(reservaRepository.existsById(reserva.getReservaId()));
+        assertThrows(ReservaNotFoundException.class, () -> reservaService.liberar(reserva.getReservaId()));
+    }
+
+    @Test
+    @DisplayName("Una reserva no confirmada debe liberarse sola al expirar")
+    void givenReservaSinConfirmar_whenExpira_thenStockDisponibleRestaurado() throws InterruptedException {
+        ReservaResponse reserva = reservaService.reservar(new ReservaRequest(1L, 4, 1L));
+        assertEquals(6, inventarioRepository.findDisponibleByProductoId(1L).orElseThrow());
+
+        esperarDisponible(10);
+
+        assertFalse(reservaRepository.existsById(reserva.getReservaId()));
+        assertThrows(ReservaNotFoundException.class, () -> reservaService.confirmar(reserva.getReservaId()));
+    }
+
+    @Test
+    @DisplayName("Las reservas guardadas deben volver a programarse tras un reinicio")
+    void givenReservasGuardadas_whenRecuperar_thenExpiranSegunSuPlazo() throws InterruptedException {
+        // Simula reservas creadas por una instancia anterior, sin temporizador en esta.
+        inventarioRepository.deleteAll();
+        inventarioRepository.save(new Inventario(1L, 10, 5));
+        reservaRepository.save(new Reserva(1L, 2, Instant.now().minusSeconds(1)));
+        reservaRepository.save(new Reserva(1L, 3, Instant.now().plusSeconds(1)));
+
+        assertEquals(2, reservaService.recuperar());
+
+        esperarDisponible(10);
+        assertEquals(0, reservaRepository.count());
+    }
+
+    @Test
+    @DisplayName("El barrido periódico debe liberar las reservas vencidas de instancias que ya no están en marcha")
+    void givenReservasVencidasSinTemporizador_whenBarrerVencidas_thenSeLiberan() {
+        // Simula reservas de una instancia detenida: están en la tabla pero ninguna rueda las programó.
+        inventarioRepository.deleteAll();
+        inventarioRepository.save(new Inventario(1L, 10, 5));
+        reservaRepository.save(new Reserva(1L, 2, Instant.now().minusSeconds(60)));
+        reservaRepository.save(new Reserva(1L, 3, Instant.now().plusSeconds(60)));
+
+        assertEquals(1, reservaService.barrerVencidas());
+
+        assertEquals(1, reservaRepository.count());
+        assertEquals(3, inventarioRepository.findById(1L).orElseThrow().getReservada());
+        assertEquals(0, reservaService.barrerVencidas());
+    }
+
+    @Test
+    @DisplayName("No debe permitir fijar una cantidad menor que las unidades reservadas")
+    void givenReserva_whenUpdateInventarioPorDebajo_thenStockNotAvailable() {
+        reservaService.reservar(new ReservaRequest(1L, 6, null));
+
+        assertThrows(StockNotAvailableException.class, () -> inventarioService.updateInventario(1L, 5, null));
+        assertThrows(StockNotAvailableException.class, () -> inventarioService.inicializarInventario(1L, 5));
+
+        inventarioService.updateInventario(1L, 6, null);
+        assertEquals(0, inventarioRepository.findDisponibleByProductoId(1L).orElseThrow());
+    }
+
+    @Test
+    @DisplayName("Debe rechazar una duración de reserva fuera de rango")
+    void givenTtlInvalido_whenReservar_thenIllegalArgument() {
+        assertThrows(IllegalArgumentException.class, () -> reservaService.reservar(new ReservaRequest(1L, 1, 0L)));
+        assertThrows(IllegalArgumentException.class, () -> reservaService.reservar(new ReservaRequest(1L, 1, 7200L)));
+    }
+
+    private void esperarDisponible(int esperado) throws InterruptedException {
+        long limite = System.currentTimeMillis() + 5000;
+        while (inventarioRepository.findDisponibleByProductoId(1L).orElseThrow() != esperado
+                && System.currentTimeMillis() < limite) {
+            Thread.sleep(50);
+        }
+        assertEquals(esperado, inventarioRepository.findDisponibleByProductoId(1L).orElseThrow());
+    }
+}
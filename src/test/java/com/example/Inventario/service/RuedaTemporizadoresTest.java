@@ -0,0 +1,61 @@
+package com.example.Inventario.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RuedaTemporizadoresTest {
+
+    private final Map<String, Long> vencidos = new ConcurrentHashMap<>();
+    private final CountDownLatch esperados = new CountDownLatch(2);
+    private final long inicio = System.nanoTime();
+
+    // Rueda pequeña para que los plazos largos den varias vueltas.
+    private final RuedaTemporizadores<String> rueda = new RuedaTemporizadores<>("rueda-prueba", Duration.ofMillis(10), 8,
+            (List<String> valores) -> valores.forEach(valor -> {
+                vencidos.put(valor, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio));
+                esperados.countDown();
+            }));
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        rueda.detener();
+    }
+
+    @Test
+    @DisplayName("Debe vencer cada temporizador después de su plazo, también los que dan varias vueltas a la rueda")
+    void givenTemporizadores_whenVencen_thenNuncaAntesDeSuPlazo() throws InterruptedException {
+        rueda.programar("corto", Duration.ofMillis(30));
+        rueda.programar("largo", Duration.ofMillis(250));
+        assertEquals(2, rueda.pendientes());
+
+        assertTrue(esperados.await(5, TimeUnit.SECONDS));
+
+        assertTrue(vencidos.get("corto") >= 30, "venció a los " + vencidos.get("corto") + " ms");
+        assertTrue(vencidos.get("largo") >= 250, "venció a los " + vencidos.get("largo") + " ms");
+        assertEquals(0, rueda.pendientes());
+    }
+
+    @Test
+    @DisplayName("No debe entregar un temporizador cancelado")
+    void givenTemporizadorCancelado_whenPasaSuPlazo_thenNoVence() throws InterruptedException {
+        RuedaTemporizadores.Temporizador<String> cancelado = rueda.programar("cancelado", Duration.ofMillis(20));
+        rueda.programar("vigente", Duration.ofMillis(60));
+
+        assertTrue(cancelado.cancelar());
+        assertFalse(cancelado.cancelar());
+        assertEquals(1, rueda.pendientes());
+
+        assertFalse(esperados.await(300, TimeUnit.MILLISECONDS));
+        assertEquals(Map.of("vigente", vencidos.get("vigente")), vencidos);
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.Inventario.service;
+
+import com.example.Inventario.client.ProductoCache;
+import com.example.Inventario.dto.CompraRequest;
+import com.example.Inventario.dto.ProductoDto;
+import com.example.Inventario.exception.StockNotAvailableException;
+import com.example.Inventario.model.Inventario;
+import com.example.Inventario.repository.InventarioRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.when;
+
+/**
+ * Ejercita el modo SKU caliente contra H2: las compras concurrentes de un producto se agrupan en lotes.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "inventario.compras.sku-caliente.habilitado=true",
+        "inventario.compras.sku-caliente.productos=1"
+})
+@ActiveProfiles("test")
+class SecuenciadorComprasTest {
+
+    private static final int STOCK_INICIAL = 100;
+    private static final int COMPRADORES = 300;
+
+    @Autowired
+    private InventarioService inventarioService;
+
+    @Autowired
+    private SecuenciadorCompras secuenciadorCompras;
+
+    @Autowired
+    private InventarioRepository inventarioRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @MockBean
+    private ProductoCache productoCache;
+
+    @BeforeEach
+    void setUp() {
+        ProductoDto productoDto = new ProductoDto(1L, "Producto de prueba", "Descripción de prueba", 100.0);
+        when(productoCache.getProductoById(anyLong())).thenReturn(Optional.of(productoDto));
+        inventarioRepository.deleteAll();
+        inventarioRepository.save(new Inventario(1L, STOCK_INICIAL));
+    }
+
+    @Test
+    @DisplayName("Solo deben pasar por el secuenciador los productos configurados como calientes")
+    void givenProductosConfigurados_whenGestiona_thenSoloLosCalientes() {
+        assertTrue(secuenciadorCompras.gestiona(1L));
+        assertFalse(secuenciadorCompras.gestiona(2L));
+    }
+
+    @Test
+    @DisplayName("Debe responder con exactitud a cada comprador y agrupar las compras concurrentes en pocos lotes")
+    void givenCompradoresConcurrentes_whenRealizarCompra_thenRespuestasExactasYPocosLotes() throws Exception {
+        AtomicInteger compras = new AtomicInteger();
+        AtomicInteger rechazos = new AtomicInteger();
+        CountDownLatch salida = new CountDownLatch(1);
+
+        ExecutorService compradores = Executors.newFixedThreadPool(64);
+        try {
+            List<Future<?>> tareas = new ArrayList<>();
+            for (int i = 0; i < COMPRADORES; i++) {
+                tareas.add(compradores.submit(() -> {
+                    salida.await();
+                    try {
+                        inventarioService.realizarCompra(new CompraRequest(1L, 1));
+                        compras.incrementAndGet();
+                    } catch (StockNotAvailableException e) {
+                        rechazos.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            salida.countDown();
+            for (Future<?> tarea : tareas) {
+                tarea.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            compradores.shutdownNow();
+        }
+
+        assertEquals(STOCK_INICIAL, compras.get());
+        assertEquals(COMPRADORES - STOCK_INICIAL, rechazos.get());
+        assertEquals(0, inventarioRepository.findCantidadByProductoId(1L).orElseThrow());
+
+        long lotes = meterRegistry.get("inventario.compras.lote").summary().count();
+        assertTrue(lotes < COMPRADORES, "se esperaban menos lotes que compradores y hubo " + lotes);
+    }
+
+    @Test
+    @DisplayName("Debe retirar las colas de los productos que ya no tienen compras pendientes")
+    void givenComprasDeMuchosProductos_whenSeVacianLasColas_thenNoQuedanColasVivas() throws Exception {
+        int productos = 200;
+        ExecutorService compradores = Executors.newFixedThreadPool(16);
+        try {
+            List<Future<Optional<Integer>>> tareas = new ArrayList<>();
+            for (long productoId = 1_000; productoId < 1_000 + productos; productoId++) {
+                long id = productoId;
+                tareas.add(compradores.submit(() -> secuenciadorCompras.descontarStock(id, 1)));
+            }
+            for (Future<Optional<Integer>> tarea : tareas) {
+                assertTrue(tarea.get(30, TimeUnit.SECONDS).isEmpty());
+            }
+        } finally {
+            compradores.shutdownNow();
+        }
+
+        // Cada escritor retira su cola justo después de responder, así que se espera a que terminen todos.
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        double colas;
+        while ((colas = meterRegistry.get("inventario.compras.colas").gauge().value()) > 0
+                && System.nanoTime() < limite) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, colas);
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.Inventario.service;
+
+import com.example.Inventario.model.Inventario;
+import com.example.Inventario.repository.InventarioRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles("test")
+class StockServiceLoteTest {
+
+    @Autowired
+    private StockService stockService;
+
+    @Autowired
+    private InventarioRepository inventarioRepository;
+
+    @BeforeEach
+    void setUp() {
+        inventarioRepository.deleteAll();
+        inventarioRepository.saveAll(List.of(new Inventario(1L, 10), new Inventario(2L, 3), new Inventario(3L, 7)));
+    }
+
+    @Test
+    @DisplayName("Debe descontar todas las líneas del lote y devolver las cantidades resultantes")
+    void givenStockSuficiente_whenDescontarStockLote_thenAllLinesApplied() {
+        Map<Long, Integer> resultado = stockService.descontarStockLote(new TreeMap<>(Map.of(1L, 4, 2L, 3, 3L, 1)));
+
+        assertEquals(Map.of(1L, 6, 2L, 0, 3L, 6), resultado);
+        assertEquals(6, inventarioRepository.findCantidadByProductoId(1L).orElseThrow());
+        assertEquals(0, inventarioRepository.findCantidadByProductoId(2L).orElseThrow());
+    }
+
+    @Test
+    @DisplayName("Debe revertir todo el lote si una línea no tiene stock suficiente")
+    void givenUnaLineaSinStock_whenDescontarStockLote_thenNothingApplied() {
+        StockService.LineaRechazadaException thrown = assertThrows(StockService.LineaRechazadaException.class, () ->
+                stockService.descontarStockLote(new TreeMap<>(Map.of(1L, 4, 2L, 5, 3L, 1))));
+
+        assertEquals(2L, thrown.getProductoId());
+        assertEquals(10, inventarioRepository.findCantidadByProductoId(1L).orElseThrow());
+        assertEquals(3, inventarioRepository.findCantidadByProductoId(2L).orElseThrow());
+        assertEquals(7, inventarioRepository.findCantidadByProductoId(3L).orElseThrow());
+    }
+}
@@ -0,0 +1,157 @@
+package com.example.Inventario.service;
+
+import com.example.Inventario.event.InventarioActualizadoEvent;
+import com.example.Inventario.exception.StockNotAvailableException;
+import com.example.Inventario.model.EventoInventarioOutbox;
+import com.example.Inventario.model.Inventario;
+import com.example.Inventario.repository.CantidadInventario;
+import com.example.Inventario.repository.EventoInventarioOutboxRepository;
+import com.example.Inventario.repository.InventarioRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class StockServiceTest {
+
+    @Mock
+    private InventarioRepository inventarioRepository;
+
+    @Mock
+    private EventoInventarioOutboxRepository outboxRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @InjectMocks
+    private StockService stockService;
+
+    @Test
+    @DisplayName("Debe descontar el stock y publicar el evento con las cantidades anterior y nueva")
+    void givenStockSuficiente_whenDescontarStock_thenPublishEvent() {
+        when(inventarioRepository.descontarStock(1L, 5)).thenReturn(Optional.of(cantidadInventario(1L, 5, 4L)));
+
+        assertEquals(Optional.of(5), stockService.descontarStock(1L, 5));
+
+        verify(eventPublisher, times(1)).publishEvent(argThat((InventarioActualizadoEvent event) ->
+                event.getProductoId().equals(1L) && event.getOldCantidad() == 10 && event.getNewCantidad() == 5
+                        && event.getVersionInventario() == 4));
+        verify(outboxRepository, times(1)).save(argThat((EventoInventarioOutbox evento) ->
+                evento.getProductoId().equals(1L) && evento.getCantidadAnterior() == 10 && evento.getCantidadNueva() == 5
+                        && evento.getVersionInventario() == 4));
+    }
+
+    @Test
+    @DisplayName("No debe publicar evento si el descuento no se aplicó")
+    void givenStockInsuficiente_whenDescontarStock_thenNoEvent() {
+        when(inventarioRepository.descontarStock(1L, 15)).thenReturn(Optional.empty());
+
+        assertTrue(stockService.descontarStock(1L, 15).isEmpty());
+
+        verify(eventPublisher, never()).publishEvent(any());
+        verify(outboxRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("Debe actualizar la cantidad y registrar el cambio en el evento y en la tabla outbox")
+    void givenInventarioExistente_whenActualizarCantidad_thenPublishEventAndWriteOutbox() {
+        Inventario inventario = new Inventario(1L, 10);
+        inventario.setVersion(2L);
+        when(inventarioRepository.findById(1L)).thenReturn(Optional.of(inventario));
+        when(inventarioRepository.saveAndFlush(inventario)).thenAnswer(invocacion -> {
+            inventario.setVersion(3L);
+            return inventario;
+        });
+
+        Inventario actualizado = stockService.actualizarCantidad(1L, 25).orElseThrow();
+
+        assertEquals(25, actualizado.getCantidad());
+        assertEquals(3L, actualizado.getVersion());
+
+        verify(eventPublisher, times(1)).publishEvent(argThat((InventarioActualizadoEvent event) ->
+                event.getOldCantidad() == 10 && event.getNewCantidad() == 25 && event.getVersionInventario() == 3));
+        verify(outboxRepository, times(1)).save(argThat((EventoInventarioOutbox evento) ->
+                evento.getCantidadAnterior() == 10 && evento.getCantidadNueva() == 25 && evento.getVersionInventario() == 3));
+    }
+
+    @Test
+    @DisplayName("Debe rechazar una cantidad menor que las unidades reservadas sin escribir nada")
+    void givenCantidadMenorQueReservada_whenActualizarCantidad_thenStockNotAvailable() {
+        when(inventarioRepository.findById(1L)).thenReturn(Optional.of(new Inventario(1L, 10, 6)));
+
+        assertThrows(StockNotAvailableException.class, () -> stockService.actualizarCantidad(1L, 5));
+
+        verify(inventarioRepository, never()).saveAndFlush(any());
+        verifyNoInteractions(eventPublisher, outboxRepository);
+    }
+
+    @Test
+    @DisplayName("No debe registrar cambios si el inventario a actualizar no existe")
+    void givenInventarioInexistente_whenActualizarCantidad_thenEmpty() {
+        when(inventarioRepository.findById(1L)).thenReturn(Optional.empty());
+
+        assertTrue(stockService.actualizarCantidad(1L, 25).isEmpty());
+
+        verifyNoInteractions(eventPublisher, outboxRepository);
+    }
+
+    @Test
+    @DisplayName("Debe aplicar las compras agrupadas en orden de llegada, sin tocar las unidades reservadas, con un único descuento neto")
+    void givenComprasAgrupadas_whenDescontarStockAgrupado_thenAceptaEnOrdenYDescuentaUnaVez() {
+        Inventario inventario = new Inventario(1L, 12, 2);
+        inventario.setVersion(7L);
+        when(inventarioRepository.findByProductoIdParaActualizar(1L)).thenReturn(Optional.of(inventario));
+
+        List<Optional<Integer>> resultados = stockService.descontarStockAgrupado(1L, List.of(4, 7, 5, 1));
+
+        assertEquals(List.of(Optional.of(8), Optional.empty(), Optional.of(3), Optional.of(2)), resultados);
+        verify(inventarioRepository, times(1)).descontarStockNeto(1L, 10, 3);
+        verify(eventPublisher, times(3)).publishEvent(any(InventarioActualizadoEvent.class));
+        verify(outboxRepository, times(1)).saveAll(argThat((List<EventoInventarioOutbox> eventos) ->
+                eventos.stream().map(EventoInventarioOutbox::getVersionInventario).toList().equals(List.of(8L, 9L, 10L))));
+    }
+
+    @Test
+    @DisplayName("Debe rechazar todas las compras agrupadas si el inventario no existe")
+    void givenInventarioInexistente_whenDescontarStockAgrupado_thenRechazaTodas() {
+        when(inventarioRepository.findByProductoIdParaActualizar(1L)).thenReturn(Optional.empty());
+
+        assertEquals(List.of(Optional.empty(), Optional.empty()), stockService.descontarStockAgrupado(1L, List.of(1, 2)));
+
+        verify(inventarioRepository, never()).descontarStockNeto(anyLong(), anyInt(), anyInt());
+        verifyNoInteractions(eventPublisher, outboxRepository);
+    }
+
+    private static CantidadInventario cantidadInventario(Long productoId, int cantidad, long version) {
+        return new CantidadInventario() {
+            @Override
+            public Long getProductoId() {
+                return productoId;
+            }
+
+            @Override
+            public Integer getCantidad() {
+                return cantidad;
+            }
+
+            @Override
+            public Long getVersion() {
+                return version;
+            }
+        };
+    }
+}